@@ -0,0 +1,94 @@
+package io.chronoforge.api;
+
+import io.chronoforge.core.NodeRetirementRegistry;
+import io.chronoforge.core.NodeRetirements;
+import io.chronoforge.store.pg.DocSnapshotRepository;
+import io.chronoforge.store.pg.PostgresEventStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Optional;
+
+/** Operational views of background workers. */
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+
+    private final ObjectProvider<DocProjector> projector;
+    private final ObjectProvider<DocSnapshotRepository> snapshots;
+    private final ObjectProvider<PostgresEventStore> postgres;
+    private final SseHub sse;
+    private final NodeRetirementRegistry retirements;
+
+    public AdminController(ObjectProvider<DocProjector> projector, ObjectProvider<DocSnapshotRepository> snapshots,
+                           ObjectProvider<PostgresEventStore> postgres, SseHub sse, NodeRetirementRegistry retirements) {
+        this.projector = projector;
+        this.snapshots = snapshots;
+        this.postgres = postgres;
+        this.sse = sse;
+        this.retirements = retirements;
+    }
+
+    /** Phase, queue depth, projection lag (ms) and last batch size/duration of the doc projector; 404 without the pg store. */
+    @GetMapping("/projector")
+    public ResponseEntity<DocProjector.Stats> projector() {
+        var p = projector.getIfAvailable();
+        return p != null ? ResponseEntity.ok(p.stats()) : ResponseEntity.notFound().build();
+    }
+
+    /** Starts a full snapshot rebuild from the event log; progress shows up in GET /projector. */
+    @PostMapping("/projector:rebuild")
+    public ResponseEntity<DocProjector.Stats> rebuild() {
+        var p = projector.getIfAvailable();
+        if (p == null) return ResponseEntity.notFound().build();
+        var status = p.requestRebuild() ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT;
+        return ResponseEntity.status(status).body(p.stats());
+    }
+
+    /** Snapshot cache hit/miss/eviction counters and weight; 404 when the cache is off or without the pg store. */
+    @GetMapping("/doc-cache")
+    public ResponseEntity<DocSnapshotRepository.CacheSummary> docCache() {
+        var s = snapshots.getIfAvailable();
+        return ResponseEntity.of(s == null ? Optional.empty() : s.cacheSummary());
+    }
+
+    /** Connected SSE clients and what the hub sent, dropped, coalesced or cut off for being slow. */
+    @GetMapping("/sse")
+    public SseHub.Stats sse() {
+        return sse.stats();
+    }
+
+    public record RetireReq(List<String> nodes) {}
+
+    /**
+     * Retires nodes that have stopped writing, as one generation: clocks fold them into their
+     * baseline from then on and further appends from them are refused. 404 without the pg store.
+     */
+    @PostMapping("/nodes:retire")
+    public ResponseEntity<List<NodeRetirements.Retired>> retireNodes(@RequestBody RetireReq req) {
+        var pg = postgres.getIfAvailable();
+        if (pg == null) return ResponseEntity.notFound().build();
+        var nodes = req.nodes() == null ? List.<String>of() : req.nodes();
+        return ResponseEntity.ok(pg.retireNodes(nodes).retired());
+    }
+
+    /** Retired nodes with generation and final counter, as this instance interprets clocks. */
+    @GetMapping("/nodes/retired")
+    public List<NodeRetirements.Retired> retiredNodes() {
+        return retirements.current().retired();
+    }
+
+    /** Append de-duplication counters: duplicate rate, pre-filter hits and short-circuits, key replays. */
+    @GetMapping("/append-dedupe")
+    public ResponseEntity<PostgresEventStore.DedupeStats> appendDedupe() {
+        var pg = postgres.getIfAvailable();
+        return pg != null ? ResponseEntity.ok(pg.dedupeStats()) : ResponseEntity.notFound().build();
+    }
+}
@@ -0,0 +1,18 @@
+package io.chronoforge.api;
+
+import io.chronoforge.core.NodeRetirements;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/** Maps store-level refusals to client errors instead of 500s. */
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    /** A write from a retired node: the node name must not be reused. */
+    @ExceptionHandler(NodeRetirements.RetiredNodeException.class)
+    public ProblemDetail retiredNode(NodeRetirements.RetiredNodeException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, e.getMessage());
+    }
+}
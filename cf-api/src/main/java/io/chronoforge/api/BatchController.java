@@ -0,0 +1,154 @@
+package io.chronoforge.api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.chronoforge.core.Determinism;
+import io.chronoforge.core.NodeRetirements.RetiredNodeException;
+import io.chronoforge.core.TemporalEvent;
+import io.chronoforge.core.TemporalId;
+import io.chronoforge.store.AppendResult;
+import io.chronoforge.store.EventStore;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Many events, for any entities, in one request. The body is read incrementally, so its size
+ * does not matter; events go to the store in chunks of cf.api.batch.chunk-size (default 500).
+ *
+ * Determinism: with X-CF-Seed, line {@code i} (0-based) runs under seed {@code seed + i}, so each
+ * line gets its own reproducible time one second after the previous one; a line may also carry
+ * its own {@code seed}. A line's {@code node} overrides X-CF-Node.
+ */
+@RestController
+@RequestMapping("/api/time")
+public class BatchController {
+
+    record BatchItem(String entityId, String type, Map<String, Object> payload, String node, Long seed) {}
+
+    /** One chunk handed to {@link EventStore#append}; {@code first} is the index of its first line. */
+    public record ChunkResult(int first, int events, int appended, int duplicates) {}
+
+    /**
+     * Totals and per-chunk results. On an error, lines before {@code failedAt} are stored and the
+     * rest of the body is not; resend from there. A bad line or a chunk the store rejects is a 400,
+     * a chunk from a retired node a 409.
+     */
+    public record BatchResult(int events, int appended, int duplicates, List<ChunkResult> chunks,
+                              Integer failedAt, String error) {}
+
+    private final EventStore store;
+    private final ObjectReader items;
+    private final int chunkSize;
+
+    public BatchController(EventStore store, ObjectMapper mapper,
+                           @Value("${cf.api.batch.chunk-size:500}") int chunkSize) {
+        this.store = store;
+        this.items = mapper.readerFor(BatchItem.class);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Body: a JSON array of {entityId, type, payload, node?, seed?} or the same objects as NDJSON,
+     * one per line; gzip'd bodies are accepted with Content-Encoding: gzip.
+     */
+    @PostMapping(path = "/events:batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BatchResult> batch(HttpServletRequest request,
+                                             @RequestHeader(name = "X-CF-Seed", required = false) String seedHeader,
+                                             @RequestHeader(name = "X-CF-Node", required = false) String nodeHeader) throws IOException {
+        Long baseSeed = seedHeader == null || seedHeader.isBlank() ? null : Long.parseLong(seedHeader.trim());
+        boolean gzip = "gzip".equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING));
+        var chunks = new ArrayList<ChunkResult>();
+        var chunk = new ArrayList<TemporalEvent>(chunkSize);
+        int[] totals = new int[3];
+        int line = 0;
+        try (InputStream in = gzip ? new GZIPInputStream(request.getInputStream(), 1 << 16) : request.getInputStream();
+             MappingIterator<BatchItem> it = items.readValues(in)) {
+            try {
+                // both a root-level array and a sequence of root-level objects come out one item at a time
+                while (it.hasNextValue()) {
+                    var item = it.nextValue();
+                    chunk.add(event(item, line, baseSeed, nodeHeader));
+                    line++;
+                    if (chunk.size() == chunkSize) flush(chunk, line, chunks, totals);
+                }
+            } catch (JsonProcessingException | IllegalArgumentException e) {
+                // a bad line: keep every valid line before it
+                flush(chunk, line, chunks, totals);
+                return failed(HttpStatus.BAD_REQUEST, totals, chunks, line, e.getMessage());
+            }
+            flush(chunk, line, chunks, totals);
+        } catch (ChunkRejected r) {
+            if (r.getCause() instanceof RetiredNodeException retired) {
+                return failed(HttpStatus.CONFLICT, totals, chunks, r.first, retired.getMessage());
+            }
+            if (r.getCause() instanceof IllegalArgumentException refused) {
+                return failed(HttpStatus.BAD_REQUEST, totals, chunks, r.first, refused.getMessage());
+            }
+            throw (RuntimeException) r.getCause();
+        }
+        return ResponseEntity.ok(new BatchResult(totals[0], totals[1], totals[2], chunks, null, null));
+    }
+
+    private static ResponseEntity<BatchResult> failed(HttpStatus status, int[] totals, List<ChunkResult> chunks,
+                                                      int failedAt, String error) {
+        return ResponseEntity.status(status).body(new BatchResult(totals[0], totals[1], totals[2], chunks, failedAt, error));
+    }
+
+    private static TemporalEvent event(BatchItem item, int line, Long baseSeed, String nodeHeader) {
+        if (item.entityId() == null || item.type() == null) {
+            throw new IllegalArgumentException("entityId and type are required");
+        }
+        var entityId = new TemporalId(UUID.fromString(item.entityId()));
+        var node = item.node() == null || item.node().isBlank() ? nodeHeader : item.node();
+        Long seed = item.seed() != null ? item.seed() : baseSeed == null ? null : baseSeed + line;
+        if (seed == null) return TemporalController.newEvent(entityId, item.type(), item.payload(), node);
+        return Determinism.withDeterminism(node, seed,
+                () -> TemporalController.newEvent(entityId, item.type(), item.payload(), null));
+    }
+
+    /**
+     * Appends and clears {@code chunk}, whose last line is {@code end - 1}. A chunk the store
+     * throws on is cleared as well and surfaces as {@link ChunkRejected}: it is reported, never sent again.
+     */
+    private void flush(List<TemporalEvent> chunk, int end, List<ChunkResult> chunks, int[] totals) {
+        if (chunk.isEmpty()) return;
+        int first = end - chunk.size(), size = chunk.size();
+        AppendResult result;
+        try {
+            result = store.append(List.copyOf(chunk));
+        } catch (RuntimeException e) {
+            throw new ChunkRejected(first, e);
+        } finally {
+            chunk.clear();
+        }
+        chunks.add(new ChunkResult(first, size, result.appendedCount(), result.duplicateCount()));
+        totals[0] += size;
+        totals[1] += result.appendedCount();
+        totals[2] += result.duplicateCount();
+    }
+
+    /** The store threw on the chunk starting at line {@code first}; nothing from there on is stored. */
+    private static final class ChunkRejected extends RuntimeException {
+        final int first;
+
+        ChunkRejected(int first, RuntimeException cause) {
+            super(cause);
+            this.first = first;
+        }
+    }
+}
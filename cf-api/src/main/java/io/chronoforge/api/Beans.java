@@ -1,29 +1,148 @@
 package io.chronoforge.api;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.chronoforge.core.NodeRetirementRegistry;
 import io.chronoforge.store.EventStore;
+import io.chronoforge.store.GroupCommitEventStore;
 import io.chronoforge.store.InMemoryEventStore;
+import io.chronoforge.store.file.FileEventStore;
+import io.chronoforge.store.pg.DocCheckpointRepository;
 import io.chronoforge.store.pg.DocSnapshotRepository;
+import io.chronoforge.store.pg.EventPartitions;
+import io.chronoforge.store.pg.PostgresAppendListener;
+import io.chronoforge.store.pg.PostgresBulkTransfer;
 import io.chronoforge.store.pg.PostgresEventStore;
+import io.chronoforge.store.pg.ProjectorOffsetRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 
 @Configuration
 public class Beans {
+    /** Qualifies the store the active profile configures; everything else gets {@link #eventStore}. */
+    static final String BACKEND = "backend";
+
+    /**
+     * Retired nodes clocks are read with; the pg store keeps it current (see NodeRetirementSync),
+     * other stores never retire nodes.
+     */
     @Bean
+    NodeRetirementRegistry nodeRetirements() {
+        return new NodeRetirementRegistry();
+    }
+
+    @Bean
+    @Qualifier(BACKEND)
     @Profile("inmem")
-    EventStore inMemoryStore() {
-        return new InMemoryEventStore();
+    InMemoryEventStore inMemoryStore(@Value("${cf.idempotency.ttl:P1D}") Duration idempotencyTtl) {
+        return new InMemoryEventStore(idempotencyTtl);
+    }
+
+    /**
+     * Local segment files; no database needed, so no DataSource or Flyway and no doc projector.
+     *
+     * cf.store.file.dir           — segment directory (default data/events)
+     * cf.store.file.segment-bytes — size of each preallocated segment, named after its first seq (default 67108864)
+     * cf.store.file.fsync         — ALWAYS forces each append, INTERVAL every cf.store.file.fsync-interval
+     *                               (see FileStoreSync), NEVER leaves it to the OS (default ALWAYS)
+     * cf.idempotency.ttl          — how long a key blocks retries (default P1D)
+     */
+    @Bean(destroyMethod = "close")
+    @Qualifier(BACKEND)
+    @Profile("file")
+    FileEventStore fileStore(ObjectMapper mapper,
+                         @Value("${cf.store.file.dir:data/events}") Path dir,
+                         @Value("${cf.store.file.segment-bytes:67108864}") int segmentBytes,
+                         @Value("${cf.store.file.fsync:ALWAYS}") FileEventStore.Fsync fsync,
+                         @Value("${cf.idempotency.ttl:P1D}") Duration idempotencyTtl) throws IOException {
+        return FileEventStore.open(dir, mapper, segmentBytes, fsync, idempotencyTtl);
     }
 
     @Bean
+    @Qualifier(BACKEND)
+    @Profile("pg")
+    PostgresEventStore postgresStore(JdbcTemplate jdbc, TransactionTemplate tx, ObjectMapper mapper, NodeRetirementRegistry retirements,
+                             @Value("${cf.store.pg.append-batch-size:500}") int appendBatchSize,
+                             @Value("${cf.store.pg.fetch-size:1000}") int fetchSize,
+                             @Value("${cf.store.pg.dedupe-filter.expected-insertions:1000000}") long filterSize,
+                             @Value("${cf.store.pg.dedupe-filter.fpp:0.01}") double filterFpp,
+                             @Value("${cf.store.pg.dedupe-filter.warm:100000}") int filterWarm) {
+        var store = new PostgresEventStore(jdbc, tx, mapper, appendBatchSize, fetchSize, filterSize, filterFpp, retirements);
+        store.warmDuplicateFilter(filterWarm);
+        return store;
+    }
+
+    /**
+     * The EventStore everything injects: the profile's store with each call timed (see
+     * MeteredEventStore). Components needing store-specific operations inject the concrete type.
+     */
+    @Bean
+    @Primary
+    EventStore eventStore(@Qualifier(BACKEND) EventStore backend, MeterRegistry registry) {
+        return new MeteredEventStore(backend, registry);
+    }
+
+    /**
+     * Opt-in group commit for the single-event writers (TemporalController, DocController): their
+     * concurrent appends are written as one batch. The store stays the primary EventStore.
+     * cf.store.group-commit.enabled / window (wait for more appends after the first) / max-batch (events).
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "cf.store.group-commit.enabled", havingValue = "true")
+    GroupCommitEventStore groupCommitStore(EventStore store,
+                                           @Value("${cf.store.group-commit.window:PT0.002S}") Duration window,
+                                           @Value("${cf.store.group-commit.max-batch:500}") int maxBatch) {
+        return new GroupCommitEventStore(store, window, maxBatch);
+    }
+
+    /**
+     * Cross-JVM delivery for subscribe(): on by default; holds one unpooled connection.
+     * cf.store.pg.listen.enabled / batch-size / poll-interval.
+     */
+    @Bean(initMethod = "start", destroyMethod = "close")
     @Profile("pg")
-    EventStore postgresStore(JdbcTemplate jdbc, ObjectMapper mapper) {
-        return new PostgresEventStore(jdbc, mapper);
+    @ConditionalOnProperty(name = "cf.store.pg.listen.enabled", havingValue = "true", matchIfMissing = true)
+    PostgresAppendListener appendListener(PostgresEventStore store, DataSourceProperties props,
+                                          @Value("${cf.store.pg.listen.batch-size:500}") int batchSize,
+                                          @Value("${cf.store.pg.listen.poll-interval:PT1S}") Duration pollInterval) {
+        var dedicated = new DriverManagerDataSource(props.determineUrl(), props.determineUsername(), props.determinePassword());
+        return new PostgresAppendListener(dedicated, store, batchSize, pollInterval);
     }
 
     @Bean @Profile("pg")
-    DocSnapshotRepository docSnapshots(JdbcTemplate jdbc, ObjectMapper mapper) { return new DocSnapshotRepository(jdbc, mapper); }
+    PostgresBulkTransfer bulkTransfer(JdbcTemplate jdbc, ObjectMapper mapper,
+                                      @Value("${cf.store.pg.import-chunk-rows:100000}") int chunkRows) {
+        return new PostgresBulkTransfer(jdbc, mapper, chunkRows);
+    }
+
+    @Bean @Profile("pg")
+    EventPartitions eventPartitions(JdbcTemplate jdbc,
+                                    @Value("${cf.partitions.interval:MONTH}") EventPartitions.Interval interval) {
+        return new EventPartitions(jdbc, interval);
+    }
+
+    @Bean @Profile("pg")
+    DocSnapshotRepository docSnapshots(JdbcTemplate jdbc, ObjectMapper mapper,
+                                       @Value("${cf.docs.cache.max-bytes:67108864}") long cacheMaxBytes) {
+        return new DocSnapshotRepository(jdbc, mapper, cacheMaxBytes);
+    }
+
+    @Bean @Profile("pg")
+    DocCheckpointRepository docCheckpoints(JdbcTemplate jdbc, ObjectMapper mapper) { return new DocCheckpointRepository(jdbc, mapper); }
+
+    @Bean @Profile("pg")
+    ProjectorOffsetRepository projectorOffsets(JdbcTemplate jdbc) { return new ProjectorOffsetRepository(jdbc); }
 }
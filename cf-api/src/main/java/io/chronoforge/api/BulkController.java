@@ -0,0 +1,70 @@
+package io.chronoforge.api;
+
+import io.chronoforge.store.pg.PostgresBulkTransfer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/** Bulk NDJSON import/export of the event log (Postgres COPY; memory stays flat). */
+@RestController
+@Profile("pg")
+@RequestMapping("/api/time")
+public class BulkController {
+    static final String NDJSON = "application/x-ndjson";
+    static final String GZIP = "application/gzip";
+
+    private final PostgresBulkTransfer bulk;
+
+    public BulkController(PostgresBulkTransfer bulk) {
+        this.bulk = bulk;
+    }
+
+    /**
+     * Body: NDJSON events; gzip'd bodies are accepted with Content-Encoding: gzip or Content-Type: application/gzip.
+     * A bad line is a 400 naming it in {@code failedAt}; the chunks before it are kept.
+     */
+    @PostMapping(path = "/events:import", consumes = {NDJSON, GZIP})
+    public ResponseEntity<PostgresBulkTransfer.ImportResult> importEvents(HttpServletRequest request) throws IOException {
+        boolean gzip = "gzip".equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING))
+                || GZIP.equalsIgnoreCase(request.getContentType());
+        try (InputStream in = gzip ? new GZIPInputStream(request.getInputStream(), 1 << 16) : request.getInputStream()) {
+            var result = bulk.importNdjson(in);
+            return ResponseEntity.status(result.failedAt() == null ? HttpStatus.OK : HttpStatus.BAD_REQUEST).body(result);
+        }
+    }
+
+    /** Streams events as NDJSON (or a gzip'd .ndjson.gz download with gzip=true). */
+    @GetMapping("/events:export")
+    public void exportEvents(
+            @RequestParam(name = "entityId", required = false) UUID entityId,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(name = "to", required = false)   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(name = "gzip", defaultValue = "false") boolean gzip,
+            HttpServletResponse response) throws IOException {
+        if (gzip) {
+            response.setContentType(GZIP);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"cf_event.ndjson.gz\"");
+            try (OutputStream out = new GZIPOutputStream(response.getOutputStream(), 1 << 16)) {
+                bulk.exportNdjson(out, entityId, from, to);
+            }
+        } else {
+            response.setContentType(NDJSON);
+            var out = response.getOutputStream();
+            bulk.exportNdjson(out, entityId, from, to);
+            out.flush();
+        }
+    }
+}
@@ -4,11 +4,19 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.Map;
 
 @SpringBootApplication(scanBasePackages = "io.chronoforge")
+@EnableScheduling
 public class CfApplication {
     public static void main(String[] args) {
-        SpringApplication.run(CfApplication.class, args);
+        var app = new SpringApplication(CfApplication.class);
+        // defaults only: any property source overrides them
+        app.setDefaultProperties(Map.of(
+                "management.endpoints.web.exposure.include", "health,metrics,prometheus"));
+        app.run(args);
     }
 
     @Bean
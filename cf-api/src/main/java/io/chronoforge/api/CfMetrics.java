@@ -0,0 +1,104 @@
+package io.chronoforge.api;
+
+import io.chronoforge.store.EventStore;
+import io.chronoforge.store.GroupCommitEventStore;
+import io.chronoforge.store.pg.DocSnapshotRepository;
+import io.chronoforge.store.pg.PostgresEventStore;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes the counters the workers already keep (the ones behind /api/admin) as Micrometer
+ * meters, read at scrape time: the store's bus, the doc projector, the snapshot cache, append
+ * de-duplication, group commit and SSE. Store call timings come from {@link MeteredEventStore}.
+ */
+@Component
+public class CfMetrics implements MeterBinder {
+    private final EventStore store;
+    private final SseHub sse;
+    private final ObjectProvider<DocProjector> projector;
+    private final ObjectProvider<DocSnapshotRepository> snapshots;
+    private final ObjectProvider<PostgresEventStore> postgres;
+    private final ObjectProvider<GroupCommitEventStore> groupCommit;
+
+    public CfMetrics(EventStore store, SseHub sse, ObjectProvider<DocProjector> projector,
+                     ObjectProvider<DocSnapshotRepository> snapshots, ObjectProvider<PostgresEventStore> postgres,
+                     ObjectProvider<GroupCommitEventStore> groupCommit) {
+        this.store = store;
+        this.sse = sse;
+        this.projector = projector;
+        this.snapshots = snapshots;
+        this.postgres = postgres;
+        this.groupCommit = groupCommit;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (store.subscribe() instanceof SubmissionPublisher<?> bus) {
+            Gauge.builder("cf.store.bus.lag", bus, SubmissionPublisher::estimateMaximumLag)
+                    .description("Most events any subscriber has yet to consume").baseUnit("events").register(registry);
+            Gauge.builder("cf.store.bus.subscribers", bus, SubmissionPublisher::getNumberOfSubscribers)
+                    .register(registry);
+        }
+
+        projector.ifAvailable(p -> {
+            Gauge.builder("cf.projector.queued", p, x -> x.stats().queued())
+                    .description("Events waiting to be projected").baseUnit("events").register(registry);
+            TimeGauge.builder("cf.projector.lag", p, TimeUnit.MILLISECONDS, x -> x.stats().lagMillis())
+                    .description("Age of the oldest event not yet in its snapshot").register(registry);
+            counter(registry, "cf.projector.projected", p, x -> x.stats().projected());
+            FunctionTimer.builder("cf.projector.upsert", p, x -> x.stats().batches(), DocProjector::upsertNanos, TimeUnit.NANOSECONDS)
+                    .description("Snapshot batch upserts").register(registry);
+        });
+
+        snapshots.ifAvailable(s -> {
+            if (s.cacheSummary().isEmpty()) return;
+            counter(registry, "cf.docs.cache.hits", s, x -> cache(x).hits());
+            counter(registry, "cf.docs.cache.misses", s, x -> cache(x).misses());
+            counter(registry, "cf.docs.cache.evictions", s, x -> cache(x).evictions());
+            Gauge.builder("cf.docs.cache.weight", s, x -> cache(x).weightBytes()).baseUnit("bytes").register(registry);
+        });
+
+        postgres.ifAvailable(pg -> {
+            counter(registry, "cf.store.pg.dedupe.events", pg, x -> x.dedupeStats().events());
+            counter(registry, "cf.store.pg.dedupe.duplicates", pg, x -> x.dedupeStats().duplicates());
+            counter(registry, "cf.store.pg.dedupe.filter.hits", pg, x -> x.dedupeStats().filterHits());
+            counter(registry, "cf.store.pg.dedupe.short-circuited", pg, x -> x.dedupeStats().shortCircuited());
+            counter(registry, "cf.store.pg.dedupe.key-replays", pg, x -> x.dedupeStats().keyReplays());
+            FunctionTimer.builder("cf.store.pg.hash", pg, x -> x.dedupeStats().events(), x -> x.dedupeStats().hashNanos(), TimeUnit.NANOSECONDS)
+                    .description("Serializing and hashing appended events (count = events)").register(registry);
+        });
+
+        groupCommit.ifAvailable(g -> {
+            counter(registry, "cf.store.group-commit.batches", g, x -> x.stats().batches());
+            counter(registry, "cf.store.group-commit.appends", g, x -> x.stats().appends());
+            counter(registry, "cf.store.group-commit.events", g, x -> x.stats().events());
+        });
+
+        Gauge.builder("cf.sse.clients", sse, x -> x.stats().clients()).register(registry);
+        counter(registry, "cf.sse.sent", sse, x -> x.stats().sent());
+        counter(registry, "cf.sse.dropped", sse, x -> x.stats().dropped());
+        counter(registry, "cf.sse.coalesced", sse, x -> x.stats().coalesced());
+        counter(registry, "cf.sse.disconnected", sse, x -> x.stats().disconnected());
+        counter(registry, "cf.sse.resumed", sse, x -> x.stats().resumed());
+        counter(registry, "cf.sse.replayed", sse, x -> x.stats().replayed());
+    }
+
+    private static <T> void counter(MeterRegistry registry, String name, T source, ToDoubleFunction<T> count) {
+        FunctionCounter.builder(name, source, count).register(registry);
+    }
+
+    private static DocSnapshotRepository.CacheSummary cache(DocSnapshotRepository s) {
+        return s.cacheSummary().orElseThrow();
+    }
+}
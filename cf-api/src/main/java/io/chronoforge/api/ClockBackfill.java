@@ -0,0 +1,48 @@
+package io.chronoforge.api;
+
+import io.chronoforge.store.pg.PostgresEventStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Converts events written before the node dictionary (JSONB clocks) to encoded clocks, a batch
+ * per tick, and goes idle once none are left.
+ *
+ * cf.store.pg.clock-backfill.batch    — rows per batch; 0 turns the backfill off (default 5000)
+ * cf.store.pg.clock-backfill.interval — pause between batches (default PT5S)
+ */
+@Component
+@Profile("pg")
+public class ClockBackfill {
+    private static final Logger log = LoggerFactory.getLogger(ClockBackfill.class);
+
+    private final PostgresEventStore store;
+    private final int batch;
+    private volatile boolean done;
+    private long converted;
+
+    public ClockBackfill(PostgresEventStore store, @Value("${cf.store.pg.clock-backfill.batch:5000}") int batch) {
+        this.store = store;
+        this.batch = batch;
+        this.done = batch <= 0;
+    }
+
+    @Scheduled(initialDelayString = "${cf.store.pg.clock-backfill.interval:PT5S}", fixedDelayString = "${cf.store.pg.clock-backfill.interval:PT5S}")
+    public void step() {
+        if (done) return;
+        try {
+            int n = store.backfillClocks(batch);
+            converted += n;
+            if (n == 0) {
+                done = true;
+                if (converted > 0) log.info("Clock backfill finished: {} events converted", converted);
+            }
+        } catch (Exception e) {
+            log.warn("Clock backfill batch failed", e);
+        }
+    }
+}
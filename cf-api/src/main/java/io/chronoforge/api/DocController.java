@@ -1,11 +1,16 @@
 package io.chronoforge.api;
 
 import io.chronoforge.core.Determinism;
+import io.chronoforge.core.NodeRetirementRegistry;
 import io.chronoforge.core.TemporalEvent;
 import io.chronoforge.core.TemporalId;
 import io.chronoforge.core.VectorClock;
 import io.chronoforge.store.EventStore;
+import io.chronoforge.store.GroupCommitEventStore;
+import io.chronoforge.store.pg.DocCheckpointRepository;
+import io.chronoforge.store.pg.DocCheckpointRepository.Checkpoint;
 import io.chronoforge.store.pg.DocSnapshotRepository;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -13,30 +18,44 @@ import org.springframework.web.bind.annotation.*;
 import java.time.Instant;
 import java.util.*;
 
+/**
+ * Document writes and reads. With the pg profile reads come from the projected snapshots and
+ * checkpoints; the other stores have neither, so a read replays the document's events.
+ */
 @RestController
 @RequestMapping("/api/docs")
 public class DocController {
 
     private final EventStore store;
-    private final DocSnapshotRepository repo;
-
-    public DocController(EventStore store, DocSnapshotRepository repo) {
+    private final EventStore appends;   // group commit when enabled, else the store
+    private final DocSnapshotRepository repo;               // null without the pg profile
+    private final DocCheckpointRepository checkpoints;      // null without the pg profile
+    private final NodeRetirementRegistry retirements;
+
+    public DocController(EventStore store, ObjectProvider<GroupCommitEventStore> groupCommit,
+                         ObjectProvider<DocSnapshotRepository> repo, ObjectProvider<DocCheckpointRepository> checkpoints,
+                         NodeRetirementRegistry retirements) {
         this.store = store;
-        this.repo = repo;
+        this.appends = groupCommit.getIfAvailable(() -> store);
+        this.repo = repo.getIfAvailable();
+        this.checkpoints = checkpoints.getIfAvailable();
+        this.retirements = retirements;
     }
 
     @PostMapping("/{id}/set")
-    public ResponseEntity<?> set(@PathVariable("id") String id, @RequestBody Map<String, Object> fields) {
+    public ResponseEntity<?> set(@PathVariable("id") String id, @RequestBody Map<String, Object> fields,
+                                 @RequestHeader(name = TemporalController.IDEMPOTENCY_HEADER, required = false) String idempotencyKey) {
         var entityId = new TemporalId(UUID.fromString(id));
         var node = Determinism.node();
         var vc = new VectorClock().tick(node);
         var ev = new TemporalEvent(entityId, "DOC_SET", Determinism.now(), vc, fields == null ? Map.of() : fields, node);
-        store.append(List.of(ev));
+        appends.append(List.of(ev), idempotencyKey);
         return ResponseEntity.accepted().build();
     }
 
     @PostMapping("/{id}/del")
-    public ResponseEntity<?> del(@PathVariable("id") String id, @RequestBody List<String> keys) {
+    public ResponseEntity<?> del(@PathVariable("id") String id, @RequestBody List<String> keys,
+                                 @RequestHeader(name = TemporalController.IDEMPOTENCY_HEADER, required = false) String idempotencyKey) {
         var entityId = new TemporalId(UUID.fromString(id));
         var node = Determinism.node();
         var vc = new VectorClock().tick(node);
@@ -44,7 +63,7 @@ public class DocController {
         Map<String, Object> body = Map.of("keys", keys == null ? List.of() : new java.util.ArrayList<>(keys));
 
         var ev = new TemporalEvent(entityId, "DOC_DEL", Determinism.now(), vc, body, node);
-        store.append(List.of(ev));
+        appends.append(List.of(ev), idempotencyKey);
         return ResponseEntity.accepted().build();
     }
 
@@ -55,32 +74,18 @@ public class DocController {
 
         var uuid = UUID.fromString(id);
 
-        if (at == null) {
+        if (at == null && repo != null) {
             // current snapshot
             var snap = repo.get(uuid).map(DocSnapshotRepository.Snapshot::doc).orElse(Map.of());
             return ResponseEntity.ok(snap);
         }
 
-        // time-travel: replay from events up to 'at' (no DB write)
-        var entityId = new TemporalId(uuid);
-        var events = store.read(entityId).stream()
-                .filter(e -> !e.observedAt().isAfter(at))
-                .sorted(Comparator.comparing(TemporalEvent::observedAt))
-                .toList();
-
-        var doc = new LinkedHashMap<String, Object>();
-        var snapClock = new VectorClock();
-        for (var e : events) {
-            if ("DOC_SET".equals(e.type())) {
-                e.payload().forEach(doc::put);
-            } else if ("DOC_DEL".equals(e.type())) {
-                var keys = e.payload().get("keys");
-                if (keys instanceof Collection<?> ks) ks.forEach(k -> doc.remove(String.valueOf(k)));
-            }
-            // advance clock
-            e.clock().snapshot().forEach((n, c) -> snapClock.tick(n)); // light advance; precise max not needed for read-only
-        }
-        return ResponseEntity.ok(doc);
+        // time-travel (and, without snapshots, the current doc): start from the nearest checkpoint
+        // at or before 'at' and replay only the events after it as they stream from the store (no DB write)
+        var checkpoint = checkpoints == null || at == null ? Optional.<Checkpoint>empty() : checkpoints.latest(uuid, at);
+        var replay = checkpoint.map(c -> new DocReplay(c.doc(), c.clock(), retirements.current())).orElseGet(DocReplay::new);
+        store.readEach(new TemporalId(uuid), checkpoint.map(Checkpoint::position).orElse(null), at, replay);
+        return ResponseEntity.ok(replay.doc());
     }
 
     record SetBody(Map<String, Object> fields) {
@@ -1,75 +1,445 @@
 package io.chronoforge.api;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.chronoforge.core.NodeRetirementRegistry;
+import io.chronoforge.core.NodeRetirements;
 import io.chronoforge.core.TemporalEvent;
 import io.chronoforge.core.VectorClock;
+import io.chronoforge.store.Cursor;
 import io.chronoforge.store.EventStore;
+import io.chronoforge.store.EventStore.Positioned;
+import io.chronoforge.store.LogPosition;
+import io.chronoforge.store.pg.DocCheckpointRepository;
+import io.chronoforge.store.pg.DocCheckpointRepository.Checkpoint;
 import io.chronoforge.store.pg.DocSnapshotRepository;
+import io.chronoforge.store.pg.DocSnapshotRepository.Snapshot;
+import io.chronoforge.store.pg.PostgresAppendListener;
+import io.chronoforge.store.pg.ProjectorOffsetRepository;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Projects DOC_SET/DOC_DEL into {@code cf_doc_snapshot}.
+ *
+ * The bus thread only enqueues; a single worker drains the queue in micro-batches of up to
+ * {@code cf.docs.projector.batch-size} events, waiting at most {@code cf.docs.projector.linger}
+ * for a batch to fill. A batch loads all touched snapshots with one query, folds every pending
+ * event per entity in memory (in delivery order, same rules as before) and writes the results
+ * with one multi-row upsert, so a burst of edits to one doc costs two statements, not two per edit.
+ *
+ * Progress is kept in {@code cf_projector_offset} as a commit-ordered {@link LogPosition}. On
+ * startup the worker first pages {@link EventStore#readAfter} from that position, which only
+ * returns committed rows below the oldest open transaction, so a long writer or a bulk import
+ * that commits after higher seqs is still replayed; live events queue up meanwhile (re-applying
+ * one is a no-op under the clock rules). A live batch moves the offset only when the feed is
+ * delivered in commit order, i.e. by the {@link PostgresAppendListener}; without it the bus only
+ * carries this instance's own appends, so the offset moves at catch-up alone. A full rebuild
+ * ({@link #requestRebuild()}) empties the snapshots and replays from the start. A live batch that
+ * fails sends the worker back to catch-up (after a backoff), so the offset never passes events
+ * that were not written. Replays read the log once and hand each event to one of
+ * {@code cf.docs.projector.replay-threads} workers by entity hash, so every entity's events stay
+ * in order on a single worker.
+ *
+ * pg profile only: the other stores have no snapshot tables, and DocController replays their
+ * documents from the log instead.
+ */
 @Component
+@Profile("pg")
 public class DocProjector {
     private static final Logger log = LoggerFactory.getLogger(DocProjector.class);
+    static final String OFFSET_NAME = "doc-snapshot";
+    static final int REPLAY_PAGE = 5_000;
+    private static final Queued END = new Queued(null, null, 0);
 
+    private final EventStore store;
     private final DocSnapshotRepository repo;
+    private final DocCheckpointRepository checkpoints;
+    private final ProjectorOffsetRepository offsets;
+    private final NodeRetirementRegistry retirements;
+    private final int checkpointEvents;
+    private final long checkpointNanos;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final int replayThreads;
+    private final boolean commitOrdered;
 
-    public DocProjector(EventStore store, DocSnapshotRepository repo) {
+    private final LinkedBlockingQueue<Queued> queue = new LinkedBlockingQueue<>();
+    private final Thread worker;
+    private volatile boolean running = true;
+    private volatile boolean rebuildRequested;
+    private volatile Phase phase = Phase.CATCH_UP;
+    // Per document: newest checkpoint and events seen since. Each entity is only ever touched by
+    // one thread at a time (the live worker, or its replay worker). Bounded: an evicted document
+    // reloads its position from cf_doc_checkpoint and restarts its count.
+    private final Cache<UUID, Pending> pending;
+
+    private final AtomicLong projected = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private volatile long inFlightSince;      // enqueue time of the oldest event in the running batch, 0 = idle
+    private volatile int lastBatchSize;
+    private volatile long lastBatchNanos;
+    private final AtomicLong upsertNanos = new AtomicLong();   // total time in snapshot upserts
+
+    private record Queued(TemporalEvent event, LogPosition position, long enqueuedNanos) {}
+
+    public enum Phase { CATCH_UP, REBUILD, LIVE }
+
+    /**
+     * A checkpoint is written once a document has seen {@code cf.docs.checkpoint.events} events,
+     * or on its next event once {@code cf.docs.checkpoint.interval} has passed since the first
+     * uncheckpointed one. Those counts are kept for at most {@code cf.docs.checkpoint.tracked}
+     * documents, each dropped after {@code cf.docs.checkpoint.tracked-idle} without events.
+     */
+    public DocProjector(EventStore store, DocSnapshotRepository repo, DocCheckpointRepository checkpoints,
+                        ProjectorOffsetRepository offsets, NodeRetirementRegistry retirements,
+                        @Value("${cf.docs.checkpoint.events:500}") int checkpointEvents,
+                        @Value("${cf.docs.checkpoint.interval:PT5M}") Duration checkpointInterval,
+                        @Value("${cf.docs.checkpoint.tracked:100000}") long tracked,
+                        @Value("${cf.docs.checkpoint.tracked-idle:PT1H}") Duration trackedIdle,
+                        @Value("${cf.docs.projector.batch-size:500}") int batchSize,
+                        @Value("${cf.docs.projector.linger:PT0.02S}") Duration linger,
+                        @Value("${cf.docs.projector.replay-threads:4}") int replayThreads,
+                        ObjectProvider<PostgresAppendListener> appendListener) {
+        if (checkpointEvents < 1) throw new IllegalArgumentException("cf.docs.checkpoint.events must be positive: " + checkpointEvents);
+        if (batchSize < 1) throw new IllegalArgumentException("cf.docs.projector.batch-size must be positive: " + batchSize);
+        if (replayThreads < 1) throw new IllegalArgumentException("cf.docs.projector.replay-threads must be positive: " + replayThreads);
+        this.store = store;
         this.repo = repo;
-        store.subscribe().subscribe(new Flow.Subscriber<>() {
+        this.checkpoints = checkpoints;
+        this.offsets = offsets;
+        this.retirements = retirements;
+        this.checkpointEvents = checkpointEvents;
+        this.checkpointNanos = checkpointInterval.toNanos();
+        this.batchSize = batchSize;
+        this.lingerNanos = linger.toNanos();
+        this.replayThreads = replayThreads;
+        this.commitOrdered = appendListener.getIfAvailable() != null;
+        this.pending = Caffeine.newBuilder().maximumSize(Math.max(1, tracked)).expireAfterAccess(trackedIdle).build();
+        this.worker = Thread.ofVirtual().name("cf-doc-projector").start(this::run);
+        store.subscribePositioned().subscribe(new Flow.Subscriber<>() {
             Flow.Subscription s;
             @Override public void onSubscribe(Flow.Subscription s) { (this.s = s).request(Long.MAX_VALUE); }
-            @Override public void onNext(TemporalEvent e) {
-                try { project(e); } catch (Throwable t) { log.warn("Project error", t); }
+            @Override public void onNext(Positioned p) {
+                if (isDoc(p.event())) queue.add(new Queued(p.event(), p.position(), System.nanoTime()));
             }
             @Override public void onError(Throwable t) { log.error("Bus error", t); }
             @Override public void onComplete() { }
         });
     }
 
-    private void project(TemporalEvent e) {
-        if (!("DOC_SET".equals(e.type()) || "DOC_DEL".equals(e.type()))) return;
+    /** Stops taking new batches; whatever is already queued is still projected. */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        worker.join(Duration.ofSeconds(10));
+    }
 
-        var id = e.entityId().value();
-        var snap = repo.get(id).orElse(null);
+    /**
+     * Empties {@code cf_doc_snapshot} and replays the whole log in the background; live events
+     * are held back until it finishes. False if a rebuild is already pending or running.
+     */
+    public synchronized boolean requestRebuild() {
+        if (rebuildRequested || phase == Phase.REBUILD) return false;
+        rebuildRequested = true;
+        return true;
+    }
+
+    public record Stats(Phase phase, int queued, long lagMillis, long projected, long batches,
+                        int lastBatchSize, long lastBatchMillis) {}
+
+    /** Lag is the age of the oldest event not yet written to its snapshot. */
+    public Stats stats() {
+        long now = System.nanoTime();
+        long oldest = inFlightSince;
+        var head = queue.peek();
+        if (oldest == 0 && head != null) oldest = head.enqueuedNanos();
+        long lag = oldest == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(now - oldest);
+        return new Stats(phase, queue.size(), lag, projected.get(), batches.get(), lastBatchSize,
+                TimeUnit.NANOSECONDS.toMillis(lastBatchNanos));
+    }
+
+    /** Total time spent writing snapshot batches since start; with {@link Stats#batches()}, the mean upsert latency. */
+    public long upsertNanos() {
+        return upsertNanos.get();
+    }
+
+    private static boolean isDoc(TemporalEvent e) {
+        return "DOC_SET".equals(e.type()) || "DOC_DEL".equals(e.type());
+    }
 
-        Map<String,Object> doc = snap == null ? new LinkedHashMap<>() : new LinkedHashMap<>(snap.doc());
-        var snapClock = VectorClock.from(snap == null ? Map.of() : snap.clock());
+    private void run() {
+        var batch = new ArrayList<Queued>(batchSize);
+        long backoff = 100;
+        while (running || !queue.isEmpty()) {
+            try {
+                if (rebuildRequested) {
+                    synchronized (this) {
+                        rebuildRequested = false;
+                        phase = Phase.REBUILD;
+                    }
+                    // every queued event is already in the store and gets replayed
+                    queue.clear();
+                    repo.deleteAll();
+                    offsets.reset(OFFSET_NAME);
+                }
+                if (phase != Phase.LIVE) {
+                    if (!running) return; // shutting down before the replay finished; it restarts from the offset
+                    boolean rebuild = phase == Phase.REBUILD;
+                    var from = rebuild ? LogPosition.START : offsets.get(OFFSET_NAME);
+                    long started = System.nanoTime();
+                    long replayed = replay(from, !rebuild);
+                    log.info("Doc projection {} replayed {} events after {} in {} ms", rebuild ? "rebuild" : "catch-up",
+                            replayed, from, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+                    phase = Phase.LIVE;
+                    backoff = 100;
+                    continue;
+                }
+                var first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long left = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || left <= 0) break;
+                    var next = queue.poll(left, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                inFlightSince = batch.getFirst().enqueuedNanos();
+                projectBatch(batch, true);
+                // delivered in commit order: every event up to the batch's last position is written
+                if (commitOrdered) offsets.save(OFFSET_NAME, batch.getLast().position());
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Throwable t) {
+                if (phase == Phase.LIVE) {
+                    // The saved offset has not moved past this batch, and a later batch must not move
+                    // it either: catch up from the store instead, which replays these events too.
+                    log.warn("Project error on a batch of {} events; catching up from the saved offset in {} ms",
+                            batch.size(), backoff, t);
+                    phase = Phase.CATCH_UP;
+                } else {
+                    // the offset only moves once a replay completes, so retrying is safe
+                    log.warn("Doc projection replay failed; retrying in {} ms", backoff, t);
+                }
+                try { Thread.sleep(backoff); } catch (InterruptedException ie) { return; }
+                backoff = Math.min(backoff * 2, 30_000);
+            } finally {
+                inFlightSince = 0;
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Pages committed events after {@code after} and fans them out by entity hash to
+     * {@code replayThreads} workers, each batching like the live path. Advances the offset to the
+     * last position read only when every worker finished. Returns the number of DOC events replayed.
+     */
+    private long replay(LogPosition after, boolean track) {
+        var failure = new AtomicReference<Throwable>();
+        var queues = new ArrayList<BlockingQueue<Queued>>(replayThreads);
+        var last = after;
+        long count = 0;
+        try (var workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < replayThreads; i++) {
+                var q = new ArrayBlockingQueue<Queued>(batchSize * 4);
+                queues.add(q);
+                workers.submit(() -> replayWorker(q, track, failure));
+            }
+            try {
+                List<Positioned> page;
+                do {
+                    page = store.readAfter(null, last, REPLAY_PAGE);
+                    for (var p : page) {
+                        last = p.position();
+                        var e = p.event();
+                        if (!isDoc(e)) continue;
+                        handOff(queues.get(Math.floorMod(e.entityId().hashCode(), replayThreads)), new Queued(e, last, 0), failure);
+                        count++;
+                    }
+                } while (page.size() == REPLAY_PAGE);
+            } finally {
+                for (var q : queues) {
+                    try { handOff(q, END, failure); } catch (IllegalStateException ignored) { } // workers exit on failure anyway
+                }
+            }
+        }
+        if (failure.get() != null) throw new IllegalStateException("Replay worker failed", failure.get());
+        offsets.save(OFFSET_NAME, last);
+        return count;
+    }
+
+    /** Blocks while the worker's queue is full, unless some worker has failed. */
+    private static void handOff(BlockingQueue<Queued> q, Queued item, AtomicReference<Throwable> failure) {
+        try {
+            while (!q.offer(item, 100, TimeUnit.MILLISECONDS)) {
+                if (failure.get() != null) throw new IllegalStateException("Replay worker failed", failure.get());
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Replay interrupted", ie);
+        }
+    }
+
+    private void replayWorker(BlockingQueue<Queued> q, boolean track, AtomicReference<Throwable> failure) {
+        var batch = new ArrayList<Queued>(batchSize);
+        try {
+            while (failure.get() == null) {
+                var first = q.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                q.drainTo(batch, batchSize - 1);
+                boolean end = batch.getLast() == END; // END is always the last item handed over
+                if (end) batch.removeLast();
+                if (!batch.isEmpty()) projectBatch(batch, track);
+                if (end) return;
+                batch.clear();
+            }
+        } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+        }
+    }
+
+    /**
+     * Entities in {@code batch} must not be in flight on another thread. {@code track} = false
+     * skips checkpoint bookkeeping: a rebuild replays events checkpoints already cover.
+     */
+    private void projectBatch(List<Queued> batch, boolean track) {
+        long started = System.nanoTime();
+
+        // coalesce: each entity's events in delivery order
+        var byEntity = new LinkedHashMap<UUID, List<TemporalEvent>>();
+        for (var q : batch) byEntity.computeIfAbsent(q.event().entityId().value(), k -> new ArrayList<>()).add(q.event());
+
+        var snaps = repo.getAll(byEntity.keySet());
+        var retired = retirements.current();
+        var changed = new ArrayList<Snapshot>(byEntity.size());
+        byEntity.forEach((id, events) -> {
+            var snap = snaps.get(id);
+            Map<String,Object> doc = snap == null ? new LinkedHashMap<>() : new LinkedHashMap<>(snap.doc());
+            var clock = VectorClock.from(snap == null ? Map.of() : snap.clock());
+            boolean dirty = false;
+            for (var e : events) dirty |= apply(doc, clock, e, retired);
+            // updatedAt is set by the database
+            // stored clocks fold retired nodes into their baseline, so they stay bounded by live nodes
+            if (dirty) changed.add(new Snapshot(id, doc, clock.compact(retired).snapshot(), null));
+        });
+        long upsertStarted = System.nanoTime();
+        repo.upsertAll(changed);
+        upsertNanos.addAndGet(System.nanoTime() - upsertStarted);
+
+        // checkpoints replay the log, so they advance even when the snapshot rule skips an event
+        if (track) trackAll(byEntity.keySet(), batch);
+
+        projected.addAndGet(batch.size());
+        batches.incrementAndGet();
+        lastBatchSize = batch.size();
+        lastBatchNanos = System.nanoTime() - started;
+    }
+
+    /** Applies one event to the in-memory snapshot; false when the snapshot is already ahead of it. */
+    private static boolean apply(Map<String,Object> doc, VectorClock snapClock, TemporalEvent e, NodeRetirements retired) {
         var evClock = e.clock();
 
-        int cmp = snapClock.compare(evClock);
+        int cmp = snapClock.compare(evClock, retired);
         if (cmp > 0) { // snapshot ahead
-            return;
+            return false;
         }
         if (cmp == 0) {
             // concurrent or equal; tie-break by node, higher wins
             // If equal clocks and same node means duplicate—ignore (idempotent)
-            if (e.node() == null) return;
+            if (e.node() == null) return false;
             // For equal clocks same node → ignore; for concurrent we pick highest node
             // We don't track last-writer node in snapshot; so we just accept the event by convention:
             // accept only if node is lexicographically highest among known participants in evClock
-            var maxNode = evClock.snapshot().keySet().stream().max(String::compareTo).orElse(e.node());
-            if (!e.node().equals(maxNode)) return;
+            var maxNode = Objects.requireNonNullElse(evClock.maxNode(), e.node());
+            if (!e.node().equals(maxNode)) return false;
         }
 
         // apply mutation
-        if ("DOC_SET".equals(e.type())) {
-            e.payload().forEach(doc::put);
-        } else { // DOC_DEL
-            var keys = e.payload().get("keys");
-            if (keys instanceof Collection<?> ks) {
-                ks.forEach(k -> doc.remove(String.valueOf(k)));
-            }
-        }
+        DocReplay.apply(doc, e);
 
         // advance snapshot clock = element-wise max
-        var next = new HashMap<>(snapClock.snapshot());
-        e.clock().snapshot().forEach((n,c) -> next.merge(n, c, Math::max));
+        snapClock.join(evClock, retired);
+        return true;
+    }
+
+    private static final class Pending {
+        Cursor last;      // newest checkpoint position, null = none yet
+        int events;
+        long since;       // nanoTime of the first event after it
+        Pending(Cursor last) { this.last = last; }
+    }
+
+    private void trackAll(Set<UUID> ids, List<Queued> batch) {
+        // held for the batch: the cache may evict an entry while it is in use
+        var tracked = pending.getAll(ids, unknown -> {
+            var positions = checkpoints.latestPositions(List.copyOf(unknown));
+            var loaded = new HashMap<UUID, Pending>(unknown.size() * 2);
+            unknown.forEach(id -> loaded.put(id, new Pending(positions.get(id))));
+            return loaded;
+        });
+        for (var q : batch) track(q.event(), tracked.get(q.event().entityId().value()));
+    }
+
+    private void track(TemporalEvent e, Pending p) {
+        var id = e.entityId().value();
+        if (p.last != null && !p.last.isBefore(e)) {
+            // Late event: checkpoints positioned after it were replayed without it.
+            checkpoints.deleteAfter(id, Cursor.after(e));
+            p.last = newestPosition(id);
+        }
+        if (p.events++ == 0) p.since = System.nanoTime();
+        if (p.events >= checkpointEvents || System.nanoTime() - p.since >= checkpointNanos) {
+            p.last = checkpoint(e);
+            p.events = 0;
+        }
+    }
+
+    /**
+     * Replays from the newest checkpoint up to {@code upTo} and stores the result; O(events since).
+     * Stopping at the event being projected rather than the end of the log keeps events that are
+     * committed but not yet delivered out of the checkpoint, so their delivery is not taken for a
+     * late arrival.
+     */
+    private Cursor checkpoint(TemporalEvent upTo) {
+        var entityId = upTo.entityId();
+        var bound = Cursor.after(upTo);
+        var base = checkpoints.latest(entityId.value(), null).orElse(null);
+        var retired = retirements.current();
+        var replay = base == null ? new DocReplay() : new DocReplay(base.doc(), base.clock(), retired);
+        store.readEach(entityId, base == null ? null : base.position(), upTo.observedAt(), ev -> {
+            if (!bound.isBefore(ev)) replay.accept(ev);
+        });
+        if (replay.last() == null) return base == null ? null : base.position();
+
+        var position = Cursor.after(replay.last());
+        checkpoints.save(new Checkpoint(entityId.value(), position, replay.doc(), replay.clock().compact(retired).snapshot(),
+                (base == null ? 0 : base.events()) + replay.events()));
+        return position;
+    }
 
-        repo.upsert(id, doc, next);
+    private Cursor newestPosition(UUID id) {
+        return checkpoints.latest(id, null).map(Checkpoint::position).orElse(null);
     }
 }
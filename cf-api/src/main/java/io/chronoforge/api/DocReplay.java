@@ -0,0 +1,60 @@
+package io.chronoforge.api;
+
+import io.chronoforge.core.NodeRetirements;
+import io.chronoforge.core.TemporalEvent;
+import io.chronoforge.core.VectorClock;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Folds an entity's events, in store order, into a document: DOC_SET puts fields, DOC_DEL removes
+ * keys, other types only advance the position. Shared by time-travel reads and checkpoints so both
+ * see the same document for the same prefix of events.
+ */
+final class DocReplay implements Consumer<TemporalEvent> {
+    private final Map<String, Object> doc;
+    private final VectorClock clock;
+    private final NodeRetirements retired;
+    private TemporalEvent last;
+    private long events;
+
+    DocReplay() {
+        this(Map.of(), Map.of(), NodeRetirements.NONE);
+    }
+
+    /**
+     * Resumes from a checkpointed document and clock; {@code retired} reads the nodes folded into
+     * a checkpoint clock's baseline.
+     */
+    DocReplay(Map<String, Object> doc, Map<String, Long> clock, NodeRetirements retired) {
+        this.doc = new LinkedHashMap<>(doc);
+        this.clock = VectorClock.from(clock);
+        this.retired = retired;
+    }
+
+    @Override
+    public void accept(TemporalEvent e) {
+        apply(doc, e);
+        clock.join(e.clock(), retired);
+        last = e;
+        events++;
+    }
+
+    static void apply(Map<String, Object> doc, TemporalEvent e) {
+        if ("DOC_SET".equals(e.type())) {
+            e.payload().forEach(doc::put);
+        } else if ("DOC_DEL".equals(e.type())) {
+            var keys = e.payload().get("keys");
+            if (keys instanceof Collection<?> ks) ks.forEach(k -> doc.remove(String.valueOf(k)));
+        }
+    }
+
+    Map<String, Object> doc() { return doc; }
+    VectorClock clock() { return clock; }
+    /** Last event folded in, or null when nothing was replayed. */
+    TemporalEvent last() { return last; }
+    long events() { return events; }
+}
@@ -0,0 +1,35 @@
+package io.chronoforge.api;
+
+import io.chronoforge.store.file.FileEventStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Forces the file store's recent appends to disk when it runs with cf.store.file.fsync=INTERVAL.
+ *
+ * cf.store.file.fsync-interval — time between syncs, i.e. the most a crash can lose (default PT1S)
+ */
+@Component
+@Profile("file")
+public class FileStoreSync {
+    private static final Logger log = LoggerFactory.getLogger(FileStoreSync.class);
+
+    private final FileEventStore store;
+
+    public FileStoreSync(FileEventStore store) {
+        this.store = store;
+    }
+
+    @Scheduled(fixedDelayString = "${cf.store.file.fsync-interval:PT1S}")
+    public void sync() {
+        if (store.fsync() != FileEventStore.Fsync.INTERVAL) return;
+        try {
+            store.sync();
+        } catch (Exception e) {
+            log.warn("Event log sync failed", e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package io.chronoforge.api;
+
+import io.chronoforge.store.pg.PostgresEventStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Purges {@code cf_idempotency_key} rows older than the retry window. The in-memory and file
+ * stores expire their keys themselves after the same ttl.
+ *
+ * cf.idempotency.ttl            — how long a key blocks replays (default P1D)
+ * cf.idempotency.purge-interval — how often to purge (default PT10M)
+ */
+@Component
+@Profile("pg")
+public class IdempotencyKeyExpiry {
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyKeyExpiry.class);
+
+    private final PostgresEventStore store;
+    private final Duration ttl;
+
+    public IdempotencyKeyExpiry(PostgresEventStore store, @Value("${cf.idempotency.ttl:P1D}") Duration ttl) {
+        this.store = store;
+        this.ttl = ttl;
+    }
+
+    @Scheduled(initialDelayString = "${cf.idempotency.purge-interval:PT10M}", fixedDelayString = "${cf.idempotency.purge-interval:PT10M}")
+    public void purge() {
+        try {
+            int n = store.expireIdempotencyKeys(Instant.now().minus(ttl));
+            if (n > 0) log.debug("Expired {} idempotency keys", n);
+        } catch (Exception e) {
+            log.warn("Idempotency key purge failed", e);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package io.chronoforge.api;
+
+import io.chronoforge.core.TemporalEvent;
+import io.chronoforge.core.TemporalId;
+import io.chronoforge.store.AppendResult;
+import io.chronoforge.store.Cursor;
+import io.chronoforge.store.EventPage;
+import io.chronoforge.store.EventStore;
+import io.chronoforge.store.LogPosition;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * The application's EventStore: the configured store, with every call timed.
+ *
+ * Meters (tag {@code store} = the wrapped class): {@code cf.store.append} (tag {@code outcome}),
+ * {@code cf.store.append.batch} (events per append), {@code cf.store.append.duplicates},
+ * {@code cf.store.read} and {@code cf.store.search} (tag {@code op}, the method). Timers publish
+ * histograms, so Prometheus can compute percentiles across instances. Appends and seq replays
+ * also emit {@link StoreJfr} events for Flight Recorder.
+ */
+final class MeteredEventStore implements EventStore {
+    private final EventStore delegate;
+    private final String name;
+    private final Timer appendOk, appendFailed;
+    private final DistributionSummary batch;
+    private final Counter duplicates;
+    private final Timer read, readEach, readPage, readSince, readSincePage, readAfter;
+    private final Timer search, searchPage, searchEach;
+
+    MeteredEventStore(EventStore delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.name = delegate.getClass().getSimpleName();
+        this.appendOk = timer(registry, "cf.store.append", "outcome", "success");
+        this.appendFailed = timer(registry, "cf.store.append", "outcome", "error");
+        this.batch = DistributionSummary.builder("cf.store.append.batch")
+                .description("Events per append").baseUnit("events").tag("store", name)
+                .publishPercentileHistogram().register(registry);
+        this.duplicates = Counter.builder("cf.store.append.duplicates")
+                .description("Appended events that were already stored").tag("store", name).register(registry);
+        this.read = timer(registry, "cf.store.read", "op", "read");
+        this.readEach = timer(registry, "cf.store.read", "op", "readEach");
+        this.readPage = timer(registry, "cf.store.read", "op", "readPage");
+        this.readSince = timer(registry, "cf.store.read", "op", "readSince");
+        this.readSincePage = timer(registry, "cf.store.read", "op", "readSincePage");
+        this.readAfter = timer(registry, "cf.store.read", "op", "readAfter");
+        this.search = timer(registry, "cf.store.search", "op", "search");
+        this.searchPage = timer(registry, "cf.store.search", "op", "searchPage");
+        this.searchEach = timer(registry, "cf.store.search", "op", "searchEach");
+    }
+
+    private Timer timer(MeterRegistry registry, String meter, String tag, String value) {
+        return Timer.builder(meter).tag("store", name).tag(tag, value).publishPercentileHistogram().register(registry);
+    }
+
+    @Override
+    public AppendResult append(List<TemporalEvent> events, String idempotencyKey) {
+        var jfr = new StoreJfr.Append();
+        jfr.begin();
+        long started = System.nanoTime();
+        AppendResult result;
+        try {
+            result = delegate.append(events, idempotencyKey);
+        } catch (RuntimeException e) {
+            appendFailed.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        appendOk.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        int n = events == null ? 0 : events.size();
+        batch.record(n);
+        if (result.duplicateCount() > 0) duplicates.increment(result.duplicateCount());
+        jfr.end();
+        if (jfr.shouldCommit()) {
+            jfr.store = name;
+            jfr.events = n;
+            jfr.appended = result.appendedCount();
+            jfr.duplicates = result.duplicateCount();
+            jfr.keyed = idempotencyKey != null;
+            jfr.commit();
+        }
+        return result;
+    }
+
+    @Override
+    public List<TemporalEvent> read(TemporalId id) {
+        return timed(read, () -> delegate.read(id));
+    }
+
+    @Override
+    public void readEach(TemporalId id, Cursor after, Instant asOf, Consumer<? super TemporalEvent> sink) {
+        timed(readEach, () -> delegate.readEach(id, after, asOf, sink));
+    }
+
+    @Override
+    public void readSince(long afterSeq, Consumer<? super TemporalEvent> sink) {
+        var jfr = new StoreJfr.Replay();
+        jfr.begin();
+        long[] count = new long[1];
+        timed(readSince, () -> delegate.readSince(afterSeq, e -> {
+            count[0]++;
+            sink.accept(e);
+        }));
+        jfr.end();
+        if (jfr.shouldCommit()) commit(jfr, null, afterSeq, count[0]);
+    }
+
+    @Override
+    public List<TemporalEvent> readSince(TemporalId id, long afterSeq, int limit) {
+        var jfr = new StoreJfr.Replay();
+        jfr.begin();
+        var page = timed(readSincePage, () -> delegate.readSince(id, afterSeq, limit));
+        jfr.end();
+        if (jfr.shouldCommit()) commit(jfr, id, afterSeq, page.size());
+        return page;
+    }
+
+    @Override
+    public List<Positioned> readAfter(TemporalId id, LogPosition after, int limit) {
+        var jfr = new StoreJfr.Replay();
+        jfr.begin();
+        var page = timed(readAfter, () -> delegate.readAfter(id, after, limit));
+        jfr.end();
+        if (jfr.shouldCommit()) commit(jfr, id, after.seq(), page.size());
+        return page;
+    }
+
+    private void commit(StoreJfr.Replay jfr, TemporalId id, long afterSeq, long events) {
+        jfr.store = name;
+        jfr.entityId = id == null ? null : id.toString();
+        jfr.afterSeq = afterSeq;
+        jfr.events = events;
+        jfr.commit();
+    }
+
+    @Override
+    public EventPage readPage(TemporalId id, Instant asOf, Cursor after, int limit) {
+        return timed(readPage, () -> delegate.readPage(id, asOf, after, limit));
+    }
+
+    @Override
+    public Flow.Publisher<TemporalEvent> subscribe() { return delegate.subscribe(); }
+
+    @Override
+    public Flow.Publisher<Positioned> subscribePositioned() { return delegate.subscribePositioned(); }
+
+    @Override
+    public List<TemporalEvent> search(String type, Instant from, Instant to, Integer limit,
+                                      String jsonPath, String jsonValue) {
+        return timed(search, () -> delegate.search(type, from, to, limit, jsonPath, jsonValue));
+    }
+
+    @Override
+    public EventPage searchPage(String type, Instant from, Instant to, String jsonPath, String jsonValue,
+                                Cursor after, int limit) {
+        return timed(searchPage, () -> delegate.searchPage(type, from, to, jsonPath, jsonValue, after, limit));
+    }
+
+    @Override
+    public void searchEach(String type, Instant from, Instant to, Integer limit,
+                           String jsonPath, String jsonValue, Consumer<? super TemporalEvent> sink) {
+        timed(searchEach, () -> delegate.searchEach(type, from, to, limit, jsonPath, jsonValue, sink));
+    }
+
+    private static <T> T timed(Timer timer, Supplier<T> call) {
+        long started = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static void timed(Timer timer, Runnable call) {
+        long started = System.nanoTime();
+        try {
+            call.run();
+        } finally {
+            timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+}
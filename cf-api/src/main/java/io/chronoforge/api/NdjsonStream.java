@@ -0,0 +1,50 @@
+package io.chronoforge.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes values to a response as NDJSON while a store streams them. The first line is flushed at
+ * once and then every {@code flushEvery} lines, so the client sees data early and memory holds at
+ * most one generator buffer. A failed write (typically the client went away) surfaces as an
+ * {@link UncheckedIOException} from {@link #accept}, which stops the store's read.
+ */
+final class NdjsonStream<T> implements Consumer<T>, AutoCloseable {
+    private final ObjectWriter writer;
+    private final JsonGenerator out;
+    private final int flushEvery;
+    private long lines;
+
+    NdjsonStream(ObjectMapper mapper, Class<T> type, OutputStream out, int flushEvery) throws IOException {
+        // flushing is ours to decide, not once per value
+        this.writer = mapper.writerFor(type).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.out = mapper.getFactory().createGenerator(out);
+        this.out.setPrettyPrinter(null);
+        this.out.setRootValueSeparator(null);   // lines are ours: no space between root values
+        this.flushEvery = Math.max(1, flushEvery);
+    }
+
+    @Override
+    public void accept(T value) {
+        try {
+            writer.writeValue(out, value);
+            out.writeRaw('\n');
+            if (++lines == 1 || lines % flushEvery == 0) out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Flushes what is left; leaves the underlying stream open for the container to finish. */
+    @Override
+    public void close() throws IOException {
+        out.flush();
+    }
+}
@@ -0,0 +1,35 @@
+package io.chronoforge.api;
+
+import io.chronoforge.store.pg.PostgresEventStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps this instance's retired-node registry in step with {@code cf_node}, so clock baselines
+ * written by any instance are read the same way here.
+ *
+ * cf.nodes.retirement-refresh — how often to reload (default PT1M; also right after startup)
+ */
+@Component
+@Profile("pg")
+public class NodeRetirementSync {
+    private static final Logger log = LoggerFactory.getLogger(NodeRetirementSync.class);
+
+    private final PostgresEventStore store;
+
+    public NodeRetirementSync(PostgresEventStore store) {
+        this.store = store;
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${cf.nodes.retirement-refresh:PT1M}")
+    public void refresh() {
+        try {
+            store.refreshRetirements();
+        } catch (Exception e) {
+            log.warn("Retired node refresh failed", e);
+        }
+    }
+}
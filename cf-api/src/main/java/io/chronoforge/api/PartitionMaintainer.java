@@ -0,0 +1,55 @@
+package io.chronoforge.api;
+
+import io.chronoforge.store.pg.EventPartitions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Keeps {@code cf_event} partitions created ahead of time and expires old ones.
+ *
+ * cf.partitions.ahead          — partitions to keep ready beyond the current one (default 3)
+ * cf.partitions.retention      — ISO duration, e.g. P365D; empty keeps everything (default)
+ * cf.partitions.retention-mode — detach (keep as standalone table) | drop
+ */
+@Component
+@Profile("pg")
+public class PartitionMaintainer {
+    private static final Logger log = LoggerFactory.getLogger(PartitionMaintainer.class);
+
+    private final EventPartitions partitions;
+    private final int ahead;
+    private final Duration retention;
+    private final boolean drop;
+
+    public PartitionMaintainer(EventPartitions partitions,
+                               @Value("${cf.partitions.ahead:3}") int ahead,
+                               @Value("${cf.partitions.retention:}") Duration retention,
+                               @Value("${cf.partitions.retention-mode:detach}") String retentionMode) {
+        this.partitions = partitions;
+        this.ahead = ahead;
+        this.retention = retention;
+        this.drop = "drop".equalsIgnoreCase(retentionMode);
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${cf.partitions.check-interval:PT1H}")
+    public void maintain() {
+        try {
+            var now = Instant.now();
+            partitions.ensureAhead(now, ahead);
+            if (retention != null && !retention.isZero()) {
+                var cutoff = now.minus(retention);
+                if (drop) partitions.dropBefore(cutoff);
+                else partitions.detachBefore(cutoff);
+            }
+        } catch (Exception e) {
+            log.warn("Partition maintenance failed", e);
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package io.chronoforge.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.chronoforge.store.EventStore;
+import io.chronoforge.store.EventStore.Positioned;
+import io.chronoforge.store.LogPosition;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fans store events out to SSE clients through one bus subscription.
+ *
+ * Clients are indexed by their {@link StreamFilter}: under each entity id they name, else under
+ * each type they name, else in a set that sees every event. An event is checked only against
+ * the clients under its entity, under its type, and the unindexed ones, so its cost grows with
+ * the clients that may want it rather than with every open connection.
+ *
+ * The bus thread only serializes: each event is written to JSON once, the first time some client
+ * wants it, and the same bytes are offered to every matching client. Offering never blocks; each
+ * client has a queue of {@code cf.api.sse.buffer} events drained by its own virtual thread, so a
+ * slow connection delays nobody else and never backs up into the store's publisher (and so into
+ * {@code append}). When a client's queue is full, {@code cf.api.sse.slow-consumer} decides:
+ * <ul>
+ *   <li>{@code DROP} (default): the new event is dropped; the client later receives a
+ *       {@code dropped} event carrying how many it missed.</li>
+ *   <li>{@code COALESCE}: the new event replaces the queued one for the same entity, which a
+ *       client tracking latest state can afford to miss; with none queued it is dropped as above.</li>
+ *   <li>{@code DISCONNECT}: the stream is closed; the client reconnects and catches up.</li>
+ * </ul>
+ *
+ * Every event carries its {@link LogPosition} as the SSE id: commit order, not seq order, since
+ * with concurrent writers a lower seq can commit after a higher one. Live events arrive in that
+ * order ({@link EventStore#subscribePositioned()}), and the replay reads only up to the commit
+ * horizon ({@link EventStore#readAfter}), so the last id a client saw is a point nothing can
+ * later commit before. A client that reconnects with {@code Last-Event-ID} is registered for
+ * live events first and then replayed what it missed from the store,
+ * {@code cf.api.sse.catch-up.page} events per read; live events queued meanwhile are sent after
+ * the replay, minus those at or before the position it reached. If the queue overflowed during the
+ * replay, the replay simply goes round again from where it got to, so nothing is lost and the
+ * slow-consumer policy does not apply until the client is live. At most
+ * {@code cf.api.sse.catch-up.concurrency} page reads run at once across all clients, so a wave
+ * of reconnects queues up instead of piling onto the database.
+ *
+ * Ids are {@code tx.seq} on Postgres (commit order there needs the append listener, on by
+ * default) and the bare seq on the other stores; a bare seq from an older client still resumes.
+ *
+ * cf.api.sse.catch-up.page        — events per replay read (default 500)
+ * cf.api.sse.catch-up.concurrency — replay reads in flight across all clients (default 4)
+ */
+@Component
+public class SseHub {
+    private static final Logger log = LoggerFactory.getLogger(SseHub.class);
+
+    public enum SlowConsumer { DROP, COALESCE, DISCONNECT }
+
+    /**
+     * Clients connected now; events sent, dropped and coalesced, clients cut off as too slow,
+     * resumed streams and events replayed to them, since start.
+     */
+    public record Stats(int clients, long sent, long dropped, long coalesced, long disconnected,
+                        long resumed, long replayed) {}
+
+    private record Frame(UUID entityId, LogPosition position, byte[] json) {}
+
+    private final EventStore store;
+    private final ObjectMapper mapper;
+    private final int buffer;
+    private final SlowConsumer policy;
+    private final long timeoutMillis;
+    private final int catchUpPage;
+    private final Semaphore catchUpReads;
+    private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+    private final Map<UUID, Set<Client>> byEntity = new ConcurrentHashMap<>();
+    private final Map<String, Set<Client>> byType = new ConcurrentHashMap<>();
+    private final Set<Client> unindexed = ConcurrentHashMap.newKeySet();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder disconnected = new LongAdder();
+    private final LongAdder resumed = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+
+    public SseHub(EventStore store, ObjectMapper mapper,
+                  @Value("${cf.api.sse.buffer:1024}") int buffer,
+                  @Value("${cf.api.sse.slow-consumer:DROP}") SlowConsumer policy,
+                  @Value("${cf.api.sse.timeout:PT30M}") Duration timeout,
+                  @Value("${cf.api.sse.catch-up.page:500}") int catchUpPage,
+                  @Value("${cf.api.sse.catch-up.concurrency:4}") int catchUpConcurrency) {
+        if (buffer < 1) throw new IllegalArgumentException("cf.api.sse.buffer must be positive: " + buffer);
+        if (catchUpPage < 1) throw new IllegalArgumentException("cf.api.sse.catch-up.page must be positive: " + catchUpPage);
+        if (catchUpConcurrency < 1) {
+            throw new IllegalArgumentException("cf.api.sse.catch-up.concurrency must be positive: " + catchUpConcurrency);
+        }
+        this.store = store;
+        this.mapper = mapper;
+        this.buffer = buffer;
+        this.policy = policy;
+        this.timeoutMillis = timeout.toMillis();
+        this.catchUpPage = catchUpPage;
+        this.catchUpReads = new Semaphore(catchUpConcurrency, true);
+        store.subscribePositioned().subscribe(new Flow.Subscriber<>() {
+            @Override public void onSubscribe(Flow.Subscription s) { s.request(Long.MAX_VALUE); }
+            @Override public void onNext(Positioned p) { publish(p); }
+            @Override public void onError(Throwable t) { log.error("Bus error", t); }
+            @Override public void onComplete() { stop(); }
+        });
+    }
+
+    /** A stream of the events {@code filter} matches; with {@code lastEventId}, it starts with the ones after that position. */
+    public SseEmitter open(StreamFilter filter, LogPosition lastEventId) {
+        return open(filter, lastEventId, new SseEmitter(timeoutMillis));
+    }
+
+    /** As {@link #open(StreamFilter, LogPosition)}, onto a given emitter. */
+    SseEmitter open(StreamFilter filter, LogPosition lastEventId, SseEmitter emitter) {
+        var client = new Client(emitter, filter, lastEventId);
+        if (lastEventId != null) resumed.increment();
+        emitter.onCompletion(client::close);
+        emitter.onTimeout(client::close);
+        emitter.onError(t -> client.close());
+        clients.add(client);
+        index(client);
+        Thread.ofVirtual().name("cf-sse-client").start(client::drain);
+        return emitter;
+    }
+
+    public Stats stats() {
+        return new Stats(clients.size(), sent.sum(), dropped.sum(), coalesced.sum(), disconnected.sum(),
+                resumed.sum(), replayed.sum());
+    }
+
+    @PreDestroy
+    void stop() {
+        for (var c : clients) c.disconnect();
+    }
+
+    private void publish(Positioned p) {
+        if (clients.isEmpty()) return;
+        var e = p.event();
+        try {
+            var frame = offer(byEntity.get(e.entityId().value()), p, null);
+            frame = offer(byType.get(e.type()), p, frame);
+            offer(unindexed, p, frame);
+        } catch (UncheckedIOException ex) {
+            log.error("Cannot serialize event {} for SSE", e.seq(), ex);
+        }
+    }
+
+    /** Offers {@code p} to the candidates it matches; serializes it the first time one does. */
+    private Frame offer(Set<Client> candidates, Positioned p, Frame frame) {
+        if (candidates == null) return frame;
+        var e = p.event();
+        for (var c : candidates) {
+            if (!c.filter.matches(e)) continue;
+            if (frame == null) {
+                try {
+                    frame = new Frame(e.entityId().value(), p.position(), mapper.writeValueAsBytes(e));
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+            c.offer(frame);
+        }
+        return frame;
+    }
+
+    /** Each client sits under one kind of key, so an event reaches it through at most one set. */
+    private void index(Client c) {
+        var f = c.filter;
+        if (!f.entityIds().isEmpty()) f.entityIds().forEach(id -> byEntity.compute(id, (k, set) -> with(set, c)));
+        else if (!f.types().isEmpty()) f.types().forEach(t -> byType.compute(t, (k, set) -> with(set, c)));
+        else unindexed.add(c);
+    }
+
+    private void unindex(Client c) {
+        var f = c.filter;
+        f.entityIds().forEach(id -> byEntity.computeIfPresent(id, (k, set) -> without(set, c)));
+        f.types().forEach(t -> byType.computeIfPresent(t, (k, set) -> without(set, c)));
+        unindexed.remove(c);
+    }
+
+    // sets are only grown and emptied inside compute, so a client is never added to a dropped set
+    private static Set<Client> with(Set<Client> set, Client c) {
+        if (set == null) set = ConcurrentHashMap.newKeySet();
+        set.add(c);
+        return set;
+    }
+
+    private static Set<Client> without(Set<Client> set, Client c) {
+        set.remove(c);
+        return set.isEmpty() ? null : set;
+    }
+
+    private final class Client {
+        final SseEmitter emitter;
+        final StreamFilter filter;
+        private final LogPosition resumeAfter;
+        private final ArrayDeque<Frame> queue = new ArrayDeque<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition ready = lock.newCondition();
+        private long missed;          // dropped since the client was last told
+        private boolean catchingUp;   // replaying from the store; live overflow only means "read again"
+        private boolean overflowed;
+        private LogPosition replayedThrough;   // drain thread only; null = nothing replayed
+        private volatile boolean closed;
+
+        Client(SseEmitter emitter, StreamFilter filter, LogPosition resumeAfter) {
+            this.emitter = emitter;
+            this.filter = filter;
+            this.resumeAfter = resumeAfter;
+            this.catchingUp = resumeAfter != null;
+        }
+
+        /** Called on the bus thread; never waits for the connection. */
+        void offer(Frame frame) {
+            lock.lock();
+            try {
+                if (closed) return;
+                if (queue.size() < buffer) {
+                    queue.add(frame);
+                    ready.signal();
+                    return;
+                }
+                if (catchingUp) {
+                    // still in the store: the replay picks it up on its next round
+                    overflowed = true;
+                    return;
+                }
+                switch (policy) {
+                    case DROP -> drop();
+                    case COALESCE -> {
+                        if (replace(frame)) coalesced.increment();
+                        else drop();
+                    }
+                    case DISCONNECT -> { }
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (policy == SlowConsumer.DISCONNECT) {
+                disconnected.increment();
+                disconnect();
+            }
+        }
+
+        private void drop() {
+            missed++;
+            dropped.increment();
+            ready.signal();
+        }
+
+        /** Swaps out the newest queued frame of the same entity; the new one goes to the back. */
+        private boolean replace(Frame frame) {
+            for (var it = queue.descendingIterator(); it.hasNext(); ) {
+                if (it.next().entityId().equals(frame.entityId())) {
+                    it.remove();
+                    queue.add(frame);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void drain() {
+            try {
+                if (resumeAfter != null) catchUp(resumeAfter);
+                while (true) {
+                    Frame frame;
+                    long gap;
+                    lock.lock();
+                    try {
+                        while (queue.isEmpty() && missed == 0 && !closed) ready.await();
+                        if (closed) return;
+                        gap = missed;
+                        missed = 0;
+                        frame = queue.poll();
+                    } finally {
+                        lock.unlock();
+                    }
+                    if (gap > 0) emitter.send(SseEmitter.event().name("dropped").data(Map.of("dropped", gap)));
+                    if (frame != null && (replayedThrough == null || frame.position().compareTo(replayedThrough) > 0)) {
+                        send(frame.position(), frame.json());
+                    }
+                }
+            } catch (IOException | IllegalStateException | InterruptedException e) {
+                // the client went away, the emitter already completed, or we are shutting down
+                close();
+            } catch (RuntimeException e) {
+                // e.g. the catch-up read failed: end the stream so the client reconnects with its Last-Event-ID
+                log.warn("SSE stream failed; closing it", e);
+                close();
+                emitter.completeWithError(e);
+            }
+        }
+
+        /**
+         * Replays events after {@code after} until a round ends at the head of the store without
+         * the live queue having overflowed; from then on the queue alone is complete.
+         */
+        private void catchUp(LogPosition after) throws IOException, InterruptedException {
+            var id = filter.singleEntity();
+            var last = after;
+            while (!closed) {
+                lock.lock();
+                try {
+                    overflowed = false;
+                } finally {
+                    lock.unlock();
+                }
+                List<Positioned> page;
+                do {
+                    catchUpReads.acquire();
+                    try {
+                        page = store.readAfter(id, last, catchUpPage);
+                    } finally {
+                        catchUpReads.release();
+                    }
+                    for (var p : page) {
+                        last = p.position();
+                        if (!filter.matches(p.event())) continue;
+                        send(last, mapper.writeValueAsBytes(p.event()));
+                        replayed.increment();
+                    }
+                } while (page.size() == catchUpPage && !closed);
+                lock.lock();
+                try {
+                    if (!overflowed) {
+                        catchingUp = false;
+                        replayedThrough = last;
+                        return;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        private void send(LogPosition position, byte[] json) throws IOException {
+            emitter.send(SseEmitter.event().id(position.encode()).name("event").data(json, MediaType.APPLICATION_JSON));
+            sent.increment();
+        }
+
+        void close() {
+            lock.lock();
+            try {
+                closed = true;
+                queue.clear();
+                ready.signal();
+            } finally {
+                lock.unlock();
+            }
+            clients.remove(this);
+            unindex(this);
+        }
+
+        void disconnect() {
+            close();
+            emitter.complete();
+        }
+    }
+}
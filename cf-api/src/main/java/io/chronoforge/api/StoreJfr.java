@@ -0,0 +1,44 @@
+package io.chronoforge.api;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder events for store calls, emitted by {@link MeteredEventStore}. They cost nothing
+ * unless a recording enables them; with the default thresholds only slow calls are recorded,
+ * which can be changed per recording (e.g. {@code io.chronoforge.Append#threshold=0 ms}).
+ */
+final class StoreJfr {
+    private StoreJfr() {}
+
+    @Name("io.chronoforge.Append")
+    @Label("Event Store Append")
+    @Category({"ChronoForge", "Store"})
+    @Description("An append to the event store")
+    @Threshold("20 ms")
+    @StackTrace(false)
+    static final class Append extends jdk.jfr.Event {
+        @Label("Store") String store;
+        @Label("Events") int events;
+        @Label("Appended") int appended;
+        @Label("Duplicates") int duplicates;
+        @Label("Idempotency Key") boolean keyed;
+    }
+
+    @Name("io.chronoforge.Replay")
+    @Label("Event Store Replay")
+    @Category({"ChronoForge", "Store"})
+    @Description("A read of the log by seq: projector catch-up or rebuild, SSE resume")
+    @Threshold("100 ms")
+    @StackTrace(false)
+    static final class Replay extends jdk.jfr.Event {
+        @Label("Store") String store;
+        @Label("Entity") String entityId;
+        @Label("After Seq") long afterSeq;
+        @Label("Events") long events;
+    }
+}
@@ -0,0 +1,63 @@
+package io.chronoforge.api;
+
+import io.chronoforge.core.TemporalEvent;
+import io.chronoforge.core.TemporalId;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * What one stream subscribes to: any of {@code entityIds}, any of {@code types}, and every
+ * {@code payload} field equal to its value (top-level, compared as strings, as in search). An
+ * empty part matches everything. Built once per connection; {@link SseHub} indexes clients by
+ * entity or type and only asks {@link #matches} of the ones the index selected.
+ */
+public record StreamFilter(Set<UUID> entityIds, Set<String> types, Map<String, String> payload) {
+
+    public static final StreamFilter ALL = new StreamFilter(Set.of(), Set.of(), Map.of());
+
+    public StreamFilter {
+        entityIds = Set.copyOf(entityIds);
+        types = Set.copyOf(types);
+        payload = Map.copyOf(payload);
+    }
+
+    /**
+     * From request parameters; ids and types may be repeated or comma-separated (Spring splits
+     * them), each {@code where} is {@code field:value}.
+     */
+    static StreamFilter parse(List<String> entityIds, List<String> types, List<String> where) {
+        var ids = nonBlank(entityIds).stream().map(UUID::fromString).collect(Collectors.toSet());
+        var payload = new LinkedHashMap<String, String>();
+        for (var w : nonBlank(where)) {
+            int colon = w.indexOf(':');
+            if (colon <= 0) throw new IllegalArgumentException("where must be field:value, got '" + w + "'");
+            payload.put(w.substring(0, colon).trim(), w.substring(colon + 1));
+        }
+        return new StreamFilter(ids, Set.copyOf(nonBlank(types)), payload);
+    }
+
+    private static List<String> nonBlank(List<String> values) {
+        return values == null ? List.of() : values.stream().filter(v -> v != null && !v.isBlank()).map(String::trim).toList();
+    }
+
+    boolean matches(TemporalEvent e) {
+        if (!entityIds.isEmpty() && !entityIds.contains(e.entityId().value())) return false;
+        if (!types.isEmpty() && !types.contains(e.type())) return false;
+        for (var p : payload.entrySet()) {
+            Object v = e.payload().get(p.getKey());
+            if (!Objects.equals(v == null ? null : String.valueOf(v), p.getValue())) return false;
+        }
+        return true;
+    }
+
+    /** The one entity this filter is limited to, so catch-up reads can ask the store for just it. */
+    TemporalId singleEntity() {
+        return entityIds.size() == 1 ? new TemporalId(entityIds.iterator().next()) : null;
+    }
+}
@@ -1,69 +1,125 @@
 package io.chronoforge.api;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.chronoforge.core.Determinism;
 import io.chronoforge.core.TemporalEvent;
 import io.chronoforge.core.TemporalId;
 import io.chronoforge.core.VectorClock;
+import io.chronoforge.store.Cursor;
+import io.chronoforge.store.EventPage;
 import io.chronoforge.store.EventStore;
+import io.chronoforge.store.GroupCommitEventStore;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.Instant;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api/time")
 public class TemporalController {
     private final EventStore store;
-    public TemporalController(EventStore store){ this.store = store; }
+    private final EventStore appends;   // group commit when enabled, else the store
+    private final ObjectMapper mapper;
+    private final int flushEvery;
+    private final int streamPage;
+    public TemporalController(EventStore store, ObjectProvider<GroupCommitEventStore> groupCommit, ObjectMapper mapper,
+                              @Value("${cf.api.stream.flush-every:256}") int flushEvery,
+                              @Value("${cf.api.stream.page:1000}") int streamPage){
+        if (streamPage < 1) throw new IllegalArgumentException("cf.api.stream.page must be positive: " + streamPage);
+        this.store = store;
+        this.appends = groupCommit.getIfAvailable(() -> store);
+        this.mapper = mapper;
+        this.flushEvery = flushEvery;
+        this.streamPage = Math.min(streamPage, MAX_PAGE_SIZE);
+    }
 
     record AppendReq(String type, Map<String,Object> payload, String node){}
 
+    /** Optional request header; a retry carrying the same key appends nothing. */
+    static final String IDEMPOTENCY_HEADER = "X-CF-Idempotency-Key";
+
     @PostMapping("/{id}/events")
-    public ResponseEntity<?> append(@PathVariable("id") String id, @RequestBody AppendReq req){
-        var entityId = new TemporalId(UUID.fromString(id));
-        var node = (req.node() == null || req.node().isBlank()) ? Determinism.node() : req.node();
-        var vc = new VectorClock().tick(node);
-        var ev = new TemporalEvent(
+    public ResponseEntity<?> append(@PathVariable("id") String id, @RequestBody AppendReq req,
+                                    @RequestHeader(name = IDEMPOTENCY_HEADER, required = false) String idempotencyKey){
+        var ev = newEvent(new TemporalId(UUID.fromString(id)), req.type(), req.payload(), req.node());
+        var result = appends.append(List.of(ev), idempotencyKey);
+        return ResponseEntity.accepted().body(Map.of("status", result.appendedCount() > 0 ? "queued" : "duplicate"));
+    }
+
+    /** A client-submitted event: node defaults to the request's, time comes from Determinism. */
+    static TemporalEvent newEvent(TemporalId entityId, String type, Map<String, Object> payload, String node) {
+        var effectiveNode = (node == null || node.isBlank()) ? Determinism.node() : node;
+        var vc = new VectorClock().tick(effectiveNode);
+        return new TemporalEvent(
                 entityId,
-                req.type(),
+                type,
                 Determinism.now(),
                 vc,
-                req.payload() == null ? Map.of() : req.payload(),
-                node
+                payload == null ? Map.of() : payload,
+                effectiveNode
         );
-        store.append(List.of(ev));
-        return ResponseEntity.accepted().body(Map.of("status","queued"));
     }
 
     public record EventView(String entityId, String type, Instant observedAt,
-                            Map<String,Long> clock, Map<String,Object> payload, String node) {}
+                            Map<String,Long> clock, Map<String,Object> payload, String node, long seq) {
+        static EventView of(TemporalEvent e) {
+            return new EventView(
+                    e.entityId().toString(),
+                    e.type(),
+                    e.observedAt(),
+                    e.clock().snapshot(),
+                    e.payload(),
+                    e.node(),
+                    e.seq()
+            );
+        }
+    }
+
+    /** Response header carrying the opaque continuation token; absent on the last page. */
+    static final String NEXT_HEADER = "X-CF-Next";
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 10_000;
 
     @GetMapping("/{id}/events")
     public ResponseEntity<List<EventView>> read(@PathVariable("id") String id,
-                                                @RequestParam(name = "asOf", required = false) String asOf) {
+                                                @RequestParam(name = "asOf", required = false) String asOf,
+                                                @RequestParam(name = "limit", required = false) Integer limit,
+                                                @RequestParam(name = "after", required = false) String after) {
         var entityId = new TemporalId(UUID.fromString(id));
         var cutoff = (asOf == null || asOf.isBlank()) ? null : Instant.parse(asOf);
+
+        if (limit != null || after != null) {
+            var page = store.readPage(entityId, cutoff, cursor(after), pageSize(limit));
+            return paged(page, page.events().stream().map(EventView::of).toList());
+        }
+
         var list = store.read(entityId).stream()
                 .filter(e -> cutoff == null || !e.observedAt().isAfter(cutoff))
-                .sorted(Comparator.comparing(TemporalEvent::observedAt))
-                .map(e -> new EventView(
-                        e.entityId().toString(),
-                        e.type(),
-                        e.observedAt(),
-                        e.clock().snapshot(),
-                        e.payload(),
-                        e.node()
-                ))
+                .sorted(Cursor.ORDER)
+                .map(EventView::of)
                 .toList();
 
         return ResponseEntity.ok(list);
     }
 
+    /**
+     * {@code limit} keeps its original meaning: a positive value caps the result (at any size) and
+     * zero or less means no cap. A capped response also carries an {@code X-CF-Next} token; pass it
+     * back as {@code after} to fetch the next page ({@value #DEFAULT_PAGE_SIZE} rows when
+     * {@code after} comes without a positive {@code limit}).
+     */
     @GetMapping("/search")
     public ResponseEntity<List<TemporalEvent>> search(
             @RequestParam(name = "type", required = false) String type,
@@ -71,10 +127,103 @@ public class TemporalController {
             @RequestParam(name = "to", required = false)   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
             @RequestParam(name = "limit", required = false) Integer limit,
             @RequestParam(name = "jsonPath", required = false) String jsonPath,
-            @RequestParam(name = "jsonValue", required = false) String jsonValue
+            @RequestParam(name = "jsonValue", required = false) String jsonValue,
+            @RequestParam(name = "after", required = false) String after
     ) {
+        boolean capped = limit != null && limit > 0;
+        if (capped || after != null) {
+            // limit + 1 rows are fetched to detect a next page
+            int size = capped ? Math.min(limit, Integer.MAX_VALUE - 1) : DEFAULT_PAGE_SIZE;
+            var page = store.searchPage(type, from, to, jsonPath, jsonValue, cursor(after), size);
+            return paged(page, page.events());
+        }
         return ResponseEntity.ok(
-                store.search(type, from, to, limit, jsonPath, jsonValue)
+                store.search(type, from, to, null, jsonPath, jsonValue)
         );
     }
+
+    static final String NDJSON = "application/x-ndjson";
+
+    /**
+     * {@code Accept: application/x-ndjson}: the same events as {@link #read}, one per line, read
+     * page by page as they are written (asOf and after apply; the client sees no pages).
+     */
+    @GetMapping(path = "/{id}/events", produces = NDJSON)
+    public void readNdjson(@PathVariable("id") String id,
+                           @RequestParam(name = "asOf", required = false) String asOf,
+                           @RequestParam(name = "after", required = false) String after,
+                           HttpServletResponse response) throws IOException {
+        var entityId = new TemporalId(UUID.fromString(id));
+        var cutoff = (asOf == null || asOf.isBlank()) ? null : Instant.parse(asOf);
+        var from = cursor(after);
+        stream(response, EventView.class, sink -> {
+            var page = store.readPage(entityId, cutoff, from, streamPage);
+            while (true) {
+                page.events().forEach(e -> sink.accept(EventView.of(e)));
+                if (!page.hasNext()) return;
+                page = store.readPage(entityId, cutoff, page.next(), streamPage);
+            }
+        });
+    }
+
+    /** {@code Accept: application/x-ndjson}: search results, one per line; {@code limit} caps the stream. */
+    @GetMapping(path = "/search", produces = NDJSON)
+    public void searchNdjson(
+            @RequestParam(name = "type", required = false) String type,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(name = "to", required = false)   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "jsonPath", required = false) String jsonPath,
+            @RequestParam(name = "jsonValue", required = false) String jsonValue,
+            HttpServletResponse response) throws IOException {
+        long cap = (limit == null || limit <= 0) ? Long.MAX_VALUE : limit;
+        stream(response, TemporalEvent.class, sink -> {
+            long left = cap;
+            Cursor after = null;
+            do {
+                var page = store.searchPage(type, from, to, jsonPath, jsonValue, after, (int) Math.min(streamPage, left));
+                page.events().forEach(sink);
+                left -= page.events().size();
+                after = page.next();
+            } while (after != null && left > 0);
+        });
+    }
+
+    /**
+     * Runs {@code read} against an NDJSON writer on the response. Written synchronously on the
+     * request thread, like the bulk export, so no async timeout cuts a long stream short. The
+     * reads page through the store ({@code cf.api.stream.page} rows per query), so no connection
+     * is held while the client is written to; a page boundary is a keyset seek like
+     * {@code X-CF-Next}, not a snapshot. A write to a client that has gone away fails, which
+     * ends the stream.
+     */
+    private <T> void stream(HttpServletResponse response, Class<T> type,
+                            Consumer<Consumer<T>> read) throws IOException {
+        response.setContentType(NDJSON);
+        try (var out = new NdjsonStream<>(mapper, type, response.getOutputStream(), flushEvery)) {
+            read.accept(out);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static Cursor cursor(String token) {
+        if (token == null || token.isBlank()) return null;
+        try {
+            return Cursor.decode(token);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid 'after' token", e);
+        }
+    }
+
+    private static int pageSize(Integer limit) {
+        if (limit == null || limit <= 0) return DEFAULT_PAGE_SIZE;
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    private static <T> ResponseEntity<List<T>> paged(EventPage page, List<T> body) {
+        var res = ResponseEntity.ok();
+        if (page.hasNext()) res.header(NEXT_HEADER, page.next().encode());
+        return res.body(body);
+    }
 }
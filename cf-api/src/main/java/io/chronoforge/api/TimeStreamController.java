@@ -1,63 +1,71 @@
 package io.chronoforge.api;
 
-import io.chronoforge.core.TemporalEvent;
-import io.chronoforge.store.EventStore;
+import io.chronoforge.store.LogPosition;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.io.IOException;
-import java.time.Duration;
-import java.util.UUID;
-import java.util.concurrent.Flow;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/time")
 public class TimeStreamController {
 
-    private final EventStore store;
+    /** Sent by EventSource on reconnect: the id (log position) of the last event the client received. */
+    static final String LAST_EVENT_ID = "Last-Event-ID";
 
-    public TimeStreamController(EventStore store) {
-        this.store = store;
+    private final SseHub hub;
+
+    public TimeStreamController(SseHub hub) {
+        this.hub = hub;
     }
 
-    /** Stream all events (entityId optional via query). */
+    /**
+     * Stream all events, or only those matching the optional filters: entityId and type (each
+     * repeated or comma-separated; any of them) and where=field:value (all of them). With
+     * Last-Event-ID (or lastEventId=, for clients that cannot set headers) the stream first
+     * replays what came after it.
+     */
     @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter stream(@RequestParam(name = "entityId", required = false) String entityId) {
-        return subscribeFiltering(entityId);
+    public SseEmitter stream(@RequestParam(name = "entityId", required = false) List<String> entityIds,
+                             @RequestParam(name = "type", required = false) List<String> types,
+                             @RequestParam(name = "where", required = false) List<String> where,
+                             @RequestHeader(name = LAST_EVENT_ID, required = false) String lastEventId,
+                             @RequestParam(name = "lastEventId", required = false) String lastEventIdParam) {
+        return subscribe(filter(entityIds, types, where), lastEventId != null ? lastEventId : lastEventIdParam);
     }
 
     /** Convenience path variant: /api/time/{id}/stream */
     @GetMapping(path = "/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter streamById(@PathVariable("id") String id) {
-        return subscribeFiltering(id);
+    public SseEmitter streamById(@PathVariable("id") String id,
+                                 @RequestParam(name = "type", required = false) List<String> types,
+                                 @RequestParam(name = "where", required = false) List<String> where,
+                                 @RequestHeader(name = LAST_EVENT_ID, required = false) String lastEventId,
+                                 @RequestParam(name = "lastEventId", required = false) String lastEventIdParam) {
+        return subscribe(filter(List.of(id), types, where), lastEventId != null ? lastEventId : lastEventIdParam);
     }
 
-    private SseEmitter subscribeFiltering(String entityIdOrNull) {
-        final String entityFilter = (entityIdOrNull == null || entityIdOrNull.isBlank()) ? null : entityIdOrNull;
-        final SseEmitter emitter = new SseEmitter(Duration.ofMinutes(30).toMillis());
-
-        Flow.Subscriber<TemporalEvent> sub = new Flow.Subscriber<>() {
-            Flow.Subscription s;
-
-            @Override public void onSubscribe(Flow.Subscription s) { (this.s = s).request(Long.MAX_VALUE); }
-
-            @Override public void onNext(TemporalEvent e) {
-                try {
-                    if (entityFilter == null || e.entityId().value().equals(UUID.fromString(entityFilter))) {
-                        emitter.send(SseEmitter.event().name("event").data(e));
-                    }
-                } catch (IOException ex) {
-                    emitter.completeWithError(ex);
-                    if (s != null) s.cancel();
-                }
-            }
+    /** The filter is compiled once here, not per event; delivery, back-pressure and replay are the hub's. */
+    private SseEmitter subscribe(StreamFilter filter, String lastEventId) {
+        return hub.open(filter, resumeAfter(lastEventId));
+    }
 
-            @Override public void onError(Throwable t) { emitter.completeWithError(t); }
-            @Override public void onComplete() { emitter.complete(); }
-        };
+    private static StreamFilter filter(List<String> entityIds, List<String> types, List<String> where) {
+        try {
+            return StreamFilter.parse(entityIds, types, where);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
 
-        store.subscribe().subscribe(sub);
-        return emitter;
+    private static LogPosition resumeAfter(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) return null;
+        try {
+            return LogPosition.decode(lastEventId);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid Last-Event-ID", e);
+        }
     }
 }
@@ -0,0 +1,118 @@
+package io.chronoforge.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.chronoforge.api.BatchController.BatchResult;
+import io.chronoforge.api.BatchController.ChunkResult;
+import io.chronoforge.core.NodeRetirements.RetiredNodeException;
+import io.chronoforge.core.TemporalEvent;
+import io.chronoforge.store.AppendResult;
+import io.chronoforge.store.EventStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BatchControllerTest {
+
+    private static final String DOC = "11111111-1111-1111-1111-111111111111";
+
+    private final EventStore store = mock(EventStore.class);
+    private final List<List<TemporalEvent>> appends = new ArrayList<>();
+    private final BatchController controller = new BatchController(store, new ObjectMapper(), 2);
+
+    @BeforeEach
+    void setUp() {
+        // stores every chunk; a chunk holding a "RETIRED" or "BAD" event is refused as the store would
+        when(store.append(anyList())).thenAnswer(inv -> {
+            List<TemporalEvent> events = inv.getArgument(0);
+            appends.add(events);
+            for (var e : events) {
+                if (e.type().equals("RETIRED")) throw new RetiredNodeException("ci-1");
+                if (e.type().equals("BAD")) throw new IllegalArgumentException("event too large");
+            }
+            return AppendResult.allAppended(events);
+        });
+    }
+
+    private ResponseEntity<BatchResult> post(String... types) throws IOException {
+        var body = new StringBuilder();
+        for (var type : types) {
+            body.append(type == null ? "{not json" : "{\"entityId\":\"" + DOC + "\",\"type\":\"" + type + "\",\"payload\":{}}").append('\n');
+        }
+        var request = new MockHttpServletRequest("POST", "/api/time/events:batch");
+        request.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        request.setContent(body.toString().getBytes(StandardCharsets.UTF_8));
+        return controller.batch(request, null, null);
+    }
+
+    @Test
+    void linesGoToTheStoreInChunks() throws IOException {
+        var response = post("A", "B", "C", "D", "E");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        var result = response.getBody();
+        assertThat(result.chunks()).containsExactly(new ChunkResult(0, 2, 2, 0), new ChunkResult(2, 2, 2, 0), new ChunkResult(4, 1, 1, 0));
+        assertThat(result.events()).isEqualTo(5);
+        assertThat(result.appended()).isEqualTo(5);
+        assertThat(result.failedAt()).isNull();
+        assertThat(appends).hasSize(3);
+    }
+
+    @Test
+    void aBadLine_storesTheLinesBeforeIt() throws IOException {
+        var response = post("A", "B", "C", null, "E");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        var result = response.getBody();
+        assertThat(result.failedAt()).isEqualTo(3);
+        assertThat(result.appended()).isEqualTo(3);
+        assertThat(result.chunks()).containsExactly(new ChunkResult(0, 2, 2, 0), new ChunkResult(2, 1, 1, 0));
+    }
+
+    @Test
+    void aRejectedChunk_failsAtItsFirstLineAndIsNotSentAgain() throws IOException {
+        var response = post("A", "B", "C", "BAD", "E");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        var result = response.getBody();
+        assertThat(result.failedAt()).isEqualTo(2);
+        assertThat(result.error()).isEqualTo("event too large");
+        assertThat(result.appended()).isEqualTo(2);
+        assertThat(result.chunks()).containsExactly(new ChunkResult(0, 2, 2, 0));
+        assertThat(appends).hasSize(2);
+    }
+
+    @Test
+    void aRetiredNode_isAConflict() throws IOException {
+        var response = post("A", "B", "RETIRED");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        var result = response.getBody();
+        assertThat(result.failedAt()).isEqualTo(2);
+        assertThat(result.error()).isEqualTo("node is retired: ci-1");
+        assertThat(result.appended()).isEqualTo(2);
+        assertThat(appends).hasSize(2);
+    }
+
+    @Test
+    void aRetiredNodeInTheChunkBeforeABadLine_isStillAConflict() throws IOException {
+        var response = post("RETIRED", null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(response.getBody().failedAt()).isEqualTo(0);
+        assertThat(response.getBody().chunks()).isEmpty();
+        assertThat(appends).hasSize(1);
+    }
+}
@@ -0,0 +1,289 @@
+package io.chronoforge.api;
+
+import io.chronoforge.api.DocProjector.Phase;
+import io.chronoforge.core.NodeRetirementRegistry;
+import io.chronoforge.core.TemporalEvent;
+import io.chronoforge.core.TemporalId;
+import io.chronoforge.core.VectorClock;
+import io.chronoforge.store.InMemoryEventStore;
+import io.chronoforge.store.LogPosition;
+import io.chronoforge.store.pg.DocCheckpointRepository;
+import io.chronoforge.store.pg.DocSnapshotRepository;
+import io.chronoforge.store.pg.DocSnapshotRepository.Snapshot;
+import io.chronoforge.store.pg.PostgresAppendListener;
+import io.chronoforge.store.pg.ProjectorOffsetRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The projector over an {@link InMemoryEventStore}, with the snapshot table kept in a map behind
+ * mocked repositories. Checkpoint thresholds are out of reach, so only snapshots and offsets are
+ * written.
+ */
+class DocProjectorTest {
+
+    private static final UUID A = UUID.fromString("11111111-1111-1111-1111-111111111111");
+    private static final UUID B = UUID.fromString("22222222-2222-2222-2222-222222222222");
+
+    private final InMemoryEventStore store = new InMemoryEventStore();
+    private final DocSnapshotRepository snapshots = mock(DocSnapshotRepository.class);
+    private final DocCheckpointRepository checkpoints = mock(DocCheckpointRepository.class);
+    private final ProjectorOffsetRepository offsets = mock(ProjectorOffsetRepository.class);
+    @SuppressWarnings("unchecked")
+    private final ObjectProvider<PostgresAppendListener> listener = mock(ObjectProvider.class);
+    private final Map<UUID, Snapshot> table = new ConcurrentHashMap<>();
+    private final List<List<Snapshot>> upserts = new CopyOnWriteArrayList<>();
+    private DocProjector projector;
+    private int node;
+
+    @BeforeEach
+    void setUp() {
+        when(snapshots.getAll(anyCollection())).thenAnswer(inv -> {
+            Collection<UUID> ids = inv.getArgument(0);
+            var found = new HashMap<UUID, Snapshot>();
+            for (var id : ids) if (table.containsKey(id)) found.put(id, table.get(id));
+            return found;
+        });
+        doAnswer(inv -> {
+            List<Snapshot> rows = inv.getArgument(0);
+            upserts.add(List.copyOf(rows));
+            for (var row : rows) table.put(row.entityId(), row);
+            return null;
+        }).when(snapshots).upsertAll(anyList());
+        when(offsets.get(DocProjector.OFFSET_NAME)).thenReturn(LogPosition.START);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (projector != null) projector.stop();
+    }
+
+    private DocProjector start(int batchSize, Duration linger, int replayThreads) {
+        projector = new DocProjector(store, snapshots, checkpoints, offsets, new NodeRetirementRegistry(),
+                1_000_000, Duration.ofDays(1), 1_000, Duration.ofHours(1), batchSize, linger, replayThreads, listener);
+        return projector;
+    }
+
+    /**
+     * A DOC_SET from a node of its own: its clock is concurrent with every other event's, so it is
+     * applied whatever came before it, and the final document shows which event came last.
+     */
+    private TemporalEvent set(UUID entity, Map<String, Object> fields) {
+        var n = "n" + node++;
+        return new TemporalEvent(new TemporalId(entity), "DOC_SET", Instant.parse("2024-03-01T10:00:00Z").plusSeconds(node),
+                VectorClock.copyOf(Map.of(n, 1L)), fields, n);
+    }
+
+    private TemporalEvent append(TemporalEvent e) {
+        return store.append(List.of(e)).appended().getFirst();
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("timed out").isLessThan(deadline);
+            try { Thread.sleep(5); } catch (InterruptedException e) { throw new IllegalStateException(e); }
+        }
+    }
+
+    private void awaitLive() {
+        await(() -> projector.stats().phase() == Phase.LIVE);
+    }
+
+    @Test
+    void liveBatch_coalescesPerEntityIntoOneRead_andOneUpsert() {
+        start(100, Duration.ofMillis(200), 2);
+        awaitLive();
+
+        store.append(List.of(
+                set(A, Map.of("title", "a")), set(A, Map.of("n", 1)), set(B, Map.of("x", 1)),
+                set(A, Map.of("n", 2)), set(B, Map.of("y", 2))));
+        await(() -> projector.stats().projected() == 5);
+
+        assertThat(upserts).hasSize(1);
+        assertThat(upserts.getFirst()).extracting(Snapshot::entityId).containsExactlyInAnyOrder(A, B);
+        verify(snapshots, times(1)).getAll(anyCollection());
+        assertThat(table.get(A).doc()).isEqualTo(Map.of("title", "a", "n", 2));
+        assertThat(table.get(B).doc()).isEqualTo(Map.of("x", 1, "y", 2));
+
+        var stats = projector.stats();
+        assertThat(stats.batches()).isEqualTo(1);
+        assertThat(stats.lastBatchSize()).isEqualTo(5);
+        assertThat(stats.queued()).isZero();
+        assertThat(stats.lagMillis()).isZero();
+    }
+
+    @Test
+    void liveBatch_isCappedAtTheBatchSize() {
+        start(2, Duration.ofMillis(200), 1);
+        awaitLive();
+
+        store.append(List.of(set(UUID.randomUUID(), Map.of("i", 1)), set(UUID.randomUUID(), Map.of("i", 2)),
+                set(UUID.randomUUID(), Map.of("i", 3)), set(UUID.randomUUID(), Map.of("i", 4)),
+                set(UUID.randomUUID(), Map.of("i", 5))));
+        await(() -> projector.stats().projected() == 5);
+
+        assertThat(upserts.stream().map(List::size).toList()).containsExactly(2, 2, 1);
+        assertThat(projector.stats().batches()).isEqualTo(3);
+        assertThat(projector.stats().lastBatchSize()).isEqualTo(1);
+    }
+
+    @Test
+    void stats_reportTheAgeOfTheOldestUnwrittenEvent() throws InterruptedException {
+        var entered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        doAnswer(inv -> {
+            entered.countDown();
+            release.await();
+            List<Snapshot> rows = inv.getArgument(0);
+            for (var row : rows) table.put(row.entityId(), row);
+            return null;
+        }).when(snapshots).upsertAll(anyList());
+        start(100, Duration.ZERO, 1);
+        awaitLive();
+
+        append(set(A, Map.of("n", 1)));
+        assertThat(entered.await(10, TimeUnit.SECONDS)).isTrue();   // the first batch is being written
+        append(set(B, Map.of("n", 2)));
+        Thread.sleep(60);
+
+        var busy = projector.stats();
+        assertThat(busy.queued()).isEqualTo(1);
+        assertThat(busy.lagMillis()).isGreaterThanOrEqualTo(50);
+
+        release.countDown();
+        await(() -> projector.stats().projected() == 2);
+        var idle = projector.stats();
+        assertThat(idle.queued()).isZero();
+        assertThat(idle.lagMillis()).isZero();
+        assertThat(projector.upsertNanos()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    void startup_catchesUpAfterTheSavedOffset_andSavesTheLastPositionRead() {
+        append(set(A, Map.of("before", true)));
+        var saved = append(set(B, Map.of("before", true)));
+        append(set(A, Map.of("n", 1)));
+        var note = append(new TemporalEvent(new TemporalId(B), "NOTE", Instant.parse("2024-03-02T00:00:00Z"),
+                VectorClock.copyOf(Map.of("z", 1L)), Map.of(), "z"));
+        when(offsets.get(DocProjector.OFFSET_NAME)).thenReturn(LogPosition.ofSeq(saved.seq()));
+
+        start(100, Duration.ofMillis(20), 2);
+        awaitLive();
+
+        assertThat(table.keySet()).containsExactly(A);
+        assertThat(table.get(A).doc()).isEqualTo(Map.of("n", 1));
+        // the last position read is a non-DOC event: the offset still moves past it
+        verify(offsets).save(DocProjector.OFFSET_NAME, LogPosition.ofSeq(note.seq()));
+    }
+
+    @Test
+    void liveBatch_movesTheOffsetOnlyWhenDeliveryIsCommitOrdered() {
+        when(listener.getIfAvailable()).thenReturn(mock(PostgresAppendListener.class));
+        start(100, Duration.ofMillis(20), 1);
+        awaitLive();
+
+        var e = append(set(A, Map.of("n", 1)));
+        verify(offsets, timeout(5_000)).save(DocProjector.OFFSET_NAME, LogPosition.ofSeq(e.seq()));
+    }
+
+    @Test
+    void liveBatch_withoutTheListener_leavesTheOffsetToCatchUp() throws InterruptedException {
+        start(100, Duration.ofMillis(20), 1);
+        awaitLive();
+
+        append(set(A, Map.of("n", 1)));
+        await(() -> projector.stats().projected() == 1);
+        projector.stop();
+        projector = null;
+
+        // only the startup catch-up saved, at the start of an empty log
+        verify(offsets, times(1)).save(any(), any());
+        verify(offsets).save(DocProjector.OFFSET_NAME, LogPosition.START);
+    }
+
+    @Test
+    void failedLiveBatch_catchesUpFromTheSavedOffset() {
+        var calls = new AtomicInteger();
+        doAnswer(inv -> {
+            if (calls.getAndIncrement() == 0) throw new IllegalStateException("connection reset");
+            List<Snapshot> rows = inv.getArgument(0);
+            for (var row : rows) table.put(row.entityId(), row);
+            return null;
+        }).when(snapshots).upsertAll(anyList());
+        start(100, Duration.ofMillis(20), 1);
+        awaitLive();
+
+        append(set(A, Map.of("n", 1)));
+        await(() -> table.containsKey(A) && projector.stats().phase() == Phase.LIVE);
+
+        assertThat(table.get(A).doc()).isEqualTo(Map.of("n", 1));
+        verify(offsets, atLeast(2)).get(DocProjector.OFFSET_NAME);   // startup, then after the failure
+    }
+
+    @Test
+    void replay_keepsEachEntitysEventsInOrderAcrossWorkers_andRebuildReplaysFromTheStart() {
+        var entities = new ArrayList<UUID>();
+        for (int i = 0; i < 10; i++) entities.add(UUID.randomUUID());
+        for (int i = 0; i < 30; i++) {
+            for (var id : entities) append(set(id, Map.of("i", i)));
+        }
+        doAnswer(inv -> {
+            table.clear();
+            return null;
+        }).when(snapshots).deleteAll();
+
+        start(4, Duration.ofMillis(20), 4);
+        awaitLive();
+        assertInOrder(entities);
+
+        upserts.clear();
+        assertThat(projector.requestRebuild()).isTrue();
+        verify(offsets, timeout(5_000)).reset(DocProjector.OFFSET_NAME);
+        awaitLive();
+        verify(snapshots).deleteAll();
+        assertInOrder(entities);
+    }
+
+    /** Every entity's upserts saw its events in append order, ending with the last one. */
+    private void assertInOrder(List<UUID> entities) {
+        var seen = new HashMap<UUID, Integer>();
+        for (var batch : upserts) {
+            for (var row : batch) {
+                int i = (Integer) row.doc().get("i");
+                var previous = seen.put(row.entityId(), i);
+                if (previous != null) assertThat(i).as("entity %s", row.entityId()).isGreaterThan(previous);
+            }
+        }
+        for (var id : entities) assertThat(table.get(id).doc()).isEqualTo(Map.of("i", 29));
+    }
+}
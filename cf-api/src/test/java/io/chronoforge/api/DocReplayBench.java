@@ -0,0 +1,88 @@
+package io.chronoforge.api;
+
+import io.chronoforge.core.NodeRetirements;
+import io.chronoforge.core.TemporalEvent;
+import io.chronoforge.core.TemporalId;
+import io.chronoforge.core.VectorClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The DOC_SET/DOC_DEL fold behind {@code GET /api/docs/{id}}: replaying a whole history, and the
+ * checkpointed path that starts from the document at 90% of it and folds only the tail. Events
+ * are about four sets to one delete over {@code keys} fields, written by three nodes. A JMH
+ * benchmark in the test tree, next to the package-private {@link DocReplay}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class DocReplayBench {
+
+    @Param({"100", "10000"})
+    int events;
+
+    @Param({"16"})
+    int keys;
+
+    List<TemporalEvent> history;
+    List<TemporalEvent> tail;
+    Map<String, Object> checkpointDoc;
+    Map<String, Long> checkpointClock;
+
+    @Setup
+    public void setup() {
+        var id = new TemporalId(new UUID(0xd0c, 1));
+        var rnd = new SplittableRandom(42);
+        var clock = new VectorClock();
+        var t0 = Instant.parse("2024-01-01T00:00:00Z");
+        history = new ArrayList<>(events);
+        for (int i = 0; i < events; i++) {
+            String node = "node-" + (i % 3);
+            clock.tick(node);
+            String key = "k" + rnd.nextInt(keys);
+            history.add(rnd.nextInt(5) == 0
+                    ? new TemporalEvent(id, "DOC_DEL", t0.plusMillis(i), clock, Map.of("keys", List.of(key)), node, i + 1)
+                    : new TemporalEvent(id, "DOC_SET", t0.plusMillis(i), clock, Map.of(key, "v" + i, "rev", i), node, i + 1));
+        }
+        int at = events * 9 / 10;
+        var checkpoint = new DocReplay();
+        history.subList(0, at).forEach(checkpoint);
+        checkpointDoc = Map.copyOf(checkpoint.doc());
+        checkpointClock = checkpoint.clock().snapshot();
+        tail = List.copyOf(history.subList(at, events));
+    }
+
+    @Benchmark
+    public Map<String, Object> replayAll() {
+        var replay = new DocReplay();
+        history.forEach(replay);
+        return replay.doc();
+    }
+
+    @Benchmark
+    public Map<String, Object> replayFromCheckpoint() {
+        var replay = new DocReplay(checkpointDoc, checkpointClock, NodeRetirements.NONE);
+        tail.forEach(replay);
+        return replay.doc();
+    }
+}
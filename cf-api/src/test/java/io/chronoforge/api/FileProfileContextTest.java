@@ -0,0 +1,59 @@
+package io.chronoforge.api;
+
+import io.chronoforge.store.EventStore;
+import io.chronoforge.store.file.FileEventStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** The file profile boots without a database: no DataSource, no projector, docs replayed from the log. */
+@SpringBootTest
+@ActiveProfiles("file")
+class FileProfileContextTest {
+
+    @TempDir
+    static Path dir;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("cf.store.file.dir", () -> dir.toString());
+        registry.add("cf.store.file.fsync", () -> "NEVER");
+    }
+
+    @Autowired ApplicationContext context;
+    @Autowired EventStore store;
+    @Autowired DocController docs;
+    @Autowired AdminController admin;
+
+    @Test
+    void contextLoadsOnTheFileStore() {
+        assertThat(context.getBeansOfType(DataSource.class)).isEmpty();
+        assertThat(context.getBeanProvider(DocProjector.class).getIfAvailable()).isNull();
+        assertThat(context.getBean(FileEventStore.class).fsync()).isEqualTo(FileEventStore.Fsync.NEVER);
+        assertThat(store).isInstanceOf(MeteredEventStore.class);
+        assertThat(admin.projector().getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(admin.docCache().getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void docsAreReplayedFromTheLog() {
+        var id = UUID.randomUUID().toString();
+        docs.set(id, Map.of("title", "draft", "n", 1), null);
+
+        assertThat(docs.get(id, null).getBody()).isEqualTo(Map.of("title", "draft", "n", 1));
+        assertThat(docs.get(UUID.randomUUID().toString(), null).getBody()).isEmpty();
+    }
+}
@@ -0,0 +1,357 @@
+package io.chronoforge.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.chronoforge.api.SseHub.SlowConsumer;
+import io.chronoforge.core.TemporalEvent;
+import io.chronoforge.core.TemporalId;
+import io.chronoforge.core.VectorClock;
+import io.chronoforge.store.InMemoryEventStore;
+import io.chronoforge.store.LogPosition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The hub driven by an {@link InMemoryEventStore} and emitters that record what they are sent.
+ * A held emitter blocks its client's drain thread, which is how a slow connection is staged.
+ */
+class SseHubTest {
+
+    private static final UUID X = UUID.fromString("11111111-1111-1111-1111-111111111111");
+    private static final UUID Y = UUID.fromString("22222222-2222-2222-2222-222222222222");
+    private static final UUID W = UUID.fromString("33333333-3333-3333-3333-333333333333");
+    private static final UUID PROBE = UUID.fromString("99999999-9999-9999-9999-999999999999");
+
+    private final InMemoryEventStore store = new InMemoryEventStore();
+    private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+    private final List<RecordingEmitter> emitters = new ArrayList<>();
+    private SseHub hub;
+    private RecordingEmitter probe;
+    private int clock;
+
+    @AfterEach
+    void tearDown() {
+        emitters.forEach(RecordingEmitter::release);
+        if (hub != null) hub.stop();
+    }
+
+    /** A hub plus a probe client on its own entity, used by {@link #settle()}. */
+    private SseHub hub(int buffer, SlowConsumer policy, int catchUpPage) {
+        hub = new SseHub(store, mapper, buffer, policy, Duration.ofMinutes(1), catchUpPage, 2);
+        probe = open(filter(PROBE), null);
+        return hub;
+    }
+
+    private RecordingEmitter open(StreamFilter filter, LogPosition lastEventId) {
+        return open(filter, lastEventId, false);
+    }
+
+    /** {@code held}: the client's first send, replayed or live, waits for {@link RecordingEmitter#release()}. */
+    private RecordingEmitter open(StreamFilter filter, LogPosition lastEventId, boolean held) {
+        var emitter = new RecordingEmitter();
+        if (held) emitter.hold();
+        emitters.add(emitter);
+        hub.open(filter, lastEventId, emitter);
+        return emitter;
+    }
+
+    private List<TemporalEvent> append(UUID entity, int n) {
+        var events = new ArrayList<TemporalEvent>(n);
+        for (int i = 0; i < n; i++) events.add(append(entity));
+        return events;
+    }
+
+    private static List<String> ids(List<TemporalEvent> events) {
+        return events.stream().map(SseHubTest::id).toList();
+    }
+
+    private static StreamFilter filter(UUID... ids) {
+        return new StreamFilter(Set.of(ids), Set.of(), Map.of());
+    }
+
+    private TemporalEvent append(UUID entity) {
+        return append(entity, "DOC_SET", Map.of());
+    }
+
+    private TemporalEvent append(UUID entity, String type, Map<String, Object> payload) {
+        var e = new TemporalEvent(new TemporalId(entity), type, Instant.parse("2024-03-01T10:00:00Z").plusSeconds(clock++),
+                VectorClock.copyOf(Map.of("t", (long) clock)), payload, "t");
+        return store.append(List.of(e)).appended().getFirst();
+    }
+
+    private static String id(TemporalEvent e) {
+        return LogPosition.ofSeq(e.seq()).encode();
+    }
+
+    /**
+     * Returns once the hub has offered every event appended so far: the bus delivers in order,
+     * so the probe seeing a marker appended now means all earlier events were offered.
+     */
+    private void settle() {
+        var marker = id(append(PROBE));
+        await(() -> probe.ids().contains(marker));
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("timed out").isLessThan(deadline);
+            Thread.yield();
+            try { Thread.sleep(2); } catch (InterruptedException e) { throw new IllegalStateException(e); }
+        }
+    }
+
+    @Test
+    void drop_fullQueueDropsNewEventsAndReportsHowManyBeforeTheNext() {
+        hub(2, SlowConsumer.DROP, 100);
+        var client = open(filter(X), null);
+        client.hold();
+        var e1 = append(X);
+        client.awaitBlocked();   // the drain thread is sending e1; the queue is empty
+        var e2 = append(X);
+        var e3 = append(X);
+        append(X);
+        append(X);
+        settle();                // e2, e3 queued; the last two did not fit
+        client.release();
+
+        await(() -> client.sent.size() == 4);
+        assertThat(client.sent).containsExactly(
+                Sent.event(id(e1)), Sent.dropped(2), Sent.event(id(e2)), Sent.event(id(e3)));
+        assertThat(hub.stats().dropped()).isEqualTo(2);
+
+        var e6 = append(X);
+        await(() -> client.sent.size() == 5);
+        assertThat(client.sent.getLast()).isEqualTo(Sent.event(id(e6)));
+    }
+
+    @Test
+    void coalesce_replacesTheQueuedEventOfTheSameEntityAndDropsOtherwise() {
+        hub(2, SlowConsumer.COALESCE, 100);
+        var client = open(filter(X, Y, W), null);
+        client.hold();
+        var e1 = append(X);
+        client.awaitBlocked();
+        append(X);               // queued, then replaced by e4
+        var e3 = append(Y);
+        var e4 = append(X);      // full: takes the place of X's queued event, at the back
+        append(W);               // full and no W queued: dropped
+        settle();
+        client.release();
+
+        await(() -> client.sent.size() == 4);
+        assertThat(client.sent).containsExactly(
+                Sent.event(id(e1)), Sent.dropped(1), Sent.event(id(e3)), Sent.event(id(e4)));
+        assertThat(hub.stats().coalesced()).isEqualTo(1);
+        assertThat(hub.stats().dropped()).isEqualTo(1);
+    }
+
+    @Test
+    void disconnect_fullQueueClosesTheStream() {
+        hub(1, SlowConsumer.DISCONNECT, 100);
+        var client = open(filter(X), null);
+        client.hold();
+        var e1 = append(X);
+        client.awaitBlocked();
+        append(X);               // fills the queue
+        append(X);               // overflows it
+        settle();
+
+        assertThat(client.completed).isTrue();
+        assertThat(hub.stats().disconnected()).isEqualTo(1);
+        assertThat(hub.stats().clients()).isEqualTo(1);   // the probe
+
+        client.release();
+        await(() -> client.sent.size() == 1);
+        append(X);
+        settle();
+        assertThat(client.sent).containsExactly(Sent.event(id(e1)));
+    }
+
+    @Test
+    void resume_liveEventsDuringTheReplayAreSentOnceInOrder() {
+        hub(16, SlowConsumer.DROP, 2);
+        var before = append(X, 5);
+        var client = open(filter(X), LogPosition.ofSeq(before.get(1).seq()), true);
+        client.awaitBlocked();               // replaying the first page
+        var during = append(X, 2);           // queued live, and in the store ahead of the replay
+        settle();
+        client.release();
+        await(() -> client.sent.size() == 5);   // the replay is done once it sent the last of them
+        var after = append(X);
+
+        var expected = new ArrayList<>(ids(before.subList(2, 5)));
+        expected.addAll(ids(during));
+        expected.add(id(after));
+        await(() -> client.sent.size() >= expected.size());
+        settle();
+        assertThat(client.ids()).containsExactlyElementsOf(expected);
+        assertThat(hub.stats().resumed()).isEqualTo(1);
+        assertThat(hub.stats().replayed()).isEqualTo(5);   // the replay read on through both live events
+    }
+
+    @Test
+    void resume_liveOverflowDuringTheReplayIsReadAgainNotDropped() {
+        hub(1, SlowConsumer.DROP, 2);
+        var before = append(X, 5);
+        var client = open(filter(X), LogPosition.ofSeq(before.get(1).seq()), true);
+        client.awaitBlocked();
+        var during = append(X, 3);           // one queued, two overflow
+        settle();
+        client.release();
+        var after = append(X);
+
+        var expected = new ArrayList<>(ids(before.subList(2, 5)));
+        expected.addAll(ids(during));
+        expected.add(id(after));
+        await(() -> client.sent.size() >= expected.size());
+        settle();
+        assertThat(client.ids()).containsExactlyElementsOf(expected);
+        assertThat(hub.stats().dropped()).isZero();
+    }
+
+    @Test
+    void resume_fromTheHeadSendsOnlyLiveEvents() {
+        hub(16, SlowConsumer.DROP, 2);
+        var before = append(X, 3);
+        var client = open(filter(X), LogPosition.ofSeq(before.getLast().seq()));
+        var live = append(X, 2);
+
+        await(() -> client.sent.size() >= 2);
+        settle();
+        assertThat(client.ids()).containsExactlyElementsOf(ids(live));
+    }
+
+    @Test
+    void dispatch_reachesExactlyTheMatchingClientsOnceEach() {
+        hub(16, SlowConsumer.DROP, 100);
+        var byA = open(filter(X), null);
+        var byAB = open(filter(X, Y), null);
+        var byIdAndType = open(new StreamFilter(Set.of(X), Set.of("T"), Map.of()), null);
+        var byType = open(new StreamFilter(Set.of(), Set.of("T"), Map.of()), null);
+        var byTypeAndField = open(new StreamFilter(Set.of(), Set.of("T"), Map.of("status", "open")), null);
+        var byField = open(new StreamFilter(Set.of(), Set.of(), Map.of("status", "open")), null);
+        var all = open(StreamFilter.ALL, null);
+
+        var e1 = id(append(X, "DOC_SET", Map.of()));
+        var e2 = id(append(Y, "T", Map.of("status", "open")));
+        var e3 = id(append(W, "T", Map.of()));
+        var e4 = id(append(W, "OTHER", Map.of("status", "open")));
+        var e5 = id(append(X, "T", Map.of("status", "closed")));
+
+        Map<RecordingEmitter, List<String>> expected = Map.of(
+                byA, List.of(e1, e5),
+                byAB, List.of(e1, e2, e5),
+                byIdAndType, List.of(e5),
+                byType, List.of(e2, e3, e5),
+                byTypeAndField, List.of(e2),
+                byField, List.of(e2, e4));
+        expected.forEach((client, ids) -> await(() -> client.sent.size() >= ids.size()));
+        settle();   // the unfiltered client sees the marker too
+        expected.forEach((client, ids) -> assertThat(client.ids()).containsExactlyElementsOf(ids));
+        assertThat(all.ids().subList(0, 5)).containsExactly(e1, e2, e3, e4, e5);
+    }
+
+    @Test
+    void dispatch_stopsAtAClosedClient() {
+        hub(16, SlowConsumer.DROP, 100);
+        var client = open(filter(X), null);
+        var e1 = id(append(X));
+        await(() -> client.sent.size() == 1);
+
+        hub.stop();   // disconnects every client, which unindexes it
+        append(X);
+        assertThat(hub.stats().clients()).isZero();
+        assertThat(client.ids()).containsExactly(e1);
+        assertThat(client.completed).isTrue();
+    }
+
+    /** One frame as the client would parse it; {@code data} only for {@code dropped}. */
+    record Sent(String name, String id, String data) {
+        static Sent event(String id) { return new Sent("event", id, null); }
+        static Sent dropped(long n) { return new Sent("dropped", null, "{dropped=" + n + "}"); }
+    }
+
+    /** Records every send; after {@link #hold()}, sends wait for {@link #release()}. */
+    static final class RecordingEmitter extends SseEmitter {
+        final List<Sent> sent = new CopyOnWriteArrayList<>();
+        private final Semaphore blocked = new Semaphore(0);
+        private volatile CountDownLatch gate;
+        volatile boolean completed;
+        volatile Throwable error;
+
+        void hold() { gate = new CountDownLatch(1); }
+
+        void release() {
+            var g = gate;
+            gate = null;
+            if (g != null) g.countDown();
+        }
+
+        void awaitBlocked() {
+            try {
+                assertThat(blocked.tryAcquire(10, TimeUnit.SECONDS)).as("no send started").isTrue();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        List<String> ids() {
+            return sent.stream().map(Sent::id).toList();
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            var g = gate;
+            if (g != null) {
+                blocked.release();
+                try {
+                    g.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            var text = new StringBuilder();
+            for (var part : builder.build()) {
+                var data = part.getData();
+                text.append(data instanceof byte[] bytes ? new String(bytes, StandardCharsets.UTF_8) : String.valueOf(data));
+            }
+            String name = null, id = null, data = null;
+            for (var line : text.toString().split("\n")) {
+                if (line.startsWith("event:")) name = line.substring(6);
+                else if (line.startsWith("id:")) id = line.substring(3);
+                else if (line.startsWith("data:")) data = line.substring(5);
+            }
+            sent.add(new Sent(name, id, "dropped".equals(name) ? data : null));
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            error = ex;
+            completed = true;
+        }
+    }
+}
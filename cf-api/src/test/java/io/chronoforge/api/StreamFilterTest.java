@@ -0,0 +1,69 @@
+package io.chronoforge.api;
+
+import io.chronoforge.core.TemporalEvent;
+import io.chronoforge.core.TemporalId;
+import io.chronoforge.core.VectorClock;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StreamFilterTest {
+
+    private static final UUID A = UUID.fromString("11111111-1111-1111-1111-111111111111");
+    private static final UUID B = UUID.fromString("22222222-2222-2222-2222-222222222222");
+
+    private static TemporalEvent event(UUID entity, String type, Map<String, Object> payload) {
+        return new TemporalEvent(new TemporalId(entity), type, Instant.EPOCH, VectorClock.copyOf(Map.of("t", 1L)), payload, "t");
+    }
+
+    @Test
+    void parse_collectsRepeatedIdsAndTypesAndSkipsBlanks() {
+        var f = StreamFilter.parse(List.of(A.toString(), " " + B + " ", ""), List.of("DOC_SET", " ", "DOC_DEL"), null);
+
+        assertThat(f.entityIds()).containsExactlyInAnyOrder(A, B);
+        assertThat(f.types()).containsExactlyInAnyOrder("DOC_SET", "DOC_DEL");
+        assertThat(f.payload()).isEmpty();
+        assertThat(f.singleEntity()).isNull();
+    }
+
+    @Test
+    void parse_splitsWhereAtTheFirstColon() {
+        var f = StreamFilter.parse(null, null, Arrays.asList("status:open", " url : http://x:8080", null));
+
+        assertThat(f.payload()).isEqualTo(Map.of("status", "open", "url", " http://x:8080"));
+        assertThat(f.entityIds()).isEmpty();
+        assertThat(f.types()).isEmpty();
+    }
+
+    @Test
+    void parse_rejectsBadIdsAndWhereWithoutAField() {
+        assertThatThrownBy(() -> StreamFilter.parse(List.of("not-a-uuid"), null, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> StreamFilter.parse(null, null, List.of("open")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("where must be field:value, got 'open'");
+        assertThatThrownBy(() -> StreamFilter.parse(null, null, List.of(":open")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void matches_anyIdAnyTypeAndEveryPayloadField() {
+        var f = new StreamFilter(Set.of(A, B), Set.of("DOC_SET"), Map.of("status", "open", "n", "2"));
+
+        assertThat(f.matches(event(A, "DOC_SET", Map.of("status", "open", "n", 2)))).isTrue();
+        assertThat(f.matches(event(B, "DOC_SET", Map.of("status", "open", "n", "2", "x", 1)))).isTrue();
+        assertThat(f.matches(event(UUID.randomUUID(), "DOC_SET", Map.of("status", "open", "n", 2)))).isFalse();
+        assertThat(f.matches(event(A, "DOC_DEL", Map.of("status", "open", "n", 2)))).isFalse();
+        assertThat(f.matches(event(A, "DOC_SET", Map.of("status", "open")))).isFalse();
+        assertThat(StreamFilter.ALL.matches(event(A, "ANY", Map.of()))).isTrue();
+        assertThat(new StreamFilter(Set.of(A), Set.of(), Map.of()).singleEntity()).isEqualTo(new TemporalId(A));
+    }
+}
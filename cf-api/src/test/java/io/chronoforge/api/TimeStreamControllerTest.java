@@ -0,0 +1,78 @@
+package io.chronoforge.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.chronoforge.api.SseHub.SlowConsumer;
+import io.chronoforge.core.TemporalEvent;
+import io.chronoforge.core.TemporalId;
+import io.chronoforge.core.VectorClock;
+import io.chronoforge.store.InMemoryEventStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/** Request parameters to {@link StreamFilter}s, through Spring's binding. */
+class TimeStreamControllerTest {
+
+    private static final UUID A = UUID.fromString("11111111-1111-1111-1111-111111111111");
+    private static final UUID B = UUID.fromString("22222222-2222-2222-2222-222222222222");
+
+    private final InMemoryEventStore store = new InMemoryEventStore();
+    private final SseHub hub = new SseHub(store, new ObjectMapper().findAndRegisterModules(), 16, SlowConsumer.DROP,
+            Duration.ofMinutes(1), 100, 2);
+    private final MockMvc mvc = MockMvcBuilders.standaloneSetup(new TimeStreamController(hub)).build();
+
+    @AfterEach
+    void tearDown() {
+        hub.stop();
+    }
+
+    private String append(UUID entity, String type) {
+        var e = new TemporalEvent(new TemporalId(entity), type, Instant.EPOCH, VectorClock.copyOf(Map.of("t", 1L)), Map.of(), "t");
+        return Long.toString(store.append(List.of(e)).appended().getFirst().seq());
+    }
+
+    private static List<String> ids(MockHttpServletResponse response) throws Exception {
+        return response.getContentAsString().lines().filter(l -> l.startsWith("id:")).map(l -> l.substring(3)).toList();
+    }
+
+    @Test
+    void commaSeparatedAndRepeatedIdsAndTypesMakeOneFilter() throws Exception {
+        var response = mvc.perform(get("/api/time/stream")
+                        .param("entityId", A + "," + B)
+                        .param("type", "DOC_SET,DOC_DEL")
+                        .param("type", "X"))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+
+        append(UUID.randomUUID(), "DOC_SET");
+        append(A, "OTHER");
+        var wanted = List.of(append(A, "DOC_SET"), append(B, "DOC_DEL"), append(B, "X"));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (ids(response).size() < wanted.size() && System.nanoTime() < deadline) Thread.sleep(5);
+        assertThat(ids(response)).containsExactlyElementsOf(wanted);
+    }
+
+    @Test
+    void malformedFiltersAndPositionsAreBadRequests() throws Exception {
+        mvc.perform(get("/api/time/stream").param("entityId", A + ",not-a-uuid")).andExpect(status().isBadRequest());
+        mvc.perform(get("/api/time/not-a-uuid/stream")).andExpect(status().isBadRequest());
+        mvc.perform(get("/api/time/stream").param("where", "open")).andExpect(status().isBadRequest());
+        mvc.perform(get("/api/time/stream").header(TimeStreamController.LAST_EVENT_ID, "x.y")).andExpect(status().isBadRequest());
+        assertThat(hub.stats().clients()).isZero();
+    }
+}
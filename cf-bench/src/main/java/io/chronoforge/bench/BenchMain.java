@@ -0,0 +1,19 @@
+package io.chronoforge.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Entry point of {@code benchmarks.jar}: JMH's own command line, except that results are written
+ * as JSON ({@code jmh-result.json}) unless {@code -rf} says otherwise, so runs from different
+ * commits can be compared by tooling.
+ */
+public final class BenchMain {
+    private BenchMain() {}
+
+    public static void main(String[] args) throws Exception {
+        var all = new ArrayList<>(List.of(args));
+        if (!all.contains("-rf")) all.addAll(0, List.of("-rf", "json"));
+        org.openjdk.jmh.Main.main(all.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,48 @@
+package io.chronoforge.bench;
+
+import io.chronoforge.core.Determinism;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-request cost of deterministic scopes: binding clock, node and RNG around a body, as
+ * every write does, and deriving a stable seed from parts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class DeterminismBench {
+
+    final UUID entity = new UUID(0x5eed, 42);
+    long seed = 42;
+
+    @Benchmark
+    public long seedFrom() {
+        return Determinism.seedFrom("DOC_SET", entity, seed);
+    }
+
+    @Benchmark
+    public Instant withDeterminism() {
+        return Determinism.withDeterminism("bench", seed++, Determinism::now);
+    }
+
+    /** Scope plus a draw from its RNG (creating the generator is part of entering the scope). */
+    @Benchmark
+    public UUID withDeterminismRandomUUID() {
+        return Determinism.withDeterminism("bench", seed++, () -> Determinism.randomUUID());
+    }
+}
@@ -0,0 +1,126 @@
+package io.chronoforge.bench;
+
+import io.chronoforge.core.TemporalEvent;
+import io.chronoforge.core.TemporalId;
+import io.chronoforge.core.VectorClock;
+import io.chronoforge.store.AppendResult;
+import io.chronoforge.store.InMemoryEventStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link InMemoryEventStore} shared by several threads: appends, entity reads and type/time
+ * searches on their own ({@code @Threads(4)}; override with {@code -t}), and the {@code mixed}
+ * group with one writer next to readers and searchers. The store is refilled before every
+ * iteration so appends do not grow it without bound over a run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class InMemoryStoreBench {
+    private static final Instant T0 = Instant.parse("2024-01-01T00:00:00Z");
+    private static final String[] TYPES = {"DOC_SET", "DOC_DEL", "ORDER_PLACED", "ORDER_SHIPPED"};
+
+    @Param({"1000"})
+    int entities;
+
+    @Param({"20"})
+    int eventsPerEntity;
+
+    InMemoryEventStore store;
+    TemporalId[] ids;
+    final AtomicLong clock = new AtomicLong();
+
+    @Setup(Level.Iteration)
+    public void fill() {
+        store = new InMemoryEventStore();
+        ids = new TemporalId[entities];
+        clock.set(0);
+        for (int i = 0; i < entities; i++) ids[i] = new TemporalId(new UUID(0x5eed, i));
+        // interleaved like live traffic: every entity gets its k-th event before any its k+1-th
+        for (int k = 0; k < eventsPerEntity; k++) {
+            for (int i = 0; i < entities; i++) store.append(List.of(event(ids[i], k)));
+        }
+    }
+
+    private TemporalEvent event(TemporalId id, long n) {
+        long tick = clock.incrementAndGet();
+        return new TemporalEvent(id, TYPES[(int) (tick % TYPES.length)], T0.plusMillis(tick),
+                new VectorClock().tick("bench"), Map.of("n", n, "sku", "sku-" + (tick % 97)), "bench");
+    }
+
+    private TemporalId anyEntity() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    /** A window of about a hundred events, somewhere in what was loaded. */
+    private List<TemporalEvent> searchWindow() {
+        long loaded = (long) entities * eventsPerEntity;
+        long from = ThreadLocalRandom.current().nextLong(Math.max(1, loaded - 400));
+        return store.search("ORDER_PLACED", T0.plusMillis(from), T0.plusMillis(from + 400), 100, null, null);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public AppendResult append() {
+        var id = anyEntity();
+        return store.append(List.of(event(id, -1)));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<TemporalEvent> read() {
+        return store.read(anyEntity());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<TemporalEvent> search() {
+        return searchWindow();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public AppendResult mixedAppend() {
+        return append();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public List<TemporalEvent> mixedRead() {
+        return read();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public List<TemporalEvent> mixedSearch() {
+        return search();
+    }
+}
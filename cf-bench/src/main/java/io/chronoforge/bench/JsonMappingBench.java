@@ -0,0 +1,88 @@
+package io.chronoforge.bench;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.chronoforge.core.VectorClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson mapping of the two JSON columns every event carries: the payload (a map with nested
+ * values) and the vector clock (through its {@code @JsonValue}/{@code @JsonCreator}).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class JsonMappingBench {
+    private static final TypeReference<Map<String, Object>> MAP = new TypeReference<>() {};
+
+    /** Top-level payload fields. */
+    @Param({"4", "64"})
+    int fields;
+
+    /** Clock nodes. */
+    @Param({"2", "32"})
+    int width;
+
+    final ObjectMapper json = new ObjectMapper();
+    Map<String, Object> payload;
+    byte[] payloadBytes;
+    VectorClock clock;
+    byte[] clockBytes;
+
+    @Setup
+    public void setup() throws IOException {
+        payload = new LinkedHashMap<>();
+        for (int i = 0; i < fields; i++) {
+            payload.put("field" + i, switch (i % 4) {
+                case 0 -> "value-" + i;
+                case 1 -> i * 31L;
+                case 2 -> i % 3 == 0;
+                default -> List.of("a", "b", Map.of("n", i));
+            });
+        }
+        payloadBytes = json.writeValueAsBytes(payload);
+        var c = new VectorClock();
+        for (int i = 0; i < width; i++) for (int k = 0; k <= i % 5; k++) c.tick("node-" + i);
+        clock = c.freeze();
+        clockBytes = json.writeValueAsBytes(clock);
+    }
+
+    @Benchmark
+    public byte[] writePayload() throws IOException {
+        return json.writeValueAsBytes(payload);
+    }
+
+    @Benchmark
+    public Map<String, Object> readPayload() throws IOException {
+        return json.readValue(payloadBytes, MAP);
+    }
+
+    @Benchmark
+    public byte[] writeClock() throws IOException {
+        return json.writeValueAsBytes(clock);
+    }
+
+    @Benchmark
+    public VectorClock readClock() throws IOException {
+        return json.readValue(clockBytes, VectorClock.class);
+    }
+}
@@ -0,0 +1,80 @@
+package io.chronoforge.bench;
+
+import io.chronoforge.core.VectorClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clock comparison, merge and export as the number of nodes grows. {@code later} is
+ * {@code base} with one more tick (LESS/GREATER), {@code left} and {@code right} each tick a
+ * different node (CONCURRENT). Stored clocks are frozen, as on events; {@code mutable} is not.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class VectorClockBench {
+
+    @Param({"2", "8", "32", "128"})
+    int width;
+
+    VectorClock base, later, left, right, mutable;
+
+    @Setup
+    public void setup() {
+        var clock = new VectorClock();
+        for (int i = 0; i < width; i++) clock.tick("node-" + i);
+        base = clock.freeze();
+        later = clock.mutableCopy().tick("node-0").freeze();
+        left = clock.mutableCopy().tick("node-0").freeze();
+        right = clock.mutableCopy().tick("node-" + (width - 1)).freeze();
+        mutable = clock.mutableCopy();
+    }
+
+    @Benchmark
+    public VectorClock.Order orderLess() {
+        return base.order(later);
+    }
+
+    @Benchmark
+    public VectorClock.Order orderConcurrent() {
+        return left.order(right);
+    }
+
+    /** Same nodes on both sides: merged in place (includes the copy that makes it mutable). */
+    @Benchmark
+    public VectorClock joinSameNodes() {
+        return left.mutableCopy().join(right);
+    }
+
+    /** Every node is new to the receiver: the arrays are rebuilt. */
+    @Benchmark
+    public VectorClock joinIntoEmpty() {
+        return new VectorClock().join(base);
+    }
+
+    /** Frozen clocks hand out a view over their own arrays. */
+    @Benchmark
+    public Map<String, Long> snapshotFrozen() {
+        return base.snapshot();
+    }
+
+    @Benchmark
+    public Map<String, Long> snapshotMutable() {
+        return mutable.snapshot();
+    }
+}
@@ -0,0 +1,25 @@
+package io.chronoforge.core;
+
+import java.util.Objects;
+
+/**
+ * The newest {@link NodeRetirements} this process knows about: the store installs what it reads
+ * from its retirement records, and whatever compares or compacts stored clocks reads it here.
+ * One instance per store, shared by injection.
+ */
+public final class NodeRetirementRegistry {
+    private volatile NodeRetirements current = NodeRetirements.NONE;
+
+    /** The registry to interpret clock baselines with. */
+    public NodeRetirements current() { return current; }
+
+    /**
+     * Installs {@code registry} unless a newer one is already installed (a slow reload finishing
+     * after a retirement must not undo it); returns the registry in effect.
+     */
+    public synchronized NodeRetirements install(NodeRetirements registry) {
+        Objects.requireNonNull(registry);
+        if (registry.latestGeneration() >= current.latestGeneration()) current = registry;
+        return current;
+    }
+}
@@ -0,0 +1,128 @@
+package io.chronoforge.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Registry of retired nodes: nodes that will never tick again, each with its final counter and
+ * the retirement generation it was retired in. A {@link VectorClock} whose baseline is
+ * {@code g} has seen every node of generations {@code <= g} at its final counter, so it can
+ * drop their entries (see {@link VectorClock#compact(NodeRetirements)}) and comparisons still see them.
+ *
+ * Generations only grow and are never rewritten, so a newer registry is always a superset of
+ * an older one. Registries are immutable; {@link NodeRetirementRegistry} holds the newest one a
+ * process knows about.
+ */
+public final class NodeRetirements {
+    /** A node retired in {@code generation} after its last tick reached {@code finalCounter}. */
+    public record Retired(String node, long finalCounter, long generation) {
+        public Retired {
+            Objects.requireNonNull(node);
+            if (generation < 1) throw new IllegalArgumentException("generation must be positive: " + generation);
+        }
+    }
+
+    /** An append from a node that has been retired. */
+    public static final class RetiredNodeException extends IllegalArgumentException {
+        public RetiredNodeException(String node) { super("node is retired: " + node); }
+    }
+
+    public static final NodeRetirements NONE = new NodeRetirements(List.of());
+
+    // by node name, for lookups
+    private final String[] nodes;
+    private final long[] finals;
+    private final long[] generations;
+    // by generation, then name, for compaction
+    private final Retired[] byGeneration;
+
+    private NodeRetirements(Collection<Retired> retired) {
+        var sorted = retired.stream().sorted(Comparator.comparing(Retired::node)).toList();
+        nodes = new String[sorted.size()];
+        finals = new long[sorted.size()];
+        generations = new long[sorted.size()];
+        for (int i = 0; i < sorted.size(); i++) {
+            var r = sorted.get(i);
+            if (i > 0 && nodes[i - 1].equals(r.node())) throw new IllegalArgumentException("node retired twice: " + r.node());
+            nodes[i] = r.node();
+            finals[i] = r.finalCounter();
+            generations[i] = r.generation();
+        }
+        byGeneration = retired.stream()
+                .sorted(Comparator.comparingLong(Retired::generation).thenComparing(Retired::node))
+                .toArray(Retired[]::new);
+    }
+
+    public static NodeRetirements of(Collection<Retired> retired) {
+        return retired.isEmpty() ? NONE : new NodeRetirements(retired);
+    }
+
+    /** Retirement generation of {@code node}; 0 when it is live. */
+    public long generation(String node) {
+        int i = Arrays.binarySearch(nodes, node);
+        return i >= 0 ? generations[i] : 0;
+    }
+
+    /** Final counter of a retired node; 0 when it is live. */
+    public long finalCounter(String node) {
+        int i = Arrays.binarySearch(nodes, node);
+        return i >= 0 ? finals[i] : 0;
+    }
+
+    /** Newest generation in this registry; 0 when nothing is retired. */
+    public long latestGeneration() {
+        return byGeneration.length == 0 ? 0 : byGeneration[byGeneration.length - 1].generation();
+    }
+
+    public boolean isEmpty() { return nodes.length == 0; }
+
+    public List<Retired> retired() { return List.of(byGeneration); }
+
+    /** Value a clock with {@code baseline} implies for {@code node} without an explicit entry. */
+    long folded(String node, long baseline) {
+        if (baseline == 0) return 0;
+        int i = Arrays.binarySearch(nodes, node);
+        return i >= 0 && generations[i] <= baseline ? finals[i] : 0;
+    }
+
+    /**
+     * True when a clock with baseline {@code hi} has seen a node that a clock with baseline
+     * {@code lo < hi} and explicit entries {@code explicit} lacks, i.e. the first is ahead.
+     * Generations this registry does not know yet are assumed to hold such a node.
+     */
+    boolean aheadBetween(long lo, long hi, VectorClock explicit) {
+        if (hi > latestGeneration()) return true;
+        for (var r : byGeneration) {
+            if (r.generation() <= lo) continue;
+            if (r.generation() > hi) break;
+            if (r.finalCounter() > 0 && !explicit.hasEntry(r.node())) return true;
+        }
+        return false;
+    }
+
+    /** Highest generation {@code > baseline} up to which {@code clock} has seen every node's final counter. */
+    long completeThrough(long baseline, VectorClock clock) {
+        long complete = baseline;
+        for (int i = 0; i < byGeneration.length; ) {
+            long gen = byGeneration[i].generation();
+            if (gen <= baseline) { i++; continue; }
+            boolean all = true;
+            for (; i < byGeneration.length && byGeneration[i].generation() == gen; i++) {
+                all &= clock.get(byGeneration[i].node(), this) >= byGeneration[i].finalCounter();
+            }
+            if (!all) break;
+            complete = gen;
+        }
+        return complete;
+    }
+
+    @Override public String toString() {
+        var parts = new ArrayList<String>(byGeneration.length);
+        for (var r : byGeneration) parts.add(r.node() + "@" + r.generation() + "=" + r.finalCounter());
+        return parts.toString();
+    }
+}
@@ -10,17 +10,29 @@ public record TemporalEvent(
         Instant observedAt,
         VectorClock clock,
         Map<String, Object> payload,
-        String node // <- NEW
+        String node, // <- NEW
+        long seq     // global store position; 0 until the store has assigned one
 ) {
     public TemporalEvent {
         Objects.requireNonNull(entityId);
         Objects.requireNonNull(type);
         Objects.requireNonNull(observedAt);
-        Objects.requireNonNull(clock);
+        clock = clock.freeze();   // shared by every reader of the event
         Objects.requireNonNull(payload);
         if (node == null || node.isBlank()) node = "api";
     }
 
+    /** Not yet stored (seq = 0). */
+    public TemporalEvent(TemporalId entityId, String type, Instant observedAt,
+                         VectorClock clock, Map<String, Object> payload, String node) {
+        this(entityId, type, observedAt, clock, payload, node, 0L);
+    }
+
+    /** Copy carrying the position assigned by the store. */
+    public TemporalEvent withSeq(long seq) {
+        return new TemporalEvent(entityId, type, observedAt, clock, payload, node, seq);
+    }
+
     /** Back-compat factory—uses Determinism for time & node. */
     public static TemporalEvent of(TemporalId id, String type, Map<String,Object> payload, VectorClock clock) {
         return new TemporalEvent(id, type, Determinism.now(), clock,
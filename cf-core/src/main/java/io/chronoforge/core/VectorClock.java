@@ -3,37 +3,121 @@ package io.chronoforge.core;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonValue;
 
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
-/** Minimal immutable-ish vector clock with useful ops. */
+/**
+ * Vector clock with useful ops, stored as node ids sorted ascending with a parallel
+ * {@code long[]} of counters, so {@link #order}, {@link #compare} and {@link #get} are merge
+ * walks / binary searches that allocate nothing, and {@link #join} only allocates when the other
+ * clock brings nodes this one has not seen. Node ids are interned, so the common case of
+ * comparing the same node names is a reference check.
+ *
+ * Clocks are mutable ({@code new VectorClock()}, {@link #from}) or frozen ({@link #freeze()},
+ * {@link #copyOf}); {@link #tick} and {@link #join} on a frozen clock throw
+ * {@link UnsupportedOperationException}. {@link TemporalEvent}s always carry frozen clocks, since
+ * one event is shared by every subscriber; fold them into a mutable clock of your own.
+ * Mutable clocks are not thread-safe.
+ *
+ * Retired nodes ({@link NodeRetirements}) can be folded into a baseline entry, {@link #BASELINE}:
+ * a clock with baseline {@code g} has seen every node retired in generations {@code <= g} at its
+ * final counter and keeps no entries for them. The {@link #get}, {@link #order} and {@link #join}
+ * overloads taking a registry read folded nodes back from it, so results are the same as for the
+ * unfolded clock; clocks without a baseline never consult it, and the overloads without one
+ * throw {@link IllegalStateException} when a baseline is involved.
+ */
 public final class VectorClock {
-    private final Map<String, Long> v = new HashMap<>();
+    /** Key of the baseline entry in {@link #snapshot()} / JSON; not usable as a node name. */
+    public static final String BASELINE = "~";
+
+    private static final String[] NO_NODES = {};
+    private static final long[] NO_COUNTS = {};
+
+    private String[] nodes;
+    private long[] counts;
+    private int size;
+    private long baseline;      // retirement generation folded in; 0 = none
+    private final boolean frozen;
 
     /** Partial order classification for two clocks. */
     public enum Order { LESS, GREATER, EQUAL, CONCURRENT }
 
+    public VectorClock() {
+        this(NO_NODES, NO_COUNTS, 0, 0, false);
+    }
+
+    private VectorClock(String[] nodes, long[] counts, int size, long baseline, boolean frozen) {
+        this.nodes = nodes; this.counts = counts; this.size = size; this.baseline = baseline; this.frozen = frozen;
+    }
+
     public VectorClock tick(String node) {
-        v.merge(Objects.requireNonNull(node), 1L, Long::sum);
+        checkMutable();
+        if (BASELINE.equals(Objects.requireNonNull(node))) throw new IllegalArgumentException("reserved node name: " + node);
+        int i = indexOf(node);
+        if (i >= 0) {
+            counts[i]++;
+        } else {
+            insert(-i - 1, Nodes.intern(node), 1L);
+        }
         return this;
     }
 
     /** Convenience tick using the deterministic/current node. */
     public VectorClock tick() { return tick(Determinism.node()); }
 
-    public long get(String node) { return v.getOrDefault(node, 0L); }
+    public long get(String node) { return get(node, unfolded(this, this)); }
+
+    /** Counter of {@code node}, reading a node folded into the baseline from {@code retired}. */
+    public long get(String node, NodeRetirements retired) {
+        int i = indexOf(node);
+        if (i >= 0) return counts[i];
+        return baseline == 0 ? 0L : retired.folded(node, baseline);
+    }
 
     /** Element-wise max join (a := max(a,b)). */
     public VectorClock join(VectorClock other) {
+        return join(other, unfolded(this, Objects.requireNonNull(other)));
+    }
+
+    /** {@link #join(VectorClock)}, reading nodes folded into either baseline from {@code retired}. */
+    public VectorClock join(VectorClock other, NodeRetirements retired) {
         Objects.requireNonNull(other);
-        var keys = new HashSet<>(v.keySet());
-        keys.addAll(other.v.keySet());
-        for (var k : keys) {
-            long nv = Math.max(get(k), other.get(k));
-            if (nv > 0) v.put(k, nv);
+        checkMutable();
+        if (baseline != 0 || other.baseline != 0) return joinFolded(other, Objects.requireNonNull(retired));
+        // nodes only the other clock has, with a positive counter (zeros are not copied over)
+        int added = 0;
+        for (int i = 0, j = 0; j < other.size; ) {
+            int c = i == size ? 1 : cmp(nodes[i], other.nodes[j]);
+            if (c < 0) i++;
+            else if (c > 0) { if (other.counts[j++] > 0) added++; }
+            else { i++; j++; }
+        }
+        if (added == 0) {
+            for (int i = 0, j = 0; i < size && j < other.size; ) {
+                int c = cmp(nodes[i], other.nodes[j]);
+                if (c < 0) i++;
+                else if (c > 0) j++;
+                else { counts[i] = Math.max(counts[i], other.counts[j]); i++; j++; }
+            }
+            return this;
+        }
+        var n = new String[size + added];
+        var v = new long[size + added];
+        int k = 0;
+        for (int i = 0, j = 0; i < size || j < other.size; ) {
+            int c = i == size ? 1 : j == other.size ? -1 : cmp(nodes[i], other.nodes[j]);
+            if (c < 0) { n[k] = nodes[i]; v[k++] = counts[i++]; }
+            else if (c > 0) { if (other.counts[j] > 0) { n[k] = other.nodes[j]; v[k++] = other.counts[j]; } j++; }
+            else { n[k] = nodes[i]; v[k++] = Math.max(counts[i++], other.counts[j++]); }
         }
+        nodes = n; counts = v; size = k;
         return this;
     }
 
@@ -44,13 +128,40 @@ public final class VectorClock {
     /** Concurrent check. */
     public boolean concurrentWith(VectorClock other) { return order(other) == Order.CONCURRENT; }
 
+    // Slow path: some entries are implied by a baseline. Allocates the merged arrays.
+    private VectorClock joinFolded(VectorClock other, NodeRetirements retired) {
+        long base = Math.max(baseline, other.baseline);
+        var n = new String[size + other.size];
+        var v = new long[size + other.size];
+        int k = 0;
+        for (int i = 0, j = 0; i < size || j < other.size; ) {
+            int c = i == size ? 1 : j == other.size ? -1 : cmp(nodes[i], other.nodes[j]);
+            String node = c <= 0 ? nodes[i] : other.nodes[j];
+            long a = c <= 0 ? counts[i++] : retired.folded(node, baseline);
+            long b = c >= 0 ? other.counts[j++] : retired.folded(node, other.baseline);
+            if (c > 0 && b <= 0) continue;          // as in join: zeros are not copied over
+            long g = retired.generation(node);
+            if (g > 0 && g <= base) continue;       // covered by the new baseline
+            n[k] = node;
+            v[k++] = Math.max(a, b);
+        }
+        nodes = n; counts = v; size = k; baseline = base;
+        return this;
+    }
+
     /** Classify the partial order. */
-    public Order order(VectorClock other) {
+    public Order order(VectorClock other) { return order(other, unfolded(this, other)); }
+
+    /** {@link #order(VectorClock)}, reading nodes folded into either baseline from {@code retired}. */
+    public Order order(VectorClock other, NodeRetirements retired) {
+        if (baseline != 0 || other.baseline != 0) return orderFolded(other, Objects.requireNonNull(retired));
         boolean less = false, more = false;
-        var keys = new HashSet<>(v.keySet());
-        keys.addAll(other.v.keySet());
-        for (var k : keys) {
-            long a = get(k), b = other.get(k);
+        for (int i = 0, j = 0; i < size || j < other.size; ) {
+            int c = i == size ? 1 : j == other.size ? -1 : cmp(nodes[i], other.nodes[j]);
+            long a, b;
+            if (c < 0) { a = counts[i++]; b = 0; }
+            else if (c > 0) { a = 0; b = other.counts[j++]; }
+            else { a = counts[i++]; b = other.counts[j++]; }
             less |= a < b;
             more |= a > b;
             if (less && more) return Order.CONCURRENT;
@@ -60,26 +171,224 @@ public final class VectorClock {
         return Order.EQUAL;
     }
 
+    private Order orderFolded(VectorClock other, NodeRetirements retired) {
+        boolean less = false, more = false;
+        for (int i = 0, j = 0; i < size || j < other.size; ) {
+            int c = i == size ? 1 : j == other.size ? -1 : cmp(nodes[i], other.nodes[j]);
+            String node = c <= 0 ? nodes[i] : other.nodes[j];
+            long a = c <= 0 ? counts[i++] : retired.folded(node, baseline);
+            long b = c >= 0 ? other.counts[j++] : retired.folded(node, other.baseline);
+            less |= a < b;
+            more |= a > b;
+        }
+        // nodes folded into the higher baseline that the other clock has no entry for
+        if (baseline > other.baseline) more |= retired.aheadBetween(other.baseline, baseline, other);
+        else if (other.baseline > baseline) less |= retired.aheadBetween(baseline, other.baseline, this);
+        if (less && more) return Order.CONCURRENT;
+        if (more) return Order.GREATER;
+        if (less) return Order.LESS;
+        return Order.EQUAL;
+    }
+
     /** Back-compat: -1 less, +1 more, 0 equal or concurrent. */
-    public int compare(VectorClock other) {
-        return switch (order(other)) {
+    public int compare(VectorClock other) { return compare(other, unfolded(this, other)); }
+
+    /** {@link #compare(VectorClock)}, reading nodes folded into either baseline from {@code retired}. */
+    public int compare(VectorClock other, NodeRetirements retired) {
+        return switch (order(other, retired)) {
             case LESS -> -1;
             case GREATER -> 1;
             case EQUAL, CONCURRENT -> 0;
         };
     }
 
-    public Map<String, Long> snapshot() { return Map.copyOf(v); }
+    /** Lexicographically greatest node with an entry; null for an empty clock. */
+    public String maxNode() { return size == 0 ? null : nodes[size - 1]; }
+
+    /** Retirement generation folded into this clock; 0 = none. */
+    public long baseline() { return baseline; }
+
+    /**
+     * Advances the baseline through every generation whose nodes this clock has seen at their
+     * final counters, then drops the entries the baseline covers. Clocks that have not caught up
+     * with a retired node keep its entry, so the result always compares like the original.
+     */
+    public VectorClock compact(NodeRetirements retired) {
+        checkMutable();
+        if (retired.isEmpty()) return this;
+        baseline = retired.completeThrough(baseline, this);
+        if (baseline == 0) return this;
+        int k = 0;
+        for (int i = 0; i < size; i++) {
+            long g = retired.generation(nodes[i]);
+            if (g > 0 && g <= baseline) continue;
+            nodes[k] = nodes[i];
+            counts[k++] = counts[i];
+        }
+        Arrays.fill(nodes, k, size, null);
+        size = k;
+        return this;
+    }
+
+    /** Read-only map view; frozen clocks share their arrays, mutable ones are copied. */
+    public Map<String, Long> snapshot() {
+        if (baseline != 0) {
+            int at = -indexOf(BASELINE) - 1;
+            var n = new String[size + 1];
+            var v = new long[size + 1];
+            System.arraycopy(nodes, 0, n, 0, at);
+            System.arraycopy(counts, 0, v, 0, at);
+            n[at] = BASELINE;
+            v[at] = baseline;
+            System.arraycopy(nodes, at, n, at + 1, size - at);
+            System.arraycopy(counts, at, v, at + 1, size - at);
+            return new View(n, v, size + 1);
+        }
+        return frozen ? new View(nodes, counts, size) : new View(Arrays.copyOf(nodes, size), Arrays.copyOf(counts, size), size);
+    }
+
+    /** This clock if already frozen, otherwise a frozen copy. */
+    public VectorClock freeze() {
+        return frozen ? this : new VectorClock(Arrays.copyOf(nodes, size), Arrays.copyOf(counts, size), size, baseline, true);
+    }
+
+    /** A mutable copy, e.g. to fold events into. */
+    public VectorClock mutableCopy() {
+        return new VectorClock(Arrays.copyOf(nodes, size), Arrays.copyOf(counts, size), size, baseline, false);
+    }
+
+    /** Whether {@code node} has an entry of its own (rather than being implied by the baseline). */
+    boolean hasEntry(String node) { return indexOf(node) >= 0; }
 
-    @Override public String toString() { return v.toString(); }
+    public boolean isFrozen() { return frozen; }
+
+    @Override public String toString() { return snapshot().toString(); }
 
     @JsonValue public Map<String, Long> json() { return snapshot(); }
 
+    /** Mutable clock holding {@code data}. */
     public static VectorClock from(Map<String, Long> data) {
-        var vc = new VectorClock();
-        if (data != null) vc.v.putAll(data);
-        return vc;
+        return of(data, false);
+    }
+
+    /** Frozen clock holding {@code data}. */
+    public static VectorClock copyOf(Map<String, Long> data) {
+        return of(data, true);
     }
 
     @JsonCreator static VectorClock jsonCreate(Map<String, Long> data) { return from(data); }
+
+    private static VectorClock of(Map<String, Long> data, boolean frozen) {
+        if (data == null || data.isEmpty()) return new VectorClock(NO_NODES, NO_COUNTS, 0, 0, frozen);
+        Long base = data.get(BASELINE);
+        if (data instanceof View view && base == null) {    // already sorted and interned; view arrays are never written
+            return frozen ? new VectorClock(view.nodes, view.counts, view.size, 0, true)
+                          : new VectorClock(Arrays.copyOf(view.nodes, view.size), Arrays.copyOf(view.counts, view.size), view.size, 0, false);
+        }
+        var n = new String[data.size() - (base == null ? 0 : 1)];
+        int k = 0;
+        for (var node : data.keySet()) {
+            if (!BASELINE.equals(node)) n[k++] = Nodes.intern(Objects.requireNonNull(node));
+        }
+        Arrays.sort(n);
+        var v = new long[n.length];
+        for (int i = 0; i < n.length; i++) v[i] = data.get(n[i]);
+        return new VectorClock(n, v, n.length, base == null ? 0 : base, frozen);
+    }
+
+    /** The empty registry, for clocks that need none; fails when a baseline needs one. */
+    private static NodeRetirements unfolded(VectorClock a, VectorClock b) {
+        if (a.baseline != 0 || b.baseline != 0)
+            throw new IllegalStateException("clock has a retirement baseline; pass the NodeRetirements to read it with");
+        return NodeRetirements.NONE;
+    }
+
+    private void checkMutable() {
+        if (frozen) throw new UnsupportedOperationException("frozen vector clock; use mutableCopy()");
+    }
+
+    private int indexOf(String node) {
+        int lo = 0, hi = size - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = cmp(nodes[mid], node);
+            if (c < 0) lo = mid + 1;
+            else if (c > 0) hi = mid - 1;
+            else return mid;
+        }
+        return -(lo + 1);
+    }
+
+    private void insert(int at, String node, long count) {
+        if (size == nodes.length) {
+            int cap = Math.max(4, size * 2);
+            nodes = Arrays.copyOf(nodes, cap);
+            counts = Arrays.copyOf(counts, cap);
+        }
+        System.arraycopy(nodes, at, nodes, at + 1, size - at);
+        System.arraycopy(counts, at, counts, at + 1, size - at);
+        nodes[at] = node;
+        counts[at] = count;
+        size++;
+    }
+
+    private static int cmp(String a, String b) {
+        return a == b ? 0 : a.compareTo(b);
+    }
+
+    /** Interns node ids; bounded so clocks from untrusted input cannot grow it without limit. */
+    private static final class Nodes {
+        private static final int MAX = 10_000;
+        private static final ConcurrentHashMap<String, String> IDS = new ConcurrentHashMap<>();
+
+        static String intern(String node) {
+            var id = IDS.get(node);
+            if (id != null) return id;
+            if (IDS.size() >= MAX) return node;
+            id = IDS.putIfAbsent(node, node);
+            return id != null ? id : node;
+        }
+    }
+
+    /** Immutable, sorted map over a prefix of the clock's arrays. */
+    private static final class View extends AbstractMap<String, Long> {
+        final String[] nodes;
+        final long[] counts;
+        final int size;
+
+        View(String[] nodes, long[] counts, int size) {
+            this.nodes = nodes; this.counts = counts; this.size = size;
+        }
+
+        @Override public int size() { return size; }
+
+        @Override public boolean containsKey(Object key) {
+            return key instanceof String s && Arrays.binarySearch(nodes, 0, size, s) >= 0;
+        }
+
+        @Override public Long get(Object key) {
+            if (!(key instanceof String s)) return null;
+            int i = Arrays.binarySearch(nodes, 0, size, s);
+            return i >= 0 ? counts[i] : null;
+        }
+
+        @Override public Set<Entry<String, Long>> entrySet() {
+            return new AbstractSet<>() {
+                @Override public int size() { return size; }
+
+                @Override public Iterator<Entry<String, Long>> iterator() {
+                    return new Iterator<>() {
+                        int i;
+                        @Override public boolean hasNext() { return i < size; }
+                        @Override public Entry<String, Long> next() {
+                            if (i >= size) throw new NoSuchElementException();
+                            var e = new SimpleImmutableEntry<>(nodes[i], counts[i]);
+                            i++;
+                            return e;
+                        }
+                    };
+                }
+            };
+        }
+    }
 }
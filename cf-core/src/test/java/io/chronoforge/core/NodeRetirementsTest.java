@@ -0,0 +1,152 @@
+package io.chronoforge.core;
+
+import io.chronoforge.core.NodeRetirements.Retired;
+import io.chronoforge.core.VectorClock.Order;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NodeRetirementsTest {
+
+    // generation 1: ci-1 (final 3), ci-2 (final 1), ci-0 (never ticked); generation 2: ci-3 (final 5)
+    private static final NodeRetirements RETIRED = NodeRetirements.of(List.of(
+            new Retired("ci-1", 3, 1), new Retired("ci-2", 1, 1), new Retired("ci-0", 0, 1), new Retired("ci-3", 5, 2)));
+
+    private static VectorClock clock(Map<String, Long> entries) {
+        return VectorClock.from(entries);
+    }
+
+    /** {@code entries} plus a baseline entry, as a compacted clock is stored. */
+    private static VectorClock folded(long baseline, Map<String, Long> entries) {
+        var data = new HashMap<>(entries);
+        data.put(VectorClock.BASELINE, baseline);
+        return VectorClock.from(data);
+    }
+
+    @Test
+    void lookups_byNodeAndGeneration() {
+        assertThat(RETIRED.generation("ci-3")).isEqualTo(2L);
+        assertThat(RETIRED.finalCounter("ci-1")).isEqualTo(3L);
+        assertThat(RETIRED.generation("api")).isZero();
+        assertThat(RETIRED.finalCounter("api")).isZero();
+        assertThat(RETIRED.latestGeneration()).isEqualTo(2L);
+        assertThat(RETIRED.retired()).extracting(Retired::node).containsExactly("ci-0", "ci-1", "ci-2", "ci-3");
+        assertThat(NodeRetirements.of(List.of())).isSameAs(NodeRetirements.NONE);
+        assertThatThrownBy(() -> NodeRetirements.of(List.of(new Retired("a", 1, 1), new Retired("a", 2, 2))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new Retired("a", 1, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void completeThrough_stopsAtTheFirstGenerationNotFullySeen() {
+        assertThat(RETIRED.completeThrough(0, clock(Map.of("api", 2L, "ci-1", 3L, "ci-2", 1L)))).isEqualTo(1L);
+        assertThat(RETIRED.completeThrough(0, clock(Map.of("ci-1", 3L, "ci-2", 1L, "ci-3", 5L)))).isEqualTo(2L);
+        // generation 2 is complete, but generation 1 is not, so nothing can be folded
+        assertThat(RETIRED.completeThrough(0, clock(Map.of("ci-1", 2L, "ci-2", 1L, "ci-3", 5L)))).isZero();
+        // a baseline already covers its generations
+        assertThat(RETIRED.completeThrough(1, folded(1, Map.of("ci-3", 5L)))).isEqualTo(2L);
+        assertThat(RETIRED.completeThrough(1, folded(1, Map.of("ci-3", 4L)))).isEqualTo(1L);
+        assertThat(NodeRetirements.NONE.completeThrough(0, clock(Map.of("a", 1L)))).isZero();
+    }
+
+    @Test
+    void aheadBetween_looksForRetiredNodesTheLowerClockLacks() {
+        var both = clock(Map.of("ci-1", 3L, "ci-2", 1L));
+        var onlyOne = clock(Map.of("ci-1", 3L));
+
+        assertThat(RETIRED.aheadBetween(0, 1, both)).isFalse();
+        assertThat(RETIRED.aheadBetween(0, 1, onlyOne)).isTrue();
+        assertThat(RETIRED.aheadBetween(0, 2, both)).isTrue();         // lacks ci-3
+        assertThat(RETIRED.aheadBetween(1, 2, clock(Map.of("ci-3", 5L)))).isFalse();
+        // ci-0 never ticked, so lacking it says nothing
+        assertThat(RETIRED.aheadBetween(0, 1, both)).isFalse();
+        // a generation this registry does not know yet is assumed to hold such a node
+        assertThat(RETIRED.aheadBetween(2, 3, clock(Map.of()))).isTrue();
+    }
+
+    @Test
+    void compact_foldsCompleteGenerationsAndKeepsTheOrder() {
+        var original = Map.of("api", 2L, "ci-1", 3L, "ci-2", 1L, "ci-3", 4L);
+        var c = clock(original).compact(RETIRED);
+
+        assertThat(c.baseline()).isEqualTo(1L);
+        assertThat(c.snapshot()).containsExactly(Map.entry("api", 2L), Map.entry("ci-3", 4L), Map.entry(VectorClock.BASELINE, 1L));
+        assertThat(c.get("ci-1", RETIRED)).isEqualTo(3L);
+        assertThat(c.get("ci-3", RETIRED)).isEqualTo(4L);
+        assertThat(c.order(clock(original), RETIRED)).isEqualTo(Order.EQUAL);
+        assertThat(clock(original).order(c, RETIRED)).isEqualTo(Order.EQUAL);
+
+        // a clock behind on a retired node keeps its entries
+        var behind = clock(Map.of("ci-1", 2L, "ci-2", 1L)).compact(RETIRED);
+        assertThat(behind.baseline()).isZero();
+        assertThat(behind.snapshot()).containsOnlyKeys("ci-1", "ci-2");
+
+        assertThat(clock(original).compact(NodeRetirements.NONE).snapshot()).isEqualTo(original);
+    }
+
+    @Test
+    void orderFolded_comparesBaselinesAgainstExplicitEntries() {
+        var b2 = folded(2, Map.of("api", 2L));
+
+        assertThat(b2.order(clock(Map.of("api", 2L, "ci-1", 3L, "ci-2", 1L, "ci-3", 5L)), RETIRED)).isEqualTo(Order.EQUAL);
+        assertThat(b2.order(clock(Map.of("api", 2L, "ci-1", 3L, "ci-2", 1L)), RETIRED)).isEqualTo(Order.GREATER);
+        assertThat(b2.order(clock(Map.of("api", 3L, "ci-1", 3L, "ci-2", 1L, "ci-3", 5L)), RETIRED)).isEqualTo(Order.LESS);
+        assertThat(b2.order(clock(Map.of("api", 3L, "ci-1", 3L)), RETIRED)).isEqualTo(Order.CONCURRENT);
+        assertThat(clock(Map.of("api", 3L, "ci-1", 3L)).order(b2, RETIRED)).isEqualTo(Order.CONCURRENT);
+
+        // baseline against baseline
+        assertThat(b2.order(folded(1, Map.of("api", 2L, "ci-3", 5L)), RETIRED)).isEqualTo(Order.EQUAL);
+        assertThat(b2.order(folded(1, Map.of("api", 2L, "ci-3", 4L)), RETIRED)).isEqualTo(Order.GREATER);
+        assertThat(b2.order(folded(1, Map.of("api", 2L)), RETIRED)).isEqualTo(Order.GREATER);
+        assertThat(folded(1, Map.of("api", 3L)).order(b2, RETIRED)).isEqualTo(Order.CONCURRENT);
+        assertThat(b2.compare(folded(2, Map.of("api", 1L)), RETIRED)).isEqualTo(1);
+    }
+
+    @Test
+    void joinFolded_takesTheHigherBaselineAndDropsWhatItCovers() {
+        var c = folded(1, Map.of("api", 2L, "ci-3", 4L));
+        c.join(clock(Map.of("api", 1L, "ci-1", 2L, "ci-3", 5L, "edge", 1L)), RETIRED);
+
+        assertThat(c.baseline()).isEqualTo(1L);
+        // ci-1 is in generation 1, so the baseline already implies its final counter
+        assertThat(c.snapshot()).containsExactly(Map.entry("api", 2L), Map.entry("ci-3", 5L),
+                Map.entry("edge", 1L), Map.entry(VectorClock.BASELINE, 1L));
+        assertThat(c.get("ci-1", RETIRED)).isEqualTo(3L);
+
+        var unfolded = clock(Map.of("ci-1", 1L, "edge", 4L));
+        unfolded.join(folded(2, Map.of("api", 1L)), RETIRED);
+        assertThat(unfolded.baseline()).isEqualTo(2L);
+        assertThat(unfolded.snapshot()).containsExactly(Map.entry("api", 1L), Map.entry("edge", 4L), Map.entry(VectorClock.BASELINE, 2L));
+        assertThat(unfolded.get("ci-3", RETIRED)).isEqualTo(5L);
+        assertThat(unfolded.order(clock(Map.of("api", 1L, "edge", 4L, "ci-1", 3L, "ci-2", 1L, "ci-3", 5L)), RETIRED))
+                .isEqualTo(Order.EQUAL);
+    }
+
+    @Test
+    void baselineClocks_needTheRegistry() {
+        var b1 = folded(1, Map.of("api", 1L));
+        var plain = clock(Map.of("api", 1L));
+
+        assertThatThrownBy(() -> b1.order(plain)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> plain.order(b1)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> plain.join(b1)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> b1.get("api")).isInstanceOf(IllegalStateException.class);
+        assertThat(plain.order(clock(Map.of("api", 1L)))).isEqualTo(Order.EQUAL);
+    }
+
+    @Test
+    void registry_neverGoesBackToAnOlderGeneration() {
+        var registry = new NodeRetirementRegistry();
+        var older = NodeRetirements.of(List.of(new Retired("ci-1", 3, 1)));
+
+        assertThat(registry.current()).isSameAs(NodeRetirements.NONE);
+        assertThat(registry.install(RETIRED)).isSameAs(RETIRED);
+        assertThat(registry.install(older)).isSameAs(RETIRED);
+        assertThat(registry.current()).isSameAs(RETIRED);
+    }
+}
@@ -0,0 +1,154 @@
+package io.chronoforge.core;
+
+import io.chronoforge.core.VectorClock.Order;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class VectorClockTest {
+
+    private static VectorClock clock(Map<String, Long> entries) {
+        return VectorClock.from(entries);
+    }
+
+    @Test
+    void disjointNodes_areConcurrentAndJoinToTheUnion() {
+        var a = clock(Map.of("a", 1L));
+        var b = clock(Map.of("b", 2L));
+
+        assertThat(a.order(b)).isEqualTo(Order.CONCURRENT);
+        assertThat(b.order(a)).isEqualTo(Order.CONCURRENT);
+        assertThat(a.compare(b)).isZero();
+        assertThat(a.concurrentWith(b)).isTrue();
+
+        a.join(b);
+        assertThat(a.snapshot()).containsExactly(Map.entry("a", 1L), Map.entry("b", 2L));
+        assertThat(a.order(b)).isEqualTo(Order.GREATER);
+        assertThat(b.order(a)).isEqualTo(Order.LESS);
+        assertThat(b.snapshot()).containsExactly(Map.entry("b", 2L));
+    }
+
+    @Test
+    void overlappingNodes_joinElementWiseMax() {
+        var a = clock(Map.of("a", 2L, "b", 1L));
+        var b = clock(Map.of("b", 3L, "c", 1L));
+
+        assertThat(a.order(b)).isEqualTo(Order.CONCURRENT);
+
+        a.join(b);
+        assertThat(a.snapshot()).containsExactly(Map.entry("a", 2L), Map.entry("b", 3L), Map.entry("c", 1L));
+        assertThat(a.happensAfter(b)).isTrue();
+        assertThat(b.happensBefore(a)).isTrue();
+
+        // overlapping, one side dominating on every shared node and holding the only extra one
+        var c = clock(Map.of("a", 1L, "b", 3L));
+        assertThat(c.order(a)).isEqualTo(Order.LESS);
+        assertThat(a.compare(c)).isEqualTo(1);
+    }
+
+    @Test
+    void sameNodes_compareByCounters() {
+        var a = clock(Map.of("a", 1L, "b", 2L));
+
+        assertThat(a.order(clock(Map.of("a", 1L, "b", 2L)))).isEqualTo(Order.EQUAL);
+        assertThat(a.order(clock(Map.of("a", 1L, "b", 3L)))).isEqualTo(Order.LESS);
+        assertThat(a.order(clock(Map.of("a", 0L, "b", 2L)))).isEqualTo(Order.GREATER);
+        assertThat(a.order(clock(Map.of("a", 2L, "b", 1L)))).isEqualTo(Order.CONCURRENT);
+        assertThat(a.compare(clock(Map.of("a", 2L, "b", 1L)))).isZero();
+
+        // no new nodes: counters are raised in place
+        a.join(clock(Map.of("a", 5L, "b", 1L)));
+        assertThat(a.snapshot()).containsExactly(Map.entry("a", 5L), Map.entry("b", 2L));
+    }
+
+    @Test
+    void missingAndZeroEntries_areEquivalent() {
+        var empty = new VectorClock();
+        var zero = clock(Map.of("a", 0L));
+
+        assertThat(empty.order(zero)).isEqualTo(Order.EQUAL);
+        assertThat(zero.order(empty)).isEqualTo(Order.EQUAL);
+        assertThat(empty.order(new VectorClock())).isEqualTo(Order.EQUAL);
+        assertThat(zero.get("a")).isZero();
+        assertThat(zero.get("unknown")).isZero();
+
+        empty.join(zero);
+        assertThat(empty.snapshot()).isEmpty();     // zeros are not copied over
+    }
+
+    @Test
+    void tick_keepsNodesSorted() {
+        var c = new VectorClock().tick("m").tick("z").tick("a").tick("m");
+
+        assertThat(c.snapshot()).containsExactly(Map.entry("a", 1L), Map.entry("m", 2L), Map.entry("z", 1L));
+        assertThat(c.maxNode()).isEqualTo("z");
+        assertThat(new VectorClock().maxNode()).isNull();
+        assertThatThrownBy(() -> c.tick(VectorClock.BASELINE)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void frozenClocks_rejectMutation() {
+        var mutable = new VectorClock().tick("a");
+        var frozen = mutable.freeze();
+        var copied = VectorClock.copyOf(Map.of("a", 1L));
+
+        for (var f : List.of(frozen, copied)) {
+            assertThat(f.isFrozen()).isTrue();
+            assertThatThrownBy(() -> f.tick("a")).isInstanceOf(UnsupportedOperationException.class);
+            assertThatThrownBy(() -> f.join(new VectorClock().tick("b"))).isInstanceOf(UnsupportedOperationException.class);
+            assertThatThrownBy(() -> f.compact(NodeRetirements.NONE)).isInstanceOf(UnsupportedOperationException.class);
+            assertThatThrownBy(() -> f.snapshot().put("a", 9L)).isInstanceOf(UnsupportedOperationException.class);
+            assertThat(f.freeze()).isSameAs(f);
+        }
+        assertThat(frozen.snapshot()).containsExactly(Map.entry("a", 1L));
+
+        // freezing copies: later ticks on the source do not leak into the frozen clock
+        mutable.tick("a").tick("b");
+        assertThat(frozen.snapshot()).containsExactly(Map.entry("a", 1L));
+
+        var thawed = frozen.mutableCopy().tick("a");
+        assertThat(thawed.isFrozen()).isFalse();
+        assertThat(thawed.get("a")).isEqualTo(2L);
+        assertThat(frozen.get("a")).isEqualTo(1L);
+    }
+
+    @Test
+    void from_internsNodeIdsAcrossConcurrentCalls() throws Exception {
+        var prefix = "intern-" + UUID.randomUUID() + "-";
+        int names = 16, threads = 64;
+        var start = new CountDownLatch(1);
+        try (var pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            var clocks = new ArrayList<Future<VectorClock>>();
+            for (int t = 0; t < threads; t++) {
+                clocks.add(pool.submit(() -> {
+                    var data = new HashMap<String, Long>();
+                    // a fresh String instance per call, so only interning can make them identical
+                    for (int n = 0; n < names; n++) data.put(new String(prefix + n), (long) n + 1);
+                    start.await();
+                    return VectorClock.from(data);
+                }));
+            }
+            start.countDown();
+
+            var first = new ArrayList<>(clocks.get(0).get().snapshot().keySet());
+            assertThat(first).hasSize(names);
+            for (var f : clocks) {
+                var c = f.get();
+                var keys = new ArrayList<>(c.snapshot().keySet());
+                assertThat(keys).isEqualTo(first);
+                for (int i = 0; i < names; i++) assertThat(keys.get(i)).isSameAs(first.get(i));
+                assertThat(c.order(clocks.get(0).get())).isEqualTo(Order.EQUAL);
+            }
+        }
+    }
+}
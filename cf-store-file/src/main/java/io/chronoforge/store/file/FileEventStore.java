@@ -0,0 +1,514 @@
+package io.chronoforge.store.file;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.chronoforge.core.TemporalEvent;
+import io.chronoforge.core.TemporalId;
+import io.chronoforge.store.AppendResult;
+import io.chronoforge.store.Cursor;
+import io.chronoforge.store.EventPage;
+import io.chronoforge.store.EventStore;
+import io.chronoforge.store.IdempotencyKeys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * {@link EventStore} on append-only segment files in one directory (see {@link RecordCodec} for
+ * the record format). One writer appends through a {@code FileChannel}; readers decode straight
+ * from read-only mappings without locking. A per-entity index of record positions, rebuilt by
+ * scanning the segments on open, serves reads; searches scan the log and hand matches over as
+ * they are decoded, so a limit stops the scan early.
+ *
+ * Opening recovers from a crash: the log ends at the first record that is torn, corrupt or out
+ * of seq order; that record is zeroed and later segments are deleted. An I/O error while
+ * appending fails the store until it is reopened, which recovers the same way.
+ *
+ * Idempotency keys block retries for the given ttl (cf.idempotency.ttl). Records carry no write
+ * time, so on open a key is dated by its segment's last modification: keys in segments older
+ * than the ttl are not indexed, and a restored key may outlive the ttl by up to one segment's
+ * lifetime but never expires early.
+ */
+public final class FileEventStore implements EventStore, Closeable {
+    private static final Logger log = LoggerFactory.getLogger(FileEventStore.class);
+
+    /** When appended records are forced to disk. */
+    public enum Fsync {
+        /** Before {@code append} returns: nothing acknowledged is ever lost. */
+        ALWAYS,
+        /** On {@link #sync()}, called periodically: a crash loses at most one interval. */
+        INTERVAL,
+        /** Only on segment roll and close; the OS decides otherwise. */
+        NEVER
+    }
+
+    private final Path dir;
+    private final RecordCodec codec;
+    private final int segmentBytes;
+    private final Fsync fsync;
+    private volatile Segment[] segments;
+    private final ConcurrentMap<TemporalId, EntityPositions> byId = new ConcurrentHashMap<>();
+    private final IdempotencyKeys idempotencyKeys;
+    private final SubmissionPublisher<TemporalEvent> bus = new SubmissionPublisher<>();
+    private long lastSeq;          // guarded by this
+    private Instant lastObservedAt; // guarded by this
+    /** Whether observedAt never went backwards, so seq order is also time order. Cleared before the late record is published. */
+    private volatile boolean timeOrdered = true;
+    private boolean dirty;         // guarded by this
+    private IOException failure;   // guarded by this
+    private boolean closed;        // guarded by this
+
+    private FileEventStore(Path dir, ObjectMapper mapper, int segmentBytes, Fsync fsync, Duration idempotencyTtl) {
+        this.dir = dir;
+        this.codec = new RecordCodec(mapper);
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+        this.idempotencyKeys = new IdempotencyKeys(idempotencyTtl);
+    }
+
+    /**
+     * Opens (creating if needed) the store in {@code dir}, recovering from any torn tail.
+     * {@code segmentBytes} caps new segment files, and with them the size of one record.
+     */
+    public static FileEventStore open(Path dir, ObjectMapper mapper, int segmentBytes, Fsync fsync) throws IOException {
+        return open(dir, mapper, segmentBytes, fsync, IdempotencyKeys.DEFAULT_TTL);
+    }
+
+    /** As {@link #open(Path, ObjectMapper, int, Fsync)}, with idempotency keys kept for {@code idempotencyTtl}. */
+    public static FileEventStore open(Path dir, ObjectMapper mapper, int segmentBytes, Fsync fsync,
+                                      Duration idempotencyTtl) throws IOException {
+        if (segmentBytes < 4096) throw new IllegalArgumentException("segmentBytes must be at least 4096: " + segmentBytes);
+        Files.createDirectories(dir);
+        var store = new FileEventStore(dir, mapper, segmentBytes, fsync, idempotencyTtl);
+        store.recover();
+        return store;
+    }
+
+    private void recover() throws IOException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(dir)) {
+            paths = files.filter(Segment::isSegment).sorted().toList();
+        }
+        var open = new ArrayList<Segment>(paths.size() + 1);
+        try {
+            boolean[] torn = {false};
+            for (int i = 0; i < paths.size(); i++) {
+                var path = paths.get(i);
+                if (i == 0 && Segment.baseSeq(path) != 1) {
+                    throw new IllegalStateException("event log in " + dir + " does not start at seq 1: " + path);
+                }
+                if (torn[0] || Segment.baseSeq(path) != lastSeq + 1) {
+                    // everything after the end of the log was never acknowledged as durable
+                    log.warn("Deleting segment {} past the end of the event log (last seq {})", path, lastSeq);
+                    Files.delete(path);
+                    continue;
+                }
+                int index = open.size();
+                // no record in the segment was written after it was last modified
+                var written = Files.getLastModifiedTime(path).toInstant();
+                var segment = Segment.recover(path, segmentBytes, (record, offset) -> index(record, index, offset, written), torn);
+                if (torn[0]) log.warn("Truncated torn tail of {} at offset {} (last seq {})", path, segment.end(), lastSeq);
+                // a segment that holds nothing can only be the tail; it is recreated below if needed
+                if (segment.end() == 0 && i < paths.size() - 1 && !torn[0]) {
+                    segment.close();
+                    Files.delete(path);
+                    continue;
+                }
+                open.add(segment);
+            }
+            if (open.isEmpty()) open.add(Segment.create(dir, lastSeq + 1, segmentBytes));
+        } catch (IOException | RuntimeException e) {
+            for (var s : open) s.close();
+            throw e;
+        }
+        segments = open.toArray(Segment[]::new);
+        log.info("Opened event log {}: {} segments, {} events, {} entities", dir, segments.length, lastSeq, byId.size());
+    }
+
+    private boolean index(ByteBuffer record, int segment, int offset, Instant written) {
+        long seq = RecordCodec.seq(record, 0);
+        if (seq != lastSeq + 1) return false;
+        lastSeq = seq;
+        observed(RecordCodec.observedAt(record, 0));
+        var key = RecordCodec.idempotencyKey(record, 0);
+        if (key != null) idempotencyKeys.restore(key, written);
+        byId.computeIfAbsent(RecordCodec.entityId(record, 0), k -> new EntityPositions())
+                .add(position(segment, offset), RecordCodec.observedAt(record, 0));
+        return true;
+    }
+
+    @Override
+    public synchronized AppendResult append(List<TemporalEvent> events, String idempotencyKey) {
+        if (events == null || events.isEmpty()) return AppendResult.EMPTY;
+        if (closed) throw new IllegalStateException("event store is closed");
+        if (failure != null) throw new IllegalStateException("event store failed; reopen it to recover", failure);
+        if (idempotencyKey != null && idempotencyKeys.contains(idempotencyKey)) return new AppendResult(List.of(), List.copyOf(events));
+
+        var stored = new ArrayList<TemporalEvent>(events.size());
+        var records = new ArrayList<ByteBuffer>(events.size());
+        long seq = lastSeq;
+        for (var e : events) {
+            var s = e.withSeq(++seq);
+            var record = codec.encode(s, stored.isEmpty() ? idempotencyKey : null);
+            if (record.remaining() > segmentBytes) {
+                throw new IllegalArgumentException("event of " + record.remaining() + " bytes exceeds the segment size " + segmentBytes);
+            }
+            stored.add(s);
+            records.add(record);
+        }
+        for (var s : stored) observed(s.observedAt());
+
+        int lastLength = records.getLast().remaining();
+        try {
+            var positions = write(records);
+            if (fsync == Fsync.ALWAYS) tail().force();
+            else dirty = true;
+            tail().publish(offset(positions[positions.length - 1]) + lastLength);
+            publish(stored, positions);
+        } catch (IOException e) {
+            failure = e;
+            throw new UncheckedIOException(e);
+        }
+        if (idempotencyKey != null) idempotencyKeys.claim(idempotencyKey);
+        lastSeq = seq;
+        for (var s : stored) bus.submit(s);
+        return AppendResult.allAppended(stored);
+    }
+
+    private void observed(Instant observedAt) {
+        if (lastObservedAt != null && observedAt.isBefore(lastObservedAt)) timeOrdered = false;
+        else lastObservedAt = observedAt;
+    }
+
+    /** Writes the batch, rolling to new segments as they fill; the records in the tail are not visible yet. */
+    private long[] write(List<ByteBuffer> records) throws IOException {
+        var positions = new long[records.size()];
+        var tail = tail();
+        int at = tail.end(), from = 0;
+        for (int i = 0; i < records.size(); i++) {
+            int length = records.get(i).remaining();
+            if (at + length > tail.capacity()) {
+                if (from < i) tail.write(records.subList(from, i));
+                // a sealed segment is forced once, whatever the policy, so only the tail is ever dirty
+                tail.force();
+                tail.publish(at);
+                tail = roll(RecordCodec.seq(records.get(i), 0));
+                at = 0;
+                from = i;
+            }
+            positions[i] = position(segments.length - 1, at);
+            at += length;
+        }
+        tail.write(records.subList(from, records.size()));
+        return positions;
+    }
+
+    private Segment roll(long baseSeq) throws IOException {
+        var next = Segment.create(dir, baseSeq, segmentBytes);
+        var grown = Arrays.copyOf(segments, segments.length + 1);
+        grown[segments.length] = next;
+        segments = grown;
+        return next;
+    }
+
+    private void publish(List<TemporalEvent> stored, long[] positions) {
+        for (int i = 0; i < stored.size(); i++) {
+            var s = stored.get(i);
+            byId.computeIfAbsent(s.entityId(), k -> new EntityPositions()).add(positions[i], s.observedAt());
+        }
+    }
+
+    /** Forces appends made since the last call to disk; the {@link Fsync#INTERVAL} policy's tick. */
+    public synchronized void sync() {
+        if (!dirty || closed || failure != null) return;
+        try {
+            tail().force();
+            dirty = false;
+        } catch (IOException e) {
+            failure = e;
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Fsync fsync() { return fsync; }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        bus.close();
+        IOException first = null;
+        for (var s : segments) {
+            try {
+                if (s == tail() && failure == null) s.force();
+                s.close();
+            } catch (IOException e) {
+                if (first == null) first = e;
+                else first.addSuppressed(e);
+            }
+        }
+        if (first != null) throw first;
+    }
+
+    @Override
+    public List<TemporalEvent> read(TemporalId id) {
+        var rows = new ArrayList<TemporalEvent>();
+        forEach(id, null, null, rows::add);
+        return Collections.unmodifiableList(rows);
+    }
+
+    @Override
+    public void readEach(TemporalId id, Cursor after, Instant asOf, Consumer<? super TemporalEvent> sink) {
+        forEach(id, after, asOf, e -> {
+            sink.accept(e);
+            return true;
+        });
+    }
+
+    @Override
+    public void readSince(long afterSeq, Consumer<? super TemporalEvent> sink) {
+        var segs = segments;
+        int first = segs.length - 1;
+        while (first > 0 && segs[first].baseSeq > afterSeq + 1) first--;
+        for (int i = first; i < segs.length; i++) {
+            var map = segs[i].map();
+            int end = segs[i].end();
+            for (int at = 0; at < end; at += RecordCodec.length(map, at)) {
+                if (RecordCodec.seq(map, at) > afterSeq) sink.accept(codec.decode(map, at));
+            }
+        }
+    }
+
+    @Override
+    public List<TemporalEvent> readSince(TemporalId id, long afterSeq, int limit) {
+        var rows = new ArrayList<TemporalEvent>(Math.min(limit, 1024));
+        if (id != null) {
+            // an entity's positions are in append order, which is seq order: binary-search the first one after afterSeq
+            var entity = byId.get(id);
+            if (entity == null) return rows;
+            int n = entity.size();
+            long[] positions = entity.positions();
+            var segs = segments;
+            int lo = 0;
+            for (int hi = n; lo < hi; ) {
+                int mid = (lo + hi) >>> 1;
+                if (RecordCodec.seq(segs[segment(positions[mid])].map(), offset(positions[mid])) > afterSeq) hi = mid;
+                else lo = mid + 1;
+            }
+            for (int i = lo; i < n && rows.size() < limit; i++) {
+                rows.add(codec.decode(segs[segment(positions[i])].map(), offset(positions[i])));
+            }
+            return rows;
+        }
+        var segs = segments;
+        int first = segs.length - 1;
+        while (first > 0 && segs[first].baseSeq > afterSeq + 1) first--;
+        for (int i = first; i < segs.length; i++) {
+            var map = segs[i].map();
+            int end = segs[i].end();
+            for (int at = 0; at < end; at += RecordCodec.length(map, at)) {
+                if (RecordCodec.seq(map, at) <= afterSeq) continue;
+                if (rows.size() == limit) return rows;
+                rows.add(codec.decode(map, at));
+            }
+        }
+        return rows;
+    }
+
+    @Override
+    public EventPage readPage(TemporalId id, Instant asOf, Cursor after, int limit) {
+        var rows = new ArrayList<TemporalEvent>();
+        forEach(id, after, asOf, e -> rows.add(e) && rows.size() <= limit);
+        return EventPage.of(rows, limit);
+    }
+
+    @Override
+    public Flow.Publisher<TemporalEvent> subscribe() {
+        return bus;
+    }
+
+    @Override
+    public List<TemporalEvent> search(
+            String type, Instant from, Instant to,
+            Integer limit, String jsonPath, String jsonValue) {
+        int max = limit != null && limit > 0 ? limit : Integer.MAX_VALUE;
+        var rows = new ArrayList<TemporalEvent>();
+        scan(type, from, to, null, jsonPath, jsonValue, e -> rows.add(e) && rows.size() < max);
+        return Collections.unmodifiableList(rows);
+    }
+
+    @Override
+    public EventPage searchPage(
+            String type, Instant from, Instant to,
+            String jsonPath, String jsonValue, Cursor after, int limit) {
+        var rows = new ArrayList<TemporalEvent>();
+        scan(type, from, to, after, jsonPath, jsonValue, e -> rows.add(e) && rows.size() <= limit);
+        return EventPage.of(rows, limit);
+    }
+
+    @Override
+    public void searchEach(
+            String type, Instant from, Instant to,
+            Integer limit, String jsonPath, String jsonValue,
+            Consumer<? super TemporalEvent> sink) {
+        long max = limit != null && limit > 0 ? limit : Long.MAX_VALUE;
+        var sent = new long[1];
+        scan(type, from, to, null, jsonPath, jsonValue, e -> {
+            sink.accept(e);
+            return ++sent[0] < max;
+        });
+    }
+
+    /** Entity events after {@code after} and not after {@code asOf}, in order, until {@code sink} returns false. */
+    private void forEach(TemporalId id, Cursor after, Instant asOf, Predicate<? super TemporalEvent> sink) {
+        var entity = byId.get(id);
+        if (entity == null) return;
+        int n = entity.size();
+        long[] positions = entity.positions();
+        var segs = segments;
+        if (!entity.ordered()) {
+            // a late event arrived at some point: decode what qualifies and sort it
+            var rows = new ArrayList<TemporalEvent>();
+            for (int i = 0; i < n; i++) {
+                var map = segs[segment(positions[i])].map();
+                int at = offset(positions[i]);
+                if (asOf != null && RecordCodec.observedAt(map, at).isAfter(asOf)) continue;
+                if (after != null && !isAfter(map, at, after)) continue;
+                rows.add(codec.decode(map, at));
+            }
+            rows.sort(Cursor.ORDER);
+            for (var e : rows) if (!sink.test(e)) return;
+            return;
+        }
+        int lo = 0;
+        if (after != null) {
+            for (int hi = n; lo < hi; ) {
+                int mid = (lo + hi) >>> 1;
+                var map = segs[segment(positions[mid])].map();
+                if (isAfter(map, offset(positions[mid]), after)) hi = mid;
+                else lo = mid + 1;
+            }
+        }
+        for (int i = lo; i < n; i++) {
+            var map = segs[segment(positions[i])].map();
+            int at = offset(positions[i]);
+            if (asOf != null && RecordCodec.observedAt(map, at).isAfter(asOf)) return;
+            if (!sink.test(codec.decode(map, at))) return;
+        }
+    }
+
+    /**
+     * Matches in {@code (observedAt, seq)} order until {@code sink} returns false; decodes only
+     * records whose type and time qualify. While the log is in time order the walk hands each
+     * match over as it is decoded. Otherwise it first collects the positions of the candidates
+     * and sorts them by their keys, then decodes one at a time, so memory holds keys, not events.
+     */
+    private void scan(
+            String type, Instant from, Instant to, Cursor after,
+            String jsonPath, String jsonValue, Predicate<? super TemporalEvent> sink) {
+        var segs = segments;
+        var ends = new int[segs.length];
+        for (int i = 0; i < segs.length; i++) ends[i] = segs[i].end();
+        // read after the ends: a late record within them was published after the flag was cleared
+        boolean inOrder = timeOrdered;
+        var hits = inOrder ? null : new ArrayList<Hit>();
+        for (int i = 0; i < segs.length; i++) {
+            var map = segs[i].map();
+            for (int at = 0; at < ends[i]; at += RecordCodec.length(map, at)) {
+                var observedAt = RecordCodec.observedAt(map, at);
+                if (from != null && observedAt.isBefore(from)) continue;
+                if (to != null && observedAt.isAfter(to)) {
+                    if (inOrder) return;
+                    continue;
+                }
+                if (after != null && !isAfter(map, at, after)) continue;
+                if (type != null && !type.equals(RecordCodec.type(map, at))) continue;
+                if (inOrder) {
+                    if (!emit(map, at, jsonPath, jsonValue, sink)) return;
+                } else {
+                    hits.add(new Hit(observedAt, RecordCodec.seq(map, at), position(i, at)));
+                }
+            }
+        }
+        if (inOrder) return;
+        hits.sort(Hit.ORDER);
+        for (var h : hits) {
+            if (!emit(segs[segment(h.position())].map(), offset(h.position()), jsonPath, jsonValue, sink)) return;
+        }
+    }
+
+    /** Decodes the record and hands it to {@code sink} if it matches; false once the sink wants no more. */
+    private boolean emit(ByteBuffer map, int at, String jsonPath, String jsonValue, Predicate<? super TemporalEvent> sink) {
+        var e = codec.decode(map, at);
+        return !matches(e, jsonPath, jsonValue) || sink.test(e);
+    }
+
+    /** Sort key and location of a search candidate. */
+    private record Hit(Instant observedAt, long seq, long position) {
+        static final Comparator<Hit> ORDER = Comparator.comparing(Hit::observedAt).thenComparingLong(Hit::seq);
+    }
+
+    private static boolean isAfter(ByteBuffer map, int at, Cursor after) {
+        int c = RecordCodec.observedAt(map, at).compareTo(after.observedAt());
+        return c > 0 || (c == 0 && RecordCodec.seq(map, at) > after.seq());
+    }
+
+    private static boolean matches(TemporalEvent e, String jsonPath, String jsonValue) {
+        if (jsonPath == null || jsonValue == null) return true;
+        // simple top-level containment: payload[jsonPath] == jsonValue (string compare)
+        Object v = e.payload().get(jsonPath);
+        return Objects.equals(v == null ? null : String.valueOf(v), jsonValue);
+    }
+
+    private Segment tail() { return segments[segments.length - 1]; }
+
+    private static long position(int segment, int offset) { return (long) segment << 32 | offset; }
+
+    private static int segment(long position) { return (int) (position >>> 32); }
+
+    private static int offset(long position) { return (int) position; }
+
+    /**
+     * Record positions of one entity in seq order, appended by the writer only. Readers read
+     * {@code size} first and then the array, which is at least that long. {@code ordered} stays
+     * true while observedAt never went backwards, so seq order is also time order.
+     */
+    private static final class EntityPositions {
+        private volatile long[] positions = new long[4];
+        private volatile int size;
+        private volatile boolean ordered = true;
+        private Instant last;
+
+        void add(long position, Instant observedAt) {
+            int n = size;
+            var p = positions;
+            if (n == p.length) p = Arrays.copyOf(p, n * 2);
+            p[n] = position;
+            if (last != null && observedAt.isBefore(last)) ordered = false;
+            else last = observedAt;
+            positions = p;
+            size = n + 1;
+        }
+
+        int size() { return size; }
+
+        long[] positions() { return positions; }
+
+        boolean ordered() { return ordered; }
+    }
+}
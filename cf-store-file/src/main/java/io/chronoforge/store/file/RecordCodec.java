@@ -0,0 +1,175 @@
+package io.chronoforge.store.file;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import io.chronoforge.core.TemporalEvent;
+import io.chronoforge.core.TemporalId;
+import io.chronoforge.core.VectorClock;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * One event as a self-checking record, big-endian:
+ * <pre>
+ *  0  int   body length (bytes after this 8-byte prefix)
+ *  4  int   CRC32C of the body
+ *  8  long  seq
+ * 16  long  entity id, most significant bits
+ * 24  long  entity id, least significant bits
+ * 32  long  observedAt epoch second
+ * 40  int   observedAt nanos
+ * 44  type, node, idempotency key   u16 length + UTF-8 each; key length 0 = none
+ *     clock                         u16 entries of (u16 length + UTF-8 node, long counter)
+ *     payload                       int length + JSON
+ * </pre>
+ * Fixed fields come first so index builds and binary searches read them in place. All reads
+ * are absolute, so any number of threads can decode from the same buffer.
+ */
+final class RecordCodec {
+    static final int PREFIX = 8;
+    private static final int SEQ = 8, ENTITY = 16, SECONDS = 32, NANOS = 40, TYPE = 44;
+    private static final int MAX_STRING = 0xFFFF;
+
+    private final ObjectWriter writer;
+    private final ObjectReader reader;
+
+    RecordCodec(ObjectMapper mapper) {
+        this.writer = mapper.writer();
+        this.reader = mapper.readerFor(new TypeReference<Map<String, Object>>() {});
+    }
+
+    /** The record for {@code e}, which already carries its seq; {@code key} may be null. */
+    ByteBuffer encode(TemporalEvent e, String key) {
+        byte[] type = utf8(e.type()), node = utf8(e.node()), idem = key == null ? new byte[0] : utf8(key);
+        var clock = e.clock().snapshot();
+        if (clock.size() > MAX_STRING) throw new IllegalArgumentException("clock has too many entries: " + clock.size());
+        var names = new byte[clock.size()][];
+        int clockBytes = 2, i = 0;
+        for (var name : clock.keySet()) {
+            names[i] = utf8(name);
+            clockBytes += 2 + names[i++].length + Long.BYTES;
+        }
+        byte[] payload;
+        try {
+            payload = writer.writeValueAsBytes(e.payload());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        int size = TYPE + 6 + type.length + node.length + idem.length + clockBytes + 4 + payload.length;
+        var b = ByteBuffer.allocate(size);
+        b.putInt(size - PREFIX).putInt(0)
+         .putLong(e.seq())
+         .putLong(e.entityId().value().getMostSignificantBits())
+         .putLong(e.entityId().value().getLeastSignificantBits())
+         .putLong(e.observedAt().getEpochSecond())
+         .putInt(e.observedAt().getNano());
+        putString(b, type);
+        putString(b, node);
+        putString(b, idem);
+        b.putShort((short) clock.size());
+        i = 0;
+        for (long counter : clock.values()) {
+            putString(b, names[i++]);
+            b.putLong(counter);
+        }
+        b.putInt(payload.length).put(payload);
+        b.putInt(4, crc(b, 0, size));
+        return b.flip();
+    }
+
+    /**
+     * Length of the record at {@code at} if it is complete and intact, 0 where nothing was ever
+     * written (zeroed space), -1 for anything else: a torn or corrupt record.
+     */
+    static int check(ByteBuffer b, int at, int limit) {
+        if (at + PREFIX > limit) return at == limit ? 0 : -1;
+        int body = b.getInt(at);
+        if (body == 0 && b.getInt(at + 4) == 0) return 0;
+        if (body < TYPE - PREFIX || body > limit - at - PREFIX) return -1;
+        return b.getInt(at + 4) == crc(b, at, PREFIX + body) ? PREFIX + body : -1;
+    }
+
+    static int length(ByteBuffer b, int at) { return PREFIX + b.getInt(at); }
+
+    static long seq(ByteBuffer b, int at) { return b.getLong(at + SEQ); }
+
+    static TemporalId entityId(ByteBuffer b, int at) {
+        return new TemporalId(new UUID(b.getLong(at + ENTITY), b.getLong(at + ENTITY + 8)));
+    }
+
+    static Instant observedAt(ByteBuffer b, int at) {
+        return Instant.ofEpochSecond(b.getLong(at + SECONDS), b.getInt(at + NANOS));
+    }
+
+    static String type(ByteBuffer b, int at) { return string(b, at + TYPE); }
+
+    /** The idempotency key stored with the first event of a batch, or null. */
+    static String idempotencyKey(ByteBuffer b, int at) {
+        int p = skipString(b, skipString(b, at + TYPE));
+        return b.getShort(p) == 0 ? null : string(b, p);
+    }
+
+    TemporalEvent decode(ByteBuffer b, int at) {
+        int p = at + TYPE;
+        var type = string(b, p);
+        p = skipString(b, p);
+        var node = string(b, p);
+        p = skipString(b, skipString(b, p));
+        int entries = Short.toUnsignedInt(b.getShort(p));
+        p += 2;
+        var clock = new HashMap<String, Long>(entries * 2);
+        for (int i = 0; i < entries; i++) {
+            var name = string(b, p);
+            p = skipString(b, p);
+            clock.put(name, b.getLong(p));
+            p += Long.BYTES;
+        }
+        int payloadLength = b.getInt(p);
+        Map<String, Object> payload;
+        try {
+            payload = reader.readValue(new ByteBufferBackedInputStream(b.slice(p + 4, payloadLength)));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return new TemporalEvent(entityId(b, at), type, observedAt(b, at), VectorClock.copyOf(clock), payload, node, seq(b, at));
+    }
+
+    private static byte[] utf8(String s) {
+        var bytes = s.getBytes(UTF_8);
+        if (bytes.length > MAX_STRING) throw new IllegalArgumentException("string longer than " + MAX_STRING + " bytes");
+        return bytes;
+    }
+
+    private static void putString(ByteBuffer b, byte[] s) {
+        b.putShort((short) s.length).put(s);
+    }
+
+    private static String string(ByteBuffer b, int p) {
+        var bytes = new byte[Short.toUnsignedInt(b.getShort(p))];
+        b.get(p + 2, bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static int skipString(ByteBuffer b, int p) {
+        return p + 2 + Short.toUnsignedInt(b.getShort(p));
+    }
+
+    private static int crc(ByteBuffer b, int at, int length) {
+        var crc = new CRC32C();
+        crc.update(b.slice(at + PREFIX, length - PREFIX));
+        return (int) crc.getValue();
+    }
+}
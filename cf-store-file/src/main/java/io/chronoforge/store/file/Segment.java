@@ -0,0 +1,145 @@
+package io.chronoforge.store.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * One segment file, named after the seq of its first record. The file is preallocated to its
+ * capacity, so space never written reads as zeros and marks the end of the log. Records are
+ * written through the channel and read through a read-only mapping of the whole file, which
+ * shares the page cache with those writes. Only the store's writer moves {@link #end()}.
+ */
+final class Segment implements Closeable {
+    private static final String SUFFIX = ".seg";
+    private static final int SCAN_BUFFER = 1 << 20;
+
+    final long baseSeq;
+    final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer map;
+    private volatile int end;
+
+    private Segment(long baseSeq, Path path, FileChannel channel, int end) throws IOException {
+        this.baseSeq = baseSeq;
+        this.path = path;
+        this.channel = channel;
+        this.map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        this.end = end;
+    }
+
+    static Segment create(Path dir, long baseSeq, int capacity) throws IOException {
+        var path = dir.resolve(name(baseSeq));
+        var channel = FileChannel.open(path, CREATE_NEW, READ, WRITE);
+        preallocate(channel, capacity);
+        return new Segment(baseSeq, path, channel, 0);
+    }
+
+    /** Receives each intact record found by {@link #recover}; the buffer holds it at {@code 0}. */
+    interface RecordSink {
+        /** False when the record does not continue the log; it is then treated as torn. */
+        boolean accept(ByteBuffer record, int offset);
+    }
+
+    /**
+     * Opens an existing segment, handing every intact record to {@code sink} in file order. The
+     * scan reads through the channel, so a torn or corrupt tail can be cut off and zeroed before
+     * anything maps the file. {@code torn[0]} is set when that happened.
+     */
+    static Segment recover(Path path, int capacity, RecordSink sink, boolean[] torn) throws IOException {
+        var channel = FileChannel.open(path, READ, WRITE);
+        try {
+            preallocate(channel, capacity);
+            long size = channel.size();
+            var buf = ByteBuffer.allocate(SCAN_BUFFER);
+            long bufStart = 0;
+            buf.limit(0);
+            int at = 0;
+            while (true) {
+                int rel = (int) (at - bufStart);
+                if (rel + RecordCodec.PREFIX > buf.limit() || (long) rel + RecordCodec.PREFIX + buf.getInt(rel) > buf.limit()) {
+                    // a record larger than the buffer gets a buffer of its own, capped by the file
+                    long want = Math.min(Math.max(SCAN_BUFFER, peekLength(channel, at)), size - at);
+                    if (buf.capacity() < want) buf = ByteBuffer.allocate((int) want);
+                    fill(channel, buf, at, size);
+                    bufStart = at;
+                    rel = 0;
+                }
+                int length = RecordCodec.check(buf, rel, buf.limit());
+                if (length > 0 && !sink.accept(buf.slice(rel, length), at)) length = -1;
+                if (length <= 0) {
+                    if (length < 0) {
+                        torn[0] = true;
+                        // cut and re-extend: the torn bytes become zeros, which read as the end
+                        channel.truncate(at);
+                        preallocate(channel, (int) size);
+                        channel.force(true);
+                    }
+                    break;
+                }
+                at += length;
+            }
+            return new Segment(baseSeq(path), path, channel, at);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    int end() { return end; }
+
+    int capacity() { return map.capacity(); }
+
+    /** The mapping; callers read absolute offsets below {@link #end()}. */
+    ByteBuffer map() { return map; }
+
+    /** Writes {@code records} at {@link #end()}; they become visible to readers on {@link #publish}. */
+    int write(List<ByteBuffer> records) throws IOException {
+        var srcs = records.toArray(ByteBuffer[]::new);
+        long remaining = 0;
+        for (var b : srcs) remaining += b.remaining();
+        channel.position(end);
+        while (remaining > 0) remaining -= channel.write(srcs);
+        return (int) channel.position();
+    }
+
+    void publish(int newEnd) { end = newEnd; }
+
+    void force() throws IOException { channel.force(false); }
+
+    static boolean isSegment(Path p) { return p.getFileName().toString().endsWith(SUFFIX); }
+
+    static long baseSeq(Path p) {
+        var name = p.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    @Override public void close() throws IOException { channel.close(); }
+
+    private static String name(long baseSeq) { return String.format("%020d%s", baseSeq, SUFFIX); }
+
+    private static void preallocate(FileChannel channel, int capacity) throws IOException {
+        if (channel.size() < capacity) channel.write(ByteBuffer.allocate(1), capacity - 1);
+    }
+
+    private static long peekLength(FileChannel channel, long at) throws IOException {
+        var prefix = ByteBuffer.allocate(RecordCodec.PREFIX);
+        while (prefix.hasRemaining() && channel.read(prefix, at + prefix.position()) > 0) { }
+        return prefix.hasRemaining() ? 0 : RecordCodec.PREFIX + (long) prefix.getInt(0);
+    }
+
+    private static void fill(FileChannel channel, ByteBuffer buf, long at, long size) throws IOException {
+        buf.clear();
+        buf.limit((int) Math.min(buf.capacity(), size - at));
+        while (buf.hasRemaining() && channel.read(buf, at + buf.position()) > 0) { }
+        buf.flip();
+    }
+}
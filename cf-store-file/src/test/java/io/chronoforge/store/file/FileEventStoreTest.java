@@ -0,0 +1,209 @@
+package io.chronoforge.store.file;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.chronoforge.core.TemporalEvent;
+import io.chronoforge.core.TemporalId;
+import io.chronoforge.core.VectorClock;
+import io.chronoforge.store.Cursor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileEventStoreTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TemporalId DOC = new TemporalId(UUID.fromString("11111111-1111-1111-1111-111111111111"));
+    private static final TemporalId OTHER = new TemporalId(UUID.fromString("22222222-2222-2222-2222-222222222222"));
+
+    @TempDir
+    Path dir;
+
+    private FileEventStore store;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (store != null) store.close();
+    }
+
+    private FileEventStore open(int segmentBytes) throws IOException {
+        if (store != null) store.close();
+        store = FileEventStore.open(dir, MAPPER, segmentBytes, FileEventStore.Fsync.ALWAYS);
+        return store;
+    }
+
+    private static TemporalEvent event(TemporalId id, String type, long second, Map<String, Object> payload) {
+        return new TemporalEvent(id, type, Instant.ofEpochSecond(second, 7), VectorClock.copyOf(Map.of("api", second, "edge", 2L)), payload, "api");
+    }
+
+    @Test
+    void append_roundTripsEveryField() throws IOException {
+        open(1 << 20).append(List.of(
+                event(DOC, "DOC_SET", 10, Map.of("title", "Hello", "n", 3, "tags", List.of("a", "b"))),
+                event(OTHER, "DOC_DEL", 11, Map.of())));
+
+        var read = store.read(DOC);
+
+        assertThat(read).hasSize(1);
+        var e = read.getFirst();
+        assertThat(e.seq()).isEqualTo(1);
+        assertThat(e.type()).isEqualTo("DOC_SET");
+        assertThat(e.observedAt()).isEqualTo(Instant.ofEpochSecond(10, 7));
+        assertThat(e.node()).isEqualTo("api");
+        assertThat(e.clock().snapshot()).isEqualTo(Map.of("api", 10L, "edge", 2L));
+        assertThat(e.payload()).isEqualTo(Map.of("title", "Hello", "n", 3, "tags", List.of("a", "b")));
+    }
+
+    @Test
+    void reopen_rebuildsTheIndexAndIdempotencyKeys() throws IOException {
+        open(1 << 20).append(List.of(event(DOC, "DOC_SET", 1, Map.of("v", 1))), "key-1");
+        store.append(List.of(event(DOC, "DOC_SET", 2, Map.of("v", 2))));
+
+        open(1 << 20);
+
+        assertThat(store.read(DOC)).extracting(TemporalEvent::seq).containsExactly(1L, 2L);
+        assertThat(store.append(List.of(event(DOC, "DOC_SET", 3, Map.of())), "key-1").appendedCount()).isZero();
+        assertThat(store.append(List.of(event(DOC, "DOC_SET", 3, Map.of()))).appended().getFirst().seq()).isEqualTo(3);
+    }
+
+    @Test
+    void reopen_skipsIdempotencyKeysOlderThanTheTtl() throws IOException {
+        store = FileEventStore.open(dir, MAPPER, 1 << 20, FileEventStore.Fsync.ALWAYS, Duration.ofHours(1));
+        store.append(List.of(event(DOC, "DOC_SET", 1, Map.of())), "old");
+        store.close();
+        store = null;
+        for (var segment : segments()) Files.setLastModifiedTime(segment, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+
+        store = FileEventStore.open(dir, MAPPER, 1 << 20, FileEventStore.Fsync.ALWAYS, Duration.ofHours(1));
+
+        assertThat(store.append(List.of(event(DOC, "DOC_SET", 2, Map.of())), "old").appendedCount()).isEqualTo(1);
+        assertThat(store.append(List.of(event(DOC, "DOC_SET", 3, Map.of())), "old").duplicateCount()).isEqualTo(1);
+    }
+
+    @Test
+    void idempotencyKey_isForgottenAfterItsTtl() throws IOException, InterruptedException {
+        store = FileEventStore.open(dir, MAPPER, 1 << 20, FileEventStore.Fsync.ALWAYS, Duration.ofMillis(50));
+        store.append(List.of(event(DOC, "DOC_SET", 1, Map.of())), "key");
+        assertThat(store.append(List.of(event(DOC, "DOC_SET", 1, Map.of())), "key").duplicateCount()).isEqualTo(1);
+
+        Thread.sleep(100);
+        assertThat(store.append(List.of(event(DOC, "DOC_SET", 1, Map.of())), "key").appendedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void reopen_truncatesATornTail() throws IOException {
+        open(1 << 20).append(List.of(event(DOC, "DOC_SET", 1, Map.of()), event(DOC, "DOC_SET", 2, Map.of())));
+        store.close();
+        store = null;
+        // half of a third record: a length and garbage where the CRC does not match
+        var segment = segments().getFirst();
+        long end;
+        try (var ch = FileChannel.open(segment, WRITE)) {
+            end = validEnd(segment);
+            ch.write(ByteBuffer.allocate(12).putInt(200).putInt(42).putInt(7).flip(), end);
+        }
+
+        open(1 << 20);
+
+        assertThat(store.read(DOC)).hasSize(2);
+        var appended = store.append(List.of(event(DOC, "DOC_SET", 3, Map.of("after", "crash"))));
+        assertThat(appended.appended().getFirst().seq()).isEqualTo(3);
+        open(1 << 20);
+        assertThat(store.read(DOC)).extracting(TemporalEvent::seq).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void segments_rollAndReadSinceCrossesThem() throws IOException {
+        open(4096);
+        for (int i = 1; i <= 60; i++) store.append(List.of(event(i % 2 == 0 ? DOC : OTHER, "T", i, Map.of("i", i))));
+
+        assertThat(segments()).hasSizeGreaterThan(1);
+        var since = new ArrayList<Long>();
+        store.readSince(25, e -> since.add(e.seq()));
+        assertThat(since).hasSize(35).first().isEqualTo(26L);
+        assertThat(since).isSorted();
+
+        open(4096);
+        assertThat(store.read(DOC)).hasSize(30);
+        assertThat(store.search("T", Instant.ofEpochSecond(10), Instant.ofEpochSecond(12, 7), null, null, null))
+                .extracting(TemporalEvent::seq).containsExactly(10L, 11L, 12L);
+    }
+
+    @Test
+    void readSince_pagesBySeqOverallAndPerEntity() throws IOException {
+        open(4096);
+        for (int i = 1; i <= 60; i++) store.append(List.of(event(i % 2 == 0 ? DOC : OTHER, "T", i, Map.of("i", i))));
+
+        assertThat(store.readSince(null, 25, 10)).extracting(TemporalEvent::seq)
+                .containsExactly(26L, 27L, 28L, 29L, 30L, 31L, 32L, 33L, 34L, 35L);
+        assertThat(store.readSince(DOC, 50, 3)).extracting(TemporalEvent::seq).containsExactly(52L, 54L, 56L);
+        assertThat(store.readSince(DOC, 58, 3)).extracting(TemporalEvent::seq).containsExactly(60L);
+        assertThat(store.readSince(null, 60, 10)).isEmpty();
+    }
+
+    @Test
+    void reads_keepTimeOrderWhenEventsArriveLate() throws IOException {
+        open(1 << 20).append(List.of(event(DOC, "T", 5, Map.of()), event(DOC, "T", 9, Map.of()), event(DOC, "T", 7, Map.of())));
+
+        assertThat(store.read(DOC)).extracting(TemporalEvent::seq).containsExactly(1L, 3L, 2L);
+        var page = store.readPage(DOC, null, null, 2);
+        assertThat(page.events()).extracting(TemporalEvent::seq).containsExactly(1L, 3L);
+        assertThat(store.readPage(DOC, null, page.next(), 2).events()).extracting(TemporalEvent::seq).containsExactly(2L);
+        var capped = new ArrayList<Long>();
+        store.readEach(DOC, new Cursor(Instant.ofEpochSecond(5, 7), 1), Instant.ofEpochSecond(8), e -> capped.add(e.seq()));
+        assertThat(capped).containsExactly(3L);
+    }
+
+    @Test
+    void search_streamsInTimeOrderAndStopsAtTheLimit() throws IOException {
+        open(4096);
+        for (int i = 1; i <= 40; i++) store.append(List.of(event(i % 2 == 0 ? DOC : OTHER, i % 3 == 0 ? "A" : "B", i, Map.of("i", i))));
+
+        var first = new ArrayList<Long>();
+        store.searchEach("A", null, null, 3, null, null, e -> first.add(e.seq()));
+        assertThat(first).containsExactly(3L, 6L, 9L);
+        assertThat(store.search(null, null, null, null, "i", "20")).extracting(TemporalEvent::seq).containsExactly(20L);
+
+        // a late event: from now on matches are sorted before they are handed over, also after a reopen
+        store.append(List.of(event(DOC, "A", 4, Map.of("late", true))));
+        for (int pass = 0; pass < 2; pass++) {
+            var sorted = new ArrayList<Long>();
+            store.searchEach("A", null, Instant.ofEpochSecond(10), null, null, null, e -> sorted.add(e.seq()));
+            assertThat(sorted).containsExactly(3L, 41L, 6L, 9L);
+            var page = store.searchPage(null, Instant.ofEpochSecond(4), null, null, null, null, 2);
+            assertThat(page.events()).extracting(TemporalEvent::seq).containsExactly(4L, 41L);
+            assertThat(store.searchPage(null, null, null, null, null, page.next(), 2).events())
+                    .extracting(TemporalEvent::seq).containsExactly(5L, 6L);
+            open(4096);
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(Segment::isSegment).sorted().toList();
+        }
+    }
+
+    private static long validEnd(Path segment) throws IOException {
+        var map = ByteBuffer.wrap(Files.readAllBytes(segment));
+        int at = 0, length;
+        while ((length = RecordCodec.check(map, at, map.limit())) > 0) at += length;
+        return at;
+    }
+}
@@ -0,0 +1,123 @@
+package io.chronoforge.store.file;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.chronoforge.core.TemporalEvent;
+import io.chronoforge.core.TemporalId;
+import io.chronoforge.core.VectorClock;
+import io.chronoforge.store.EventStore;
+import io.chronoforge.store.pg.PostgresEventStore;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures the file store against Postgres on one box: single-event appends (the API's write
+ * path) and per-entity reads. Runs only when CF_PG_URL is set (user/pass default to the
+ * docker-compose cf/cf) and logs events/s for each. The file store has to be at least
+ * {@link #MIN_SPEEDUP} times faster at both with {@code Fsync.INTERVAL} (a crash loses at most
+ * one interval). {@code Fsync.ALWAYS} pays an fsync per append, as Postgres pays one per commit,
+ * so the disk sets the pace for both and it is only logged.
+ */
+@EnabledIfEnvironmentVariable(named = "CF_PG_URL", matches = ".+")
+class FileVsPostgresSpeedTest {
+    private static final Logger log = LoggerFactory.getLogger(FileVsPostgresSpeedTest.class);
+
+    private static final int ENTITIES = 50;
+    private static final int EVENTS = 2_000;
+    private static final int READ_ROUNDS = 20;
+    private static final int MIN_SPEEDUP = 5;
+
+    @TempDir
+    Path dir;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final List<UUID> entities = new ArrayList<>();
+    private JdbcTemplate jdbc;
+    private PostgresEventStore pg;
+
+    @BeforeEach
+    void setUp() {
+        var ds = new DriverManagerDataSource(System.getenv("CF_PG_URL"),
+                System.getenv().getOrDefault("CF_PG_USER", "cf"),
+                System.getenv().getOrDefault("CF_PG_PASS", "cf"));
+        Flyway.configure().dataSource(ds).load().migrate();
+        jdbc = new JdbcTemplate(ds);
+        pg = new PostgresEventStore(jdbc, new TransactionTemplate(new DataSourceTransactionManager(ds)), json);
+        for (int i = 0; i < ENTITIES; i++) entities.add(UUID.randomUUID());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        for (var id : entities) jdbc.update("DELETE FROM cf_event WHERE entity_id = ?", id);
+    }
+
+    @Test
+    void fileStoreOutpacesPostgres() throws IOException {
+        long pgAppend = appendAll(pg, "pg");
+        long pgRead = readAll(pg);
+
+        long fileAppend, fileRead, durableAppend;
+        try (var file = FileEventStore.open(dir.resolve("interval"), json, 64 << 20, FileEventStore.Fsync.INTERVAL)) {
+            fileAppend = appendAll(file, "file");
+            fileRead = readAll(file);
+        }
+        try (var file = FileEventStore.open(dir.resolve("always"), json, 64 << 20, FileEventStore.Fsync.ALWAYS)) {
+            durableAppend = appendAll(file, "always");
+        }
+
+        int reads = ENTITIES * READ_ROUNDS;
+        log.info("append {} events: pg {} ev/s, file {} ev/s (fsync ALWAYS {} ev/s)", EVENTS,
+                rate(EVENTS, pgAppend), rate(EVENTS, fileAppend), rate(EVENTS, durableAppend));
+        log.info("read {} entities of {} events: pg {} reads/s, file {} reads/s", reads, EVENTS / ENTITIES,
+                rate(reads, pgRead), rate(reads, fileRead));
+        assertThat(fileAppend * MIN_SPEEDUP)
+                .as("file append %d ms vs pg %d ms", fileAppend / 1_000_000, pgAppend / 1_000_000)
+                .isLessThan(pgAppend);
+        assertThat(fileRead * MIN_SPEEDUP)
+                .as("file read %d ms vs pg %d ms", fileRead / 1_000_000, pgRead / 1_000_000)
+                .isLessThan(pgRead);
+    }
+
+    /** One append per event, spread over the entities; nanos taken. */
+    private long appendAll(EventStore store, String run) {
+        long t0 = System.nanoTime();
+        for (int i = 0; i < EVENTS; i++) {
+            var id = new TemporalId(entities.get(i % ENTITIES));
+            store.append(List.of(new TemporalEvent(id, "DOC_SET", Instant.EPOCH.plusSeconds(i),
+                    new VectorClock().tick("bench"), Map.of("i", i, "run", run, "title", "event " + i), "bench")));
+        }
+        return System.nanoTime() - t0;
+    }
+
+    /** Every entity read {@link #READ_ROUNDS} times; nanos taken. */
+    private long readAll(EventStore store) {
+        long t0 = System.nanoTime();
+        for (int r = 0; r < READ_ROUNDS; r++) {
+            for (var id : entities) assertThat(store.read(new TemporalId(id))).isNotEmpty();
+        }
+        return System.nanoTime() - t0;
+    }
+
+    private static long rate(int count, long nanos) {
+        return Math.round(count / (nanos / 1e9));
+    }
+}
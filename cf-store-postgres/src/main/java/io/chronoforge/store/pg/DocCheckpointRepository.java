@@ -0,0 +1,93 @@
+package io.chronoforge.store.pg;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.chronoforge.store.Cursor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * {@code cf_doc_checkpoint}: a document as replayed over every event of its entity up to
+ * {@link Checkpoint#position()}. Rows are immutable; a checkpoint is only ever deleted when a
+ * late event lands before its position (see {@link #deleteAfter}).
+ */
+public final class DocCheckpointRepository {
+    private final JdbcTemplate jdbc;
+    private final ObjectMapper json;
+    private final JsonbColumns jsonb;
+
+    public DocCheckpointRepository(JdbcTemplate jdbc, ObjectMapper json) {
+        this.jdbc = jdbc; this.json = json;
+        this.jsonb = new JsonbColumns(json);
+    }
+
+    /** Newest checkpoint whose position is at or before {@code at}; null {@code at} = newest overall. */
+    public Optional<Checkpoint> latest(UUID id, Instant at) {
+        var sql = at == null
+                ? "SELECT * FROM cf_doc_checkpoint WHERE entity_id = ? ORDER BY observed_at DESC, seq DESC LIMIT 1"
+                : "SELECT * FROM cf_doc_checkpoint WHERE entity_id = ? AND observed_at <= ? ORDER BY observed_at DESC, seq DESC LIMIT 1";
+        var rows = at == null ? jdbc.query(sql, mapper(), id) : jdbc.query(sql, mapper(), id, Timestamp.from(at));
+        return rows.stream().findFirst();
+    }
+
+    /** Position of each id's newest checkpoint; ids without one are absent. One round trip. */
+    public Map<UUID, Cursor> latestPositions(Collection<UUID> ids) {
+        var found = new HashMap<UUID, Cursor>(ids.size() * 2);
+        if (ids.isEmpty()) return found;
+        var sql = """
+          SELECT DISTINCT ON (entity_id) entity_id, observed_at, seq
+          FROM cf_doc_checkpoint
+          WHERE entity_id = ANY(?)
+          ORDER BY entity_id, observed_at DESC, seq DESC
+          """;
+        jdbc.query(con -> {
+            var ps = con.prepareStatement(sql);
+            ps.setArray(1, con.createArrayOf("uuid", ids.toArray()));
+            return ps;
+        }, (RowCallbackHandler) rs -> found.put(rs.getObject("entity_id", UUID.class),
+                new Cursor(rs.getObject("observed_at", OffsetDateTime.class).toInstant(), rs.getLong("seq"))));
+        return found;
+    }
+
+    public void save(Checkpoint c) {
+        var sql = """
+          INSERT INTO cf_doc_checkpoint (entity_id, observed_at, seq, doc, clock, events)
+          VALUES (?, ?, ?, ?::jsonb, ?::jsonb, ?)
+          ON CONFLICT (entity_id, observed_at, seq) DO NOTHING
+          """;
+        jdbc.update(sql, c.entityId(), Timestamp.from(c.position().observedAt()), c.position().seq(),
+                toJson(c.doc()), toJson(c.clock()), c.events());
+    }
+
+    /** Drops checkpoints positioned after {@code position}: they were built without an event that sorts there. */
+    public int deleteAfter(UUID id, Cursor position) {
+        return jdbc.update("DELETE FROM cf_doc_checkpoint WHERE entity_id = ? AND (observed_at, seq) > (?, ?)",
+                id, Timestamp.from(position.observedAt()), position.seq());
+    }
+
+    private String toJson(Object o) {
+        try { return json.writeValueAsString(o); }
+        catch (Exception e) { throw new RuntimeException(e); }
+    }
+    private RowMapper<Checkpoint> mapper() {
+        return (rs, rn) -> new Checkpoint(
+                rs.getObject("entity_id", UUID.class),
+                new Cursor(rs.getObject("observed_at", OffsetDateTime.class).toInstant(), rs.getLong("seq")),
+                jsonb.object(rs.getBytes("doc")),
+                jsonb.clock(rs.getBytes("clock")),
+                rs.getLong("events")
+        );
+    }
+
+    /** @param events how many events of the entity the checkpoint covers */
+    public record Checkpoint(UUID entityId, Cursor position, Map<String,Object> doc, Map<String,Long> clock, long events) {}
+}
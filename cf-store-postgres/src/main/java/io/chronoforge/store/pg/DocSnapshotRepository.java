@@ -1,28 +1,64 @@
 package io.chronoforge.store.pg;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
-import org.springframework.stereotype.Repository;
 
-import java.sql.Timestamp;
 import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
+/**
+ * {@code cf_doc_snapshot}, optionally behind a bounded in-process cache of parsed snapshots.
+ *
+ * The cache (Caffeine, W-TinyLFU) is bounded by an estimate of heap bytes: doc + clock JSON
+ * length plus a fixed per-entry overhead. Reads load through it; every write here puts the new
+ * value after the database accepted it, so as long as snapshots are only written through this
+ * repository (the projector does) cached values never go stale. Loads and writes of the same id
+ * are serialized by the cache, so a slow load cannot overwrite a newer write. Cached snapshots
+ * are read-only.
+ */
 public final class DocSnapshotRepository {
+    // Rows per multi-row upsert statement (3 bind parameters each).
+    private static final int UPSERT_CHUNK = 1_000;
+    // Rough heap cost of an entry beyond its JSON text: key, record, maps, cache node.
+    private static final int ENTRY_OVERHEAD = 256;
+
     private final JdbcTemplate jdbc;
     private final ObjectMapper json;
+    private final JsonbColumns jsonb;
+    private final Cache<UUID, Cached> cache;     // null = caching off
+
+    private record Cached(Snapshot snapshot, int weight) {}
 
     public DocSnapshotRepository(JdbcTemplate jdbc, ObjectMapper json) {
+        this(jdbc, json, 0);
+    }
+
+    /** @param cacheMaxBytes approximate heap budget for cached snapshots; 0 disables the cache */
+    public DocSnapshotRepository(JdbcTemplate jdbc, ObjectMapper json, long cacheMaxBytes) {
+        if (cacheMaxBytes < 0) throw new IllegalArgumentException("cacheMaxBytes must not be negative: " + cacheMaxBytes);
         this.jdbc = jdbc; this.json = json;
+        this.jsonb = new JsonbColumns(json);
+        this.cache = cacheMaxBytes == 0 ? null : Caffeine.newBuilder()
+                .maximumWeight(cacheMaxBytes)
+                .weigher((UUID id, Cached c) -> c.weight())
+                .recordStats()
+                .build();
     }
 
     public Optional<Snapshot> get(UUID id) {
-        var sql = "SELECT entity_id, doc, clock, updated_at FROM cf_doc_snapshot WHERE entity_id = ?";
-        return jdbc.query(sql, mapper(), id).stream().findFirst();
+        if (cache == null) return Optional.ofNullable(load(id)).map(Cached::snapshot);
+        return Optional.ofNullable(cache.get(id, this::load)).map(Cached::snapshot);
     }
 
     public void upsert(UUID id, Map<String,Object> doc, Map<String,Long> clock) {
@@ -32,28 +68,117 @@ public final class DocSnapshotRepository {
           ON CONFLICT (entity_id)
           DO UPDATE SET doc = EXCLUDED.doc, clock = EXCLUDED.clock, updated_at = now()
           """;
-        jdbc.update(sql, id, toJson(doc), toJson(clock));
+        var docJson = toJson(doc);
+        var clockJson = toJson(clock);
+        jdbc.update(sql, id, docJson, clockJson);
+        cachePut(new Snapshot(id, doc, clock, null), docJson, clockJson);
+    }
+
+    /** Snapshots of every id that has one; cache misses are loaded in one round trip. */
+    public Map<UUID, Snapshot> getAll(Collection<UUID> ids) {
+        var found = new HashMap<UUID, Snapshot>(ids.size() * 2);
+        if (ids.isEmpty()) return found;
+        if (cache == null) {
+            loadAll(ids).forEach((id, c) -> found.put(id, c.snapshot()));
+        } else {
+            cache.getAll(ids, this::loadAll).forEach((id, c) -> found.put(id, c.snapshot()));
+        }
+        return found;
+    }
+
+    /** Writes many snapshots with multi-row upserts; ids must be distinct. */
+    public void upsertAll(List<Snapshot> snapshots) {
+        for (int from = 0; from < snapshots.size(); from += UPSERT_CHUNK) {
+            var chunk = snapshots.subList(from, Math.min(from + UPSERT_CHUNK, snapshots.size()));
+            var sql = new StringBuilder("INSERT INTO cf_doc_snapshot (entity_id, doc, clock, updated_at) VALUES ");
+            var args = new ArrayList<Object>(chunk.size() * 3);
+            for (int i = 0; i < chunk.size(); i++) {
+                if (i > 0) sql.append(',');
+                sql.append("(?, ?::jsonb, ?::jsonb, now())");
+                var s = chunk.get(i);
+                args.add(s.entityId());
+                args.add(toJson(s.doc()));
+                args.add(toJson(s.clock()));
+            }
+            sql.append(" ON CONFLICT (entity_id) DO UPDATE SET doc = EXCLUDED.doc, clock = EXCLUDED.clock, updated_at = now()");
+            jdbc.update(sql.toString(), args.toArray());
+            for (int i = 0; i < chunk.size(); i++) {
+                cachePut(chunk.get(i), (String) args.get(i * 3 + 1), (String) args.get(i * 3 + 2));
+            }
+        }
+    }
+
+    /** Empties the table ahead of a full rebuild. */
+    public void deleteAll() {
+        jdbc.execute("TRUNCATE cf_doc_snapshot");
+        if (cache != null) cache.invalidateAll();
+    }
+
+    public record CacheSummary(long hits, long misses, double hitRate, long evictions,
+                               long entries, long weightBytes, long maxWeightBytes) {}
+
+    /** Hit/miss/eviction counters since startup; empty when caching is off. */
+    public Optional<CacheSummary> cacheSummary() {
+        if (cache == null) return Optional.empty();
+        var s = cache.stats();
+        var eviction = cache.policy().eviction().orElseThrow();
+        return Optional.of(new CacheSummary(s.hitCount(), s.missCount(), s.hitRate(), s.evictionCount(),
+                cache.estimatedSize(), eviction.weightedSize().orElse(0), eviction.getMaximum()));
+    }
+
+    // updatedAt of a written snapshot is the database's now(); the cached copy uses the local clock.
+    private void cachePut(Snapshot s, String docJson, String clockJson) {
+        if (cache == null) return;
+        var frozen = new Snapshot(s.entityId(), Collections.unmodifiableMap(s.doc()), Collections.unmodifiableMap(s.clock()),
+                s.updatedAt() != null ? s.updatedAt() : Instant.now());
+        cache.put(s.entityId(), new Cached(frozen, weight(docJson, clockJson)));
+    }
+
+    private Cached load(UUID id) {
+        var sql = "SELECT entity_id, doc, clock, updated_at FROM cf_doc_snapshot WHERE entity_id = ?";
+        return jdbc.query(sql, mapper(), id).stream().findFirst().orElse(null);
+    }
+
+    private Map<UUID, Cached> loadAll(Iterable<? extends UUID> ids) {
+        var list = new ArrayList<UUID>();
+        ids.forEach(list::add);
+        var sql = "SELECT entity_id, doc, clock, updated_at FROM cf_doc_snapshot WHERE entity_id = ANY(?)";
+        var found = new HashMap<UUID, Cached>(list.size() * 2);
+        jdbc.query(con -> {
+            var ps = con.prepareStatement(sql);
+            ps.setArray(1, con.createArrayOf("uuid", list.toArray()));
+            return ps;
+        }, mapper()).forEach(c -> found.put(c.snapshot().entityId(), c));
+        return found;
+    }
+
+    private static int weight(String docJson, String clockJson) {
+        return weight(docJson.length(), clockJson.length());
+    }
+
+    private static int weight(int docJsonLength, int clockJsonLength) {
+        // JSON text length is a cheap proxy for the parsed maps' footprint (2 bytes per char);
+        // loaded rows are measured in UTF-8 bytes, the same count for ASCII text.
+        long w = ENTRY_OVERHEAD + 2L * ((long) docJsonLength + clockJsonLength);
+        return (int) Math.min(Integer.MAX_VALUE, w);
     }
 
     private String toJson(Object o) {
         try { return json.writeValueAsString(o); }
         catch (Exception e) { throw new RuntimeException(e); }
     }
-    private RowMapper<Snapshot> mapper() {
-        return (rs, rn) -> new Snapshot(
-                UUID.fromString(rs.getString("entity_id")),
-                readJsonObj(rs.getString("doc")),
-                readJsonClock(rs.getString("clock")),
-                rs.getTimestamp("updated_at").toInstant()
-        );
-    }
-    private Map<String,Object> readJsonObj(String s) {
-        try { return json.readValue(s, new TypeReference<>(){}); }
-        catch (Exception e){ throw new RuntimeException(e); }
-    }
-    private Map<String,Long> readJsonClock(String s) {
-        try { return json.readValue(s, new TypeReference<>(){}); }
-        catch (Exception e){ throw new RuntimeException(e); }
+    private RowMapper<Cached> mapper() {
+        return (rs, rn) -> {
+            var docJson = rs.getBytes("doc");
+            var clockJson = rs.getBytes("clock");
+            var snapshot = new Snapshot(
+                    rs.getObject("entity_id", UUID.class),
+                    Collections.unmodifiableMap(jsonb.object(docJson)),
+                    Collections.unmodifiableMap(jsonb.clock(clockJson)),
+                    rs.getObject("updated_at", OffsetDateTime.class).toInstant()
+            );
+            return new Cached(snapshot, weight(docJson.length, clockJson.length));
+        };
     }
 
     public record Snapshot(UUID entityId, Map<String,Object> doc, Map<String,Long> clock, Instant updatedAt) {}
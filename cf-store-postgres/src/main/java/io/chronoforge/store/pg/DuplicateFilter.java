@@ -0,0 +1,75 @@
+package io.chronoforge.store.pg;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory Bloom filter over recently stored idempotency hashes. {@code mightContain == false}
+ * means the hash was not stored recently; true only means "maybe", so the caller confirms
+ * against the table. A miss is always safe: the INSERT's {@code ON CONFLICT} stays the authority.
+ *
+ * The hashes are SHA-256 already, so the k probe positions come from double hashing the first
+ * two 64-bit words instead of rehashing. Two generations of {@code expectedInsertions} each
+ * bound the false-positive rate: when the current one fills up it becomes the previous one and
+ * the oldest is dropped. Thread-safe; bits are set with CAS.
+ */
+final class DuplicateFilter {
+    private final long expectedInsertions;
+    private final int bits;
+    private final int probes;
+    private volatile Generation current;
+    private volatile Generation previous;
+
+    private static final class Generation {
+        final AtomicLongArray words;
+        final AtomicLong added = new AtomicLong();
+        Generation(int bits) { this.words = new AtomicLongArray((bits + 63) >>> 6); }
+    }
+
+    DuplicateFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions < 1) throw new IllegalArgumentException("expectedInsertions must be positive: " + expectedInsertions);
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1))
+            throw new IllegalArgumentException("falsePositiveRate must be in (0, 1): " + falsePositiveRate);
+        long m = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.expectedInsertions = expectedInsertions;
+        this.bits = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, m));
+        this.probes = Math.max(1, (int) Math.round((double) bits / expectedInsertions * Math.log(2)));
+        this.current = new Generation(bits);
+        this.previous = new Generation(bits);
+    }
+
+    boolean mightContain(byte[] hash) {
+        return contains(current, hash) || contains(previous, hash);
+    }
+
+    void add(byte[] hash) {
+        var g = current;
+        var h = ByteBuffer.wrap(hash);
+        long h1 = h.getLong(0), h2 = h.getLong(8);
+        for (int i = 0; i < probes; i++) {
+            int bit = (int) Math.floorMod(h1 + i * h2, (long) bits);
+            int word = bit >>> 6;
+            long mask = 1L << bit;
+            long old;
+            while (((old = g.words.get(word)) & mask) == 0 && !g.words.compareAndSet(word, old, old | mask)) { }
+        }
+        if (g.added.incrementAndGet() >= expectedInsertions) rotate(g);
+    }
+
+    private synchronized void rotate(Generation full) {
+        if (current != full) return;
+        previous = full;
+        current = new Generation(bits);
+    }
+
+    private boolean contains(Generation g, byte[] hash) {
+        var h = ByteBuffer.wrap(hash);
+        long h1 = h.getLong(0), h2 = h.getLong(8);
+        for (int i = 0; i < probes; i++) {
+            int bit = (int) Math.floorMod(h1 + i * h2, (long) bits);
+            if ((g.words.get(bit >>> 6) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+}
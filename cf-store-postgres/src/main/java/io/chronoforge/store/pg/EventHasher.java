@@ -0,0 +1,155 @@
+package io.chronoforge.store.pg;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Pooled idempotency hashing: SHA-256 over the UTF-8 bytes of
+ * {@code entityId|type|observedAt|payloadJson}, byte-for-byte what the original
+ * String-concatenating implementation digested, so existing hashes keep matching.
+ *
+ * Fields are UTF-8 encoded straight into a reused byte buffer (UUID as hex, the instant through
+ * a reused StringBuilder) and the digest reads that buffer, so hashing allocates neither the
+ * concatenated key String nor its byte[] copy. The payload is serialized once, as a String:
+ * that is the bind parameter anyway, and Jackson's byte output escapes supplementary characters
+ * differently from its String output, which would change the hash.
+ *
+ * Instances are not thread-safe. They come from a small shared pool ({@link #acquire()}, closed
+ * to hand back) rather than a ThreadLocal: appends run on per-request virtual threads, which
+ * would each build a fresh digest and buffer and then drop them.
+ */
+final class EventHasher implements AutoCloseable {
+    private static final ArrayBlockingQueue<EventHasher> IDLE =
+            new ArrayBlockingQueue<>(Math.max(4, 2 * Runtime.getRuntime().availableProcessors()));
+    private static final MessageDigest PROTOTYPE;
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    // Drop a buffer that grew past this after an outsized payload instead of pinning it in the pool.
+    private static final int RETAIN_BYTES = 1 << 16;
+
+    static {
+        try { PROTOTYPE = MessageDigest.getInstance("SHA-256"); }
+        catch (NoSuchAlgorithmException e) { throw new ExceptionInInitializerError(e); }
+    }
+
+    private final MessageDigest md;
+    private final StringBuilder text = new StringBuilder(40);
+    private Buffer buffer = new Buffer();
+
+    private EventHasher() {
+        MessageDigest d;
+        try { d = (MessageDigest) PROTOTYPE.clone(); }
+        catch (CloneNotSupportedException e) {
+            try { d = MessageDigest.getInstance("SHA-256"); }
+            catch (NoSuchAlgorithmException ex) { throw new IllegalStateException(ex); }
+        }
+        this.md = d;
+    }
+
+    /** An idle pooled hasher, or a new one when all are in use; close it to hand it back. */
+    static EventHasher acquire() {
+        var h = IDLE.poll();
+        return h != null ? h : new EventHasher();
+    }
+
+    /** Returns this hasher to the pool; it is dropped when the pool is already full. */
+    @Override
+    public void close() {
+        md.reset();
+        IDLE.offer(this);
+    }
+
+    /** Serializes the payload once; the result is both hashed and bound. */
+    record Encoded(String payloadJson, byte[] hash) {}
+
+    Encoded encode(ObjectMapper json, UUID entityId, String type, Instant observedAt, Map<String, Object> payloadMap) {
+        String payloadJson;
+        try { payloadJson = json.writeValueAsString(payloadMap); }
+        catch (JsonProcessingException e) { throw new UncheckedIOException(e); }
+        return new Encoded(payloadJson, hash(entityId, type, observedAt, payloadJson));
+    }
+
+    byte[] hash(UUID entityId, String type, Instant observedAt, String payloadJson) {
+        var out = buffer;
+        out.reset();
+        uuid(out, entityId);
+        out.write('|');
+        utf8(out, type);
+        out.write('|');
+        text.setLength(0);
+        DateTimeFormatter.ISO_INSTANT.formatTo(observedAt, text); // same text as Instant.toString()
+        utf8(out, text);
+        out.write('|');
+        utf8(out, payloadJson);
+        md.update(out.buf, 0, out.size);
+        if (out.buf.length > RETAIN_BYTES) buffer = new Buffer();
+        return md.digest();
+    }
+
+    private static void uuid(Buffer out, UUID id) {
+        long msb = id.getMostSignificantBits(), lsb = id.getLeastSignificantBits();
+        hex(out, msb >>> 32, 8);
+        out.write('-');
+        hex(out, msb >>> 16, 4);
+        out.write('-');
+        hex(out, msb, 4);
+        out.write('-');
+        hex(out, lsb >>> 48, 4);
+        out.write('-');
+        hex(out, lsb, 12);
+    }
+
+    private static void hex(Buffer out, long v, int digits) {
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) out.write(HEX[(int) (v >>> shift) & 0xf]);
+    }
+
+    /** Same bytes as {@code String.getBytes(UTF_8)}, including '?' for unpaired surrogates. */
+    private static void utf8(Buffer out, CharSequence s) {
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                out.write(c);
+            } else if (c < 0x800) {
+                out.write(0xc0 | c >> 6);
+                out.write(0x80 | c & 0x3f);
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    out.write(0xf0 | cp >> 18);
+                    out.write(0x80 | cp >> 12 & 0x3f);
+                    out.write(0x80 | cp >> 6 & 0x3f);
+                    out.write(0x80 | cp & 0x3f);
+                } else {
+                    out.write('?');
+                }
+            } else {
+                out.write(0xe0 | c >> 12);
+                out.write(0x80 | c >> 6 & 0x3f);
+                out.write(0x80 | c & 0x3f);
+            }
+        }
+    }
+
+    /** Growable byte buffer; unlike ByteArrayOutputStream, unsynchronized and read in place. */
+    private static final class Buffer {
+        byte[] buf = new byte[256];
+        int size;
+
+        void reset() { size = 0; }
+
+        void write(int b) {
+            if (size == buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+            buf[size++] = (byte) b;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package io.chronoforge.store.pg;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Range partitions of {@code cf_event} on {@code observed_at} (see V4 migration).
+ *
+ * Creates partitions ahead of time at a fixed UTC-aligned interval and expires whole partitions
+ * for retention: {@code DETACH} keeps the data as a standalone table (archive, then drop at
+ * leisure), {@code DROP} frees it. Either way it is a catalog operation, not a mass DELETE.
+ * Partitions are named {@code cf_event_p<yyyyMMdd of lower bound>}.
+ */
+public final class EventPartitions {
+    private static final Logger log = LoggerFactory.getLogger(EventPartitions.class);
+    private static final DateTimeFormatter NAME = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    public enum Interval {
+        DAY, WEEK, MONTH;
+
+        LocalDate floor(LocalDate d) {
+            return switch (this) {
+                case DAY -> d;
+                case WEEK -> d.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH -> d.withDayOfMonth(1);
+            };
+        }
+
+        LocalDate next(LocalDate d) {
+            return switch (this) {
+                case DAY -> d.plusDays(1);
+                case WEEK -> d.plusWeeks(1);
+                case MONTH -> d.plusMonths(1);
+            };
+        }
+    }
+
+    /** An explicit range partition; {@code from}/{@code to} are null for the default partition. */
+    public record Partition(String name, Instant from, Instant to) {
+        public boolean isDefault() { return from == null || to == null; }
+        boolean overlaps(Instant lo, Instant hi) { return !isDefault() && from.isBefore(hi) && lo.isBefore(to); }
+    }
+
+    private final JdbcTemplate jdbc;
+    private final Interval interval;
+
+    public EventPartitions(JdbcTemplate jdbc, Interval interval) {
+        this.jdbc = Objects.requireNonNull(jdbc);
+        this.interval = Objects.requireNonNull(interval);
+    }
+
+    /** Current partitions of {@code cf_event}; bounds are parsed by Postgres itself from the catalog. */
+    public List<Partition> list() {
+        var sql = """
+          SELECT c.relname AS name,
+                 (regexp_match(pg_get_expr(c.relpartbound, c.oid), 'FROM \\(''([^'']+)''\\)'))[1]::timestamptz AS lo,
+                 (regexp_match(pg_get_expr(c.relpartbound, c.oid), 'TO \\(''([^'']+)''\\)'))[1]::timestamptz   AS hi
+          FROM pg_inherits i
+          JOIN pg_class c ON c.oid = i.inhrelid
+          WHERE i.inhparent = 'cf_event'::regclass
+          ORDER BY lo NULLS FIRST
+          """;
+        return jdbc.query(sql, (rs, n) -> new Partition(rs.getString("name"), instant(rs.getTimestamp("lo")), instant(rs.getTimestamp("hi"))));
+    }
+
+    /**
+     * Ensures the partition containing {@code now} and the next {@code ahead} ones exist.
+     * Ranges already covered (e.g. by partitions of a previous interval setting) are skipped;
+     * a range that overlaps rows parked in the default partition is logged and skipped.
+     * @return names of the partitions created
+     */
+    public List<String> ensureAhead(Instant now, int ahead) {
+        var existing = list();
+        var created = new ArrayList<String>();
+        var start = interval.floor(LocalDate.ofInstant(now, ZoneOffset.UTC));
+        for (int i = 0; i <= ahead; i++, start = interval.next(start)) {
+            var lo = start.atStartOfDay(ZoneOffset.UTC).toInstant();
+            var hi = interval.next(start).atStartOfDay(ZoneOffset.UTC).toInstant();
+            if (existing.stream().anyMatch(p -> p.overlaps(lo, hi))) continue;
+            var name = "cf_event_p" + NAME.format(start);
+            try {
+                jdbc.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF cf_event FOR VALUES FROM ('"
+                        + lo + "') TO ('" + hi + "')");
+                created.add(name);
+                log.info("Created partition {} [{}, {})", name, lo, hi);
+            } catch (DataAccessException e) {
+                log.warn("Could not create partition {} [{}, {}): {}", name, lo, hi, e.getMostSpecificCause().getMessage());
+            }
+        }
+        return created;
+    }
+
+    /** Detaches every range partition that ends at or before {@code cutoff}. */
+    public List<String> detachBefore(Instant cutoff) {
+        return expire(cutoff, "detached", "ALTER TABLE cf_event DETACH PARTITION %s");
+    }
+
+    /** Drops every range partition that ends at or before {@code cutoff}. */
+    public List<String> dropBefore(Instant cutoff) {
+        return expire(cutoff, "dropped", "DROP TABLE %s");
+    }
+
+    private List<String> expire(Instant cutoff, String verb, String ddl) {
+        var done = new ArrayList<String>();
+        for (var p : list()) {
+            if (p.isDefault() || p.to().isAfter(cutoff)) continue;
+            jdbc.execute(ddl.formatted(quoteIdent(p.name())));
+            done.add(p.name());
+            log.info("Partition {} [{}, {}) {}", p.name(), p.from(), p.to(), verb);
+        }
+        return done;
+    }
+
+    private static String quoteIdent(String name) {
+        return '"' + name.replace("\"", "\"\"") + '"';
+    }
+
+    private static Instant instant(Timestamp ts) {
+        return ts == null ? null : ts.toInstant();
+    }
+}
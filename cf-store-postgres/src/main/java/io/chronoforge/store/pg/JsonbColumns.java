@@ -0,0 +1,77 @@
+package io.chronoforge.store.pg;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Decodes JSONB columns straight from the driver's bytes. pgjdbc hands text-format jsonb to
+ * {@code getBytes} as the raw UTF-8 it received, so parsing those skips the String the driver
+ * would otherwise decode and Jackson would then re-scan. Readers are built once per owner
+ * instead of resolving a fresh {@code TypeReference} per row, and clocks - flat
+ * {@code {node: counter}} objects - go through the streaming parser without databind at all;
+ * their field names come back interned, so node names are shared across rows.
+ */
+final class JsonbColumns {
+    // Binary-format jsonb is prefixed with a version byte; pgjdbc uses text by default.
+    private static final byte JSONB_VERSION = 1;
+
+    private final ObjectReader objectReader;
+    private final JsonFactory factory;
+
+    JsonbColumns(ObjectMapper json) {
+        this.objectReader = json.readerFor(new TypeReference<Map<String, Object>>() {});
+        this.factory = json.getFactory();
+    }
+
+    /** A jsonb column's {@code getBytes} as a JSON object; null for SQL NULL. */
+    Map<String, Object> object(byte[] bytes) {
+        if (bytes == null) return null;
+        int off = start(bytes);
+        try { return objectReader.readValue(bytes, off, bytes.length - off); }
+        catch (IOException e) { throw new UncheckedIOException(e); }
+    }
+
+    /** A jsonb column's {@code getBytes} as a vector clock map; null for SQL NULL. */
+    Map<String, Long> clock(byte[] bytes) {
+        if (bytes == null) return null;
+        int off = start(bytes);
+        try (var p = factory.createParser(bytes, off, bytes.length - off)) {
+            return clock(p);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Same as {@link #clock(byte[])} for JSON text already in hand. */
+    Map<String, Long> clock(String text) {
+        try (var p = factory.createParser(text)) {
+            return clock(p);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Map<String, Long> clock(JsonParser p) throws IOException {
+        if (p.nextToken() != JsonToken.START_OBJECT) throw new IOException("clock is not a JSON object");
+        var clock = new HashMap<String, Long>(8);
+        String node;
+        while ((node = p.nextFieldName()) != null) {
+            if (p.nextToken() != JsonToken.VALUE_NUMBER_INT) throw new IOException("clock entry is not an integer: " + node);
+            clock.put(node, p.getLongValue());
+        }
+        return clock;
+    }
+
+    private static int start(byte[] bytes) {
+        return bytes.length > 0 && bytes[0] == JSONB_VERSION ? 1 : 0;
+    }
+}
@@ -0,0 +1,173 @@
+package io.chronoforge.store.pg;
+
+import io.chronoforge.core.NodeRetirements;
+import io.chronoforge.core.VectorClock;
+import org.postgresql.util.PSQLException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@code cf_node}: node names as small integers, cached both ways. Encodes clocks to the
+ * {@code cf_event.clock_v} form, flat {@code {id, counter, ...}} pairs sorted by id, and decodes
+ * them from the driver's text rendering of the array. Ids never change once assigned, so the
+ * caches are never invalidated; an unknown name costs one round trip that registers it.
+ */
+final class NodeDictionary {
+    private static final String REGISTER_SQL = """
+      WITH wanted AS (SELECT DISTINCT unnest(?::text[]) AS name),
+      added AS (
+        INSERT INTO cf_node (name) SELECT name FROM wanted
+        ON CONFLICT (name) DO NOTHING
+        RETURNING id, name
+      )
+      SELECT id, name FROM added
+      UNION ALL
+      SELECT n.id, n.name FROM cf_node n JOIN wanted USING (name)
+      """;
+    // Row locks that wait for in-flight appends of these nodes and hold off new ones (see V11).
+    private static final String LOCK_SQL =
+            "SELECT name FROM cf_node WHERE name = ANY(?::text[]) AND retired_at IS NULL ORDER BY name FOR UPDATE";
+    // A node's final counter is the highest value of its own entry in the clocks of its own events.
+    private static final String RETIRE_SQL = """
+      UPDATE cf_node n
+      SET retired_at = now(), retired_generation = ?, final_counter = (
+        SELECT COALESCE(max(GREATEST(cf_clock_get(e.clock_v, n.name), COALESCE((e.clock ->> n.name)::int8, 0))), 0)
+        FROM cf_event e
+        WHERE e.node = n.name)
+      WHERE n.name = ANY(?::text[]) AND n.retired_at IS NULL
+      """;
+
+    private final JdbcTemplate jdbc;
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final Map<Integer, String> names = new ConcurrentHashMap<>();
+
+    NodeDictionary(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /** {@code clock} as an int8[] literal, registering unseen nodes first. */
+    String encode(VectorClock clock) {
+        var snapshot = clock.snapshot();
+        if (snapshot.isEmpty()) return "{}";
+        var missing = new ArrayList<String>();
+        for (var node : snapshot.keySet()) if (!ids.containsKey(node)) missing.add(node);
+        if (!missing.isEmpty()) register(missing);
+
+        int n = snapshot.size(), k = 0;
+        var pairs = new long[n * 2];
+        for (var e : snapshot.entrySet()) {
+            long id = ids.get(e.getKey());
+            // insertion sort by id; clocks are short
+            int at = k;
+            while (at > 0 && pairs[(at - 1) * 2] > id) {
+                pairs[at * 2] = pairs[(at - 1) * 2];
+                pairs[at * 2 + 1] = pairs[(at - 1) * 2 + 1];
+                at--;
+            }
+            pairs[at * 2] = id;
+            pairs[at * 2 + 1] = e.getValue();
+            k++;
+        }
+        var sb = new StringBuilder(2 + n * 8).append('{');
+        for (int i = 0; i < pairs.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(pairs[i]);
+        }
+        return sb.append('}').toString();
+    }
+
+    /** Decodes {@code getBytes} of an int8[] column ({@code {1,5,2,3}}); null for SQL NULL. */
+    Map<String, Long> decode(byte[] text) {
+        if (text == null) return null;
+        var clock = new HashMap<String, Long>(8);
+        long id = 0, value = 0;
+        boolean negative = false, haveId = false, digits = false;
+        for (byte b : text) {
+            if (b >= '0' && b <= '9') {
+                value = value * 10 + (b - '0');
+                digits = true;
+            } else if (b == '-') {
+                negative = true;
+            } else if ((b == ',' || b == '}') && digits) {
+                long v = negative ? -value : value;
+                if (haveId) clock.put(name((int) id), v);
+                else id = v;
+                haveId = !haveId;
+                value = 0; negative = false; digits = false;
+            }
+        }
+        if (haveId) throw new IllegalStateException("odd-length clock array: " + new String(text));
+        return clock;
+    }
+
+    /**
+     * Retires {@code names} as one new generation and returns the resulting registry. Names that
+     * never appended anything or are already retired are skipped. Must run in a transaction: the
+     * nodes' rows are locked before the final counters are read, which waits for appends from them
+     * still in flight and refuses any later one (the V11 trigger), so no event can exceed its
+     * node's recorded final counter.
+     */
+    NodeRetirements retire(Collection<String> names) {
+        if (!names.isEmpty()) {
+            var live = jdbc.queryForList(LOCK_SQL, String.class, (Object) names.toArray(String[]::new));
+            if (!live.isEmpty()) {
+                Long generation = jdbc.queryForObject("SELECT nextval('cf_node_retirement_generation')", Long.class);
+                jdbc.update(RETIRE_SQL, generation, (Object) live.toArray(String[]::new));
+            }
+        }
+        return retirements();
+    }
+
+    /** SQLSTATE of the V11 trigger refusing an append from a retired node. */
+    static final String RETIRED_NODE_STATE = "CF001";
+
+    /** The refusal behind {@code e} if the V11 trigger raised it, else null. */
+    static NodeRetirements.RetiredNodeException retiredNode(Throwable e) {
+        for (var c = e; c != null; c = c.getCause()) {
+            if (c instanceof PSQLException p && RETIRED_NODE_STATE.equals(p.getSQLState())) {
+                var detail = p.getServerErrorMessage() == null ? null : p.getServerErrorMessage().getDetail();
+                return new NodeRetirements.RetiredNodeException(detail == null ? "?" : detail);
+            }
+        }
+        return null;
+    }
+
+    /** Every retired node, as stored. */
+    NodeRetirements retirements() {
+        var retired = jdbc.query("SELECT name, final_counter, retired_generation FROM cf_node WHERE retired_at IS NOT NULL",
+                (rs, n) -> new NodeRetirements.Retired(rs.getString("name"), rs.getLong("final_counter"), rs.getLong("retired_generation")));
+        return NodeRetirements.of(retired);
+    }
+
+    private String name(int id) {
+        var name = names.get(id);
+        if (name != null) return name;
+        jdbc.query("SELECT id, name FROM cf_node WHERE id = ?", (RowCallbackHandler) this::cache, id);
+        name = names.get(id);
+        if (name == null) throw new IllegalStateException("unknown node id " + id);
+        return name;
+    }
+
+    private void register(ArrayList<String> missing) {
+        var array = missing.toArray(String[]::new);
+        jdbc.query(REGISTER_SQL, (RowCallbackHandler) this::cache, (Object) array);
+        // a concurrent registration of the same name may be invisible to that statement's snapshot
+        if (!ids.keySet().containsAll(missing)) jdbc.query(REGISTER_SQL, (RowCallbackHandler) this::cache, (Object) array);
+        for (var node : missing) if (!ids.containsKey(node)) throw new IllegalStateException("could not register node " + node);
+    }
+
+    private void cache(ResultSet rs) throws SQLException {
+        int id = rs.getInt("id");
+        var name = rs.getString("name");
+        ids.put(name, id);
+        names.put(id, name);
+    }
+}
@@ -0,0 +1,143 @@
+package io.chronoforge.store.pg;
+
+import io.chronoforge.core.TemporalEvent;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.RowMapper;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * LISTEN/NOTIFY bridge: makes {@link PostgresEventStore#subscribe()} see appends from every
+ * JVM writing to the same database, not just its own.
+ *
+ * A dedicated connection LISTENs on {@code cf_event_appends} (one notify per INSERT statement).
+ * Each wake-up drains committed rows in {@code (tx, seq)} order, {@code batchSize} at a time, and
+ * feeds them to the local bus; while running, the store stops publishing its own appends so every
+ * event is delivered exactly once, in commit-safe order.
+ *
+ * Watermark: {@code pg_snapshot_xmin(pg_current_snapshot())} is the oldest transaction still in
+ * flight, so every row with {@code tx} below it is final. Each drain emits rows with
+ * {@code fromTx <= tx < xmin} and advances {@code fromTx} to that xmin. A plain seq watermark would
+ * skip rows whose transaction commits after a higher seq was seen. A long-running writer holds
+ * delivery back until it finishes; the poll interval re-checks even without notifications.
+ * {@link PostgresEventStore#readAfter} reads by the same horizon, so a feed can hand out
+ * {@code (tx, seq)} as a resume position and replay from it without gaps.
+ */
+public final class PostgresAppendListener implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(PostgresAppendListener.class);
+    public static final String CHANNEL = "cf_event_appends";
+
+    private static final String HORIZON = "SELECT pg_snapshot_xmin(pg_current_snapshot())::text";
+    private static final String FETCH = """
+      SELECT %s, tx::text AS tx_text
+      FROM cf_event
+      WHERE tx >= ?::xid8 AND tx < ?::xid8 AND (tx, seq) > (?::xid8, ?)
+      ORDER BY tx, seq
+      LIMIT ?
+      """.formatted(PostgresEventStore.COLUMNS);
+
+    private final DataSource dataSource;
+    private final PostgresEventStore store;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final RowMapper<TemporalEvent> mapper;
+
+    private volatile boolean running;
+    private Thread worker;
+    // Delivered so far: every row with tx < fromTx, plus rows up to (lastTx, lastSeq) of the drain
+    // in progress, so a drain cut short by a lost connection resumes without re-delivering.
+    private String fromTx;
+    private String lastTx;
+    private long lastSeq;
+
+    /**
+     * @param dataSource source of the dedicated listener connection (ideally unpooled: the
+     *                   connection is held for the listener's lifetime)
+     */
+    public PostgresAppendListener(DataSource dataSource, PostgresEventStore store, int batchSize, Duration pollInterval) {
+        if (batchSize < 1) throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        this.dataSource = Objects.requireNonNull(dataSource);
+        this.store = Objects.requireNonNull(store);
+        this.batchSize = batchSize;
+        this.pollInterval = Objects.requireNonNull(pollInterval);
+        this.mapper = store.mapper();
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        store.publishLocally(false);
+        worker = Thread.ofPlatform().daemon().name("cf-append-listener").start(this::run);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!running) return;
+        running = false;
+        worker.interrupt();
+        store.publishLocally(true);
+    }
+
+    private void run() {
+        long backoff = 100;
+        while (running) {
+            try (Connection con = dataSource.getConnection()) {
+                con.setAutoCommit(true);
+                try (var st = con.createStatement()) { st.execute("LISTEN " + CHANNEL); }
+                if (fromTx == null) fromTx = lastTx = horizon(con); // start with appends committed from now on
+                var pg = con.unwrap(PGConnection.class);
+                backoff = 100;
+                while (running) {
+                    drain(con);
+                    // Blocks until a notification arrives or the poll interval elapses; payloads are irrelevant.
+                    pg.getNotifications((int) Math.max(1, pollInterval.toMillis()));
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) break;
+                log.warn("Append listener failed; reconnecting in {} ms", backoff, e);
+                try { Thread.sleep(backoff); } catch (InterruptedException ie) { break; }
+                backoff = Math.min(backoff * 2, 10_000);
+            }
+        }
+    }
+
+    private void drain(Connection con) throws SQLException {
+        var horizon = horizon(con);
+        if (horizon.equals(fromTx)) return;
+        try (var ps = con.prepareStatement(FETCH)) {
+            int n;
+            do {
+                ps.setString(1, fromTx);
+                ps.setString(2, horizon);
+                ps.setString(3, lastTx);
+                ps.setLong(4, lastSeq);
+                ps.setInt(5, batchSize);
+                n = 0;
+                try (var rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        var e = mapper.mapRow(rs, n++);
+                        lastTx = rs.getString("tx_text");
+                        store.publish(e, Long.parseLong(lastTx));
+                        lastSeq = e.seq();
+                    }
+                }
+            } while (n == batchSize && running);
+        }
+        if (!running) return;
+        fromTx = lastTx = horizon;
+        lastSeq = 0;
+    }
+
+    private static String horizon(Connection con) throws SQLException {
+        try (var st = con.createStatement(); var rs = st.executeQuery(HORIZON)) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+}
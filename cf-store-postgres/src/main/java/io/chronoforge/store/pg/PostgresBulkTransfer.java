@@ -0,0 +1,278 @@
+package io.chronoforge.store.pg;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Bulk import/export of {@code cf_event} as NDJSON through the Postgres COPY protocol.
+ *
+ * Import streams lines into a session-local staging table with {@code COPY ... FROM STDIN}
+ * and merges each chunk into {@code cf_event} with {@code ON CONFLICT (hash, observed_at) DO NOTHING}.
+ * Each chunk commits on its own, so an import never holds the commit horizon (and with it the
+ * append listener, SSE and {@code readAfter}) back for longer than one chunk. A bad line or a
+ * dropped upload keeps the chunks before it; the hashes make sending the same file again safe.
+ * Export streams {@code COPY (SELECT ...) TO STDOUT}.
+ * Neither side holds more than one line (plus the driver's copy buffer) in memory.
+ *
+ * Rows go to COPY as CSV with every text field quoted, so only {@code "} needs escaping: tabs,
+ * newlines and backslashes in the JSON text are plain characters to CSV, and a quoted field is
+ * never read as NULL (the CSV NULL marker is an unquoted empty field).
+ *
+ * Line shape (both directions):
+ * {@code {"entityId","type","observedAt","node","clock":{},"payload":{},"hash":"<hex>"}}.
+ * {@code hash} is optional on import; when present (as in our own exports) it is kept so a
+ * restore stays idempotent against the original rows, otherwise it is computed like
+ * {@link PostgresEventStore#append}. Imported events are not published on the in-JVM bus.
+ */
+public final class PostgresBulkTransfer {
+    public static final int DEFAULT_CHUNK_ROWS = 100_000;
+    private static final int COPY_BUFFER = 1 << 16;
+
+    private static final String STAGE_DDL = """
+      CREATE TEMP TABLE IF NOT EXISTS cf_event_stage (
+        line        BIGINT      NOT NULL,
+        entity_id   UUID        NOT NULL,
+        observed_at TIMESTAMPTZ NOT NULL,
+        event_type  TEXT        NOT NULL,
+        node        TEXT        NOT NULL,
+        clock       JSONB       NOT NULL,
+        payload     JSONB       NOT NULL,
+        hash        BYTEA       NOT NULL
+      ) ON COMMIT DELETE ROWS
+      """;
+    private static final String STAGE_CLEAR = "TRUNCATE cf_event_stage";
+    private static final String COPY_IN =
+            "COPY cf_event_stage (line, entity_id, observed_at, event_type, node, clock, payload, hash) FROM STDIN WITH (FORMAT csv)";
+    private static final String MERGE = """
+      INSERT INTO cf_event (entity_id, observed_at, event_type, node, clock_v, payload, hash)
+      SELECT entity_id, observed_at, event_type, node, cf_clock_encode(clock), payload, hash
+      FROM cf_event_stage
+      ORDER BY line
+      ON CONFLICT (hash, observed_at) DO NOTHING
+      """;
+
+    private final JdbcTemplate jdbc;
+    private final ObjectMapper json;
+    private final int chunkRows;
+
+    public PostgresBulkTransfer(JdbcTemplate jdbc, ObjectMapper json) {
+        this(jdbc, json, DEFAULT_CHUNK_ROWS);
+    }
+
+    public PostgresBulkTransfer(JdbcTemplate jdbc, ObjectMapper json, int chunkRows) {
+        if (chunkRows < 1) throw new IllegalArgumentException("chunkRows must be positive: " + chunkRows);
+        this.jdbc = Objects.requireNonNull(jdbc);
+        this.json = Objects.requireNonNull(json);
+        this.chunkRows = chunkRows;
+    }
+
+    /**
+     * Lines committed and rows they inserted. On a bad line, {@code failedAt} is its number
+     * (1-based) and {@code error} says what is wrong with it; its chunk is rolled back, so
+     * {@code read} counts the committed lines only and a resend can start at line {@code read + 1}.
+     */
+    public record ImportResult(long read, long inserted, Long failedAt, String error) {
+        public ImportResult(long read, long inserted) {
+            this(read, inserted, null, null);
+        }
+
+        public long duplicates() { return read - inserted; }
+    }
+
+    /**
+     * Imports NDJSON events, staged, merged and committed {@code chunkRows} lines at a time. A bad
+     * line ends the import with the chunks before it committed (see {@link ImportResult}); any
+     * other failure rolls back the chunk in progress and is thrown.
+     */
+    public ImportResult importNdjson(InputStream in) {
+        return jdbc.execute((ConnectionCallback<ImportResult>) con -> {
+            boolean autoCommit = con.getAutoCommit();
+            con.setAutoCommit(false);
+            long committed = 0, inserted = 0;
+            try (MappingIterator<JsonNode> lines = json.readerFor(JsonNode.class).readValues(in)) {
+                try (var st = con.createStatement()) { st.execute(STAGE_DDL); }
+                var pg = con.unwrap(PGConnection.class);
+                long read = 0;
+                while (hasNext(lines, read + 1)) {
+                    try (Writer w = new BufferedWriter(new OutputStreamWriter(
+                            new PGCopyOutputStream(pg, COPY_IN, COPY_BUFFER), StandardCharsets.UTF_8), COPY_BUFFER)) {
+                        for (int n = 0; n < chunkRows && hasNext(lines, read + 1); n++) {
+                            var node = next(lines, ++read);
+                            writeRow(w, read, node);
+                        }
+                    }
+                    try (var st = con.createStatement()) {
+                        inserted += st.executeUpdate(MERGE);
+                        st.execute(STAGE_CLEAR);
+                    }
+                    con.commit();
+                    committed = read;
+                }
+                return new ImportResult(committed, inserted);
+            } catch (BadLine e) {
+                rollbackQuietly(con);
+                return new ImportResult(committed, inserted, e.line, e.getMessage());
+            } catch (IOException e) {
+                rollbackQuietly(con);
+                throw new UncheckedIOException("NDJSON import failed", e);
+            } catch (SQLException | RuntimeException e) {
+                rollbackQuietly(con);
+                var retired = NodeDictionary.retiredNode(e);
+                if (retired != null) throw retired;
+                throw e;
+            } catch (Exception e) {
+                rollbackQuietly(con);
+                throw new RuntimeException(e);
+            } finally {
+                con.setAutoCommit(autoCommit);
+            }
+        });
+    }
+
+    /**
+     * Streams matching events as NDJSON into {@code out} (not closed). Filters are optional;
+     * rows come out grouped per entity in time order so a re-import keeps per-entity order.
+     */
+    public long exportNdjson(OutputStream out, UUID entityId, Instant from, Instant to) {
+        // COPY takes no bind parameters; UUID/Instant renderings are safe to inline.
+        var where = new StringBuilder("WHERE true");
+        if (entityId != null) where.append(" AND entity_id = '").append(entityId).append("'::uuid");
+        if (from != null) where.append(" AND observed_at >= '").append(from).append("'::timestamptz");
+        if (to != null) where.append(" AND observed_at <= '").append(to).append("'::timestamptz");
+        // CSV with control-char QUOTE/DELIMITER never triggers quoting for JSON text (JSON escapes
+        // control chars), so each row is the raw JSON line; text format would double backslashes.
+        var sql = """
+          COPY (
+            SELECT json_build_object(
+                     'entityId', entity_id, 'type', event_type, 'observedAt', observed_at,
+                     'node', node, 'clock', COALESCE(clock, cf_clock_decode(clock_v)),
+                     'payload', payload, 'hash', encode(hash, 'hex'))
+            FROM cf_event %s
+            ORDER BY entity_id, observed_at
+          ) TO STDOUT WITH (FORMAT csv, QUOTE E'\\x01', DELIMITER E'\\x02')
+          """.formatted(where);
+        return Objects.requireNonNull(jdbc.execute((ConnectionCallback<Long>) con -> {
+            try {
+                return con.unwrap(PGConnection.class).getCopyAPI().copyOut(sql, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException("NDJSON export failed", e);
+            }
+        }));
+    }
+
+    private static boolean hasNext(MappingIterator<JsonNode> lines, long line) {
+        try {
+            return lines.hasNext();
+        } catch (RuntimeException e) {
+            throw BadLine.ifMalformed(line, e);
+        }
+    }
+
+    private static JsonNode next(MappingIterator<JsonNode> lines, long line) {
+        try {
+            return lines.next();
+        } catch (RuntimeException e) {
+            throw BadLine.ifMalformed(line, e);
+        }
+    }
+
+    /**
+     * One staging row as a CSV line (columns of {@link #COPY_IN}).
+     *
+     * @throws IllegalArgumentException naming {@code line}, if a field is missing or malformed
+     */
+    void writeRow(Writer w, long line, JsonNode n) throws IOException {
+        UUID entityId;
+        String type;
+        Instant observedAt;
+        byte[] givenHash;
+        try {
+            entityId = UUID.fromString(required(n, "entityId").asText());
+            type = required(n, "type").asText();
+            observedAt = OffsetDateTime.parse(required(n, "observedAt").asText()).toInstant();
+            givenHash = n.hasNonNull("hash") ? HexFormat.of().parseHex(n.get("hash").asText()) : null;
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new BadLine(line, e.getMessage(), e);
+        }
+        var node = n.path("node").asText("");
+        if (node.isBlank()) node = "api";
+        var clock = n.path("clock").isObject() ? n.get("clock") : json.createObjectNode();
+        var payload = n.path("payload").isObject() ? n.get("payload") : json.createObjectNode();
+        var payloadJson = json.writeValueAsString(payload);
+
+        byte[] hash = givenHash != null ? givenHash : PostgresEventStore.computeHash(entityId, type, observedAt, payloadJson);
+
+        w.write(Long.toString(line));
+        w.write(',');
+        w.write(entityId.toString());
+        w.write(',');
+        w.write(observedAt.toString());
+        w.write(',');
+        csv(w, type);
+        w.write(',');
+        csv(w, node);
+        w.write(',');
+        csv(w, json.writeValueAsString(clock));
+        w.write(',');
+        csv(w, payloadJson);
+        w.write(",\\x");
+        w.write(HexFormat.of().formatHex(hash));
+        w.write('\n');
+    }
+
+    private static JsonNode required(JsonNode n, String field) {
+        var v = n.get(field);
+        if (v == null || v.isNull()) throw new IllegalArgumentException("missing '" + field + "'");
+        return v;
+    }
+
+    /** A line that is malformed JSON or lacks a valid field; a failure to read the body is not one. */
+    private static final class BadLine extends IllegalArgumentException {
+        final long line;
+
+        BadLine(long line, String problem, Throwable cause) {
+            super("line " + line + ": " + problem, cause);
+            this.line = line;
+        }
+
+        static RuntimeException ifMalformed(long line, RuntimeException e) {
+            for (Throwable t = e; t != null; t = t.getCause()) {
+                if (t instanceof JsonProcessingException json) return new BadLine(line, "malformed JSON: " + json.getOriginalMessage(), e);
+            }
+            return e;
+        }
+    }
+
+    private static void csv(Writer w, String s) throws IOException {
+        w.write('"');
+        w.write(s.replace("\"", "\"\""));
+        w.write('"');
+    }
+
+    private static void rollbackQuietly(Connection con) {
+        try { con.rollback(); } catch (SQLException ignored) { }
+    }
+}
@@ -1,69 +1,415 @@
 package io.chronoforge.store.pg;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.chronoforge.core.NodeRetirementRegistry;
+import io.chronoforge.core.NodeRetirements;
 import io.chronoforge.core.TemporalEvent;
 import io.chronoforge.core.TemporalId;
 import io.chronoforge.core.VectorClock;
+import io.chronoforge.store.AppendResult;
+import io.chronoforge.store.Cursor;
+import io.chronoforge.store.EventPage;
 import io.chronoforge.store.EventStore;
+import io.chronoforge.store.LogPosition;
+import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
+import java.nio.ByteBuffer;
 import java.sql.ResultSet;
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.time.OffsetDateTime;
 import java.util.*;
 import java.util.concurrent.Flow;
 import java.util.concurrent.SubmissionPublisher;
-import java.util.stream.Stream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 public final class PostgresEventStore implements EventStore {
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final int DEFAULT_FETCH_SIZE = 1_000;
+    private static final int INSERT_COLUMNS = 8;
+    // Postgres caps a single statement at 65535 bind parameters.
+    private static final int MAX_BATCH_SIZE = 65_535 / INSERT_COLUMNS;
+
     private final JdbcTemplate jdbcTemplate;
+    private final TransactionOperations tx;
+    private final TransactionOperations readTx;
     private final ObjectMapper json;
+    private final JsonbColumns jsonb;
+    private final NodeDictionary nodes;
+    private final NodeRetirementRegistry retirements;
+    private final int batchSize;
+    private final int fetchSize;
+    private final String fullBatchSql;
     private final SubmissionPublisher<TemporalEvent> bus = new SubmissionPublisher<>();
+    private final SubmissionPublisher<Positioned> positioned = new SubmissionPublisher<>();
+    // Off while a PostgresAppendListener feeds the bus from the database instead.
+    private volatile boolean publishLocally = true;
+    private final DuplicateFilter duplicateFilter;      // null = off
+
+    private final AtomicLong eventsOffered = new AtomicLong();
+    private final AtomicLong hashNanos = new AtomicLong();
+    private final AtomicLong duplicatesSeen = new AtomicLong();
+    private final AtomicLong filterHits = new AtomicLong();
+    private final AtomicLong filterConfirmed = new AtomicLong();
+    private final AtomicLong keyReplays = new AtomicLong();
+
+    public PostgresEventStore(JdbcTemplate jdbc, TransactionOperations tx, ObjectMapper json) {
+        this(jdbc, tx, json, DEFAULT_BATCH_SIZE, DEFAULT_FETCH_SIZE);
+    }
 
-    public PostgresEventStore(JdbcTemplate jdbc, ObjectMapper json) {
+    public PostgresEventStore(JdbcTemplate jdbc, TransactionOperations tx, ObjectMapper json, int batchSize, int fetchSize) {
+        this(jdbc, tx, json, batchSize, fetchSize, 0, 0.01);
+    }
+
+    public PostgresEventStore(JdbcTemplate jdbc, TransactionOperations tx, ObjectMapper json, int batchSize, int fetchSize,
+                              long filterExpectedInsertions, double filterFalsePositiveRate) {
+        this(jdbc, tx, json, batchSize, fetchSize, filterExpectedInsertions, filterFalsePositiveRate, new NodeRetirementRegistry());
+    }
+
+    /**
+     * @param filterExpectedInsertions size of each generation of the in-memory duplicate
+     *                                 pre-filter; 0 disables it
+     * @param filterFalsePositiveRate  target false-positive rate of the pre-filter
+     * @param retirements              where this store installs the retired nodes it reads
+     */
+    public PostgresEventStore(JdbcTemplate jdbc, TransactionOperations tx, ObjectMapper json, int batchSize, int fetchSize,
+                              long filterExpectedInsertions, double filterFalsePositiveRate,
+                              NodeRetirementRegistry retirements) {
+        if (batchSize < 1 || batchSize > MAX_BATCH_SIZE)
+            throw new IllegalArgumentException("batchSize must be in [1, " + MAX_BATCH_SIZE + "]: " + batchSize);
+        if (fetchSize < 1) throw new IllegalArgumentException("fetchSize must be positive: " + fetchSize);
         this.jdbcTemplate = Objects.requireNonNull(jdbc);
+        this.tx = Objects.requireNonNull(tx);
+        this.readTx = readOnly(tx);
         this.json = Objects.requireNonNull(json);
+        this.jsonb = new JsonbColumns(json);
+        this.nodes = new NodeDictionary(jdbc);
+        this.retirements = Objects.requireNonNull(retirements);
+        this.batchSize = batchSize;
+        this.fetchSize = fetchSize;
+        this.fullBatchSql = insertSql(batchSize);
+        this.duplicateFilter = filterExpectedInsertions > 0
+                ? new DuplicateFilter(filterExpectedInsertions, filterFalsePositiveRate) : null;
     }
 
 
+    /**
+     * Inserts the whole list inside one transaction as multi-row {@code INSERT ... VALUES}
+     * statements of at most {@code batchSize} rows. {@code RETURNING hash, seq} tells us which rows
+     * were new (and their position); everything else hit {@code ON CONFLICT ... DO NOTHING} and is
+     * reported as a duplicate. Only new events are published to subscribers, after the commit.
+     *
+     * With the duplicate pre-filter on, rows whose hash the filter has seen are first confirmed
+     * with one indexed SELECT and dropped from the INSERT; a fully duplicate batch (a retried
+     * request) then costs no write transaction at all. With an idempotency key, the key is
+     * claimed in {@code cf_idempotency_key} in the same transaction; if it was already claimed
+     * nothing is inserted and every event is reported as a duplicate.
+     *
+     * Events from retired nodes are refused with {@link NodeRetirements.RetiredNodeException}:
+     * up front from the installed registry, and by the database (the V11 trigger) for nodes
+     * retired since it was loaded.
+     */
     @Override
-    public void append(List<TemporalEvent> events) {
-        if (events == null || events.isEmpty()) return;
-        final String sql = """
-      INSERT INTO cf_event (event_id, entity_id, observed_at, event_type, node, clock, payload, hash)
-      VALUES (?, ?, ?, ?, ?, ?::jsonb, ?::jsonb, ?)
-      ON CONFLICT (hash) DO NOTHING
-      """;
-        for (TemporalEvent e : events) {
-            var eventId = UUID.randomUUID();
-            byte[] hash = computeHash(e);
-            jdbcTemplate.update(sql,
-                    eventId,
-                    e.entityId().value(),
-                    Timestamp.from(e.observedAt()),
-                    e.type(),
-                    e.node(),                                   // capture logical node
-                    toJson(e.clock().snapshot()),
-                    toJson(e.payload()),
-                    hash
-            );
-            bus.submit(e);
+    public AppendResult append(List<TemporalEvent> events, String idempotencyKey) {
+        if (events == null || events.isEmpty()) return AppendResult.EMPTY;
+
+        var rows = encode(events);
+        var known = confirmedDuplicates(rows);
+        var fresh = known.isEmpty() ? rows : rows.stream().filter(r -> !known.contains(ByteBuffer.wrap(r.hash()))).toList();
+        Map<ByteBuffer, Inserted> inserted = fresh.isEmpty() && idempotencyKey == null ? null : insert(fresh, idempotencyKey);
+
+        // Same hash twice in one batch: the first occurrence wins, the rest are duplicates.
+        var appended = new ArrayList<TemporalEvent>(rows.size());
+        var duplicates = new ArrayList<TemporalEvent>();
+        long writer = 0;     // the transaction that wrote the rows; one per append
+        for (var r : rows) {
+            var row = inserted == null ? null : inserted.remove(ByteBuffer.wrap(r.hash()));
+            if (row != null) {
+                appended.add(r.event().withSeq(row.seq()));
+                writer = row.tx();
+            } else {
+                duplicates.add(r.event());
+            }
+        }
+        if (duplicateFilter != null) rows.forEach(r -> duplicateFilter.add(r.hash()));
+        eventsOffered.addAndGet(rows.size());
+        duplicatesSeen.addAndGet(duplicates.size());
+        if (publishLocally) for (var e : appended) publish(e, writer);
+        return new AppendResult(appended, duplicates);
+    }
+
+    /** Inserts {@code fresh} in one transaction; hash -> seq and transaction of the rows that were new. */
+    private Map<ByteBuffer, Inserted> insert(List<EncodedRow> fresh, String idempotencyKey) {
+        try {
+            return tx.execute(status -> {
+                var returned = new HashMap<ByteBuffer, Inserted>();
+                if (idempotencyKey != null && jdbcTemplate.update(CLAIM_KEY_SQL, idempotencyKey) == 0) {
+                    keyReplays.incrementAndGet();
+                    return returned;
+                }
+                for (int from = 0; from < fresh.size(); from += batchSize) {
+                    var chunk = fresh.subList(from, Math.min(from + batchSize, fresh.size()));
+                    var sql = chunk.size() == batchSize ? fullBatchSql : insertSql(chunk.size());
+                    var args = new Object[chunk.size() * INSERT_COLUMNS];
+                    int i = 0;
+                    for (var r : chunk) {
+                        args[i++] = UUID.randomUUID();
+                        args[i++] = r.event().entityId().value();
+                        args[i++] = Timestamp.from(r.event().observedAt());
+                        args[i++] = r.event().type();
+                        args[i++] = r.event().node();                 // capture logical node
+                        args[i++] = r.clock();
+                        args[i++] = r.payloadJson();
+                        args[i++] = r.hash();
+                    }
+                    for (var r : jdbcTemplate.query(sql, INSERTED, args)) returned.put(ByteBuffer.wrap(r.hash()), r);
+                }
+                return returned;
+            });
+        } catch (DataAccessException e) {
+            var retired = NodeDictionary.retiredNode(e);
+            if (retired != null) throw retired;
+            throw e;
+        }
+    }
+
+    private static final String CLAIM_KEY_SQL =
+            "INSERT INTO cf_idempotency_key (key) VALUES (?) ON CONFLICT (key) DO NOTHING";
+
+    /** Hashes the pre-filter flagged and the table confirmed; empty when the filter is off or silent. */
+    private Set<ByteBuffer> confirmedDuplicates(List<EncodedRow> rows) {
+        if (duplicateFilter == null) return Set.of();
+        var maybe = rows.stream().filter(r -> duplicateFilter.mightContain(r.hash())).toList();
+        if (maybe.isEmpty()) return Set.of();
+        filterHits.addAndGet(maybe.size());
+
+        var hashes = maybe.stream().map(EncodedRow::hash).toArray(byte[][]::new);
+        var times = maybe.stream().map(r -> Timestamp.from(r.event().observedAt())).distinct().toArray(Timestamp[]::new);
+        var found = new HashSet<ByteBuffer>();
+        // observed_at = ANY prunes partitions; (hash, observed_at) is the unique index
+        jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement("SELECT hash FROM cf_event WHERE hash = ANY(?) AND observed_at = ANY(?)");
+            ps.setArray(1, con.createArrayOf("bytea", hashes));
+            ps.setArray(2, con.createArrayOf("timestamptz", times));
+            return ps;
+        }, (RowCallbackHandler) rs -> found.add(ByteBuffer.wrap(rs.getBytes(1))));
+        filterConfirmed.addAndGet(found.size());
+        return found;
+    }
+
+    /**
+     * Seeds the duplicate pre-filter with the hashes of the {@code recent} newest events, so a
+     * retry storm right after a restart is still short-circuited. No-op when the filter is off.
+     */
+    public void warmDuplicateFilter(int recent) {
+        if (duplicateFilter == null || recent <= 0) return;
+        jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement("SELECT hash FROM cf_event ORDER BY seq DESC LIMIT ?");
+            ps.setInt(1, recent);
+            ps.setFetchSize(fetchSize);
+            return ps;
+        }, (RowCallbackHandler) rs -> duplicateFilter.add(rs.getBytes(1)));
+    }
+
+    /** Deletes idempotency keys claimed before {@code cutoff}; returns how many. */
+    public int expireIdempotencyKeys(Instant cutoff) {
+        return jdbcTemplate.update("DELETE FROM cf_idempotency_key WHERE created_at < ?", Timestamp.from(cutoff));
+    }
+
+    /**
+     * Retires {@code nodes} (one new generation), installs the updated registry and returns it.
+     * Appends from those nodes still in flight finish first and count towards their final
+     * counters; later ones are refused, on every instance. Retire only nodes that have stopped
+     * writing and whose names are not reused.
+     */
+    public NodeRetirements retireNodes(Collection<String> nodeNames) {
+        return retirements.install(tx.execute(status -> nodes.retire(nodeNames)));
+    }
+
+    /** Reloads retired nodes (e.g. retired by another instance) into the registry. */
+    public NodeRetirements refreshRetirements() {
+        return retirements.install(nodes.retirements());
+    }
+
+    /**
+     * Converts up to {@code batch} rows still carrying a pre-V9 JSONB clock to the encoded form;
+     * returns how many. Nothing is left to do once it returns 0.
+     */
+    public int backfillClocks(int batch) {
+        Integer n = jdbcTemplate.queryForObject("SELECT cf_event_clock_backfill(?)", Integer.class, batch);
+        return n == null ? 0 : n;
+    }
+
+    /**
+     * Append de-duplication counters since startup. {@code filterHits} rows were flagged by the
+     * pre-filter, {@code shortCircuited} of them confirmed and never sent to INSERT;
+     * {@code hashNanos} is the time spent serializing and hashing appended events.
+     */
+    public record DedupeStats(long events, long duplicates, long filterHits, long shortCircuited, long keyReplays,
+                              long hashNanos) {
+        public double duplicateRate() { return events == 0 ? 0 : (double) duplicates / events; }
+        public double filterFalsePositiveRate() { return filterHits == 0 ? 0 : 1 - (double) shortCircuited / filterHits; }
+    }
+
+    public DedupeStats dedupeStats() {
+        return new DedupeStats(eventsOffered.get(), duplicatesSeen.get(), filterHits.get(), filterConfirmed.get(), keyReplays.get(),
+                hashNanos.get());
+    }
+
+    /** Read-only copy of a {@link TransactionTemplate}; other implementations are used as given. */
+    private static TransactionOperations readOnly(TransactionOperations tx) {
+        if (!(tx instanceof TransactionTemplate t)) return tx;
+        var ro = new TransactionTemplate(t.getTransactionManager(), t);
+        ro.setReadOnly(true);
+        return ro;
+    }
+
+    private record Inserted(byte[] hash, long seq, long tx) {}
+    private static final RowMapper<Inserted> INSERTED = (rs, n) -> new Inserted(rs.getBytes(1), rs.getLong(2), rs.getLong(3));
+
+    /** @param clock the clock as an int8[] literal for {@code clock_v} */
+    private record EncodedRow(TemporalEvent event, String clock, String payloadJson, byte[] hash) {}
+
+    /** Serializes each payload once and reuses it for both the hash and the insert. */
+    private List<EncodedRow> encode(List<TemporalEvent> events) {
+        var retired = retirements.current();
+        var rows = new ArrayList<EncodedRow>(events.size());
+        long hashing = 0;
+        try (var hasher = EventHasher.acquire()) {
+            for (TemporalEvent e : events) {
+                if (retired.generation(e.node()) > 0) throw new NodeRetirements.RetiredNodeException(e.node());
+                long started = System.nanoTime();
+                var enc = hasher.encode(json, e.entityId().value(), e.type(), e.observedAt(), e.payload());
+                hashing += System.nanoTime() - started;
+                // may register new nodes in the database, so it stays out of the hash timing
+                var clock = nodes.encode(e.clock());
+                rows.add(new EncodedRow(e, clock, enc.payloadJson(), enc.hash()));
+            }
+        }
+        hashNanos.addAndGet(hashing);
+        return rows;
+    }
+
+    private static String insertSql(int rows) {
+        var sql = new StringBuilder(128 + rows * 40)
+                .append("INSERT INTO cf_event (event_id, entity_id, observed_at, event_type, node, clock_v, payload, hash) VALUES ");
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) sql.append(',');
+            sql.append("(?, ?, ?, ?, ?, ?::int8[], ?::jsonb, ?)");
         }
+        return sql.append(" ON CONFLICT (hash, observed_at) DO NOTHING RETURNING hash, seq, tx::text::int8").toString();
     }
 
+    // clock is the pre-V9 JSONB form, clock_v the encoded one; each row has exactly one of them
+    static final String COLUMNS = "entity_id, event_type, observed_at, node, clock, clock_v, payload, seq";
+    private static final String READ_SQL = """
+      SELECT %s
+      FROM cf_event
+      WHERE entity_id = ?
+      ORDER BY observed_at ASC, seq ASC
+      """.formatted(COLUMNS);
+
+    private static final String READ_SINCE_SQL = """
+      SELECT %s
+      FROM cf_event
+      WHERE seq > ?
+      ORDER BY seq ASC
+      """.formatted(COLUMNS);
+
+    private static final String READ_SINCE_ENTITY_SQL = """
+      SELECT %s
+      FROM cf_event
+      WHERE entity_id = ? AND seq > ?
+      ORDER BY seq ASC
+      LIMIT ?
+      """.formatted(COLUMNS);
+
     @Override
     public List<TemporalEvent> read(TemporalId id) {
-        final String sql = """
-      SELECT entity_id, event_type, observed_at, node, clock, payload
+        return jdbcTemplate.query(READ_SQL, mapper(), id.value());
+    }
+
+    @Override
+    public void readEach(TemporalId id, Cursor after, Instant asOf, Consumer<? super TemporalEvent> sink) {
+        streamQuery(entityQuery(id, asOf, after, null), sink);
+    }
+
+    @Override
+    public void readSince(long afterSeq, Consumer<? super TemporalEvent> sink) {
+        streamQuery(new SqlQuery(READ_SINCE_SQL, new Object[]{afterSeq}), sink);
+    }
+
+    @Override
+    public List<TemporalEvent> readSince(TemporalId id, long afterSeq, int limit) {
+        if (id == null) return jdbcTemplate.query(READ_SINCE_SQL + " LIMIT ?", mapper(), afterSeq, limit);
+        return jdbcTemplate.query(READ_SINCE_ENTITY_SQL, mapper(), id.value(), afterSeq, limit);
+    }
+
+    // Only rows below the oldest transaction still in flight: nothing can commit before them later.
+    private static final String COMMITTED = "tx < pg_snapshot_xmin(pg_current_snapshot())";
+    private static final String READ_AFTER_SQL = """
+      SELECT %s, tx::text::int8 AS tx_pos
       FROM cf_event
-      WHERE entity_id = ?
-      ORDER BY observed_at ASC
-      """;
-        return jdbcTemplate.query(sql, mapper(), id.value());
+      WHERE (tx, seq) > (?::xid8, ?) AND %s
+      """.formatted(COLUMNS, COMMITTED);
+    private static final String READ_AFTER_SEQ_SQL = """
+      SELECT %s, tx::text::int8 AS tx_pos
+      FROM cf_event
+      WHERE seq > ? AND %s
+      """.formatted(COLUMNS, COMMITTED);
+
+    /**
+     * Rows after {@code after} in {@code (tx, seq)} order, up to the commit horizon the
+     * {@link PostgresAppendListener} also delivers by, so a resumed feed and the live one agree.
+     * A position without a tx (a bare seq) resumes by seq, still capped at the horizon;
+     * {@link LogPosition#START} pages the whole log along the {@code (tx, seq)} index.
+     */
+    @Override
+    public List<Positioned> readAfter(TemporalId id, LogPosition after, int limit) {
+        boolean bySeq = after.tx() == 0 && after.seq() != 0;
+        var sql = new StringBuilder(bySeq ? READ_AFTER_SEQ_SQL : READ_AFTER_SQL);
+        var params = new ArrayList<Object>(4);
+        if (!bySeq) params.add(Long.toString(after.tx()));
+        params.add(after.seq());
+        if (id != null) {
+            sql.append(" AND entity_id = ?");
+            params.add(id.value());
+        }
+        sql.append(" ORDER BY tx, seq LIMIT ?");
+        params.add(limit);
+        var rowMapper = mapper();
+        return jdbcTemplate.query(sql.toString(), (rs, n) ->
+                new Positioned(rowMapper.mapRow(rs, n), new LogPosition(rs.getLong("tx_pos"), rs.getLong("seq"))),
+                params.toArray());
+    }
+
+    @Override
+    public EventPage readPage(TemporalId id, Instant asOf, Cursor after, int limit) {
+        var q = entityQuery(id, asOf, after, limit + 1);
+        return EventPage.of(jdbcTemplate.query(q.sql(), mapper(), q.params()), limit);
+    }
+
+    private SqlQuery entityQuery(TemporalId id, Instant asOf, Cursor after, Integer limit) {
+        var sql = new StringBuilder("SELECT ").append(COLUMNS).append(" FROM cf_event WHERE entity_id = ?");
+        var params = new ArrayList<Object>();
+        params.add(id.value());
+        if (asOf != null) {
+            sql.append(" AND observed_at <= ?");
+            params.add(Timestamp.from(asOf));
+        }
+        appendKeyset(sql, params, after);
+        sql.append(" ORDER BY observed_at ASC, seq ASC");
+        if (limit != null) {
+            sql.append(" LIMIT ?");
+            params.add(limit);
+        }
+        return new SqlQuery(sql.toString(), params.toArray());
     }
 
     @Override
@@ -71,10 +417,44 @@ public final class PostgresEventStore implements EventStore {
         return bus;
     }
 
+    /**
+     * In commit order while a {@link PostgresAppendListener} runs; publishing appends locally
+     * only orders them by when each append returned.
+     */
+    @Override
+    public Flow.Publisher<Positioned> subscribePositioned() {
+        return positioned;
+    }
+
     @Override
     public List<TemporalEvent> search(
             String type, Instant from, Instant to,
             Integer limit, String jsonPath, String jsonValue) {
+        var q = searchQuery(type, from, to, jsonPath, jsonValue, null, limit);
+        return jdbcTemplate.query(q.sql(), mapper(), q.params());
+    }
+
+    @Override
+    public EventPage searchPage(
+            String type, Instant from, Instant to,
+            String jsonPath, String jsonValue, Cursor after, int limit) {
+        var q = searchQuery(type, from, to, jsonPath, jsonValue, after, limit + 1);
+        return EventPage.of(jdbcTemplate.query(q.sql(), mapper(), q.params()), limit);
+    }
+
+    @Override
+    public void searchEach(
+            String type, Instant from, Instant to,
+            Integer limit, String jsonPath, String jsonValue,
+            Consumer<? super TemporalEvent> sink) {
+        streamQuery(searchQuery(type, from, to, jsonPath, jsonValue, null, limit), sink);
+    }
+
+    private record SqlQuery(String sql, Object[] params) {}
+
+    private SqlQuery searchQuery(
+            String type, Instant from, Instant to,
+            String jsonPath, String jsonValue, Cursor after, Integer limit) {
 
         record Clause(String sql, Object param) {}
 
@@ -96,53 +476,88 @@ public final class PostgresEventStore implements EventStore {
 
         // Base query
         var sql = new StringBuilder("""
-        SELECT entity_id, event_type, observed_at, node, clock, payload
+        SELECT %s
         FROM cf_event
         WHERE 1=1
-    """);
+    """.formatted(COLUMNS));
 
         clauses.forEach(c -> sql.append(" AND ").append(c.sql()));
 
-        sql.append(" ORDER BY observed_at ASC");
+        var params = new ArrayList<Object>();
+        clauses.forEach(c -> params.add(c.param()));
 
-        var params = clauses.stream()
-                .map(Clause::param)
-                .toList();
+        appendKeyset(sql, params, after);
+        sql.append(" ORDER BY observed_at ASC, seq ASC");
 
         // Handle LIMIT separately (optional at the end)
         if (limit != null && limit > 0) {
             sql.append(" LIMIT ?");
-            return jdbcTemplate.query(sql.toString(), mapper(),
-                    Stream.concat(params.stream(), Stream.of(limit)).toArray());
+            params.add(limit);
         }
 
-        return jdbcTemplate.query(sql.toString(), mapper(), params.toArray());
+        return new SqlQuery(sql.toString(), params.toArray());
     }
 
+    /** Row comparison matches the (…, observed_at, seq) indexes, so every page is an index range scan. */
+    private static void appendKeyset(StringBuilder sql, List<Object> params, Cursor after) {
+        if (after == null) return;
+        sql.append(" AND (observed_at, seq) > (?, ?)");
+        params.add(Timestamp.from(after.observedAt()));
+        params.add(after.seq());
+    }
+
+    /**
+     * Runs the query in a read-only transaction with a forward-only statement and
+     * {@code fetchSize}, which makes pgjdbc use a server-side cursor: rows are fetched
+     * {@code fetchSize} at a time and handed to {@code sink} one by one, so heap stays bounded
+     * regardless of result size. An exception thrown by the sink aborts the scan.
+     */
+    private void streamQuery(SqlQuery q, Consumer<? super TemporalEvent> sink) {
+        var rowMapper = mapper();
+        readTx.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement(q.sql(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            for (int i = 0; i < q.params().length; i++) ps.setObject(i + 1, q.params()[i]);
+            return ps;
+        }, (RowCallbackHandler) rs -> sink.accept(rowMapper.mapRow(rs, rs.getRow()))));
+    }
+
+    /** Hands committed events to local subscribers; {@code tx} is the transaction that wrote {@code e}. */
+    void publish(TemporalEvent e, long tx) {
+        bus.submit(e);
+        if (positioned.hasSubscribers()) positioned.submit(new Positioned(e, new LogPosition(tx, e.seq())));
+    }
+
+    void publishLocally(boolean enabled) {
+        this.publishLocally = enabled;
+    }
 
-    private RowMapper<TemporalEvent> mapper() {
+    /**
+     * Decodes one row of {@link #COLUMNS}. The uuid and timestamptz come back as typed objects
+     * instead of being formatted to Strings and parsed again, and the jsonb columns are parsed
+     * from the driver's bytes (see {@link JsonbColumns}); encoded clocks resolve node ids through
+     * the cached {@link NodeDictionary}.
+     */
+    RowMapper<TemporalEvent> mapper() {
         return (ResultSet rs, int rowNum) -> {
-            var entityId = new TemporalId(UUID.fromString(rs.getString("entity_id")));
+            var entityId = new TemporalId(rs.getObject("entity_id", UUID.class));
             var type = rs.getString("event_type");
-            Instant at = rs.getTimestamp("observed_at").toInstant();
+            Instant at = rs.getObject("observed_at", OffsetDateTime.class).toInstant();
 
-            Map<String, Long> clock = readJson(rs.getString("clock"));
-            Map<String, Object> payload = readJsonObj(rs.getString("payload"));
+            var encoded = rs.getBytes("clock_v");
+            Map<String, Long> clock = encoded != null ? nodes.decode(encoded) : jsonb.clock(rs.getBytes("clock"));
+            Map<String, Object> payload = jsonb.object(rs.getBytes("payload"));
             String node = rs.getString("node");
 
-            var vc = VectorClock.from(clock);
-            return new TemporalEvent(entityId, type, at, vc, payload, node);
+            var vc = VectorClock.copyOf(clock);
+            return new TemporalEvent(entityId, type, at, vc, payload, node, rs.getLong("seq"));
         };
     }
 
-    private byte[] computeHash(TemporalEvent e) {
-        try {
-            var md = MessageDigest.getInstance("SHA-256");
-            var key = (e.entityId().value() + "|" + e.type() + "|" + e.observedAt() + "|" + json.writeValueAsString(e.payload()))
-                    .getBytes(StandardCharsets.UTF_8);
-            return md.digest(key);
-        } catch (Exception ex) {
-            throw new RuntimeException(ex);
+    /** Idempotency hash: SHA-256 of {@code entityId|type|observedAt|payloadJson}; see {@link EventHasher}. */
+    static byte[] computeHash(UUID entityId, String type, Instant observedAt, String payloadJson) {
+        try (var hasher = EventHasher.acquire()) {
+            return hasher.hash(entityId, type, observedAt, payloadJson);
         }
     }
 
@@ -157,14 +572,6 @@ public final class PostgresEventStore implements EventStore {
     }
 
     Map<String, Long> readJson(String jsonStr) {
-        try { return json.readValue(jsonStr, new TypeReference<>() {
-        }); }
-        catch (Exception e) { throw new RuntimeException(e); }
-    }
-
-    private Map<String, Object> readJsonObj(String jsonStr) {
-        try { return json.readValue(jsonStr, new TypeReference<>() {
-        }); }
-        catch (Exception e) { throw new RuntimeException(e); }
+        return jsonb.clock(jsonStr);
     }
 }
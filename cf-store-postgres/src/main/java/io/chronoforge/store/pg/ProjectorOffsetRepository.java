@@ -0,0 +1,38 @@
+package io.chronoforge.store.pg;
+
+import io.chronoforge.store.LogPosition;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * {@code cf_projector_offset}: per projector, the log position (see {@link PostgresEventStore#readAfter})
+ * up to which it has written every event.
+ */
+public final class ProjectorOffsetRepository {
+    private final JdbcTemplate jdbc;
+
+    public ProjectorOffsetRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /** Stored offset, {@link LogPosition#START} when the projector has never run. */
+    public LogPosition get(String name) {
+        return jdbc.query("SELECT last_tx, last_seq FROM cf_projector_offset WHERE name = ?",
+                (rs, rn) -> new LogPosition(rs.getLong(1), rs.getLong(2)), name).stream().findFirst().orElse(LogPosition.START);
+    }
+
+    /** Advances the offset; never moves it backwards (see {@link #reset}). */
+    public void save(String name, LogPosition position) {
+        var sql = """
+          INSERT INTO cf_projector_offset (name, last_tx, last_seq, updated_at)
+          VALUES (?, ?, ?, now())
+          ON CONFLICT (name)
+          DO UPDATE SET last_tx = EXCLUDED.last_tx, last_seq = EXCLUDED.last_seq, updated_at = now()
+          WHERE (cf_projector_offset.last_tx, cf_projector_offset.last_seq) < (EXCLUDED.last_tx, EXCLUDED.last_seq)
+          """;
+        jdbc.update(sql, name, position.tx(), position.seq());
+    }
+
+    public void reset(String name) {
+        jdbc.update("DELETE FROM cf_projector_offset WHERE name = ?", name);
+    }
+}
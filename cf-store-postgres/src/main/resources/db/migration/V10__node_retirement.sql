@@ -0,0 +1,17 @@
+-- Node retirement. A retired node never ticks again; clocks that have seen its final counter
+-- fold it into their baseline entry ("~": generation) instead of carrying it forever.
+-- Generations come from a sequence: gaps (rolled-back retirements) are empty generations.
+
+ALTER TABLE cf_node ADD COLUMN IF NOT EXISTS retired_at         TIMESTAMPTZ;
+ALTER TABLE cf_node ADD COLUMN IF NOT EXISTS retired_generation BIGINT;
+ALTER TABLE cf_node ADD COLUMN IF NOT EXISTS final_counter      BIGINT;
+
+ALTER TABLE cf_node ADD CONSTRAINT cf_node_retired_complete
+  CHECK ((retired_at IS NULL) = (retired_generation IS NULL) AND (retired_at IS NULL) = (final_counter IS NULL));
+
+CREATE SEQUENCE IF NOT EXISTS cf_node_retirement_generation;
+
+CREATE INDEX IF NOT EXISTS idx_cf_node_retired ON cf_node (retired_generation) WHERE retired_at IS NOT NULL;
+
+-- Finding a node's final counter scans only its own events.
+CREATE INDEX IF NOT EXISTS idx_cf_event_node ON cf_event (node);
@@ -0,0 +1,30 @@
+-- Refuse appends from retired nodes in the database, for every writer (batched appends, bulk
+-- import, manual SQL), not just instances whose cached registry is up to date.
+--
+-- Each INSERT statement takes KEY SHARE locks on the cf_node rows of the nodes it wrote. A
+-- retirement takes FOR UPDATE on those rows before reading final counters, so it waits for
+-- in-flight appends of that node to commit (and then counts them), and an append that starts
+-- while a retirement holds the lock waits for it and then sees the node retired.
+-- Locks are taken in name order, as the retirement does, so the two cannot deadlock.
+
+CREATE OR REPLACE FUNCTION cf_event_refuse_retired() RETURNS trigger LANGUAGE plpgsql AS $$
+DECLARE retired text;
+BEGIN
+  PERFORM 1 FROM cf_node n
+  WHERE n.name IN (SELECT DISTINCT node FROM added)
+  ORDER BY n.name
+  FOR KEY SHARE OF n;
+  -- a new statement, so a retirement we waited for is visible
+  SELECT min(n.name) INTO retired FROM cf_node n
+  WHERE n.retired_at IS NOT NULL AND n.name IN (SELECT DISTINCT node FROM added);
+  IF retired IS NOT NULL THEN
+    RAISE EXCEPTION 'node is retired: %', retired USING ERRCODE = 'CF001', DETAIL = retired;
+  END IF;
+  RETURN NULL;
+END$$;
+
+DROP TRIGGER IF EXISTS cf_event_retired_node_trigger ON cf_event;
+CREATE TRIGGER cf_event_retired_node_trigger
+AFTER INSERT ON cf_event
+REFERENCING NEW TABLE AS added
+FOR EACH STATEMENT EXECUTE FUNCTION cf_event_refuse_retired();
@@ -0,0 +1,5 @@
+-- Projector offsets become commit-ordered log positions (tx, seq): catch-up pages events after
+-- the saved position up to the commit horizon, so a transaction that commits after a higher seq
+-- is still replayed, and the seq overlap V7 describes is gone. Rows written before this keep
+-- last_tx = 0 and resume once by seq.
+ALTER TABLE cf_projector_offset ADD COLUMN IF NOT EXISTS last_tx BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,13 @@
+-- Global, monotonically increasing position; breaks observed_at ties and backs keyset pagination.
+ALTER TABLE cf_event ADD COLUMN IF NOT EXISTS seq BIGINT GENERATED ALWAYS AS IDENTITY;
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_cf_event_seq ON cf_event (seq);
+
+-- Keyset indexes: (..., observed_at, seq) matches ORDER BY and the (observed_at, seq) > (?, ?) seek.
+CREATE INDEX IF NOT EXISTS idx_cf_event_entity_time_seq ON cf_event (entity_id, observed_at, seq);
+CREATE INDEX IF NOT EXISTS idx_cf_event_type_time_seq   ON cf_event (event_type, observed_at, seq);
+CREATE INDEX IF NOT EXISTS idx_cf_event_time_seq        ON cf_event (observed_at, seq);
+
+-- Superseded by the seq-suffixed indexes above.
+DROP INDEX IF EXISTS idx_cf_event_entity_time;
+DROP INDEX IF EXISTS idx_cf_event_type;
@@ -0,0 +1,66 @@
+-- Range-partition cf_event by observed_at (monthly here; EventPartitions creates further
+-- partitions ahead of time at the configured interval and expires old ones by DETACH/DROP).
+--
+-- Idempotency: a unique index on a partitioned table must include the partition key, so
+-- UNIQUE(hash) becomes UNIQUE(hash, observed_at). This is still global: observed_at is one of
+-- the hash inputs, so two rows with the same hash always share observed_at and therefore land
+-- in the same partition, where the per-partition unique index sees the conflict.
+
+CREATE SEQUENCE IF NOT EXISTS cf_event_seq;
+SELECT setval('cf_event_seq', COALESCE((SELECT max(seq) FROM cf_event), 0) + 1, false);
+
+ALTER TABLE cf_event RENAME TO cf_event_legacy;
+
+CREATE TABLE cf_event (
+  event_id    UUID        NOT NULL DEFAULT gen_random_uuid(),
+  entity_id   UUID        NOT NULL,
+  observed_at TIMESTAMPTZ NOT NULL,
+  event_type  TEXT        NOT NULL,
+  node        TEXT        NOT NULL,
+  clock       JSONB       NOT NULL,   -- vector clock snapshot {node: counter}
+  payload     JSONB       NOT NULL,   -- domain data
+  hash        BYTEA       NOT NULL,   -- idempotency hash (covers observed_at)
+  seq         BIGINT      NOT NULL DEFAULT nextval('cf_event_seq'),
+  PRIMARY KEY (event_id, observed_at),
+  UNIQUE (hash, observed_at)
+) PARTITION BY RANGE (observed_at);
+
+ALTER SEQUENCE cf_event_seq OWNED BY cf_event.seq;
+
+-- Catches rows outside every explicit range (e.g. deterministic EPOCH+seed timestamps). Keep it
+-- small: attaching a range that overlaps rows parked here fails and is skipped by EventPartitions.
+CREATE TABLE cf_event_default PARTITION OF cf_event DEFAULT;
+
+-- One monthly partition per month that has data, plus the current month (all bounds in UTC).
+DO $$
+DECLARE m timestamp;
+BEGIN
+  FOR m IN
+    SELECT date_trunc('month', observed_at AT TIME ZONE 'UTC') FROM cf_event_legacy
+    UNION
+    SELECT date_trunc('month', now() AT TIME ZONE 'UTC')
+  LOOP
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF cf_event FOR VALUES FROM (%L) TO (%L)',
+                   'cf_event_p' || to_char(m, 'YYYYMMDD'),
+                   m AT TIME ZONE 'UTC',
+                   (m + interval '1 month') AT TIME ZONE 'UTC');
+  END LOOP;
+END$$;
+
+INSERT INTO cf_event (event_id, entity_id, observed_at, event_type, node, clock, payload, hash, seq)
+SELECT event_id, entity_id, observed_at, event_type, node, clock, payload, hash, seq
+FROM cf_event_legacy;
+
+DROP TABLE cf_event_legacy;
+
+-- Indexes are declared on the parent and cascade to every partition (current and future).
+CREATE INDEX IF NOT EXISTS idx_cf_event_seq              ON cf_event (seq);
+CREATE INDEX IF NOT EXISTS idx_cf_event_entity_time_seq  ON cf_event (entity_id, observed_at, seq);
+CREATE INDEX IF NOT EXISTS idx_cf_event_type_time_seq    ON cf_event (event_type, observed_at, seq);
+CREATE INDEX IF NOT EXISTS idx_cf_event_time_seq         ON cf_event (observed_at, seq);
+CREATE INDEX IF NOT EXISTS idx_cf_event_payload_gin      ON cf_event USING GIN (payload);
+CREATE INDEX IF NOT EXISTS idx_cf_event_clock_gin        ON cf_event USING GIN (clock);
+
+CREATE TRIGGER cf_event_append_trigger
+AFTER INSERT ON cf_event
+FOR EACH ROW EXECUTE FUNCTION cf_event_notify();
@@ -0,0 +1,18 @@
+-- Commit-order watermark for the LISTEN/NOTIFY bridge. seq is allocated at insert time, so
+-- concurrent transactions can commit out of seq order; the writing transaction id is what lets
+-- a listener tell "everything below this point has finished" (pg_snapshot_xmin).
+ALTER TABLE cf_event ADD COLUMN IF NOT EXISTS tx xid8 NOT NULL DEFAULT pg_current_xact_id();
+
+CREATE INDEX IF NOT EXISTS idx_cf_event_tx_seq ON cf_event (tx, seq);
+
+-- Wake listeners once per INSERT statement instead of once per row; they fetch rows themselves.
+CREATE OR REPLACE FUNCTION cf_event_notify() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+  PERFORM pg_notify('cf_event_appends', '');
+  RETURN NULL;
+END$$;
+
+DROP TRIGGER IF EXISTS cf_event_append_trigger ON cf_event;
+CREATE TRIGGER cf_event_append_trigger
+AFTER INSERT ON cf_event
+FOR EACH STATEMENT EXECUTE FUNCTION cf_event_notify();
@@ -0,0 +1,13 @@
+-- Periodic materializations of a document, written by DocProjector. The row at (observed_at, seq)
+-- holds the doc replayed over every event of the entity up to and including that position, so a
+-- time-travel read starts from the nearest one at or before 'at' and replays only the rest.
+CREATE TABLE IF NOT EXISTS cf_doc_checkpoint (
+  entity_id   UUID        NOT NULL,
+  observed_at TIMESTAMPTZ NOT NULL,
+  seq         BIGINT      NOT NULL,
+  doc         JSONB       NOT NULL,
+  clock       JSONB       NOT NULL,
+  events      BIGINT      NOT NULL,
+  created_at  TIMESTAMPTZ NOT NULL DEFAULT now(),
+  PRIMARY KEY (entity_id, observed_at, seq)
+);
@@ -0,0 +1,7 @@
+-- Highest event seq each projector has written. Startup catch-up resumes from here (minus an
+-- overlap for transactions that committed out of seq order; re-projecting is idempotent).
+CREATE TABLE IF NOT EXISTS cf_projector_offset (
+  name        TEXT        PRIMARY KEY,
+  last_seq    BIGINT      NOT NULL,
+  updated_at  TIMESTAMPTZ NOT NULL DEFAULT now()
+);
@@ -0,0 +1,8 @@
+-- Client-supplied idempotency keys (X-CF-Idempotency-Key). A key is claimed in the same
+-- transaction as the events it guards; rows older than cf.idempotency.ttl are purged.
+CREATE TABLE IF NOT EXISTS cf_idempotency_key (
+  key         TEXT        PRIMARY KEY,
+  created_at  TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_cf_idempotency_key_created ON cf_idempotency_key (created_at);
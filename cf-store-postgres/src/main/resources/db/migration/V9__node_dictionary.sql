@@ -0,0 +1,70 @@
+-- Node dictionary and compact clocks. Node names are stored once in cf_node; cf_event.clock_v
+-- holds the clock as flat int8[] pairs {node_id, counter, node_id, counter, ...} sorted by
+-- node id, which is a fraction of the JSONB object with full names and needs no GIN index.
+--
+-- Existing rows keep their JSONB clock until cf_event_clock_backfill() converts them; every row
+-- has exactly one of the two. Readers decode whichever is present.
+
+CREATE TABLE IF NOT EXISTS cf_node (
+  id         INTEGER     GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  name       TEXT        NOT NULL UNIQUE,
+  created_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+-- Id of a node name, registering it on first use.
+CREATE OR REPLACE FUNCTION cf_node_id(p_name text) RETURNS integer LANGUAGE plpgsql AS $$
+DECLARE v integer;
+BEGIN
+  SELECT id INTO v FROM cf_node WHERE name = p_name;
+  IF v IS NULL THEN
+    INSERT INTO cf_node (name) VALUES (p_name) ON CONFLICT (name) DO NOTHING RETURNING id INTO v;
+    IF v IS NULL THEN SELECT id INTO v FROM cf_node WHERE name = p_name; END IF;
+  END IF;
+  RETURN v;
+END$$;
+
+-- {"api": 3, "edge": 1} -> {id(api), 3, id(edge), 1} ordered by node id.
+CREATE OR REPLACE FUNCTION cf_clock_encode(c jsonb) RETURNS int8[] LANGUAGE sql AS $$
+  SELECT COALESCE(array_agg(p.v ORDER BY e.id, p.k), '{}')
+  FROM (SELECT cf_node_id(key)::int8 AS id, value::text::int8 AS counter FROM jsonb_each(c)) e
+  CROSS JOIN LATERAL (VALUES (0, e.id), (1, e.counter)) AS p(k, v)
+$$;
+
+-- Inverse of cf_clock_encode: the JSONB object causal queries were written against.
+CREATE OR REPLACE FUNCTION cf_clock_decode(c int8[]) RETURNS jsonb LANGUAGE sql STABLE AS $$
+  SELECT COALESCE(jsonb_object_agg(n.name, c[2 * i]), '{}'::jsonb)
+  FROM generate_series(1, COALESCE(array_length(c, 1), 0) / 2) AS i
+  JOIN cf_node n ON n.id = c[2 * i - 1]
+$$;
+
+-- Counter of one node in an encoded clock (0 when absent), e.g. WHERE cf_clock_get(clock_v, 'api') >= 5.
+CREATE OR REPLACE FUNCTION cf_clock_get(c int8[], p_name text) RETURNS int8 LANGUAGE sql STABLE AS $$
+  SELECT COALESCE((
+    SELECT c[2 * i]
+    FROM generate_series(1, COALESCE(array_length(c, 1), 0) / 2) AS i
+    WHERE c[2 * i - 1] = (SELECT id FROM cf_node WHERE name = p_name)
+  ), 0)
+$$;
+
+ALTER TABLE cf_event ADD COLUMN IF NOT EXISTS clock_v int8[];
+ALTER TABLE cf_event ALTER COLUMN clock DROP NOT NULL;
+ALTER TABLE cf_event ADD CONSTRAINT cf_event_clock_present CHECK (clock IS NOT NULL OR clock_v IS NOT NULL);
+
+-- GIN maintenance on clock slowed every insert; new rows no longer write the column.
+DROP INDEX IF EXISTS idx_cf_event_clock_gin;
+
+-- Finds the rows still to convert; shrinks to nothing as the backfill proceeds.
+CREATE INDEX IF NOT EXISTS idx_cf_event_clock_legacy ON cf_event (observed_at) WHERE clock IS NOT NULL;
+
+-- Converts up to p_batch JSONB clocks to clock_v; returns how many. Call until it returns 0.
+CREATE OR REPLACE FUNCTION cf_event_clock_backfill(p_batch integer) RETURNS integer LANGUAGE sql AS $$
+  WITH todo AS (
+    SELECT event_id, observed_at FROM cf_event WHERE clock IS NOT NULL LIMIT p_batch
+  ), done AS (
+    UPDATE cf_event e SET clock_v = cf_clock_encode(e.clock), clock = NULL
+    FROM todo
+    WHERE e.event_id = todo.event_id AND e.observed_at = todo.observed_at
+    RETURNING 1
+  )
+  SELECT count(*)::integer FROM done
+$$;
@@ -0,0 +1,115 @@
+package io.chronoforge.store.pg;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.chronoforge.core.TemporalEvent;
+import io.chronoforge.core.TemporalId;
+import io.chronoforge.core.VectorClock;
+import io.chronoforge.store.EventStore.Positioned;
+import io.chronoforge.store.LogPosition;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two transactions that commit out of seq order against a real database (CF_PG_URL): neither
+ * the replay nor the listener hands out a position the held-back transaction can commit before.
+ */
+@EnabledIfEnvironmentVariable(named = "CF_PG_URL", matches = ".+")
+class CommitHorizonTest {
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final TemporalId entity = new TemporalId(UUID.randomUUID());
+    private DriverManagerDataSource ds;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate tx;
+
+    @BeforeEach
+    void setUp() {
+        ds = new DriverManagerDataSource(System.getenv("CF_PG_URL"),
+                System.getenv().getOrDefault("CF_PG_USER", "cf"),
+                System.getenv().getOrDefault("CF_PG_PASS", "cf"));
+        Flyway.configure().dataSource(ds).load().migrate();
+        jdbc = new JdbcTemplate(ds);
+        tx = new TransactionTemplate(new DataSourceTransactionManager(ds));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbc.update("DELETE FROM cf_event WHERE entity_id = ?", entity.value());
+    }
+
+    private TemporalEvent event(String name) {
+        return new TemporalEvent(entity, "DOC_SET", Instant.parse("2024-03-01T10:00:00Z"),
+                VectorClock.copyOf(Map.of("api", 1L)), Map.of("name", name), "api");
+    }
+
+    @Test
+    void laterSeqCommittedFirst_isHeldBackUntilTheEarlierOneCommits() throws Exception {
+        var store = new PostgresEventStore(jdbc, tx, json);
+        store.append(List.of(event("before")));      // also registers the node outside the transactions below
+        var start = store.readAfter(entity, LogPosition.ofSeq(0), 10).getFirst().position();
+        var delivered = new CopyOnWriteArrayList<Positioned>();
+        store.subscribePositioned().subscribe(new Flow.Subscriber<>() {
+            @Override public void onSubscribe(Flow.Subscription s) { s.request(Long.MAX_VALUE); }
+            @Override public void onNext(Positioned p) { if (p.event().entityId().equals(entity)) delivered.add(p); }
+            @Override public void onError(Throwable t) {}
+            @Override public void onComplete() {}
+        });
+
+        try (var listener = new PostgresAppendListener(ds, store, 100, Duration.ofMillis(50));
+             var pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            listener.start();
+            Thread.sleep(300);      // the listener takes its starting horizon
+
+            var inserted = new CountDownLatch(1);
+            var release = new CountDownLatch(1);
+            var slow = pool.submit(() -> tx.execute(status -> {
+                var seq = store.append(List.of(event("slow"))).appended().getFirst().seq();
+                inserted.countDown();
+                try { release.await(); } catch (InterruptedException e) { throw new IllegalStateException(e); }
+                return seq;
+            }));
+            assertThat(inserted.await(10, TimeUnit.SECONDS)).isTrue();
+            long fastSeq = store.append(List.of(event("fast"))).appended().getFirst().seq();
+
+            // "fast" is committed with the higher seq; a seq page would hand it out and move past "slow"
+            assertThat(store.readSince(entity, start.seq(), 10)).extracting(TemporalEvent::seq).containsExactly(fastSeq);
+            assertThat(store.readAfter(entity, start, 10)).isEmpty();
+            Thread.sleep(300);
+            assertThat(delivered).isEmpty();
+
+            release.countDown();
+            long slowSeq = slow.get(10, TimeUnit.SECONDS);
+            assertThat(slowSeq).isLessThan(fastSeq);
+
+            var replayed = store.readAfter(entity, start, 10);
+            assertThat(replayed.stream().map(p -> p.event().payload().get("name")).toList()).containsExactly("slow", "fast");
+            assertThat(replayed.get(0).position()).isLessThan(replayed.get(1).position());
+            // resuming from the first position yields the second, and from the second nothing
+            assertThat(store.readAfter(entity, replayed.get(0).position(), 10)).containsExactly(replayed.get(1));
+            assertThat(store.readAfter(entity, replayed.get(1).position(), 10)).isEmpty();
+
+            for (int i = 0; i < 100 && delivered.size() < 2; i++) Thread.sleep(50);
+            assertThat(delivered).containsExactlyElementsOf(replayed);
+        }
+    }
+}
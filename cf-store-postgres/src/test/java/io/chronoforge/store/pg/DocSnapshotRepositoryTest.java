@@ -0,0 +1,82 @@
+package io.chronoforge.store.pg;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DocSnapshotRepositoryTest {
+
+    private JdbcTemplate jdbc;
+    private DocSnapshotRepository repo;
+    private final UUID id = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        jdbc = mock(JdbcTemplate.class);
+        repo = new DocSnapshotRepository(jdbc, new ObjectMapper(), 1 << 20);
+    }
+
+    /** Answers the single-row SELECT with {"title":"stored"}. */
+    @SuppressWarnings("unchecked")
+    private void rowStored() throws Exception {
+        var rs = mock(ResultSet.class);
+        when(rs.getObject("entity_id", UUID.class)).thenReturn(id);
+        when(rs.getBytes("doc")).thenReturn("{\"title\":\"stored\"}".getBytes(StandardCharsets.UTF_8));
+        when(rs.getBytes("clock")).thenReturn("{\"api\":1}".getBytes(StandardCharsets.UTF_8));
+        when(rs.getObject("updated_at", OffsetDateTime.class)).thenReturn(OffsetDateTime.ofInstant(Instant.EPOCH, ZoneOffset.UTC));
+        when(jdbc.query(startsWith("SELECT"), any(RowMapper.class), eq(id)))
+                .thenAnswer(inv -> List.of(inv.<RowMapper<Object>>getArgument(1).mapRow(rs, 0)));
+    }
+
+    @Test
+    void get_loadsOnceThenServesFromCache() throws Exception {
+        rowStored();
+
+        assertThat(repo.get(id)).get().extracting(DocSnapshotRepository.Snapshot::doc).isEqualTo(Map.of("title", "stored"));
+        assertThat(repo.get(id)).isPresent();
+
+        verify(jdbc, times(1)).query(startsWith("SELECT"), any(RowMapper.class), eq(id));
+        var stats = repo.cacheSummary().orElseThrow();
+        assertThat(stats.hits()).isEqualTo(1);
+        assertThat(stats.misses()).isEqualTo(1);
+        assertThat(stats.weightBytes()).isPositive();
+    }
+
+    @Test
+    void upsert_writesThroughSoReadsSeeTheNewDoc() throws Exception {
+        rowStored();
+        repo.get(id);
+
+        repo.upsert(id, Map.of("title", "new"), Map.of("api", 2L));
+
+        assertThat(repo.get(id)).get().extracting(DocSnapshotRepository.Snapshot::doc).isEqualTo(Map.of("title", "new"));
+        verify(jdbc, times(1)).query(startsWith("SELECT"), any(RowMapper.class), eq(id));
+    }
+
+    @Test
+    void cacheOff_queriesEveryTime() throws Exception {
+        repo = new DocSnapshotRepository(jdbc, new ObjectMapper());
+        rowStored();
+
+        repo.get(id);
+        repo.get(id);
+
+        verify(jdbc, times(2)).query(startsWith("SELECT"), any(RowMapper.class), eq(id));
+        assertThat(repo.cacheSummary()).isEmpty();
+    }
+}
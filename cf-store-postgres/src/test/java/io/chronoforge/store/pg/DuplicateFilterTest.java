@@ -0,0 +1,40 @@
+package io.chronoforge.store.pg;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DuplicateFilterTest {
+
+    private static byte[] hash(int i) {
+        return PostgresEventStore.computeHash(new UUID(0, i), "DOC_SET", Instant.EPOCH, "{\"i\":" + i + "}");
+    }
+
+    @Test
+    void addedHashesAreAlwaysReported() {
+        var filter = new DuplicateFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) filter.add(hash(i));
+        for (int i = 0; i < 10_000; i++) assertThat(filter.mightContain(hash(i))).isTrue();
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTarget() {
+        var filter = new DuplicateFilter(10_000, 0.01);
+        for (int i = 0; i < 9_999; i++) filter.add(hash(i));
+        int falsePositives = 0;
+        for (int i = 100_000; i < 110_000; i++) if (filter.mightContain(hash(i))) falsePositives++;
+        assertThat(falsePositives).isLessThan(300); // 1% target, generous bound for 10k probes
+    }
+
+    @Test
+    void oldestGenerationIsDroppedOnRotation() {
+        var filter = new DuplicateFilter(100, 0.01);
+        filter.add(hash(-1));
+        for (int i = 0; i < 200; i++) filter.add(hash(i)); // fills two more generations
+        assertThat(filter.mightContain(hash(199))).isTrue();
+        assertThat(filter.mightContain(hash(-1))).isFalse();
+    }
+}
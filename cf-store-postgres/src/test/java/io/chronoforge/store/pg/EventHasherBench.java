@@ -0,0 +1,65 @@
+package io.chronoforge.store.pg;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The append path's idempotency hash: {@code computeHash} over an already serialized payload,
+ * and {@link EventHasher#encode} serializing the payload map and hashing it in one go. A JMH
+ * benchmark in the test tree, next to the package-private classes it measures; see the README
+ * for how to run it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class EventHasherBench {
+
+    /** Top-level payload fields. */
+    @Param({"4", "64"})
+    int fields;
+
+    final ObjectMapper json = new ObjectMapper();
+    final UUID entity = new UUID(0x5eed, 42);
+    final Instant at = Instant.parse("2024-05-01T12:00:00.123456Z");
+    Map<String, Object> payload;
+    String payloadJson;
+
+    @Setup
+    public void setup() throws JsonProcessingException {
+        payload = new LinkedHashMap<>();
+        for (int i = 0; i < fields; i++) payload.put("field" + i, i % 2 == 0 ? "value-" + i : i);
+        payloadJson = json.writeValueAsString(payload);
+    }
+
+    @Benchmark
+    public byte[] computeHash() {
+        return PostgresEventStore.computeHash(entity, "DOC_SET", at, payloadJson);
+    }
+
+    @Benchmark
+    public EventHasher.Encoded encode() {
+        try (var hasher = EventHasher.acquire()) {
+            return hasher.encode(json, entity, "DOC_SET", at, payload);
+        }
+    }
+}
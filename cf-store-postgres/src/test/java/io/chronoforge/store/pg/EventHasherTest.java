@@ -0,0 +1,96 @@
+package io.chronoforge.store.pg;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Stored rows are de-duplicated by this hash, so it must never change: pinned digests, and the
+ * original String-concatenating computation over inputs that exercise every encoding branch.
+ */
+class EventHasherTest {
+
+    /** What computeHash did before EventHasher: concatenate, encode, digest. */
+    private static byte[] legacy(UUID entityId, String type, Instant observedAt, String payloadJson) throws Exception {
+        return MessageDigest.getInstance("SHA-256").digest(
+                (entityId + "|" + type + "|" + observedAt + "|" + payloadJson).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void hash_isPinnedForFixedInputs() {
+        assertThat(HexFormat.of().formatHex(PostgresEventStore.computeHash(new UUID(0, 1), "DOC_SET",
+                Instant.parse("2025-09-16T12:00:00Z"), "{\"foo\":\"bar\"}")))
+                .isEqualTo("733e74f7aa5fb0ab0d8e7490798e5701bc19af2e9781dd18a809e4f1e0837ffe");
+        assertThat(HexFormat.of().formatHex(PostgresEventStore.computeHash(UUID.fromString("c0ffee00-1234-4abc-8def-0123456789ab"),
+                "DOC_DEL", Instant.EPOCH.plusNanos(1), "{\"keys\":[\"café\",\"東京\",\"😀\"]}")))
+                .isEqualTo("0def279432c3d606be24f663de5b58dbee691fe39d68caa9046d2dc3a31da917");
+    }
+
+    @Test
+    void hash_matchesTheOriginalComputation() throws Exception {
+        var ids = List.of(new UUID(0, 0), new UUID(-1, -1), UUID.fromString("0000ffff-00ff-0f0f-f0f0-123456789abc"), UUID.randomUUID());
+        var instants = List.of(Instant.EPOCH, Instant.parse("2025-09-16T12:00:00.120Z"),
+                Instant.parse("2025-09-16T12:00:00.123456Z"), Instant.parse("-0001-01-01T00:00:00Z"),
+                Instant.parse("+12025-01-01T00:00:00.000000007Z"));
+        var payloads = List.of("{}", "{\"a\":\"ascii\"}", "{\"b\":\"\u00e9\u00df\u07ff\"}", "{\"c\":\"\u0800\uffff\u6771\"}",
+                "{\"d\":\"\uD83D\uDE00\uDBFF\uDFFF\"}",
+                "{\"e\":\"lone \uD83D high\"}", "{\"f\":\"lone \uDE00 low\"}", "{\"g\":\"ends high \uD83D\"}",
+                "x".repeat(100_000));    // past the retained buffer size
+        var types = List.of("DOC_SET", "", "tüp|e");
+        for (var id : ids) for (var at : instants) for (var payload : payloads) for (var type : types) {
+            assertThat(PostgresEventStore.computeHash(id, type, at, payload))
+                    .as("%s %s %s %s", id, type, at, payload.length() > 40 ? payload.length() + " chars" : payload)
+                    .isEqualTo(legacy(id, type, at, payload));
+        }
+    }
+
+    @Test
+    void encode_hashesTheSerializedPayload() throws Exception {
+        var json = new ObjectMapper();
+        var payload = new LinkedHashMap<String, Object>();
+        payload.put("title", "café 😀");
+        payload.put("n", List.of(1, 2));
+        var id = UUID.randomUUID();
+        var at = Instant.parse("2025-09-16T12:00:00Z");
+
+        EventHasher.Encoded enc;
+        try (var hasher = EventHasher.acquire()) {
+            enc = hasher.encode(json, id, "DOC_SET", at, payload);
+        }
+
+        assertThat(enc.payloadJson()).isEqualTo(json.writeValueAsString(payload));
+        assertThat(enc.hash()).isEqualTo(legacy(id, "DOC_SET", at, enc.payloadJson()));
+    }
+
+    @Test
+    void pooledHashers_giveTheSameDigestsUnderConcurrency() throws Exception {
+        var at = Instant.parse("2025-09-16T12:00:00Z");
+        try (var pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            var results = new ArrayList<Future<Boolean>>();
+            for (int t = 0; t < 2_000; t++) {
+                var id = new UUID(t, t);
+                var payload = "{\"i\":" + t + ",\"pad\":\"" + "p".repeat(t % 300) + "\"}";
+                results.add(pool.submit(() -> {
+                    for (int i = 0; i < 20; i++) {
+                        if (!MessageDigest.isEqual(PostgresEventStore.computeHash(id, "DOC_SET", at, payload),
+                                legacy(id, "DOC_SET", at, payload))) return false;
+                    }
+                    return true;
+                }));
+            }
+            for (var r : results) assertThat(r.get()).isTrue();
+        }
+    }
+}
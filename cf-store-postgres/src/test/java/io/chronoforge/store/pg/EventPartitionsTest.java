@@ -0,0 +1,143 @@
+package io.chronoforge.store.pg;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.chronoforge.core.TemporalEvent;
+import io.chronoforge.core.TemporalId;
+import io.chronoforge.core.VectorClock;
+import io.chronoforge.store.pg.EventPartitions.Interval;
+import io.chronoforge.store.pg.EventPartitions.Partition;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Partition bounds and expiry against a mocked catalog; with CF_PG_URL set, partition creation
+ * and row routing at the half-open [from, to) boundaries on a real database (in 2099, clear of
+ * live data; the partitions it creates are dropped again).
+ */
+class EventPartitionsTest {
+
+    @Test
+    void interval_floorsAndStepsOnUtcDates() {
+        var d = LocalDate.parse("2024-02-29");   // a Thursday in a leap year
+        assertThat(Interval.DAY.floor(d)).isEqualTo(d);
+        assertThat(Interval.DAY.next(d)).isEqualTo(LocalDate.parse("2024-03-01"));
+        assertThat(Interval.WEEK.floor(d)).isEqualTo(LocalDate.parse("2024-02-26"));
+        assertThat(Interval.WEEK.floor(LocalDate.parse("2024-02-26"))).isEqualTo(LocalDate.parse("2024-02-26"));
+        assertThat(Interval.WEEK.next(LocalDate.parse("2024-02-26"))).isEqualTo(LocalDate.parse("2024-03-04"));
+        assertThat(Interval.MONTH.floor(d)).isEqualTo(LocalDate.parse("2024-02-01"));
+        assertThat(Interval.MONTH.next(LocalDate.parse("2024-12-01"))).isEqualTo(LocalDate.parse("2025-01-01"));
+        assertThat(Interval.MONTH.next(LocalDate.parse("2024-01-01"))).isEqualTo(LocalDate.parse("2024-02-01"));
+    }
+
+    @Test
+    void partition_overlapsOnlyHalfOpenRanges() {
+        var p = new Partition("cf_event_p20240301", Instant.parse("2024-03-01T00:00:00Z"), Instant.parse("2024-03-02T00:00:00Z"));
+        // touching ranges share a bound but no instant
+        assertThat(p.overlaps(Instant.parse("2024-03-02T00:00:00Z"), Instant.parse("2024-03-03T00:00:00Z"))).isFalse();
+        assertThat(p.overlaps(Instant.parse("2024-02-29T00:00:00Z"), Instant.parse("2024-03-01T00:00:00Z"))).isFalse();
+        assertThat(p.overlaps(Instant.parse("2024-02-29T00:00:00Z"), Instant.parse("2024-03-01T00:00:00.000001Z"))).isTrue();
+        assertThat(p.overlaps(Instant.parse("2024-03-01T12:00:00Z"), Instant.parse("2024-03-01T13:00:00Z"))).isTrue();
+        assertThat(new Partition("cf_event_default", null, null).overlaps(Instant.MIN, Instant.MAX)).isFalse();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void ensureAhead_createsMissingRangesOnly() {
+        var jdbc = mock(JdbcTemplate.class);
+        when(jdbc.query(contains("pg_inherits"), any(RowMapper.class))).thenReturn(List.of(
+                new Partition("cf_event_default", null, null),
+                new Partition("cf_event_p20240301", Instant.parse("2024-03-01T00:00:00Z"), Instant.parse("2024-03-02T00:00:00Z"))));
+
+        var created = new EventPartitions(jdbc, Interval.DAY).ensureAhead(Instant.parse("2024-03-01T23:59:59Z"), 2);
+
+        assertThat(created).containsExactly("cf_event_p20240302", "cf_event_p20240303");
+        verify(jdbc).execute("CREATE TABLE IF NOT EXISTS cf_event_p20240302 PARTITION OF cf_event FOR VALUES FROM ('2024-03-02T00:00:00Z') TO ('2024-03-03T00:00:00Z')");
+        verify(jdbc, never()).execute(contains("cf_event_p20240301 PARTITION"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void detachBefore_expiresPartitionsEndingAtOrBeforeTheCutoff() {
+        var jdbc = mock(JdbcTemplate.class);
+        when(jdbc.query(contains("pg_inherits"), any(RowMapper.class))).thenReturn(List.of(
+                new Partition("cf_event_default", null, null),
+                new Partition("cf_event_p20240101", Instant.parse("2024-01-01T00:00:00Z"), Instant.parse("2024-02-01T00:00:00Z")),
+                new Partition("cf_event_p20240201", Instant.parse("2024-02-01T00:00:00Z"), Instant.parse("2024-03-01T00:00:00Z"))));
+
+        var detached = new EventPartitions(jdbc, Interval.MONTH).detachBefore(Instant.parse("2024-02-01T00:00:00Z"));
+
+        assertThat(detached).containsExactly("cf_event_p20240101");
+        verify(jdbc).execute("ALTER TABLE cf_event DETACH PARTITION \"cf_event_p20240101\"");
+        verify(jdbc, never()).execute(contains("cf_event_p20240201\""));
+        verify(jdbc, never()).execute(contains("cf_event_default"));
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "CF_PG_URL", matches = ".+")
+    void rowsLandInTheirHalfOpenPartition() {
+        var ds = new DriverManagerDataSource(System.getenv("CF_PG_URL"),
+                System.getenv().getOrDefault("CF_PG_USER", "cf"),
+                System.getenv().getOrDefault("CF_PG_PASS", "cf"));
+        Flyway.configure().dataSource(ds).load().migrate();
+        var jdbc = new JdbcTemplate(ds);
+        var partitions = new EventPartitions(jdbc, Interval.DAY);
+        var day = Instant.parse("2099-06-01T00:00:00Z");
+        var entity = UUID.randomUUID();
+        var created = new ArrayList<String>();
+        try {
+            created.addAll(partitions.ensureAhead(day.plusSeconds(3600), 1));
+            assertThat(created).containsExactly("cf_event_p20990601", "cf_event_p20990602");
+            assertThat(partitions.ensureAhead(day, 1)).isEmpty();
+            assertThat(partitions.list()).contains(
+                    new Partition("cf_event_p20990601", day, day.plus(Duration.ofDays(1))),
+                    new Partition("cf_event_p20990602", day.plus(Duration.ofDays(1)), day.plus(Duration.ofDays(2))));
+
+            var store = new PostgresEventStore(jdbc, new TransactionTemplate(new DataSourceTransactionManager(ds)), new ObjectMapper());
+            var lastMicro = day.plus(Duration.ofDays(1)).minusNanos(1000);
+            store.append(List.of(
+                    event(entity, day, 0),
+                    event(entity, lastMicro, 1),
+                    event(entity, day.plus(Duration.ofDays(1)), 2),
+                    event(entity, day.minusNanos(1000), 3)));
+
+            var placed = jdbc.queryForList("""
+                    SELECT (payload->>'i')::int AS i, tableoid::regclass::text AS part
+                    FROM cf_event WHERE entity_id = ? ORDER BY 1""", entity);
+            assertThat(placed).extracting(r -> r.get("part")).containsExactly(
+                    "cf_event_p20990601",   // lower bound is inclusive
+                    "cf_event_p20990601",
+                    "cf_event_p20990602",   // upper bound is exclusive
+                    "cf_event_default");    // before every explicit range
+        } finally {
+            jdbc.update("DELETE FROM cf_event WHERE entity_id = ?", entity);
+            for (var name : created) jdbc.execute("DROP TABLE IF EXISTS " + name);
+        }
+    }
+
+    private static TemporalEvent event(UUID entity, Instant at, int i) {
+        return new TemporalEvent(new TemporalId(entity), "DOC_SET", at, new VectorClock().tick("partitions"),
+                Map.of("i", i), "partitions");
+    }
+}
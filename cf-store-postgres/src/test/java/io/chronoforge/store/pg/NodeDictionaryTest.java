@@ -0,0 +1,109 @@
+package io.chronoforge.store.pg;
+
+import io.chronoforge.core.NodeRetirements;
+import io.chronoforge.core.VectorClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class NodeDictionaryTest {
+
+    private JdbcTemplate jdbc;
+    private NodeDictionary nodes;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbc = mock(JdbcTemplate.class);
+        nodes = new NodeDictionary(jdbc);
+        // "zeta" was registered first, so ids do not follow name order
+        var registered = Map.of("zeta", 1, "api", 2, "edge", 3);
+        doAnswer(inv -> {
+            var handler = inv.<RowCallbackHandler>getArgument(1);
+            for (var name : (String[]) inv.getArgument(2)) handler.processRow(row(registered.get(name), name));
+            return null;
+        }).when(jdbc).query(contains("INSERT INTO cf_node"), any(RowCallbackHandler.class), any(Object[].class));
+        doAnswer(inv -> {
+            int id = inv.getArgument(2);
+            registered.forEach((name, i) -> {
+                if (i == id) {
+                    try { inv.<RowCallbackHandler>getArgument(1).processRow(row(i, name)); }
+                    catch (Exception e) { throw new RuntimeException(e); }
+                }
+            });
+            return null;
+        }).when(jdbc).query(contains("WHERE id = ?"), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    private static ResultSet row(int id, String name) throws Exception {
+        var rs = mock(ResultSet.class);
+        when(rs.getInt("id")).thenReturn(id);
+        when(rs.getString("name")).thenReturn(name);
+        return rs;
+    }
+
+    @Test
+    void encode_pairsSortedByIdAndRegistersOnce() {
+        var clock = VectorClock.copyOf(Map.of("api", 4L, "zeta", 1L, "edge", 12L));
+
+        assertThat(nodes.encode(clock)).isEqualTo("{1,1,2,4,3,12}");
+        assertThat(nodes.encode(clock)).isEqualTo("{1,1,2,4,3,12}");
+        verify(jdbc, times(1)).query(contains("INSERT INTO cf_node"), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    @Test
+    void decode_resolvesIdsFromTheDriverText() {
+        var decoded = nodes.decode("{1,1,2,4,3,12}".getBytes(StandardCharsets.US_ASCII));
+
+        assertThat(decoded).isEqualTo(Map.of("zeta", 1L, "api", 4L, "edge", 12L));
+        assertThat(nodes.decode("{}".getBytes(StandardCharsets.US_ASCII))).isEmpty();
+        assertThat(nodes.decode(null)).isNull();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void retire_locksLiveNodesThenStampsOneGenerationAndReloadsTheRegistry() {
+        when(jdbc.queryForList(contains("FOR UPDATE"), eq(String.class), eq(new String[]{"ci-1", "ci-2", "gone"})))
+                .thenReturn(List.of("ci-1", "ci-2"));
+        when(jdbc.queryForObject(contains("nextval"), eq(Long.class))).thenReturn(7L);
+        when(jdbc.query(contains("WHERE retired_at IS NOT NULL"), any(RowMapper.class)))
+                .thenReturn(List.of(new NodeRetirements.Retired("ci-1", 3, 7), new NodeRetirements.Retired("ci-2", 1, 7)));
+
+        var registry = nodes.retire(List.of("ci-1", "ci-2", "gone"));
+
+        var order = inOrder(jdbc);
+        order.verify(jdbc).queryForList(contains("FOR UPDATE"), eq(String.class), eq(new String[]{"ci-1", "ci-2", "gone"}));
+        order.verify(jdbc).update(contains("UPDATE cf_node"), eq(7L), eq(new String[]{"ci-1", "ci-2"}));
+        assertThat(registry.generation("ci-1")).isEqualTo(7);
+        assertThat(registry.finalCounter("ci-1")).isEqualTo(3);
+        assertThat(registry.generation("api")).isZero();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void retire_withNothingLeftToRetireStartsNoGeneration() {
+        when(jdbc.queryForList(contains("FOR UPDATE"), eq(String.class), any(Object[].class))).thenReturn(List.of());
+        when(jdbc.query(contains("WHERE retired_at IS NOT NULL"), any(RowMapper.class))).thenReturn(List.of());
+
+        assertThat(nodes.retire(List.of("ci-1")).isEmpty()).isTrue();
+        verify(jdbc, never()).queryForObject(contains("nextval"), eq(Long.class));
+        verify(jdbc, never()).update(contains("UPDATE cf_node"), any(Object[].class));
+    }
+
+    @Test
+    void decode_unknownIdFails() {
+        assertThatThrownBy(() -> nodes.decode("{9,1}".getBytes(StandardCharsets.US_ASCII)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,113 @@
+package io.chronoforge.store.pg;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.chronoforge.core.NodeRetirements.RetiredNodeException;
+import io.chronoforge.core.TemporalEvent;
+import io.chronoforge.core.TemporalId;
+import io.chronoforge.core.VectorClock;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Retirement against a real database (CF_PG_URL): final counters include appends that were in
+ * flight, and the V11 trigger refuses later appends from any writer, whatever registry it holds.
+ */
+@EnabledIfEnvironmentVariable(named = "CF_PG_URL", matches = ".+")
+class NodeRetirementGuardTest {
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final String node = "retire-" + UUID.randomUUID();
+    private final UUID entity = UUID.randomUUID();
+    private JdbcTemplate jdbc;
+    private TransactionTemplate tx;
+
+    @BeforeEach
+    void setUp() {
+        var ds = new DriverManagerDataSource(System.getenv("CF_PG_URL"),
+                System.getenv().getOrDefault("CF_PG_USER", "cf"),
+                System.getenv().getOrDefault("CF_PG_PASS", "cf"));
+        Flyway.configure().dataSource(ds).load().migrate();
+        jdbc = new JdbcTemplate(ds);
+        tx = new TransactionTemplate(new DataSourceTransactionManager(ds));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbc.update("DELETE FROM cf_event WHERE entity_id = ?", entity);
+        jdbc.update("DELETE FROM cf_node WHERE name = ?", node);
+    }
+
+    private TemporalEvent event(long counter) {
+        return new TemporalEvent(new TemporalId(entity), "DOC_SET", Instant.parse("2024-03-01T10:00:00Z").plusSeconds(counter),
+                VectorClock.copyOf(Map.of(node, counter)), Map.of("n", counter), node);
+    }
+
+    @Test
+    void retire_waitsForAnInFlightAppendAndCountsIt() throws Exception {
+        var store = new PostgresEventStore(jdbc, tx, json);
+        store.append(List.of(event(1)));     // registers the node
+
+        var appended = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        try (var pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            var writer = pool.submit(() -> tx.execute(status -> {
+                store.append(List.of(event(2)));
+                appended.countDown();
+                try { release.await(); } catch (InterruptedException e) { throw new IllegalStateException(e); }
+                return null;
+            }));
+            assertThat(appended.await(10, TimeUnit.SECONDS)).isTrue();
+
+            var retire = pool.submit(() -> store.retireNodes(List.of(node)));
+            Thread.sleep(300);
+            assertThat(retire.isDone()).as("retirement waits for the open append").isFalse();
+
+            release.countDown();
+            writer.get(10, TimeUnit.SECONDS);
+            var registry = retire.get(10, TimeUnit.SECONDS);
+            assertThat(registry.finalCounter(node)).isEqualTo(2L);
+            assertThat(registry.generation(node)).isPositive();
+        }
+    }
+
+    @Test
+    void appendsFromARetiredNodeAreRefusedByTheDatabase() throws Exception {
+        var store = new PostgresEventStore(jdbc, tx, json);
+        var stale = new PostgresEventStore(jdbc, tx, json);   // another instance that has not reloaded yet
+        store.append(List.of(event(1)));
+        store.retireNodes(List.of(node));
+
+        assertThatThrownBy(() -> store.append(List.of(event(2)))).isInstanceOf(RetiredNodeException.class);
+        assertThatThrownBy(() -> stale.append(List.of(event(3))))
+                .isInstanceOf(RetiredNodeException.class)
+                .hasMessage("node is retired: " + node);
+
+        var line = json.writeValueAsString(Map.of("entityId", entity.toString(), "type", "DOC_SET",
+                "observedAt", "2024-03-01T11:00:00Z", "node", node, "clock", Map.of(node, 4), "payload", Map.of()));
+        var bulk = new PostgresBulkTransfer(jdbc, json);
+        assertThatThrownBy(() -> bulk.importNdjson(new ByteArrayInputStream((line + "\n").getBytes(StandardCharsets.UTF_8))))
+                .isInstanceOf(RetiredNodeException.class);
+
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM cf_event WHERE entity_id = ?", Long.class, entity)).isEqualTo(1L);
+    }
+}
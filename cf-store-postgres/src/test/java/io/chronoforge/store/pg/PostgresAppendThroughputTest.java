@@ -0,0 +1,113 @@
+package io.chronoforge.store.pg;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.chronoforge.core.TemporalEvent;
+import io.chronoforge.core.TemporalId;
+import io.chronoforge.core.VectorClock;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the legacy one-update-per-event append with the batched path against a real database.
+ * Runs only when CF_PG_URL is set, e.g. {@code CF_PG_URL=jdbc:postgresql://localhost:5432/chronoforge}
+ * (user/pass default to the docker-compose cf/cf). The batched path has to be at least
+ * {@link #MIN_SPEEDUP} times faster: it saves a round trip and a commit per event, which is far
+ * more than that on any real connection, so the margin absorbs noise rather than hiding a regression.
+ */
+@EnabledIfEnvironmentVariable(named = "CF_PG_URL", matches = ".+")
+class PostgresAppendThroughputTest {
+    private static final Logger log = LoggerFactory.getLogger(PostgresAppendThroughputTest.class);
+
+    private static final int EVENTS = 5_000;
+    private static final int MIN_SPEEDUP = 3;
+
+    private JdbcTemplate jdbc;
+    private ObjectMapper json;
+    private final List<UUID> entities = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        var ds = new DriverManagerDataSource(System.getenv("CF_PG_URL"),
+                System.getenv().getOrDefault("CF_PG_USER", "cf"),
+                System.getenv().getOrDefault("CF_PG_PASS", "cf"));
+        Flyway.configure().dataSource(ds).load().migrate();
+        jdbc = new JdbcTemplate(ds);
+        json = new ObjectMapper();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        for (var id : entities) jdbc.update("DELETE FROM cf_event WHERE entity_id = ?", id);
+    }
+
+    @Test
+    void batchedAppendOutpacesPerEventUpdates() throws Exception {
+        var legacyEvents = events();
+        long t0 = System.nanoTime();
+        legacyAppend(legacyEvents);
+        long legacyNanos = System.nanoTime() - t0;
+
+        var ds = jdbc.getDataSource();
+        var store = new PostgresEventStore(jdbc, new TransactionTemplate(new DataSourceTransactionManager(ds)), json);
+        var batchEvents = events();
+        long t1 = System.nanoTime();
+        var result = store.append(batchEvents);
+        long batchNanos = System.nanoTime() - t1;
+
+        assertThat(result.appendedCount()).isEqualTo(EVENTS);
+        assertThat(store.append(batchEvents).duplicateCount()).isEqualTo(EVENTS);
+
+        log.info("append {} events: legacy {} ev/s, batched {} ev/s", EVENTS,
+                Math.round(EVENTS / (legacyNanos / 1e9)), Math.round(EVENTS / (batchNanos / 1e9)));
+        assertThat(batchNanos * MIN_SPEEDUP)
+                .as("batched %d ms vs legacy %d ms", batchNanos / 1_000_000, legacyNanos / 1_000_000)
+                .isLessThan(legacyNanos);
+    }
+
+    private List<TemporalEvent> events() {
+        var id = UUID.randomUUID();
+        entities.add(id);
+        var list = new ArrayList<TemporalEvent>(EVENTS);
+        for (int i = 0; i < EVENTS; i++) {
+            list.add(new TemporalEvent(new TemporalId(id), "DOC_SET", Instant.EPOCH.plusSeconds(i),
+                    new VectorClock().tick("bench"), Map.of("i", i, "title", "event " + i), "bench"));
+        }
+        return list;
+    }
+
+    /** The pre-batching append: autocommit update per event, fresh digest per event. */
+    private void legacyAppend(List<TemporalEvent> events) throws Exception {
+        var sql = """
+                INSERT INTO cf_event (event_id, entity_id, observed_at, event_type, node, clock, payload, hash)
+                VALUES (?, ?, ?, ?, ?, ?::jsonb, ?::jsonb, ?)
+                ON CONFLICT (hash, observed_at) DO NOTHING
+                """;
+        for (var e : events) {
+            var md = MessageDigest.getInstance("SHA-256");
+            var hash = md.digest((e.entityId().value() + "|" + e.type() + "|" + e.observedAt() + "|"
+                    + json.writeValueAsString(e.payload())).getBytes(StandardCharsets.UTF_8));
+            jdbc.update(sql, UUID.randomUUID(), e.entityId().value(), Timestamp.from(e.observedAt()), e.type(),
+                    e.node(), json.writeValueAsString(e.clock().snapshot()), json.writeValueAsString(e.payload()), hash);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package io.chronoforge.store.pg;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The CSV rows fed to COPY, checked by reading them back the way Postgres does; and, when
+ * CF_PG_URL is set, an export/import round trip and the per-chunk commits around a bad line.
+ */
+class PostgresBulkTransferTest {
+
+    private final ObjectMapper json = new ObjectMapper();
+
+    /** Payload strings that would break a naive COPY encoding. */
+    private static Map<String, Object> awkwardPayload() {
+        var payload = new LinkedHashMap<String, Object>();
+        payload.put("text", "tab\there\nnew line\r\n");
+        payload.put("path", "C:\\dir\\file");
+        payload.put("quote", "say \"hi\", then leave");
+        payload.put("none", null);
+        payload.put("marker", "\\N");
+        payload.put("empty", "");
+        payload.put("unicode", "zürich \uD83D\uDE00");
+        return payload;
+    }
+
+    private String line(UUID entity, String type, Instant at, Map<String, Object> payload, String hash) throws Exception {
+        var n = new LinkedHashMap<String, Object>();
+        n.put("entityId", entity.toString());
+        n.put("type", type);
+        n.put("observedAt", at.toString());
+        n.put("node", "import");
+        n.put("clock", Map.of("import", 1));
+        n.put("payload", payload);
+        if (hash != null) n.put("hash", hash);
+        return json.writeValueAsString(n);
+    }
+
+    @Test
+    void writeRow_quotesEveryTextFieldSoPayloadsReadBackUnchanged() throws Exception {
+        var bulk = new PostgresBulkTransfer(new JdbcTemplate(), json);
+        var entity = UUID.randomUUID();
+        var at = Instant.parse("2024-03-01T10:15:30.123456Z");
+        var input = json.readTree(line(entity, "DOC \"SET\"", at, awkwardPayload(), null));
+
+        var out = new StringWriter();
+        bulk.writeRow(out, 7, input);
+        var row = out.toString();
+
+        assertThat(row).endsWith("\n");
+        assertThat(row.indexOf('\n')).isEqualTo(row.length() - 1);   // JSON escapes control chars
+        var fields = csvFields(row.substring(0, row.length() - 1));
+        assertThat(fields).hasSize(8).doesNotContainNull();
+        assertThat(fields.get(0)).isEqualTo("7");
+        assertThat(fields.get(1)).isEqualTo(entity.toString());
+        assertThat(Instant.parse(fields.get(2))).isEqualTo(at);
+        assertThat(fields.get(3)).isEqualTo("DOC \"SET\"");
+        assertThat(fields.get(4)).isEqualTo("import");
+        assertThat(json.readTree(fields.get(5))).isEqualTo(json.readTree("{\"import\":1}"));
+        assertThat(json.readTree(fields.get(6))).isEqualTo(input.get("payload"));
+        assertThat(fields.get(7)).isEqualTo("\\x" + HexFormat.of().formatHex(
+                PostgresEventStore.computeHash(entity, "DOC \"SET\"", at, fields.get(6))));
+    }
+
+    @Test
+    void writeRow_keepsAGivenHashAndDefaultsTheNode() throws Exception {
+        var bulk = new PostgresBulkTransfer(new JdbcTemplate(), json);
+        var hash = "00ff".repeat(16);
+        var input = (com.fasterxml.jackson.databind.node.ObjectNode)
+                json.readTree(line(UUID.randomUUID(), "DOC_SET", Instant.EPOCH, Map.of("a", 1), hash));
+        input.remove("node");
+
+        var out = new StringWriter();
+        bulk.writeRow(out, 1, input);
+        var fields = csvFields(out.toString().stripTrailing());
+
+        assertThat(fields.get(4)).isEqualTo("api");
+        assertThat(fields.get(7)).isEqualTo("\\x" + hash);
+    }
+
+    @Test
+    void writeRow_rejectsALineWithoutRequiredFields() throws Exception {
+        var bulk = new PostgresBulkTransfer(new JdbcTemplate(), json);
+        var input = (com.fasterxml.jackson.databind.node.ObjectNode)
+                json.readTree(line(UUID.randomUUID(), "DOC_SET", Instant.EPOCH, Map.of(), null));
+        input.remove("type");
+
+        assertThatThrownBy(() -> bulk.writeRow(new StringWriter(), 3, input))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("line 3: missing 'type'");
+    }
+
+    @Test
+    void writeRow_namesTheLineOfAMalformedField() throws Exception {
+        var bulk = new PostgresBulkTransfer(new JdbcTemplate(), json);
+        var badTime = (com.fasterxml.jackson.databind.node.ObjectNode)
+                json.readTree(line(UUID.randomUUID(), "DOC_SET", Instant.EPOCH, Map.of(), "zz"));
+        badTime.put("observedAt", "yesterday");
+        var badHash = (com.fasterxml.jackson.databind.node.ObjectNode)
+                json.readTree(line(UUID.randomUUID(), "DOC_SET", Instant.EPOCH, Map.of(), "zz"));
+        var badId = (com.fasterxml.jackson.databind.node.ObjectNode)
+                json.readTree(line(UUID.randomUUID(), "DOC_SET", Instant.EPOCH, Map.of(), null));
+        badId.put("entityId", "not-a-uuid");
+
+        assertThatThrownBy(() -> bulk.writeRow(new StringWriter(), 4, badTime))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("line 4: ");
+        assertThatThrownBy(() -> bulk.writeRow(new StringWriter(), 5, badHash))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("line 5: ");
+        assertThatThrownBy(() -> bulk.writeRow(new StringWriter(), 6, badId))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("line 6: ");
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "CF_PG_URL", matches = ".+")
+    void exportThenImport_roundTripsPayloadsAndHashes() throws Exception {
+        var jdbc = database();
+        var bulk = new PostgresBulkTransfer(jdbc, json, 2);
+        var entity = UUID.randomUUID();
+        try {
+            var ndjson = new StringBuilder();
+            for (int i = 0; i < 5; i++) {
+                var payload = awkwardPayload();
+                payload.put("i", i);
+                ndjson.append(line(entity, "DOC_SET", Instant.parse("2024-03-01T10:00:00Z").plusSeconds(i), payload, null)).append('\n');
+            }
+            var imported = bulk.importNdjson(stream(ndjson.toString()));
+            assertThat(imported).isEqualTo(new PostgresBulkTransfer.ImportResult(5, 5));
+
+            var exported = new ByteArrayOutputStream();
+            assertThat(bulk.exportNdjson(exported, entity, null, null)).isEqualTo(5);
+            var lines = exported.toString(StandardCharsets.UTF_8).lines().map(this::tree).toList();
+            var original = ndjson.toString().lines().map(this::tree).toList();
+            assertThat(lines).hasSize(5);
+            for (int i = 0; i < 5; i++) {
+                assertThat(lines.get(i).get("payload")).isEqualTo(original.get(i).get("payload"));
+                assertThat(lines.get(i).get("type").asText()).isEqualTo("DOC_SET");
+                assertThat(Instant.parse(lines.get(i).get("observedAt").asText().replace("+00:00", "Z")))
+                        .isEqualTo(Instant.parse(original.get(i).get("observedAt").asText()));
+            }
+
+            // the export carries the stored hashes, so importing it again adds nothing
+            var again = bulk.importNdjson(new ByteArrayInputStream(exported.toByteArray()));
+            assertThat(again.read()).isEqualTo(5);
+            assertThat(again.duplicates()).isEqualTo(5);
+        } finally {
+            jdbc.update("DELETE FROM cf_event WHERE entity_id = ?", entity);
+        }
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "CF_PG_URL", matches = ".+")
+    void importNdjson_badLineKeepsTheChunksBeforeItsOwn() throws Exception {
+        var jdbc = database();
+        var bulk = new PostgresBulkTransfer(jdbc, json, 2);
+        var entity = UUID.randomUUID();
+        try {
+            var ndjson = new StringBuilder();
+            for (int i = 0; i < 5; i++) {
+                ndjson.append(line(entity, "DOC_SET", Instant.parse("2024-03-01T10:00:00Z").plusSeconds(i), Map.of("i", i), null)).append('\n');
+            }
+            ndjson.append("{\"entityId\":\"").append(entity).append("\"}\n");
+
+            // chunks of 2: lines 1-4 commit, the chunk of lines 5-6 is rolled back
+            assertThat(bulk.importNdjson(stream(ndjson.toString())))
+                    .isEqualTo(new PostgresBulkTransfer.ImportResult(4, 4, 6L, "line 6: missing 'type'"));
+            assertThat(jdbc.queryForObject("SELECT count(*) FROM cf_event WHERE entity_id = ?", Long.class, entity))
+                    .isEqualTo(4L);
+
+            var malformed = line(entity, "DOC_SET", Instant.parse("2024-03-01T11:00:00Z"), Map.of(), null) + "\n{\"entityId\": \n";
+            var result = bulk.importNdjson(stream(malformed));
+            assertThat(result.failedAt()).isEqualTo(2L);
+            assertThat(result.error()).startsWith("line 2: malformed JSON");
+        } finally {
+            jdbc.update("DELETE FROM cf_event WHERE entity_id = ?", entity);
+        }
+    }
+
+    private static JdbcTemplate database() {
+        var ds = new DriverManagerDataSource(System.getenv("CF_PG_URL"),
+                System.getenv().getOrDefault("CF_PG_USER", "cf"),
+                System.getenv().getOrDefault("CF_PG_PASS", "cf"));
+        Flyway.configure().dataSource(ds).load().migrate();
+        return new JdbcTemplate(ds);
+    }
+
+    private static ByteArrayInputStream stream(String s) {
+        return new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private JsonNode tree(String s) {
+        try { return json.readTree(s); }
+        catch (Exception e) { throw new IllegalStateException(e); }
+    }
+
+    /** Splits one CSV line as COPY ... (FORMAT csv) does; an unquoted empty field is NULL. */
+    private static List<String> csvFields(String line) {
+        var fields = new ArrayList<String>();
+        var field = new StringBuilder();
+        boolean quoted = false, wasQuoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') { field.append('"'); i++; }
+                else if (c == '"') quoted = false;
+                else field.append(c);
+            } else if (c == '"') {
+                quoted = wasQuoted = true;
+            } else if (c == ',') {
+                fields.add(field.isEmpty() && !wasQuoted ? null : field.toString());
+                field.setLength(0);
+                wasQuoted = false;
+            } else {
+                field.append(c);
+            }
+        }
+        assertThat(quoted).as("unterminated quote in %s", line).isFalse();
+        fields.add(field.isEmpty() && !wasQuoted ? null : field.toString());
+        return fields;
+    }
+}
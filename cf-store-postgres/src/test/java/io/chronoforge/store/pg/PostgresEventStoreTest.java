@@ -4,17 +4,24 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import io.chronoforge.core.TemporalEvent;
 import io.chronoforge.core.TemporalId;
 import io.chronoforge.core.VectorClock;
+import io.chronoforge.store.Cursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
 import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionOperations;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -38,7 +45,8 @@ class PostgresEventStoreTest {
     void setUp() {
         jdbc = mock(JdbcTemplate.class);
         json = spy(new ObjectMapper());
-        store = new PostgresEventStore(jdbc, json);
+        store = new PostgresEventStore(jdbc, TransactionOperations.withoutTransaction(), json);
+        nodesRegistered();
 
         entityId = new TemporalId(UUID.randomUUID());
         event = new TemporalEvent(
@@ -51,9 +59,48 @@ class PostgresEventStoreTest {
         );
     }
 
+    /** Answers node dictionary registration with ids 1, 2, ... in request order. */
+    private void nodesRegistered() {
+        doAnswer(inv -> {
+            var handler = inv.<RowCallbackHandler>getArgument(1);
+            var names = (String[]) inv.getArgument(2);
+            for (int i = 0; i < names.length; i++) {
+                var rs = mock(ResultSet.class);
+                when(rs.getInt("id")).thenReturn(i + 1);
+                when(rs.getString("name")).thenReturn(names[i]);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbc).query(contains("INSERT INTO cf_node"), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    /**
+     * Answers the INSERT ... RETURNING hash, seq with the given row hashes (chosen by position in the
+     * chunk) and consecutive seqs starting at 1. Varargs arrive expanded after sql and mapper.
+     */
+    @SuppressWarnings("unchecked")
+    private void rowsInserted(int... positions) {
+        var nextSeq = new long[]{1};
+        when(jdbc.query(startsWith("INSERT"), any(RowMapper.class), any(Object[].class))).thenAnswer(inv -> {
+            Object[] args = inv.getArguments();
+            var mapper = (RowMapper<Object>) args[1];
+            int rowCount = (args.length - 2) / 8;
+            var rows = new java.util.ArrayList<>();
+            for (int p = 0; p < rowCount; p++) {
+                final int row = p;
+                if (positions.length > 0 && java.util.Arrays.stream(positions).noneMatch(x -> x == row)) continue;
+                var rs = mock(ResultSet.class);
+                when(rs.getBytes(1)).thenReturn((byte[]) args[2 + row * 8 + 7]);
+                when(rs.getLong(2)).thenReturn(nextSeq[0]++);
+                rows.add(mapper.mapRow(rs, rows.size()));
+            }
+            return rows;
+        });
+    }
+
     @Test
     void append_insertsEventAndPublishes() {
-        when(jdbc.update(anyString(), (Object[]) any())).thenReturn(1);
+        rowsInserted();
 
         var received = new AtomicReference<TemporalEvent>();
         store.subscribe().subscribe(new Flow.Subscriber<>() {
@@ -63,24 +110,27 @@ class PostgresEventStoreTest {
             @Override public void onComplete() {}
         });
 
-        store.append(List.of(event));
+        var result = store.append(List.of(event));
+        assertThat(result.appended()).containsExactly(event.withSeq(1));
+        assertThat(result.duplicates()).isEmpty();
 
-        // Verify the varargs overload was called once
+        // One multi-row insert for the whole batch
         ArgumentCaptor<String> sqlCap  = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<Object[]> argsCap = ArgumentCaptor.forClass(Object[].class);
-        verify(jdbc, times(1)).update(sqlCap.capture(), argsCap.capture());
+        verify(jdbc, times(1)).query(sqlCap.capture(), any(RowMapper.class), argsCap.capture());
+        assertThat(sqlCap.getValue()).contains("ON CONFLICT (hash, observed_at) DO NOTHING RETURNING hash, seq");
 
         Object[] args = argsCap.getValue();
         assertThat(args).hasSize(8);
         assertThat(args[3]).isEqualTo("DOC_SET");
         assertThat(args[4]).isEqualTo("api"); // default node()
         assertThat(args[2]).isInstanceOf(Timestamp.class);
-        assertThat(args[5]).asString().contains("nodeA");
+        assertThat(args[5]).isEqualTo("{1,1}"); // clock_v: node id 1 ("nodeA"), counter 1
         assertThat(args[6]).asString().contains("foo");
         assertThat(args[7]).isInstanceOf(byte[].class);
 
         for (int i = 0; i < 50 && received.get() == null; i++) Thread.onSpinWait();
-        assertThat(received.get()).isEqualTo(event);
+        assertThat(received.get()).isEqualTo(event.withSeq(1));
     }
 
     @Test
@@ -90,12 +140,31 @@ class PostgresEventStoreTest {
         store.append(null);
         store.append(List.of());
 
-        // verify the varargs overload was never called
-        verify(jdbc, never()).update(anyString(), (Object[]) any());
+        // verify nothing was inserted
         verify(jdbc, never()).query(anyString(), any(RowMapper.class), any());
     }
 
 
+    @Test
+    void append_chunksByBatchSizeAndReportsDuplicates() {
+        store = new PostgresEventStore(jdbc, TransactionOperations.withoutTransaction(), json, 2, PostgresEventStore.DEFAULT_FETCH_SIZE);
+        var other = new TemporalEvent(entityId, "DOC_SET", event.observedAt(), event.clock(), Map.of("foo", "baz"), "api");
+        var third = new TemporalEvent(entityId, "DOC_DEL", event.observedAt(), event.clock(), Map.of("keys", List.of("foo")), "api");
+
+        // The first chunk reports only its first row as new; the second chunk's row is new.
+        rowsInserted(0);
+
+        var result = store.append(List.of(event, other, third));
+
+        assertThat(result.appended()).containsExactly(event.withSeq(1), third.withSeq(2));
+        assertThat(result.duplicates()).containsExactly(other);
+
+        ArgumentCaptor<Object[]> argsCap = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbc, times(2)).query(startsWith("INSERT"), any(RowMapper.class), argsCap.capture());
+        assertThat(argsCap.getAllValues().get(0)).hasSize(16);
+        assertThat(argsCap.getAllValues().get(1)).hasSize(8);
+    }
+
     @Test
     void read_executesQuery() {
         when(jdbc.query(
@@ -116,6 +185,45 @@ class PostgresEventStoreTest {
     }
 
 
+    @Test
+    void readEach_usesCursorWithFetchSize() throws Exception {
+        var con = mock(java.sql.Connection.class);
+        var ps = mock(java.sql.PreparedStatement.class);
+        when(con.prepareStatement(anyString(), anyInt(), anyInt())).thenReturn(ps);
+        doAnswer(inv -> {
+            inv.<PreparedStatementCreator>getArgument(0).createPreparedStatement(con);
+            return null;
+        }).when(jdbc).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        store.readEach(entityId, e -> {});
+
+        verify(con).prepareStatement(contains("WHERE entity_id = ?"),
+                eq(java.sql.ResultSet.TYPE_FORWARD_ONLY), eq(java.sql.ResultSet.CONCUR_READ_ONLY));
+        verify(ps).setFetchSize(PostgresEventStore.DEFAULT_FETCH_SIZE);
+        verify(ps).setObject(1, entityId.value());
+    }
+
+    @Test
+    void readEach_resumesAfterCursorUpToAsOf() throws Exception {
+        var con = mock(java.sql.Connection.class);
+        var ps = mock(java.sql.PreparedStatement.class);
+        when(con.prepareStatement(anyString(), anyInt(), anyInt())).thenReturn(ps);
+        doAnswer(inv -> {
+            inv.<PreparedStatementCreator>getArgument(0).createPreparedStatement(con);
+            return null;
+        }).when(jdbc).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        var after = new Cursor(Instant.parse("2025-09-16T00:00:00Z"), 42);
+        var asOf = Instant.parse("2025-09-17T00:00:00Z");
+        store.readEach(entityId, after, asOf, e -> {});
+
+        verify(con).prepareStatement(contains("AND observed_at <= ? AND (observed_at, seq) > (?, ?)"),
+                anyInt(), anyInt());
+        verify(ps).setObject(2, Timestamp.from(asOf));
+        verify(ps).setObject(3, Timestamp.from(after.observedAt()));
+        verify(ps).setObject(4, 42L);
+    }
+
     @Test
     void search_withAllFiltersBuildsCorrectSql() {
         when(jdbc.query(anyString(), any(RowMapper.class), any(Object[].class)))
@@ -140,15 +248,27 @@ class PostgresEventStoreTest {
                 .contains("LIMIT ?");
     }
 
+    @Test
+    void append_withReplayedIdempotencyKeyInsertsNothing() {
+        when(jdbc.update(startsWith("INSERT INTO cf_idempotency_key"), eq("retry-1"))).thenReturn(0);
+
+        var result = store.append(List.of(event), "retry-1");
+
+        assertThat(result.appended()).isEmpty();
+        assertThat(result.duplicates()).containsExactly(event);
+        verify(jdbc, never()).query(startsWith("INSERT INTO cf_event"), any(RowMapper.class), any(Object[].class));
+        assertThat(store.dedupeStats().keyReplays()).isEqualTo(1);
+    }
+
     @Test
     void computeHashProducesStableDigest() {
         ArgumentCaptor<Object[]> captor = ArgumentCaptor.forClass(Object[].class);
-        doAnswer(inv -> null).when(jdbc).update(anyString(), captor.capture());
+        when(jdbc.query(anyString(), any(RowMapper.class), captor.capture())).thenReturn(List.of());
 
         store.append(List.of(event));
 
         Object[] args = captor.getValue();
-        byte[] hash1 = (byte[]) args[7]; // position of hash in update
+        byte[] hash1 = (byte[]) args[7]; // position of hash in insert
 
         store.append(List.of(event));
         Object[] args2 = captor.getValue();
@@ -157,6 +277,26 @@ class PostgresEventStoreTest {
         assertThat(hash1).isEqualTo(hash2); // deterministic hash
     }
 
+    @Test
+    void mapper_decodesTypedColumnsAndJsonbBytes() throws Exception {
+        var rs = mock(ResultSet.class);
+        when(rs.getObject("entity_id", UUID.class)).thenReturn(entityId.value());
+        when(rs.getString("event_type")).thenReturn("DOC_SET");
+        when(rs.getObject("observed_at", OffsetDateTime.class)).thenReturn(OffsetDateTime.parse("2025-09-16T14:00:00+02:00"));
+        when(rs.getBytes("clock")).thenReturn("{\"nodeA\": 2, \"nodeB\": 1}".getBytes(StandardCharsets.UTF_8));
+        when(rs.getBytes("payload")).thenReturn("{\"title\": \"caf\u00e9\", \"n\": [1, 2]}".getBytes(StandardCharsets.UTF_8));
+        when(rs.getString("node")).thenReturn("api");
+        when(rs.getLong("seq")).thenReturn(42L);
+
+        var e = store.mapper().mapRow(rs, 0);
+
+        assertThat(e.entityId()).isEqualTo(entityId);
+        assertThat(e.observedAt()).isEqualTo(Instant.parse("2025-09-16T12:00:00Z"));
+        assertThat(e.clock().snapshot()).isEqualTo(Map.of("nodeA", 2L, "nodeB", 1L));
+        assertThat(e.payload()).isEqualTo(Map.of("title", "caf\u00e9", "n", List.of(1, 2)));
+        assertThat(e.seq()).isEqualTo(42L);
+    }
+
     @Test
     void toJsonAndBackRoundTrip() {
         Map<String, Long> clock = Map.of("nodeA", 1L);
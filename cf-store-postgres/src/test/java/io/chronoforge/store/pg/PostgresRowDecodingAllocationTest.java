@@ -0,0 +1,126 @@
+package io.chronoforge.store.pg;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.chronoforge.core.TemporalEvent;
+import io.chronoforge.core.TemporalId;
+import io.chronoforge.core.VectorClock;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares bytes allocated per decoded row by the String-based row mapper this store used to
+ * have with {@link PostgresEventStore#mapper()}, over the same result set so driver fetch cost
+ * is excluded. Runs only when CF_PG_URL is set (see {@link PostgresAppendThroughputTest}).
+ * The byte path must allocate at most {@link #MAX_RATIO} of the legacy bytes per row: it skips
+ * the String copies of both JSON columns and the UUID and timestamp text, which is well over a
+ * quarter of the legacy total, so the margin only absorbs allocation-counter noise.
+ */
+@EnabledIfEnvironmentVariable(named = "CF_PG_URL", matches = ".+")
+class PostgresRowDecodingAllocationTest {
+    private static final Logger log = LoggerFactory.getLogger(PostgresRowDecodingAllocationTest.class);
+
+    private static final int EVENTS = 5_000;
+    private static final int ROUNDS = 5;
+    private static final double MAX_RATIO = 0.75;
+
+    private JdbcTemplate jdbc;
+    private ObjectMapper json;
+    private final UUID entity = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        var ds = new DriverManagerDataSource(System.getenv("CF_PG_URL"),
+                System.getenv().getOrDefault("CF_PG_USER", "cf"),
+                System.getenv().getOrDefault("CF_PG_PASS", "cf"));
+        Flyway.configure().dataSource(ds).load().migrate();
+        jdbc = new JdbcTemplate(ds);
+        json = new ObjectMapper();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbc.update("DELETE FROM cf_event WHERE entity_id = ?", entity);
+    }
+
+    @Test
+    void byteDecodingAllocatesLessPerRow() {
+        var store = new PostgresEventStore(jdbc, new TransactionTemplate(new DataSourceTransactionManager(jdbc.getDataSource())), json);
+        var events = new ArrayList<TemporalEvent>(EVENTS);
+        for (int i = 0; i < EVENTS; i++) {
+            events.add(new TemporalEvent(new TemporalId(entity), "DOC_SET", Instant.EPOCH.plusSeconds(i),
+                    new VectorClock().tick("bench").tick("edge-" + (i % 4)),
+                    Map.of("i", i, "title", "event " + i, "tags", List.of("a", "b")), "bench"));
+        }
+        store.append(events);
+
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().threadId();
+        RowMapper<TemporalEvent> legacy = legacyMapper(), current = store.mapper();
+        long[] allocated = new long[2];
+        for (int round = 0; round < ROUNDS; round++) {
+            boolean measure = round > 0;    // first round warms up both paths
+            allocated[0] = allocated[1] = 0;
+            // the legacy mapper reads the JSONB clock, the store the encoded one
+            jdbc.query("SELECT entity_id, event_type, observed_at, node, COALESCE(clock, cf_clock_decode(clock_v)) AS clock, clock_v, payload, seq"
+                            + " FROM cf_event WHERE entity_id = ? ORDER BY seq",
+                    (RowCallbackHandler) rs -> {
+                        long a = threads.getThreadAllocatedBytes(tid);
+                        var before = legacy.mapRow(rs, 0);
+                        long b = threads.getThreadAllocatedBytes(tid);
+                        var after = current.mapRow(rs, 0);
+                        long c = threads.getThreadAllocatedBytes(tid);
+                        allocated[0] += b - a;
+                        allocated[1] += c - b;
+                        if (!measure) {
+                            assertThat(after.payload()).isEqualTo(before.payload());
+                            assertThat(after.clock().snapshot()).isEqualTo(before.clock().snapshot());
+                            assertThat(after.observedAt()).isEqualTo(before.observedAt());
+                        }
+                    }, entity);
+        }
+
+        double legacyPerRow = (double) allocated[0] / EVENTS, currentPerRow = (double) allocated[1] / EVENTS;
+        log.info("decode {} rows: legacy {} B/row, current {} B/row ({}%)", EVENTS,
+                Math.round(legacyPerRow), Math.round(currentPerRow), Math.round(100 * currentPerRow / legacyPerRow));
+        assertThat(currentPerRow)
+                .as("current %.0f B/row vs legacy %.0f B/row", currentPerRow, legacyPerRow)
+                .isLessThanOrEqualTo(legacyPerRow * MAX_RATIO);
+    }
+
+    /** The pre-byte-decoding mapper: String columns, UUID/Timestamp parsing, a TypeReference per call. */
+    private RowMapper<TemporalEvent> legacyMapper() {
+        return (ResultSet rs, int rowNum) -> {
+            try {
+                Map<String, Long> clock = json.readValue(rs.getString("clock"), new TypeReference<>() {});
+                Map<String, Object> payload = json.readValue(rs.getString("payload"), new TypeReference<>() {});
+                return new TemporalEvent(new TemporalId(UUID.fromString(rs.getString("entity_id"))), rs.getString("event_type"),
+                        rs.getTimestamp("observed_at").toInstant(), VectorClock.from(clock), payload, rs.getString("node"),
+                        rs.getLong("seq"));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        };
+    }
+}
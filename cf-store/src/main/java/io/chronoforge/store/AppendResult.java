@@ -0,0 +1,29 @@
+package io.chronoforge.store;
+
+import io.chronoforge.core.TemporalEvent;
+
+import java.util.List;
+
+/**
+ * Outcome of {@link EventStore#append(List)}: which events were newly stored and which
+ * were recognised as duplicates of events already in the store (idempotent retries).
+ * Both lists keep the order of the submitted batch; {@code duplicates} holds the submitted
+ * instances themselves, {@code appended} copies carrying their assigned seq.
+ */
+public record AppendResult(List<TemporalEvent> appended, List<TemporalEvent> duplicates) {
+    public static final AppendResult EMPTY = new AppendResult(List.of(), List.of());
+
+    public AppendResult {
+        appended = List.copyOf(appended);
+        duplicates = List.copyOf(duplicates);
+    }
+
+    /** Every event was new. */
+    public static AppendResult allAppended(List<TemporalEvent> events) {
+        return new AppendResult(events, List.of());
+    }
+
+    public int appendedCount() { return appended.size(); }
+
+    public int duplicateCount() { return duplicates.size(); }
+}
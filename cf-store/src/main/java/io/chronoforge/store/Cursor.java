@@ -0,0 +1,55 @@
+package io.chronoforge.store;
+
+import io.chronoforge.core.TemporalEvent;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * Keyset position in the {@code (observedAt, seq)} order used by reads and searches.
+ * {@code observedAt} alone is not unique (deterministic seeds collide by design); {@code seq} breaks ties.
+ * Travels over the API as an opaque base64url token.
+ */
+public record Cursor(Instant observedAt, long seq) {
+    /** Store ordering: observedAt, then seq. */
+    public static final Comparator<TemporalEvent> ORDER =
+            Comparator.comparing(TemporalEvent::observedAt).thenComparingLong(TemporalEvent::seq);
+
+    private static final int TOKEN_BYTES = Long.BYTES + Integer.BYTES + Long.BYTES;
+
+    public Cursor {
+        Objects.requireNonNull(observedAt);
+    }
+
+    /** Position of {@code e}; a page continuing from it starts with the next event. */
+    public static Cursor after(TemporalEvent e) {
+        return new Cursor(e.observedAt(), e.seq());
+    }
+
+    /** True if {@code e} sorts strictly after this position. */
+    public boolean isBefore(TemporalEvent e) {
+        int c = e.observedAt().compareTo(observedAt);
+        return c > 0 || (c == 0 && e.seq() > seq);
+    }
+
+    public String encode() {
+        var b = ByteBuffer.allocate(TOKEN_BYTES)
+                .putLong(observedAt.getEpochSecond())
+                .putInt(observedAt.getNano())
+                .putLong(seq);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(b.array());
+    }
+
+    /** @throws IllegalArgumentException if the token was not produced by {@link #encode()} */
+    public static Cursor decode(String token) {
+        byte[] raw = Base64.getUrlDecoder().decode(Objects.requireNonNull(token));
+        if (raw.length != TOKEN_BYTES) throw new IllegalArgumentException("Malformed cursor token");
+        var b = ByteBuffer.wrap(raw);
+        return new Cursor(Instant.ofEpochSecond(b.getLong(), b.getInt()), b.getLong());
+    }
+
+    @Override public String toString() { return encode(); }
+}
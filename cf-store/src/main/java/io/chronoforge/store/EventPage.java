@@ -0,0 +1,21 @@
+package io.chronoforge.store;
+
+import io.chronoforge.core.TemporalEvent;
+
+import java.util.List;
+
+/** One keyset page; {@code next} is null on the last page. */
+public record EventPage(List<TemporalEvent> events, Cursor next) {
+    public EventPage {
+        events = List.copyOf(events);
+    }
+
+    /** Builds a page from up to {@code limit + 1} rows; the extra row only signals that more exist. */
+    public static EventPage of(List<TemporalEvent> rows, int limit) {
+        if (rows.size() <= limit) return new EventPage(rows, null);
+        var page = rows.subList(0, limit);
+        return new EventPage(page, Cursor.after(page.get(limit - 1)));
+    }
+
+    public boolean hasNext() { return next != null; }
+}
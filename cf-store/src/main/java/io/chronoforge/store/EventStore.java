@@ -4,12 +4,88 @@ import io.chronoforge.core.TemporalId;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.Flow;
 import java.util.concurrent.Flow.Publisher;
+import java.util.function.Consumer;
 
 public interface EventStore {
-    void append(List<TemporalEvent> events);
+    /** Appends a batch; events already present (same idempotency hash) are reported as duplicates. */
+    default AppendResult append(List<TemporalEvent> events) {
+        return append(events, null);
+    }
+    /**
+     * {@link #append(List)} guarded by a client-supplied key: the first call with a given key
+     * appends, later calls with the same key append nothing and report every event as a
+     * duplicate, even when the retried events differ (e.g. fresh server timestamps). Null = no key.
+     */
+    AppendResult append(List<TemporalEvent> events, String idempotencyKey);
     List<TemporalEvent> read(TemporalId id);
+    /**
+     * Streaming variant of {@link #read}: hands events to {@code sink} in time order as they are
+     * read instead of materializing a list. An exception thrown by the sink aborts the read.
+     */
+    default void readEach(TemporalId id, Consumer<? super TemporalEvent> sink) {
+        readEach(id, null, null, sink);
+    }
+    /**
+     * Bounded {@link #readEach}: only events strictly after {@code after} and not after
+     * {@code asOf} (either may be null), in {@code (observedAt, seq)} order. Lets a replay resume
+     * from a known position instead of the beginning.
+     */
+    void readEach(TemporalId id, Cursor after, Instant asOf, Consumer<? super TemporalEvent> sink);
+    /**
+     * Every event with {@code seq > afterSeq}, across all entities, in {@code seq} order, streamed
+     * to {@code sink}. For projections catching up from a stored position or replaying the log.
+     */
+    void readSince(long afterSeq, Consumer<? super TemporalEvent> sink);
+    /**
+     * One page of {@link #readSince}: at most {@code limit} events with {@code seq > afterSeq} in
+     * {@code seq} order, only {@code id}'s when not null, so no read holds a cursor while a slow
+     * reader catches up. Seqs are not commit order in every store; feeds that hand positions to
+     * clients to resume from use {@link #readAfter}.
+     */
+    List<TemporalEvent> readSince(TemporalId id, long afterSeq, int limit);
+    /**
+     * Keyset page of an entity's events in {@code (observedAt, seq)} order, starting after
+     * {@code after} (null = first page), optionally capped at {@code asOf}. Cost does not grow with depth.
+     */
+    EventPage readPage(TemporalId id, Instant asOf, Cursor after, int limit);
+    /**
+     * Like {@link #readSince(TemporalId, long, int)}, but in {@link LogPosition} order and never
+     * past an event something may still commit before: a feed that resumes from the last
+     * position it handed out misses nothing, however appends interleave. The default is the
+     * seq page, for stores whose seqs become visible in order.
+     */
+    default List<Positioned> readAfter(TemporalId id, LogPosition after, int limit) {
+        return readSince(id, after.seq(), limit).stream().map(Positioned::ofSeq).toList();
+    }
     Publisher<TemporalEvent> subscribe();
+    /**
+     * {@link #subscribe()} with each event's {@link LogPosition}, delivered in position order;
+     * pairs with {@link #readAfter}. The default tags events with their seq.
+     */
+    default Publisher<Positioned> subscribePositioned() {
+        var events = subscribe();
+        return subscriber -> events.subscribe(new Flow.Subscriber<TemporalEvent>() {
+            @Override public void onSubscribe(Flow.Subscription s) { subscriber.onSubscribe(s); }
+            @Override public void onNext(TemporalEvent e) { subscriber.onNext(Positioned.ofSeq(e)); }
+            @Override public void onError(Throwable t) { subscriber.onError(t); }
+            @Override public void onComplete() { subscriber.onComplete(); }
+        });
+    }
     List<TemporalEvent> search(String type, Instant from, Instant to, Integer limit,
                                String jsonPath, String jsonValue);
+    /** Keyset-paginated {@link #search}; see {@link #readPage}. */
+    EventPage searchPage(String type, Instant from, Instant to, String jsonPath, String jsonValue,
+                         Cursor after, int limit);
+    /** Streaming variant of {@link #search}; same filters and ordering. */
+    void searchEach(String type, Instant from, Instant to, Integer limit,
+                    String jsonPath, String jsonValue, Consumer<? super TemporalEvent> sink);
+
+    /** An event and its place in commit order. */
+    record Positioned(TemporalEvent event, LogPosition position) {
+        static Positioned ofSeq(TemporalEvent e) {
+            return new Positioned(e, LogPosition.ofSeq(e.seq()));
+        }
+    }
 }
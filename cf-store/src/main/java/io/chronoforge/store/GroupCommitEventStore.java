@@ -0,0 +1,235 @@
+package io.chronoforge.store;
+
+import io.chronoforge.core.TemporalEvent;
+import io.chronoforge.core.TemporalId;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Group commit over another store: concurrent {@link #append} calls are queued, written by one
+ * flusher thread as a single delegate append, and each caller returns once that batch is stored.
+ * A batch closes when it holds {@code maxBatch} events or {@code window} after its first append,
+ * whichever comes first; with a zero window it takes whatever queued up while the previous batch
+ * was being written. If a merged batch fails, its appends are retried one by one, so a bad event
+ * fails only its own caller.
+ *
+ * Reads, subscriptions, appends with an idempotency key (the key covers exactly one call) and
+ * appends of {@code maxBatch} events or more go straight to the delegate.
+ */
+public final class GroupCommitEventStore implements EventStore, AutoCloseable {
+    record Pending(List<TemporalEvent> events, CompletableFuture<AppendResult> result) {}
+
+    /** Batches written and the appends and events they carried, since start. */
+    public record Stats(long batches, long appends, long events) {
+        public double appendsPerBatch() { return batches == 0 ? 0 : (double) appends / batches; }
+    }
+
+    private final EventStore delegate;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread flusher;
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder appends = new LongAdder();
+    private final LongAdder events = new LongAdder();
+    private volatile boolean closed;
+
+    public GroupCommitEventStore(EventStore delegate, Duration window, int maxBatch) {
+        if (maxBatch < 1) throw new IllegalArgumentException("maxBatch must be positive: " + maxBatch);
+        this.delegate = delegate;
+        this.windowNanos = window.toNanos();
+        this.maxBatch = maxBatch;
+        this.flusher = Thread.ofPlatform().daemon().name("cf-group-commit").start(this::run);
+    }
+
+    public EventStore delegate() { return delegate; }
+
+    public Stats stats() { return new Stats(batches.sum(), appends.sum(), events.sum()); }
+
+    @Override
+    public AppendResult append(List<TemporalEvent> events, String idempotencyKey) {
+        if (events == null || events.isEmpty()) return AppendResult.EMPTY;
+        if (idempotencyKey != null || events.size() >= maxBatch || closed) return delegate.append(events, idempotencyKey);
+        var pending = new Pending(List.copyOf(events), new CompletableFuture<>());
+        queue.add(pending);
+        // closed while queueing: if the flusher did not take it, nobody will
+        if (closed && queue.remove(pending)) return delegate.append(events);
+        try {
+            return pending.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    private void run() {
+        var batch = new ArrayList<Pending>();
+        while (!closed || !queue.isEmpty()) {
+            try {
+                var first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                int size = first.events().size();
+                long deadline = System.nanoTime() + windowNanos;
+                while (size < maxBatch) {
+                    var next = queue.poll();
+                    if (next == null) {
+                        long left = deadline - System.nanoTime();
+                        if (left <= 0 || closed) break;
+                        next = queue.poll(left, TimeUnit.NANOSECONDS);
+                        if (next == null) break;
+                    }
+                    batch.add(next);
+                    size += next.events().size();
+                }
+                flush(batch, size);
+            } catch (InterruptedException e) {
+                closed = true;
+                if (!batch.isEmpty()) flush(batch, batch.stream().mapToInt(p -> p.events().size()).sum());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Pending> batch, int size) {
+        try {
+            if (batch.size() == 1) {
+                var only = batch.getFirst();
+                only.result().complete(delegate.append(only.events()));
+            } else {
+                var all = new ArrayList<TemporalEvent>(size);
+                for (var p : batch) all.addAll(p.events());
+                AppendResult result;
+                try {
+                    result = delegate.append(all);
+                } catch (RuntimeException e) {
+                    for (var p : batch) appendAlone(p);
+                    return;
+                }
+                split(result, batch);
+            }
+            batches.increment();
+            appends.add(batch.size());
+            events.add(size);
+        } catch (RuntimeException | Error e) {
+            for (var p : batch) p.result().completeExceptionally(e);
+        }
+    }
+
+    private void appendAlone(Pending p) {
+        try {
+            p.result().complete(delegate.append(p.events()));
+        } catch (RuntimeException e) {
+            p.result().completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Hands each caller its share. {@code appended} keeps the order of the merged batch, so walking
+     * the submitted events against it places every stored copy; an event it does not match was a
+     * duplicate. When one event is submitted twice the first occurrence is stored, so equal
+     * events from different callers are placed by position, not by which instance the store kept.
+     */
+    static void split(AppendResult result, List<Pending> batch) {
+        var stored = result.appended();
+        int a = 0, duplicates = 0;
+        var shares = new ArrayList<AppendResult>(batch.size());
+        for (var p : batch) {
+            var appended = new ArrayList<TemporalEvent>(p.events().size());
+            var dup = new ArrayList<TemporalEvent>();
+            for (var e : p.events()) {
+                if (a < stored.size() && sameEvent(stored.get(a), e)) appended.add(stored.get(a++));
+                else dup.add(e);
+            }
+            duplicates += dup.size();
+            shares.add(new AppendResult(appended, dup));
+        }
+        if (a != stored.size() || duplicates != result.duplicateCount()) {
+            throw new IllegalStateException("store reported " + result.appendedCount() + " appended and "
+                    + result.duplicateCount() + " duplicates, " + a + " and " + duplicates + " match the batch");
+        }
+        for (int i = 0; i < batch.size(); i++) batch.get(i).result().complete(shares.get(i));
+    }
+
+    /** {@code stored} is {@code submitted} with a seq assigned. */
+    private static boolean sameEvent(TemporalEvent stored, TemporalEvent submitted) {
+        return stored.entityId().equals(submitted.entityId())
+                && stored.type().equals(submitted.type())
+                && stored.observedAt().equals(submitted.observedAt())
+                && stored.node().equals(submitted.node())
+                && stored.payload().equals(submitted.payload())
+                && stored.clock().snapshot().equals(submitted.clock().snapshot());
+    }
+
+    /** Stops taking new batches, writes what is queued, and waits for the flusher to finish. */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public List<TemporalEvent> read(TemporalId id) { return delegate.read(id); }
+
+    @Override
+    public void readEach(TemporalId id, Cursor after, Instant asOf, Consumer<? super TemporalEvent> sink) {
+        delegate.readEach(id, after, asOf, sink);
+    }
+
+    @Override
+    public void readSince(long afterSeq, Consumer<? super TemporalEvent> sink) { delegate.readSince(afterSeq, sink); }
+
+    @Override
+    public List<TemporalEvent> readSince(TemporalId id, long afterSeq, int limit) {
+        return delegate.readSince(id, afterSeq, limit);
+    }
+
+    @Override
+    public EventPage readPage(TemporalId id, Instant asOf, Cursor after, int limit) {
+        return delegate.readPage(id, asOf, after, limit);
+    }
+
+    @Override
+    public List<Positioned> readAfter(TemporalId id, LogPosition after, int limit) {
+        return delegate.readAfter(id, after, limit);
+    }
+
+    @Override
+    public Flow.Publisher<TemporalEvent> subscribe() { return delegate.subscribe(); }
+
+    @Override
+    public Flow.Publisher<Positioned> subscribePositioned() { return delegate.subscribePositioned(); }
+
+    @Override
+    public List<TemporalEvent> search(String type, Instant from, Instant to, Integer limit,
+                                      String jsonPath, String jsonValue) {
+        return delegate.search(type, from, to, limit, jsonPath, jsonValue);
+    }
+
+    @Override
+    public EventPage searchPage(String type, Instant from, Instant to, String jsonPath, String jsonValue,
+                                Cursor after, int limit) {
+        return delegate.searchPage(type, from, to, jsonPath, jsonValue, after, limit);
+    }
+
+    @Override
+    public void searchEach(String type, Instant from, Instant to, Integer limit,
+                           String jsonPath, String jsonValue, Consumer<? super TemporalEvent> sink) {
+        delegate.searchEach(type, from, to, limit, jsonPath, jsonValue, sink);
+    }
+}
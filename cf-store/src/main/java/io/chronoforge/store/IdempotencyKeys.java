@@ -0,0 +1,70 @@
+package io.chronoforge.store;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Client idempotency keys for the stores that keep them in memory. A key blocks replays for
+ * {@code ttl} after its first use, as {@code cf_idempotency_key} does for the Postgres store
+ * (cf.idempotency.ttl), and is then forgotten, so the set holds one retry window of keys
+ * rather than every key ever used.
+ */
+public final class IdempotencyKeys {
+    public static final Duration DEFAULT_TTL = Duration.ofDays(1);
+
+    private final Duration ttl;
+    private final Cache<String, Instant> keys;      // key -> when it was first used
+
+    public IdempotencyKeys(Duration ttl) {
+        if (ttl.isNegative() || ttl.isZero()) throw new IllegalArgumentException("ttl must be positive, got " + ttl);
+        this.ttl = ttl;
+        this.keys = Caffeine.newBuilder()
+                .expireAfter(new Expiry<String, Instant>() {
+                    @Override
+                    public long expireAfterCreate(String key, Instant usedAt, long currentTime) {
+                        return Math.max(0, remaining(usedAt).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Instant usedAt, long currentTime, long currentDuration) {
+                        return Math.max(0, remaining(usedAt).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Instant usedAt, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    public Duration ttl() { return ttl; }
+
+    /** Whether {@code key} was used within the window. */
+    public boolean contains(String key) {
+        return keys.getIfPresent(key) != null;
+    }
+
+    /** Records a use of {@code key} now; false if it was already used within the window. */
+    public boolean claim(String key) {
+        return keys.asMap().putIfAbsent(key, Instant.now()) == null;
+    }
+
+    /** Records a use read back from a log, unless it is already outside the window. */
+    public void restore(String key, Instant usedAt) {
+        if (remaining(usedAt).isPositive()) keys.asMap().merge(key, usedAt, (a, b) -> a.isAfter(b) ? a : b);
+    }
+
+    /** Keys in the window, counting any that expired but have not been evicted yet. */
+    public long size() {
+        return keys.estimatedSize();
+    }
+
+    private Duration remaining(Instant usedAt) {
+        return ttl.minus(Duration.between(usedAt, Instant.now()));
+    }
+}
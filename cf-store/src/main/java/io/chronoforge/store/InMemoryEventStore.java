@@ -3,27 +3,148 @@ package io.chronoforge.store;
 import io.chronoforge.core.TemporalEvent;
 import io.chronoforge.core.TemporalId;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Flow;
 import java.util.concurrent.SubmissionPublisher;
-import java.util.stream.Stream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
+/**
+ * Reads never lock; appends lock only the entity they write to. Each entity keeps its events in
+ * append-only chunks that readers walk without copying. Searches walk skip lists ordered by
+ * {@code (observedAt, seq)}, one over every event and one per type, so a time range is a
+ * sub-map view: no full scan, no sort, and a limit stops the walk early.
+ *
+ * Subscribers get events in seq order: two entities' appends can land out of seq order, so
+ * each append hands the bus every seq that is now contiguous, under one lock, rather than its
+ * own events as they land. A subscriber that resumes with {@link #readSince} from the last seq
+ * it got therefore never skips one.
+ *
+ * Idempotency keys block replays for the given ttl (cf.idempotency.ttl, default P1D) and are
+ * then forgotten; see {@link IdempotencyKeys}.
+ */
 public final class InMemoryEventStore implements EventStore{
-    private final Map<TemporalId, List<TemporalEvent>> byId = new HashMap<>();
+    private static final Comparator<Cursor> KEY_ORDER =
+            Comparator.comparing(Cursor::observedAt).thenComparingLong(Cursor::seq);
+
+    private final ConcurrentMap<TemporalId, EntityLog> byId = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, TemporalEvent> bySeq = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<Cursor, TemporalEvent> byTime = new ConcurrentSkipListMap<>(KEY_ORDER);
+    private final ConcurrentMap<String, ConcurrentSkipListMap<Cursor, TemporalEvent>> byType = new ConcurrentHashMap<>();
     private final SubmissionPublisher<TemporalEvent> bus = new SubmissionPublisher<>();
+    private final IdempotencyKeys idempotencyKeys;
+    private final AtomicLong seq = new AtomicLong();
+    private final ReentrantLock publishing = new ReentrantLock();
+    private long published;     // guarded by publishing
+
+    public InMemoryEventStore() {
+        this(IdempotencyKeys.DEFAULT_TTL);
+    }
+
+    public InMemoryEventStore(Duration idempotencyTtl) {
+        this.idempotencyKeys = new IdempotencyKeys(idempotencyTtl);
+    }
 
     @Override
-    public synchronized void append(List<TemporalEvent> events) {
+    public AppendResult append(List<TemporalEvent> events, String idempotencyKey) {
+        if (events == null || events.isEmpty()) return AppendResult.EMPTY;
+        if (idempotencyKey != null && !idempotencyKeys.claim(idempotencyKey)) return new AppendResult(List.of(), List.copyOf(events));
+        var stored = new ArrayList<TemporalEvent>(events.size());
         for (var e: events){
-            byId.computeIfAbsent(e.entityId(), k -> new ArrayList<>()).add(e);
-            bus.submit(e);
+            var log = byId.computeIfAbsent(e.entityId(), k -> new EntityLog());
+            synchronized (log) {
+                // seq is taken under the entity's lock, so an entity's chunks are in seq order
+                var s = e.withSeq(seq.incrementAndGet());
+                var key = Cursor.after(s);
+                log.append(s, key);
+                byTime.put(key, s);
+                byType.computeIfAbsent(s.type(), t -> new ConcurrentSkipListMap<>(KEY_ORDER)).put(key, s);
+                bySeq.put(s.seq(), s);
+                stored.add(s);
+            }
+            publishContiguous();
+        }
+        return AppendResult.allAppended(stored);
+    }
+
+    /** Publishes from the last published seq up to the first gap; the append that fills it publishes the rest. */
+    private void publishContiguous() {
+        publishing.lock();
+        try {
+            for (TemporalEvent e; (e = bySeq.get(published + 1)) != null; published++) bus.submit(e);
+        } finally {
+            publishing.unlock();
+        }
+    }
+
+    @Override
+    public List<TemporalEvent> read(TemporalId id) {
+        var log = byId.get(id);
+        if (log == null) return List.of();
+        var rows = new ArrayList<TemporalEvent>(log.size());
+        log.forEach(null, null, rows::add);
+        return Collections.unmodifiableList(rows);
+    }
+
+    /** Walks the entity's events in place; a slow sink never blocks appends. */
+    @Override
+    public void readEach(TemporalId id, Cursor after, Instant asOf, Consumer<? super TemporalEvent> sink) {
+        var log = byId.get(id);
+        if (log == null) return;
+        log.forEach(after, asOf, e -> {
+            sink.accept(e);
+            return true;
+        });
+    }
+
+    /**
+     * Stops at the first seq whose append is still in flight on another entity, so a caller that
+     * resumes from the last seq it saw never skips one.
+     */
+    @Override
+    public void readSince(long afterSeq, Consumer<? super TemporalEvent> sink) {
+        long next = afterSeq + 1;
+        for (var e : bySeq.tailMap(afterSeq, false).entrySet()) {
+            if (e.getKey() != next++) return;
+            sink.accept(e.getValue());
+        }
+    }
+
+    /**
+     * With {@code id}, a binary search and a walk over that entity's own log: its seqs are taken
+     * under its lock, so its log never has a gap to wait for. Without, the global log up to the
+     * first gap, as {@link #readSince(long, Consumer)}.
+     */
+    @Override
+    public List<TemporalEvent> readSince(TemporalId id, long afterSeq, int limit) {
+        var rows = new ArrayList<TemporalEvent>(Math.max(0, Math.min(limit, 1024)));
+        if (id != null) {
+            var log = byId.get(id);
+            if (log != null) log.since(afterSeq, limit, rows);
+            return rows;
         }
+        long next = afterSeq + 1;
+        for (var e : bySeq.tailMap(afterSeq, false).entrySet()) {
+            if (e.getKey() != next++ || rows.size() >= limit) break;
+            rows.add(e.getValue());
+        }
+        return rows;
     }
 
     @Override
-    public synchronized List<TemporalEvent> read(TemporalId id) {
-        return List.copyOf(byId.getOrDefault(id, List.of()));
+    public EventPage readPage(TemporalId id, Instant asOf, Cursor after, int limit) {
+        var log = byId.get(id);
+        if (log == null) return EventPage.of(List.of(), limit);
+        var rows = new ArrayList<TemporalEvent>(Math.min(limit + 1, log.size()));
+        log.forEach(after, asOf, e -> rows.add(e) && rows.size() <= limit);
+        return EventPage.of(rows, limit);
     }
 
     @Override
@@ -32,36 +153,154 @@ public final class InMemoryEventStore implements EventStore{
     }
 
     @Override
-    public synchronized List<TemporalEvent> search(
+    public List<TemporalEvent> search(
             String type, Instant from, Instant to,
             Integer limit, String jsonPath, String jsonValue) {
+        int max = limit != null && limit > 0 ? limit : Integer.MAX_VALUE;
+        var rows = new ArrayList<TemporalEvent>();
+        scan(type, from, to, null, jsonPath, jsonValue, e -> rows.add(e) && rows.size() < max);
+        return Collections.unmodifiableList(rows);
+    }
 
-        Stream<TemporalEvent> stream = byId.values().stream().flatMap(List::stream);
+    @Override
+    public EventPage searchPage(
+            String type, Instant from, Instant to,
+            String jsonPath, String jsonValue, Cursor after, int limit) {
+        var rows = new ArrayList<TemporalEvent>();
+        scan(type, from, to, after, jsonPath, jsonValue, e -> rows.add(e) && rows.size() <= limit);
+        return EventPage.of(rows, limit);
+    }
 
-        if (type != null) {
-            stream = stream.filter(e -> type.equals(e.type()));
+    @Override
+    public void searchEach(
+            String type, Instant from, Instant to,
+            Integer limit, String jsonPath, String jsonValue,
+            Consumer<? super TemporalEvent> sink) {
+        long max = limit != null && limit > 0 ? limit : Long.MAX_VALUE;
+        var sent = new long[1];
+        scan(type, from, to, null, jsonPath, jsonValue, e -> {
+            sink.accept(e);
+            return ++sent[0] < max;
+        });
+    }
+
+    /** Matching events in {@code (observedAt, seq)} order until {@code sink} returns false. */
+    private void scan(
+            String type, Instant from, Instant to, Cursor after,
+            String jsonPath, String jsonValue, Predicate<TemporalEvent> sink) {
+        NavigableMap<Cursor, TemporalEvent> index = type == null ? byTime : byType.get(type);
+        if (index == null) return;
+        for (var e : range(index, from, to, after).values()) {
+            if (matches(e, jsonPath, jsonValue) && !sink.test(e)) return;
         }
-        if (from != null) {
-            stream = stream.filter(e -> !e.observedAt().isBefore(from));
+    }
+
+    /** Events at or after {@code from}, strictly after {@code after}, at or before {@code to}; any may be null. */
+    private static NavigableMap<Cursor, TemporalEvent> range(
+            NavigableMap<Cursor, TemporalEvent> index, Instant from, Instant to, Cursor after) {
+        Cursor lo = from == null ? null : new Cursor(from, Long.MIN_VALUE);
+        boolean loInclusive = true;
+        if (after != null && (lo == null || KEY_ORDER.compare(after, lo) >= 0)) {
+            lo = after;
+            loInclusive = false;
         }
-        if (to != null) {
-            stream = stream.filter(e -> !e.observedAt().isAfter(to));
+        Cursor hi = to == null ? null : new Cursor(to, Long.MAX_VALUE);
+        if (lo != null && hi != null) {
+            return KEY_ORDER.compare(lo, hi) > 0 ? Collections.emptyNavigableMap() : index.subMap(lo, loInclusive, hi, true);
         }
-        if (jsonPath != null && jsonValue != null) {
-            // simple top-level containment: payload[jsonPath] == jsonValue (string compare)
-            stream = stream.filter(e -> {
-                Object v = e.payload().get(jsonPath);
-                return Objects.equals(v == null ? null : String.valueOf(v), jsonValue);
-            });
+        if (lo != null) return index.tailMap(lo, loInclusive);
+        if (hi != null) return index.headMap(hi, true);
+        return index;
+    }
+
+    private static boolean matches(TemporalEvent e, String jsonPath, String jsonValue) {
+        if (jsonPath == null || jsonValue == null) return true;
+        // simple top-level containment: payload[jsonPath] == jsonValue (string compare)
+        Object v = e.payload().get(jsonPath);
+        return Objects.equals(v == null ? null : String.valueOf(v), jsonValue);
+    }
+
+    /**
+     * One entity's events in append (= seq) order. Chunks are only ever appended to, so a reader
+     * that reads {@code size} first can walk that prefix without a lock. While events arrive in
+     * {@code (observedAt, seq)} order the prefix is already sorted and reads binary-search it; the
+     * first late event switches the entity to a skip list, which it keeps from then on.
+     */
+    private static final class EntityLog {
+        private static final int CHUNK = 1024;
+
+        // the tail chunk starts small and doubles up to CHUNK, so small entities stay small
+        private volatile TemporalEvent[][] chunks = {new TemporalEvent[4]};
+        private volatile int size;
+        private volatile ConcurrentSkipListMap<Cursor, TemporalEvent> sorted;
+
+        int size() { return size; }
+
+        /** Callers hold this log's monitor. */
+        void append(TemporalEvent e, Cursor key) {
+            int n = size;
+            var c = chunks;
+            if (sorted == null && n > 0 && e.observedAt().isBefore(c[(n - 1) / CHUNK][(n - 1) % CHUNK].observedAt())) {
+                var s = new ConcurrentSkipListMap<Cursor, TemporalEvent>(KEY_ORDER);
+                for (int i = 0; i < n; i++) {
+                    var prior = c[i / CHUNK][i % CHUNK];
+                    s.put(Cursor.after(prior), prior);
+                }
+                sorted = s;
+            }
+            if (sorted != null) sorted.put(key, e);
+
+            int chunk = n / CHUNK, at = n % CHUNK;
+            if (chunk == c.length) {
+                c = Arrays.copyOf(c, chunk + 1);
+                c[chunk] = new TemporalEvent[4];
+            } else if (at == c[chunk].length) {
+                // readers holding the old arrays only look below their size, which they still cover
+                c = c.clone();
+                c[chunk] = Arrays.copyOf(c[chunk], Math.min(at * 2, CHUNK));
+            }
+            c[chunk][at] = e;
+            chunks = c;
+            size = n + 1;   // publishes the slot, and the skip list if this append created it
         }
 
-        stream = stream.sorted(Comparator.comparing(TemporalEvent::observedAt));
+        /** Events after {@code after} and not after {@code asOf}, in order, until {@code sink} returns false. */
+        void forEach(Cursor after, Instant asOf, Predicate<? super TemporalEvent> sink) {
+            int n = size;
+            var s = sorted;
+            if (s != null) {
+                for (var e : range(s, null, asOf, after).values()) if (!sink.test(e)) return;
+                return;
+            }
+            var c = chunks;
+            for (int i = after == null ? 0 : firstAfter(c, n, after); i < n; i++) {
+                var e = c[i / CHUNK][i % CHUNK];
+                if (asOf != null && e.observedAt().isAfter(asOf)) return;
+                if (!sink.test(e)) return;
+            }
+        }
 
-        if (limit != null && limit > 0) {
-            stream = stream.limit(limit);
+        /** Up to {@code limit} events with seq above {@code afterSeq}, in seq (= append) order. */
+        void since(long afterSeq, int limit, List<TemporalEvent> out) {
+            int n = size;
+            var c = chunks;
+            int lo = 0, hi = n;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (c[mid / CHUNK][mid % CHUNK].seq() > afterSeq) hi = mid;
+                else lo = mid + 1;
+            }
+            for (int i = lo; i < n && out.size() < limit; i++) out.add(c[i / CHUNK][i % CHUNK]);
         }
 
-        return stream.toList();
+        private static int firstAfter(TemporalEvent[][] c, int n, Cursor after) {
+            int lo = 0, hi = n;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (after.isBefore(c[mid / CHUNK][mid % CHUNK])) hi = mid;
+                else lo = mid + 1;
+            }
+            return lo;
+        }
     }
-
 }
@@ -0,0 +1,57 @@
+package io.chronoforge.store;
+
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * Commit-ordered position in the log, for feeds that hand clients a point to resume from.
+ *
+ * {@code seq} is taken at insert time, so where appends commit concurrently (Postgres) a lower
+ * seq can become visible after a higher one, and "everything after seq n" would skip it. There
+ * {@code tx} is the writing transaction, and positions order by {@code (tx, seq)}: a reader
+ * that only returns rows below the oldest transaction still in flight never hands out a
+ * position something can later commit before. Stores that make seqs visible in order use
+ * {@code tx = 0} throughout. A position with {@code tx = 0} (other than {@link #START}) given to the Postgres store means
+ * "only the seq is known" (an id from before positions carried a tx).
+ *
+ * Travels as {@code "tx.seq"}, or the bare seq when {@code tx} is 0.
+ */
+public record LogPosition(long tx, long seq) implements Comparable<LogPosition> {
+    private static final Comparator<LogPosition> ORDER =
+            Comparator.comparingLong(LogPosition::tx).thenComparingLong(LogPosition::seq);
+
+    /** Before every event. */
+    public static final LogPosition START = new LogPosition(0, 0);
+
+    public LogPosition {
+        if (tx < 0 || seq < 0) throw new IllegalArgumentException("Negative log position: " + tx + "." + seq);
+    }
+
+    /** Position of a store whose seqs become visible in order. */
+    public static LogPosition ofSeq(long seq) {
+        return new LogPosition(0, seq);
+    }
+
+    @Override
+    public int compareTo(LogPosition o) {
+        return ORDER.compare(this, o);
+    }
+
+    public String encode() {
+        return tx == 0 ? Long.toString(seq) : tx + "." + seq;
+    }
+
+    /** @throws IllegalArgumentException if {@code token} was not produced by {@link #encode()} */
+    public static LogPosition decode(String token) {
+        var s = Objects.requireNonNull(token).trim();
+        int dot = s.indexOf('.');
+        try {
+            return dot < 0 ? ofSeq(Long.parseLong(s))
+                    : new LogPosition(Long.parseLong(s.substring(0, dot)), Long.parseLong(s.substring(dot + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed log position: " + token, e);
+        }
+    }
+
+    @Override public String toString() { return encode(); }
+}
@@ -0,0 +1,63 @@
+package io.chronoforge.store;
+
+import io.chronoforge.core.TemporalEvent;
+import io.chronoforge.core.TemporalId;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/** Passes every call to {@code delegate}; tests override {@link #append} to inject failures or costs. */
+class ForwardingEventStore implements EventStore {
+    final EventStore delegate;
+
+    ForwardingEventStore(EventStore delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public AppendResult append(List<TemporalEvent> events, String idempotencyKey) { return delegate.append(events, idempotencyKey); }
+
+    @Override
+    public List<TemporalEvent> read(TemporalId id) { return delegate.read(id); }
+
+    @Override
+    public void readEach(TemporalId id, Cursor after, Instant asOf, Consumer<? super TemporalEvent> sink) {
+        delegate.readEach(id, after, asOf, sink);
+    }
+
+    @Override
+    public void readSince(long afterSeq, Consumer<? super TemporalEvent> sink) { delegate.readSince(afterSeq, sink); }
+
+    @Override
+    public List<TemporalEvent> readSince(TemporalId id, long afterSeq, int limit) { return delegate.readSince(id, afterSeq, limit); }
+
+    @Override
+    public EventPage readPage(TemporalId id, Instant asOf, Cursor after, int limit) { return delegate.readPage(id, asOf, after, limit); }
+
+    @Override
+    public List<Positioned> readAfter(TemporalId id, LogPosition after, int limit) { return delegate.readAfter(id, after, limit); }
+
+    @Override
+    public Flow.Publisher<TemporalEvent> subscribe() { return delegate.subscribe(); }
+
+    @Override
+    public Flow.Publisher<Positioned> subscribePositioned() { return delegate.subscribePositioned(); }
+
+    @Override
+    public List<TemporalEvent> search(String type, Instant from, Instant to, Integer limit, String jsonPath, String jsonValue) {
+        return delegate.search(type, from, to, limit, jsonPath, jsonValue);
+    }
+
+    @Override
+    public EventPage searchPage(String type, Instant from, Instant to, String jsonPath, String jsonValue, Cursor after, int limit) {
+        return delegate.searchPage(type, from, to, jsonPath, jsonValue, after, limit);
+    }
+
+    @Override
+    public void searchEach(String type, Instant from, Instant to, Integer limit,
+                           String jsonPath, String jsonValue, Consumer<? super TemporalEvent> sink) {
+        delegate.searchEach(type, from, to, limit, jsonPath, jsonValue, sink);
+    }
+}
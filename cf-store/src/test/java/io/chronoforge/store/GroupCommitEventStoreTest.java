@@ -0,0 +1,154 @@
+package io.chronoforge.store;
+
+import io.chronoforge.core.TemporalEvent;
+import io.chronoforge.core.TemporalId;
+import io.chronoforge.core.VectorClock;
+import io.chronoforge.store.GroupCommitEventStore.Pending;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GroupCommitEventStoreTest {
+
+    private static final TemporalId DOC = new TemporalId(UUID.fromString("11111111-1111-1111-1111-111111111111"));
+
+    private static TemporalEvent event(String type, int i) {
+        return new TemporalEvent(DOC, type, Instant.EPOCH.plusSeconds(i), VectorClock.copyOf(Map.of("api", (long) i + 1)),
+                Map.of("i", i), "api");
+    }
+
+    private static Pending pending(TemporalEvent... events) {
+        return new Pending(List.of(events), new CompletableFuture<>());
+    }
+
+    private static List<Object> is(List<TemporalEvent> events) {
+        return events.stream().map(e -> e.payload().get("i")).toList();
+    }
+
+    /** Releases {@code batches} of events at once; each list is one caller's append. */
+    private static List<Future<AppendResult>> burst(EventStore store, List<List<TemporalEvent>> batches) throws InterruptedException {
+        var release = new CountDownLatch(1);
+        var results = new ArrayList<Future<AppendResult>>();
+        try (var callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (var events : batches) {
+                results.add(callers.submit(() -> {
+                    release.await();
+                    return store.append(events);
+                }));
+            }
+            release.countDown();
+        }
+        return results;
+    }
+
+    @Test
+    void concurrentCallers_eachGetTheirOwnEventsBack() throws Exception {
+        var memory = new InMemoryEventStore();
+        var batches = new ArrayList<List<TemporalEvent>>();
+        for (int c = 0; c < 200; c++) {
+            var events = new ArrayList<TemporalEvent>();
+            for (int k = 0; k <= c % 3; k++) events.add(event("DOC_SET", c * 10 + k));
+            batches.add(events);
+        }
+
+        try (var group = new GroupCommitEventStore(memory, Duration.ofMillis(50), 500)) {
+            var results = burst(group, batches);
+            for (int c = 0; c < batches.size(); c++) {
+                var result = results.get(c).get();
+                assertThat(is(result.appended())).isEqualTo(is(batches.get(c)));
+                assertThat(result.duplicates()).isEmpty();
+                assertThat(result.appended().stream().mapToLong(TemporalEvent::seq).min().orElseThrow()).isPositive();
+            }
+            assertThat(group.stats().appends()).isEqualTo(200L);
+            assertThat(group.stats().events()).isEqualTo(399L);
+            assertThat(group.stats().appendsPerBatch()).isGreaterThan(1.0);
+        }
+        assertThat(memory.read(DOC)).hasSize(399);
+    }
+
+    @Test
+    void aFailingEvent_failsOnlyItsOwnCaller() throws Exception {
+        var memory = new InMemoryEventStore();
+        var rejecting = new ForwardingEventStore(memory) {
+            @Override
+            public AppendResult append(List<TemporalEvent> events, String idempotencyKey) {
+                if (events.stream().anyMatch(e -> e.type().equals("BAD"))) throw new IllegalArgumentException("bad event");
+                return super.append(events, idempotencyKey);
+            }
+        };
+        var batches = new ArrayList<List<TemporalEvent>>();
+        for (int c = 0; c < 20; c++) batches.add(List.of(event(c == 7 ? "BAD" : "DOC_SET", c)));
+
+        try (var group = new GroupCommitEventStore(rejecting, Duration.ofMillis(50), 500)) {
+            var results = burst(group, batches);
+            for (int c = 0; c < batches.size(); c++) {
+                var result = results.get(c);
+                if (c == 7) {
+                    assertThatThrownBy(result::get).isInstanceOf(ExecutionException.class)
+                            .hasRootCauseInstanceOf(IllegalArgumentException.class);
+                } else {
+                    assertThat(result.get().appendedCount()).isEqualTo(1);
+                }
+            }
+        }
+        assertThat(memory.read(DOC)).hasSize(19);
+        assertThat(memory.search("BAD", null, null, null, null, null)).isEmpty();
+    }
+
+    @Test
+    void split_placesDuplicatesByPositionNotIdentity() {
+        var e1 = event("DOC_SET", 1);
+        var e2 = event("DOC_SET", 2);
+        var e3 = event("DOC_SET", 3);
+        var again = event("DOC_SET", 1);     // equal to e1, another instance
+        var a = pending(e1, e2);
+        var b = pending(again, e3);
+
+        // the store kept the first occurrence and reported a copy of the second as the duplicate
+        GroupCommitEventStore.split(new AppendResult(List.of(e1.withSeq(1), e2.withSeq(2), e3.withSeq(3)),
+                List.of(event("DOC_SET", 1))), List.of(a, b));
+
+        assertThat(a.result().join().appended()).extracting(TemporalEvent::seq).containsExactly(1L, 2L);
+        assertThat(a.result().join().duplicates()).isEmpty();
+        assertThat(b.result().join().appended()).extracting(TemporalEvent::seq).containsExactly(3L);
+        assertThat(b.result().join().duplicates()).containsExactly(again);
+    }
+
+    @Test
+    void split_eventsAlreadyStoredAreDuplicatesOfWhoeverSentThem() {
+        var e1 = event("DOC_SET", 1);
+        var e2 = event("DOC_SET", 2);
+        var a = pending(e1);
+        var b = pending(e2, event("DOC_SET", 1));
+
+        GroupCommitEventStore.split(new AppendResult(List.of(e2.withSeq(7)), List.of(e1, e1)), List.of(a, b));
+
+        assertThat(a.result().join().appendedCount()).isZero();
+        assertThat(a.result().join().duplicateCount()).isEqualTo(1);
+        assertThat(b.result().join().appended()).extracting(TemporalEvent::seq).containsExactly(7L);
+        assertThat(b.result().join().duplicateCount()).isEqualTo(1);
+    }
+
+    @Test
+    void split_refusesAResultThatDoesNotMatchTheBatch() {
+        var a = pending(event("DOC_SET", 1));
+
+        assertThatThrownBy(() -> GroupCommitEventStore.split(
+                new AppendResult(List.of(event("DOC_SET", 2).withSeq(1)), List.of()), List.of(a)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(a.result().isDone()).isFalse();
+    }
+}
@@ -0,0 +1,106 @@
+package io.chronoforge.store;
+
+import io.chronoforge.core.TemporalEvent;
+import io.chronoforge.core.TemporalId;
+import io.chronoforge.core.VectorClock;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Many concurrent single-event writers, appending directly and through
+ * {@link GroupCommitEventStore}, against a store whose every append costs one serialized
+ * {@link #COMMIT} (a log flush per transaction, as a database commit pays). Latency is measured
+ * from the moment all writers are released, i.e. what a burst of requests sees. Direct writers
+ * queue behind each other's commits; grouped ones share them, so their p99 has to be at least
+ * {@link #MIN_SPEEDUP} times lower.
+ */
+class GroupCommitLatencyTest {
+
+    private static final int WRITERS = 1_000;
+    private static final Duration COMMIT = Duration.ofMillis(1);
+    private static final int MIN_SPEEDUP = 5;
+
+    /** One commit at a time, each taking {@link #COMMIT}. */
+    private static final class CommitCost extends ForwardingEventStore {
+        private final ReentrantLock log = new ReentrantLock();
+
+        CommitCost(EventStore delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public AppendResult append(List<TemporalEvent> events, String idempotencyKey) {
+            log.lock();
+            try {
+                Thread.sleep(COMMIT);
+                return super.append(events, idempotencyKey);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } finally {
+                log.unlock();
+            }
+        }
+    }
+
+    @Test
+    void groupCommitCutsTailLatencyUnderConcurrentWriters() throws Exception {
+        var store = new CommitCost(new InMemoryEventStore());
+        long[] direct = burst(store);
+        long[] grouped;
+        double perBatch;
+        try (var groupCommit = new GroupCommitEventStore(store, Duration.ofMillis(2), 500)) {
+            grouped = burst(groupCommit);
+            perBatch = groupCommit.stats().appendsPerBatch();
+        }
+        assertThat(ms(grouped, 0.99) * MIN_SPEEDUP)
+                .as("%d writers: direct p50 %.1f ms p99 %.1f ms | group commit p50 %.1f ms p99 %.1f ms (%.0f appends/batch)",
+                        WRITERS, ms(direct, 0.50), ms(direct, 0.99), ms(grouped, 0.50), ms(grouped, 0.99), perBatch)
+                .isLessThan(ms(direct, 0.99));
+    }
+
+    /** Completion time of each writer since release, sorted. */
+    private static long[] burst(EventStore target) throws Exception {
+        var id = new TemporalId(UUID.randomUUID());
+        var latencies = new long[WRITERS];
+        var release = new CountDownLatch(1);
+        var released = new long[1];
+        var futures = new ArrayList<Future<?>>(WRITERS);
+        try (var writers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < WRITERS; i++) {
+                int n = i;
+                futures.add(writers.submit(() -> {
+                    var ev = new TemporalEvent(id, "DOC_SET", Instant.EPOCH.plusMillis(n),
+                            new VectorClock().tick("bench"), Map.of("i", n), "bench");
+                    release.await();
+                    var result = target.append(List.of(ev));
+                    latencies[n] = System.nanoTime() - released[0];
+                    assertThat(result.appendedCount()).isEqualTo(1);
+                    return null;
+                }));
+            }
+            released[0] = System.nanoTime();
+            release.countDown();
+            for (var f : futures) f.get();
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private static double ms(long[] sorted, double quantile) {
+        return sorted[(int) Math.ceil(quantile * sorted.length) - 1] / 1e6;
+    }
+}
@@ -0,0 +1,226 @@
+package io.chronoforge.store;
+
+import io.chronoforge.core.TemporalEvent;
+import io.chronoforge.core.TemporalId;
+import io.chronoforge.core.VectorClock;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryEventStoreTest {
+
+    private static final Instant T0 = Instant.parse("2024-03-01T10:00:00Z");
+    private static final TemporalId DOC = new TemporalId(UUID.fromString("11111111-1111-1111-1111-111111111111"));
+    private static final TemporalId OTHER = new TemporalId(UUID.fromString("22222222-2222-2222-2222-222222222222"));
+
+    private final InMemoryEventStore store = new InMemoryEventStore();
+
+    private static TemporalEvent event(TemporalId id, String type, long second, int i) {
+        return new TemporalEvent(id, type, T0.plusSeconds(second), VectorClock.copyOf(Map.of("api", (long) i + 1)),
+                Map.of("i", i), "api");
+    }
+
+    private static List<Long> seqs(List<TemporalEvent> events) {
+        return events.stream().map(TemporalEvent::seq).toList();
+    }
+
+    private static List<Object> is(List<TemporalEvent> events) {
+        return events.stream().map(e -> e.payload().get("i")).toList();
+    }
+
+    @Test
+    void append_assignsSeqsAndReadsInTimeOrder() {
+        var result = store.append(List.of(event(DOC, "DOC_SET", 1, 0), event(OTHER, "DOC_SET", 2, 1), event(DOC, "DOC_DEL", 3, 2)));
+
+        assertThat(seqs(result.appended())).containsExactly(1L, 2L, 3L);
+        assertThat(is(store.read(DOC))).containsExactly(0, 2);
+        assertThat(store.read(new TemporalId(UUID.randomUUID()))).isEmpty();
+        assertThat(store.append(List.of(event(DOC, "DOC_SET", 4, 3)), "key").appendedCount()).isEqualTo(1);
+        assertThat(store.append(List.of(event(DOC, "DOC_SET", 4, 3)), "key").duplicateCount()).isEqualTo(1);
+    }
+
+    @Test
+    void idempotencyKey_isForgottenAfterItsTtl() throws InterruptedException {
+        var store = new InMemoryEventStore(Duration.ofMillis(50));
+        assertThat(store.append(List.of(event(DOC, "DOC_SET", 1, 0)), "key").appendedCount()).isEqualTo(1);
+        assertThat(store.append(List.of(event(DOC, "DOC_SET", 1, 0)), "key").duplicateCount()).isEqualTo(1);
+
+        Thread.sleep(100);
+        assertThat(store.append(List.of(event(DOC, "DOC_SET", 1, 0)), "key").appendedCount()).isEqualTo(1);
+        assertThat(store.read(DOC)).hasSize(2);
+    }
+
+    @Test
+    void lateEvents_areReadInObservedAtThenSeqOrder() {
+        // in order at first, so the entity starts on its chunked log
+        store.append(List.of(event(DOC, "DOC_SET", 10, 0), event(DOC, "DOC_SET", 20, 1), event(DOC, "DOC_SET", 30, 2)));
+        var ordered = store.readPage(DOC, null, null, 10);
+        assertThat(is(ordered.events())).containsExactly(0, 1, 2);
+
+        // the first late event switches it to the skip list; ties on observedAt go by seq
+        store.append(List.of(event(DOC, "DOC_SET", 15, 3), event(DOC, "DOC_SET", 5, 4), event(DOC, "DOC_SET", 20, 5)));
+        store.append(List.of(event(DOC, "DOC_SET", 40, 6)));
+
+        assertThat(is(store.read(DOC))).containsExactly(4, 0, 3, 1, 5, 2, 6);
+        assertThat(store.read(DOC)).isSortedAccordingTo(Cursor.ORDER);
+
+        // resuming from a position handed out before the late events sees them only if they sort after it
+        var after = Cursor.after(ordered.events().get(0));        // (10s, seq 1)
+        var rest = new ArrayList<TemporalEvent>();
+        store.readEach(DOC, after, T0.plusSeconds(20), rest::add);
+        assertThat(is(rest)).containsExactly(3, 1, 5);
+
+        var first = store.readPage(DOC, null, null, 3);
+        assertThat(is(first.events())).containsExactly(4, 0, 3);
+        var second = store.readPage(DOC, null, first.next(), 3);
+        assertThat(is(second.events())).containsExactly(1, 5, 2);
+        var last = store.readPage(DOC, null, second.next(), 3);
+        assertThat(is(last.events())).containsExactly(6);
+        assertThat(last.hasNext()).isFalse();
+    }
+
+    @Test
+    void readEach_binarySearchesTheChunkedLog() {
+        var events = new ArrayList<TemporalEvent>();
+        for (int i = 0; i < 3_000; i++) events.add(event(DOC, "DOC_SET", i, i));   // spans three chunks
+        store.append(events);
+
+        var all = store.read(DOC);
+        assertThat(all).hasSize(3_000);
+        var from = new ArrayList<TemporalEvent>();
+        store.readEach(DOC, Cursor.after(all.get(1_500)), T0.plusSeconds(2_100), from::add);
+        assertThat(from).hasSize(600);
+        assertThat(from.get(0).payload().get("i")).isEqualTo(1_501);
+        assertThat(from.get(599).payload().get("i")).isEqualTo(2_100);
+    }
+
+    @Test
+    void search_walksTheTimeAndTypeIndexes() {
+        for (int i = 0; i < 10; i++) store.append(List.of(event(i % 2 == 0 ? DOC : OTHER, i % 3 == 0 ? "DOC_DEL" : "DOC_SET", i, i)));
+
+        assertThat(is(store.search("DOC_DEL", null, null, null, null, null))).containsExactly(0, 3, 6, 9);
+        assertThat(is(store.search(null, T0.plusSeconds(2), T0.plusSeconds(4), null, null, null))).containsExactly(2, 3, 4);
+        assertThat(is(store.search(null, null, null, 3, null, null))).containsExactly(0, 1, 2);
+        assertThat(is(store.search(null, null, null, null, "i", "7"))).containsExactly(7);
+        assertThat(store.search("UNKNOWN", null, null, null, null, null)).isEmpty();
+
+        var page = store.searchPage("DOC_SET", null, null, null, null, null, 4);
+        assertThat(is(page.events())).containsExactly(1, 2, 4, 5);
+        assertThat(is(store.searchPage("DOC_SET", null, null, null, null, page.next(), 4).events())).containsExactly(7, 8);
+
+        var streamed = new ArrayList<TemporalEvent>();
+        store.searchEach(null, T0.plusSeconds(5), null, 2, null, null, streamed::add);
+        assertThat(is(streamed)).containsExactly(5, 6);
+    }
+
+    @Test
+    void readSinceForAnEntity_pagesThroughItsOwnLog() {
+        for (int i = 0; i < 2_500; i++) store.append(List.of(event(i % 3 == 0 ? OTHER : DOC, "DOC_SET", i, i)));
+        // a late event still comes back in seq order
+        store.append(List.of(event(DOC, "DOC_SET", -1, 2_500)));
+
+        var seen = new ArrayList<TemporalEvent>();
+        long after = 0;
+        for (List<TemporalEvent> page; !(page = store.readSince(DOC, after, 100)).isEmpty(); after = page.getLast().seq()) {
+            assertThat(page).hasSizeLessThanOrEqualTo(100);
+            seen.addAll(page);
+        }
+        var expected = store.read(DOC).stream().sorted(Comparator.comparingLong(TemporalEvent::seq)).toList();
+        assertThat(seen).isEqualTo(expected);
+        assertThat(seen.getLast().payload().get("i")).isEqualTo(2_500);
+        assertThat(store.readSince(DOC, seen.getLast().seq(), 100)).isEmpty();
+        assertThat(store.readSince(new TemporalId(UUID.randomUUID()), 0, 100)).isEmpty();
+        assertThat(seqs(store.readSince(null, 10, 3))).containsExactly(11L, 12L, 13L);
+    }
+
+    @Test
+    void concurrentAppends_readersNeverSkipASeq() throws Exception {
+        int writers = 16, perWriter = 500, total = writers * perWriter;
+        var entities = new ArrayList<TemporalId>();
+        for (int i = 0; i < 8; i++) entities.add(new TemporalId(new UUID(0, i)));
+        var start = new CountDownLatch(1);
+        var done = new AtomicBoolean();
+        // subscribers get seqs in order too, so the last one they saw is a safe resume point
+        var published = new ArrayList<Long>(total);
+        var allPublished = new CountDownLatch(total);
+        store.subscribe().subscribe(new Flow.Subscriber<>() {
+            @Override public void onSubscribe(Flow.Subscription s) { s.request(Long.MAX_VALUE); }
+            @Override public void onNext(TemporalEvent e) {
+                published.add(e.seq());
+                allPublished.countDown();
+            }
+            @Override public void onError(Throwable t) {}
+            @Override public void onComplete() {}
+        });
+
+        try (var pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            // pages resume from the last seq returned; a page that ran past a gap would lose the event in it
+            Future<List<Long>> tailer = pool.submit(() -> {
+                var seen = new ArrayList<Long>(total);
+                long after = 0;
+                while (seen.size() < total) {
+                    var page = store.readSince(null, after, 64);
+                    for (var e : page) {
+                        if (e.seq() != after + 1) throw new AssertionError("skipped from " + after + " to " + e.seq());
+                        seen.add(after = e.seq());
+                    }
+                    if (page.isEmpty()) {
+                        if (done.get() && store.readSince(null, after, 1).isEmpty()) break;
+                        Thread.yield();     // lets the writers have the carrier
+                    }
+                }
+                return seen;
+            });
+            var appends = new ArrayList<Future<?>>();
+            for (int w = 0; w < writers; w++) {
+                int writer = w;
+                appends.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perWriter; i++) {
+                        var id = entities.get((writer + i) % entities.size());
+                        // every few events lands in the past, so entities switch to skip lists mid-run
+                        long second = i % 7 == 0 ? -i : i;
+                        store.append(List.of(event(id, i % 2 == 0 ? "DOC_SET" : "DOC_DEL", second, writer * perWriter + i)));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (var a : appends) a.get();
+            done.set(true);
+
+            var seen = tailer.get();
+            assertThat(seen).hasSize(total);
+            assertThat(seen.getLast()).isEqualTo((long) total);
+        }
+        assertThat(allPublished.await(30, TimeUnit.SECONDS)).isTrue();
+        assertThat(published).isEqualTo(LongStream.rangeClosed(1, total).boxed().toList());
+
+        var fromEntities = 0;
+        for (var id : entities) {
+            var events = store.read(id);
+            assertThat(events).isSortedAccordingTo(Cursor.ORDER);
+            assertThat(events.stream().map(TemporalEvent::entityId).distinct().toList()).containsExactly(id);
+            fromEntities += events.size();
+        }
+        assertThat(fromEntities).isEqualTo(total);
+        assertThat(store.search(null, null, null, null, null, null)).hasSize(total).isSortedAccordingTo(Cursor.ORDER);
+        assertThat(store.search("DOC_SET", null, null, null, null, null).size()
+                + store.search("DOC_DEL", null, null, null, null, null).size()).isEqualTo(total);
+    }
+}